@@ -1,11 +1,9 @@
 import BaseResponse from 'models/BaseResponse';
 import { CollectionWrapper } from 'types';
 import { VariantPropertyItem } from 'models/Variant';
-import { DocketVariantEliminatedResponse } from 'models/DocketVariantEliminatedResponse';
 
 export interface VariantInventoryResponse {
   variant: VariantResponse;
-  transactions: DocketVariantEliminatedResponse[];
   inventory: number;
   waitingForDelivery: number;
   canBeSold: number;
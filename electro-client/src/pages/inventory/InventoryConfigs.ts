@@ -5,6 +5,8 @@ import ResourceURL from 'constants/ResourceURL';
 class InventoryConfigs extends Configs {
   static productInventoryResourceUrl = ResourceURL.PRODUCT_INVENTORY;
   static productInventoryResourceKey = 'product-inventories';
+  static productTransactionResourceUrl = (productId: number) => `${ResourceURL.PRODUCT_INVENTORY}/${productId}/transactions`;
+  static transactionPageSize = 10;
   static manageTitle = 'Theo dõi tồn kho sản phẩm';
   static manageTitleLinks: TitleLink[] = WarehouseConfigs.manageTitleLinks;
 }
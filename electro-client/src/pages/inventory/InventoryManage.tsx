@@ -1,5 +1,16 @@
-import React from 'react';
-import { ActionIcon, Anchor, Badge, Stack, Table, useMantineTheme } from '@mantine/core';
+import React, { useState } from 'react';
+import {
+  ActionIcon,
+  Anchor,
+  Badge,
+  Group,
+  LoadingOverlay,
+  Pagination,
+  Stack,
+  Table,
+  Text,
+  useMantineTheme
+} from '@mantine/core';
 import { ManageHeader, ManageHeaderTitle, ManageMain, ManagePagination } from 'components';
 import InventoryConfigs from 'pages/inventory/InventoryConfigs';
 import PageConfigs from 'pages/PageConfigs';
@@ -11,6 +22,9 @@ import { Plus } from 'tabler-icons-react';
 import { DocketVariantExtendedResponse } from 'models/DocketVariantExtended';
 import { useModals } from '@mantine/modals';
 import DateUtils from 'utils/DateUtils';
+import { useQuery } from 'react-query';
+import FetchUtils, { ErrorMessage } from 'utils/FetchUtils';
+import NotifyUtils from 'utils/NotifyUtils';
 
 function InventoryManage() {
   useResetManagePageState();
@@ -26,14 +40,14 @@ function InventoryManage() {
     InventoryConfigs.productInventoryResourceKey
   );
 
-  const handleTransactionsAnchor = (productName: string, transactions: DocketVariantExtendedResponse[]) => {
+  const handleTransactionsAnchor = (productId: number, productName: string) => {
     modals.openModal({
       size: 1200,
       overlayColor: theme.colorScheme === 'dark' ? theme.colors.dark[9] : theme.colors.gray[2],
       overlayOpacity: 0.55,
       overlayBlur: 3,
       title: <strong>Lịch sử nhập xuất của sản phẩm &quot;{productName}&quot;</strong>,
-      children: <ProductInventoryTransactionsModal transactions={transactions}/>,
+      children: <ProductInventoryTransactionsModal productId={productId}/>,
     });
   };
 
@@ -73,7 +87,7 @@ function InventoryManage() {
         </ActionIcon>
       </td>
       <td>
-        <Anchor inherit onClick={() => handleTransactionsAnchor(entity.product.name, entity.transactions)}>
+        <Anchor inherit onClick={() => handleTransactionsAnchor(entity.product.id, entity.product.name)}>
           Giao dịch
         </Anchor>
       </td>
@@ -113,7 +127,28 @@ function InventoryManage() {
   );
 }
 
-function ProductInventoryTransactionsModal({ transactions }: { transactions: DocketVariantExtendedResponse[] }) {
+function ProductInventoryTransactionsModal({ productId }: { productId: number }) {
+  const [activePage, setActivePage] = useState(1);
+
+  const requestParams = {
+    page: activePage,
+    size: InventoryConfigs.transactionPageSize,
+  };
+
+  // Lịch sử nhập xuất được lấy theo trang khi mở hộp thoại
+  const {
+    isLoading,
+    data: transactions = PageConfigs.initialListResponse as ListResponse<DocketVariantExtendedResponse>,
+  } = useQuery<ListResponse<DocketVariantExtendedResponse>, ErrorMessage>(
+    [InventoryConfigs.productInventoryResourceKey, 'getTransactions', productId, requestParams],
+    () => FetchUtils.getAll<DocketVariantExtendedResponse>(InventoryConfigs.productTransactionResourceUrl(productId), requestParams),
+    {
+      onError: () => NotifyUtils.simpleFailed('Lấy dữ liệu không thành công'),
+      refetchOnWindowFocus: false,
+      keepPreviousData: true,
+    }
+  );
+
   const docketTypeBadgeFragment = (type: number) => {
     switch (type) {
     case 1:
@@ -137,41 +172,57 @@ function ProductInventoryTransactionsModal({ transactions }: { transactions: Doc
   };
 
   return (
-    <Table
-      horizontalSpacing="xs"
-      verticalSpacing="xs"
-      highlightOnHover
-      striped
-    >
-      <thead>
-        <tr>
-          <th>Phiếu</th>
-          <th>Ngày tạo</th>
-          <th>Lý do</th>
-          <th>Mã đơn nhập hàng</th>
-          <th>Mã đơn hàng</th>
-          <th>Số lượng</th>
-          <th>SKU</th>
-          <th>Kho</th>
-          <th>Trạng thái</th>
-        </tr>
-      </thead>
-      <tbody>
-        {transactions.map(transaction => (
-          <tr key={transaction.docket.code}>
-            <td>{docketTypeBadgeFragment(transaction.docket.type)}</td>
-            <td>{DateUtils.isoDateToString(transaction.docket.createdAt)}</td>
-            <td>{transaction.docket.reason.name}</td>
-            <td>{transaction.docket.purchaseOrder?.code}</td>
-            <td>{transaction.docket.order?.code}</td>
-            <td>{transaction.quantity}</td>
-            <td>{transaction.variant.sku}</td>
-            <td>{transaction.docket.warehouse.name}</td>
-            <td>{docketStatusBadgeFragment(transaction.docket.status)}</td>
+    <Stack>
+      <LoadingOverlay visible={isLoading}/>
+      <Table
+        horizontalSpacing="xs"
+        verticalSpacing="xs"
+        highlightOnHover
+        striped
+      >
+        <thead>
+          <tr>
+            <th>Phiếu</th>
+            <th>Ngày tạo</th>
+            <th>Lý do</th>
+            <th>Mã đơn nhập hàng</th>
+            <th>Mã đơn hàng</th>
+            <th>Số lượng</th>
+            <th>SKU</th>
+            <th>Kho</th>
+            <th>Trạng thái</th>
           </tr>
-        ))}
-      </tbody>
-    </Table>
+        </thead>
+        <tbody>
+          {transactions.content.map(transaction => (
+            <tr key={transaction.docket.code + '-' + transaction.variant.sku}>
+              <td>{docketTypeBadgeFragment(transaction.docket.type)}</td>
+              <td>{DateUtils.isoDateToString(transaction.docket.createdAt)}</td>
+              <td>{transaction.docket.reason.name}</td>
+              <td>{transaction.docket.purchaseOrder?.code}</td>
+              <td>{transaction.docket.order?.code}</td>
+              <td>{transaction.quantity}</td>
+              <td>{transaction.variant.sku}</td>
+              <td>{transaction.docket.warehouse.name}</td>
+              <td>{docketStatusBadgeFragment(transaction.docket.status)}</td>
+            </tr>
+          ))}
+        </tbody>
+      </Table>
+      {transactions.totalPages > 1 && (
+        <Group position="apart">
+          <Pagination
+            page={activePage}
+            total={transactions.totalPages}
+            onChange={(page: number) => (page !== activePage) && setActivePage(page)}
+          />
+          <Text>
+            <Text component="span" weight={500}>Trang {activePage}</Text>
+            <span> / {transactions.totalPages}</span>
+          </Text>
+        </Group>
+      )}
+    </Stack>
   );
 }
 
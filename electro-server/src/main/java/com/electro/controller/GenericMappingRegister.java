@@ -121,7 +121,6 @@ import com.electro.entity.inventory.StorageLocation;
 import com.electro.entity.inventory.Transfer;
 import com.electro.entity.inventory.VariantInventoryLimit;
 import com.electro.entity.inventory.Warehouse;
-import com.electro.entity.order.Order;
 import com.electro.entity.order.OrderCancellationReason;
 import com.electro.entity.order.OrderResource;
 import com.electro.entity.product.Brand;
@@ -163,7 +162,6 @@ import com.electro.mapper.inventory.TransferMapper;
 import com.electro.mapper.inventory.VariantInventoryLimitMapper;
 import com.electro.mapper.inventory.WarehouseMapper;
 import com.electro.mapper.order.OrderCancellationReasonMapper;
-import com.electro.mapper.order.OrderMapper;
 import com.electro.mapper.order.OrderResourceMapper;
 import com.electro.mapper.product.BrandMapper;
 import com.electro.mapper.product.CategoryMapper;
@@ -204,7 +202,6 @@ import com.electro.repository.inventory.TransferRepository;
 import com.electro.repository.inventory.VariantInventoryLimitRepository;
 import com.electro.repository.inventory.WarehouseRepository;
 import com.electro.repository.order.OrderCancellationReasonRepository;
-import com.electro.repository.order.OrderRepository;
 import com.electro.repository.order.OrderResourceRepository;
 import com.electro.repository.product.BrandRepository;
 import com.electro.repository.product.CategoryRepository;
@@ -221,6 +218,7 @@ import com.electro.service.CrudService;
 import com.electro.service.GenericService;
 import com.electro.service.address.ProvinceService;
 import com.electro.service.inventory.DocketService;
+import com.electro.service.order.OrderService;
 import com.electro.service.promotion.PromotionService;
 import com.electro.service.review.ReviewService;
 import com.electro.service.waybill.WaybillService;
@@ -330,7 +328,6 @@ public class GenericMappingRegister {
     private GenericService<PurchaseOrder, PurchaseOrderRequest, PurchaseOrderResponse> purchaseOrderService;
     private GenericService<OrderResource, OrderResourceRequest, OrderResourceResponse> orderResourceService;
     private GenericService<OrderCancellationReason, OrderCancellationReasonRequest, OrderCancellationReasonResponse> orderCancellationReasonService;
-    private GenericService<Order, OrderRequest, OrderResponse> orderService;
     private GenericService<PaymentMethod, PaymentMethodRequest, PaymentMethodResponse> paymentMethodService;
     private GenericService<Room, RoomRequest, RoomResponse> roomService;
     private GenericService<RewardStrategy, RewardStrategyRequest, RewardStrategyResponse> rewardStrategyService;
@@ -601,12 +598,7 @@ public class GenericMappingRegister {
                 ResourceName.ORDER_CANCELLATION_REASON
         ), OrderCancellationReasonRequest.class);
 
-        register("orders", orderController, orderService.init(
-                context.getBean(OrderRepository.class),
-                context.getBean(OrderMapper.class),
-                SearchFields.ORDER,
-                ResourceName.ORDER
-        ), OrderRequest.class);
+        register("orders", orderController, context.getBean(OrderService.class), OrderRequest.class);
 
         register("waybills", waybillController, context.getBean(WaybillService.class), WaybillRequest.class);
 
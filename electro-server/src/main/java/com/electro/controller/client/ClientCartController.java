@@ -9,12 +9,12 @@ import com.electro.dto.client.ClientCartVariantKeyRequest;
 import com.electro.entity.cart.Cart;
 import com.electro.entity.cart.CartVariant;
 import com.electro.entity.cart.CartVariantKey;
+import com.electro.entity.inventory.VariantStock;
 import com.electro.exception.ResourceNotFoundException;
 import com.electro.mapper.client.ClientCartMapper;
 import com.electro.repository.cart.CartRepository;
 import com.electro.repository.cart.CartVariantRepository;
-import com.electro.repository.inventory.DocketVariantRepository;
-import com.electro.utils.InventoryUtils;
+import com.electro.service.inventory.VariantStockService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import lombok.AllArgsConstructor;
@@ -30,6 +30,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @RestController
@@ -41,7 +42,7 @@ public class ClientCartController {
     private CartRepository cartRepository;
     private CartVariantRepository cartVariantRepository;
     private ClientCartMapper clientCartMapper;
-    private DocketVariantRepository docketVariantRepository;
+    private VariantStockService variantStockService;
 
     @GetMapping
     public ResponseEntity<ObjectNode> getCart(Authentication authentication) {
@@ -71,11 +72,13 @@ public class ClientCartController {
         }
 
         // Validate Variant Inventory
-        // tính số lượng hàng tồn kho có thể bán được (canBeSold) của một CartVariant cụ thể, dựa trên dữ liệu tồn kho lấy từ docketVariantRepository
+        // lấy số lượng hàng còn có thể đặt (canBeSold trừ phần đang giữ) của các CartVariant từ bảng variant_stock trong một câu truy vấn
+        Map<Long, VariantStock> variantStocks = variantStockService.findByVariantIds(cartBeforeSave.getCartVariants().stream()
+                .map(cartVariant -> cartVariant.getCartVariantKey().getVariantId())
+                .collect(Collectors.toSet()));
+
         for (CartVariant cartVariant : cartBeforeSave.getCartVariants()) {
-            int inventory = InventoryUtils
-                    .calculateInventoryIndices(docketVariantRepository.findByVariantId(cartVariant.getCartVariantKey().getVariantId()))
-                    .get("canBeSold");
+            int inventory = variantStocks.get(cartVariant.getCartVariantKey().getVariantId()).getAvailable();
             if (cartVariant.getQuantity() > inventory) {
                 throw new RuntimeException("Variant quantity cannot greater than variant inventory");
             }
@@ -5,11 +5,14 @@ import com.electro.constant.FieldName;
 import com.electro.constant.ResourceName;
 import com.electro.dto.CollectionWrapper;
 import com.electro.dto.client.ClientCategoryResponse;
-import com.electro.entity.product.Category;
 import com.electro.exception.ResourceNotFoundException;
 import com.electro.mapper.client.ClientCategoryMapper;
-import com.electro.repository.product.CategoryRepository;
+import com.electro.repository.product.CategoryTree;
+import com.electro.repository.product.CategoryTreeIndex;
+import com.electro.repository.product.SlugIndex;
+import com.electro.service.product.CatalogVersions;
 import lombok.AllArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
@@ -17,6 +20,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -26,22 +30,35 @@ import java.util.List;
 @CrossOrigin(AppConstants.FRONTEND_HOST)
 public class ClientCategoryController {
 
-    private CategoryRepository categoryRepository;
+    private CategoryTreeIndex categoryTreeIndex;
     private ClientCategoryMapper clientCategoryMapper;
+    private SlugIndex slugIndex;
+    private CatalogVersions catalogVersions;
 
     @GetMapping
-    public ResponseEntity<CollectionWrapper<ClientCategoryResponse>> getAllCategories() {
-        List<Category> firstCategories = categoryRepository.findByParentCategoryIsNull();
-        List<ClientCategoryResponse> clientCategoryResponses = clientCategoryMapper.entityToResponse(firstCategories, 3);
-        return ResponseEntity.status(HttpStatus.OK).body(CollectionWrapper.of(clientCategoryResponses));
+    public ResponseEntity<CollectionWrapper<ClientCategoryResponse>> getAllCategories(WebRequest request) {
+        if (catalogVersions.checkNotModified(request, catalogVersions.ofCategories())) {
+            return null;
+        }
+
+        List<ClientCategoryResponse> clientCategoryResponses = clientCategoryMapper
+                .nodeToResponse(categoryTreeIndex.getTree().getRoots(), 3);
+        return ResponseEntity.status(HttpStatus.OK).cacheControl(CacheControl.noCache())
+                .body(CollectionWrapper.of(clientCategoryResponses));
     }
 
     @GetMapping("/{slug}")
-    public ResponseEntity<ClientCategoryResponse> getCategory(@PathVariable("slug") String slug) {
-        ClientCategoryResponse clientCategoryResponse = categoryRepository.findBySlug(slug)
-                .map(category -> clientCategoryMapper.entityToResponse(category, false))
+    public ResponseEntity<ClientCategoryResponse> getCategory(@PathVariable("slug") String slug, WebRequest request) {
+        if (catalogVersions.checkNotModified(request, catalogVersions.ofCategories())) {
+            return null;
+        }
+
+        CategoryTree tree = categoryTreeIndex.getTree();
+        ClientCategoryResponse clientCategoryResponse = slugIndex.findCategoryId(slug)
+                .flatMap(tree::findById)
+                .map(node -> clientCategoryMapper.nodeToResponse(tree, node, false))
                 .orElseThrow(() -> new ResourceNotFoundException(ResourceName.CATEGORY, FieldName.SLUG, slug));
-        return ResponseEntity.status(HttpStatus.OK).body(clientCategoryResponse);
+        return ResponseEntity.status(HttpStatus.OK).cacheControl(CacheControl.noCache()).body(clientCategoryResponse);
     }
 
 }
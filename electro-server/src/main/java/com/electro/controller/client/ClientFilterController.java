@@ -2,19 +2,27 @@ package com.electro.controller.client;
 
 import com.electro.constant.AppConstants;
 import com.electro.dto.client.ClientBrandResponse;
+import com.electro.dto.client.ClientFacetResponse;
 import com.electro.dto.client.ClientFilterResponse;
-import com.electro.entity.product.Brand;
-import com.electro.repository.product.BrandRepository;
+import com.electro.repository.product.BrandFilterIndex;
+import com.electro.repository.product.ProductRepository;
+import com.electro.service.product.CatalogVersions;
+import com.electro.service.product.ClientProductFacetCache;
+import com.electro.service.product.ProductFacetService;
 import lombok.AllArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.lang.Nullable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @RestController
@@ -23,25 +31,62 @@ import java.util.stream.Collectors;
 @CrossOrigin(AppConstants.FRONTEND_HOST)
 public class ClientFilterController {
 
-    private BrandRepository brandRepository;
+    private BrandFilterIndex brandFilterIndex;
+    private ProductRepository productRepository;
+    private ProductFacetService productFacetService;
+    private ClientProductFacetCache clientProductFacetCache;
+    private CatalogVersions catalogVersions;
 
     @GetMapping("/category")
-    public ResponseEntity<ClientFilterResponse> getFilterByCategorySlug(@RequestParam String slug) {
-        List<Brand> brands = brandRepository.findByCategorySlug(slug);
+    public ResponseEntity<ClientFilterResponse> getFilterByCategorySlug(@RequestParam String slug, WebRequest request) {
+        if (catalogVersions.checkNotModified(request, catalogVersions.ofCatalog())) {
+            return null;
+        }
+
+        List<BrandFilterIndex.BrandName> brands = brandFilterIndex.findByCategorySlug(slug);
         ClientFilterResponse clientFilterResponse = new ClientFilterResponse();
         clientFilterResponse.setFilterBrands(mapToClientBrandResponse(brands));
-        return ResponseEntity.status(HttpStatus.OK).body(clientFilterResponse);
+        return ResponseEntity.status(HttpStatus.OK).cacheControl(CacheControl.noCache()).body(clientFilterResponse);
     }
 
     @GetMapping("/search")
-    public ResponseEntity<ClientFilterResponse> getFilterBySearchQuery(@RequestParam String query) {
-        List<Brand> brands = brandRepository.findBySearchQuery(query);
+    public ResponseEntity<ClientFilterResponse> getFilterBySearchQuery(@RequestParam String query, WebRequest request) {
+        if (catalogVersions.checkNotModified(request, catalogVersions.ofCatalog())) {
+            return null;
+        }
+
+        List<BrandFilterIndex.BrandName> brands = brandFilterIndex.findBySearchQuery(query);
         ClientFilterResponse clientFilterResponse = new ClientFilterResponse();
         clientFilterResponse.setFilterBrands(mapToClientBrandResponse(brands));
-        return ResponseEntity.status(HttpStatus.OK).body(clientFilterResponse);
+        return ResponseEntity.status(HttpStatus.OK).cacheControl(CacheControl.noCache()).body(clientFilterResponse);
+    }
+
+    @GetMapping("/facets")
+    public ResponseEntity<ClientFacetResponse> getFacets(@RequestParam(name = "filter", required = false) @Nullable String filter,
+                                                         @RequestParam(name = "search", required = false) @Nullable String search,
+                                                         @RequestParam(name = "saleable", required = false) boolean saleable,
+                                                         @RequestParam(name = "newable", required = false) boolean newable,
+                                                         WebRequest request) {
+        if (catalogVersions.checkNotModified(request, catalogVersions.ofCatalog())) {
+            return null;
+        }
+
+        ClientProductFacetCache.Key key = ClientProductFacetCache.Key.of(filter, search, saleable, newable);
+
+        Optional<ClientFacetResponse> cached = clientProductFacetCache.get(key);
+        if (cached.isPresent()) {
+            return ResponseEntity.status(HttpStatus.OK).cacheControl(CacheControl.noCache()).body(cached.get());
+        }
+
+        long readVersion = clientProductFacetCache.version();
+        List<Long> productIds = productRepository.findIdsByParams(filter, search, saleable, newable);
+        ClientFacetResponse clientFacetResponse = productFacetService.countFacets(productIds);
+        clientProductFacetCache.put(key, productIds, clientFacetResponse, readVersion);
+
+        return ResponseEntity.status(HttpStatus.OK).cacheControl(CacheControl.noCache()).body(clientFacetResponse);
     }
 
-    private List<ClientBrandResponse> mapToClientBrandResponse(List<Brand> brands) {
+    private List<ClientBrandResponse> mapToClientBrandResponse(List<BrandFilterIndex.BrandName> brands) {
         return brands.stream()
                 .map(brand -> new ClientBrandResponse()
                         .setBrandId(brand.getId())
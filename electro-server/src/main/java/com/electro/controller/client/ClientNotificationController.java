@@ -10,6 +10,8 @@ import com.electro.dto.general.NotificationResponse;
 import com.electro.entity.general.Notification;
 import com.electro.exception.ResourceNotFoundException;
 import com.electro.mapper.general.NotificationMapper;
+import com.electro.repository.CursorSlice;
+import com.electro.repository.KeysetRepository;
 import com.electro.repository.general.NotificationRepository;
 import com.electro.service.general.EmitterService;
 import com.electro.service.general.NotificationService;
@@ -34,6 +36,7 @@ import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/client-api/notifications")
@@ -43,6 +46,7 @@ import java.util.UUID;
 public class ClientNotificationController {
 
     private final NotificationRepository notificationRepository;
+    private final KeysetRepository keysetRepository;
     private final NotificationMapper notificationMapper;
     private final EmitterService emitterService;
     private final NotificationService notificationService;
@@ -53,9 +57,20 @@ public class ClientNotificationController {
             @RequestParam(name = "page", defaultValue = AppConstants.DEFAULT_PAGE_NUMBER) int page,
             @RequestParam(name = "size", defaultValue = AppConstants.DEFAULT_PAGE_SIZE) int size,
             @RequestParam(name = "sort", defaultValue = AppConstants.DEFAULT_SORT) String sort,
-            @RequestParam(name = "filter", required = false) @Nullable String filter
+            @RequestParam(name = "filter", required = false) @Nullable String filter,
+            @RequestParam(name = "cursor", required = false) @Nullable String cursor
     ) {
         String username = authentication.getName();
+
+        // Có tham số `cursor` (rỗng với trang đầu) thì phân trang theo con trỏ, bỏ qua `page` và không đếm tổng số
+        if (cursor != null) {
+            CursorSlice<Notification> notifications = keysetRepository
+                    .findAll(Notification.class, notificationRepository.filterByUsername(username, filter), sort, cursor, size);
+            List<NotificationResponse> notificationResponses = notifications.getContent().stream()
+                    .map(notificationMapper::entityToResponse).collect(Collectors.toList());
+            return ResponseEntity.status(HttpStatus.OK).body(ListResponse.of(notificationResponses, notifications, size));
+        }
+
         Page<Notification> notifications = notificationRepository.findAllByUsername(username, sort, filter, PageRequest.of(page - 1, size));
         List<NotificationResponse> notificationResponses = notifications.map(notificationMapper::entityToResponse).toList();
         return ResponseEntity.status(HttpStatus.OK).body(ListResponse.of(notificationResponses, notifications));
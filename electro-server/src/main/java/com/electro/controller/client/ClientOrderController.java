@@ -14,6 +14,8 @@ import com.electro.entity.order.Order;
 import com.electro.exception.ResourceNotFoundException;
 import com.electro.mapper.client.ClientOrderMapper;
 import com.electro.mapper.general.NotificationMapper;
+import com.electro.repository.CursorSlice;
+import com.electro.repository.KeysetRepository;
 import com.electro.repository.general.NotificationRepository;
 import com.electro.repository.order.OrderRepository;
 import com.electro.service.general.NotificationService;
@@ -40,6 +42,7 @@ import org.springframework.web.servlet.view.RedirectView;
 
 import javax.servlet.http.HttpServletRequest;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/client-api/orders")
@@ -48,6 +51,7 @@ import java.util.List;
 public class ClientOrderController {
 
     private OrderRepository orderRepository;
+    private KeysetRepository keysetRepository;
     private ClientOrderMapper clientOrderMapper;
     private OrderService orderService;
     private NotificationRepository notificationRepository;
@@ -60,9 +64,20 @@ public class ClientOrderController {
             @RequestParam(name = "page", defaultValue = AppConstants.DEFAULT_PAGE_NUMBER) int page,
             @RequestParam(name = "size", defaultValue = AppConstants.DEFAULT_PAGE_SIZE) int size,
             @RequestParam(name = "sort", defaultValue = AppConstants.DEFAULT_SORT) String sort,
-            @RequestParam(name = "filter", required = false) @Nullable String filter
+            @RequestParam(name = "filter", required = false) @Nullable String filter,
+            @RequestParam(name = "cursor", required = false) @Nullable String cursor
     ) {
         String username = authentication.getName();
+
+        // Có tham số `cursor` (rỗng với trang đầu) thì phân trang theo con trỏ, bỏ qua `page` và không đếm tổng số
+        if (cursor != null) {
+            CursorSlice<Order> orders = keysetRepository
+                    .findAll(Order.class, orderRepository.filterByUsername(username, filter), sort, cursor, size);
+            List<ClientSimpleOrderResponse> clientOrderResponses = orders.getContent().stream()
+                    .map(clientOrderMapper::entityToResponse).collect(Collectors.toList());
+            return ResponseEntity.status(HttpStatus.OK).body(ListResponse.of(clientOrderResponses, orders, size));
+        }
+
         Page<Order> orders = orderRepository.findAllByUsername(username, sort, filter, PageRequest.of(page - 1, size));
         List<ClientSimpleOrderResponse> clientReviewResponses = orders.map(clientOrderMapper::entityToResponse).toList();
         return ResponseEntity.status(HttpStatus.OK).body(ListResponse.of(clientReviewResponses, orders));
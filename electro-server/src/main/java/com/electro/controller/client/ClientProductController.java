@@ -6,18 +6,28 @@ import com.electro.constant.ResourceName;
 import com.electro.dto.ListResponse;
 import com.electro.dto.client.ClientListedProductResponse;
 import com.electro.dto.client.ClientProductResponse;
-import com.electro.entity.BaseEntity;
 import com.electro.entity.product.Product;
+import com.electro.entity.product.ProductCard;
+import com.electro.entity.review.ProductRating;
 import com.electro.exception.ResourceNotFoundException;
 import com.electro.mapper.client.ClientProductMapper;
 import com.electro.projection.inventory.SimpleProductInventory;
+import com.electro.repository.CursorSlice;
 import com.electro.repository.ProjectionRepository;
+import com.electro.repository.product.ProductFetchPlan;
 import com.electro.repository.product.ProductRepository;
-import com.electro.repository.review.ReviewRepository;
+import com.electro.repository.product.RelatedProductIndex;
+import com.electro.repository.product.SlugIndex;
+import com.electro.service.product.CatalogVersions;
+import com.electro.service.product.ClientProductListingCache;
+import com.electro.service.product.ProductCardService;
+import com.electro.service.product.ProductDetailFanOut;
+import com.electro.service.review.ProductRatingService;
 import lombok.AllArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.lang.Nullable;
@@ -27,9 +37,14 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/client-api/products")
@@ -40,7 +55,13 @@ public class ClientProductController {
     private ProductRepository productRepository;
     private ProjectionRepository projectionRepository;
     private ClientProductMapper clientProductMapper;
-    private ReviewRepository reviewRepository;
+    private ClientProductListingCache clientProductListingCache;
+    private RelatedProductIndex relatedProductIndex;
+    private ProductCardService productCardService;
+    private ProductRatingService productRatingService;
+    private SlugIndex slugIndex;
+    private CatalogVersions catalogVersions;
+    private ProductDetailFanOut productDetailFanOut;
 
     @GetMapping
     public ResponseEntity<ListResponse<ClientListedProductResponse>> getAllProducts(
@@ -50,61 +71,114 @@ public class ClientProductController {
             @RequestParam(name = "sort", required = false) @Nullable String sort,
             @RequestParam(name = "search", required = false) @Nullable String search,
             @RequestParam(name = "saleable", required = false) boolean saleable,
-            @RequestParam(name = "newable", required = false) boolean newable
+            @RequestParam(name = "newable", required = false) boolean newable,
+            @RequestParam(name = "cursor", required = false) @Nullable String cursor,
+            WebRequest request
     ) {
+        // Danh mục sản phẩm chưa thay đổi kể từ lần tải trước thì trả về 304
+        if (catalogVersions.checkNotModified(request, catalogVersions.ofCatalog())) {
+            return null;
+        }
+
+        // Có tham số `cursor` (rỗng với trang đầu) thì phân trang theo con trỏ, bỏ qua `page` và không đếm tổng số
+        if (cursor != null) {
+            CursorSlice<Long> products = productRepository
+                    .findProductIdsByParamsAfter(filter, sort, search, saleable, newable, cursor, size);
+
+            Map<Long, ProductCard> productCards = productCardService.findByProductIds(products.getContent());
+
+            List<ClientListedProductResponse> clientListedProductResponses = products.getContent().stream()
+                    .map(productCards::get)
+                    .filter(Objects::nonNull)
+                    .map(clientProductMapper::cardToListedResponse)
+                    .collect(Collectors.toList());
+
+            return ResponseEntity.status(HttpStatus.OK).cacheControl(CacheControl.noCache())
+                    .body(ListResponse.of(clientListedProductResponses, products, size));
+        }
+
+        // Trả về ngay nếu đã có trong bộ nhớ đệm
+        ClientProductListingCache.Key cacheKey = ClientProductListingCache.Key
+                .of(filter, sort, search, saleable, newable, page, size);
+        Optional<ListResponse<ClientListedProductResponse>> cachedResponse = clientProductListingCache.get(cacheKey);
+
+        if (cachedResponse.isPresent()) {
+            return ResponseEntity.status(HttpStatus.OK).cacheControl(CacheControl.noCache()).body(cachedResponse.get());
+        }
+
+        long cacheVersion = clientProductListingCache.version();
+
         // Phân trang
         Pageable pageable = PageRequest.of(page - 1, size);
 
-        // Lấy danh sách sản phẩm theo điều kiện lọc và phân trang
-        Page<Product> products = productRepository.findByParams(filter, sort, search, saleable, newable, pageable);
+        // Lấy id sản phẩm theo điều kiện lọc và phân trang
+        Page<Long> productIds = productRepository.findProductIdsByParams(filter, sort, search, saleable, newable, pageable);
+
+        // Thẻ sản phẩm đọc từ bảng product_card trong một câu truy vấn theo khóa chính
+        Map<Long, ProductCard> productCards = productCardService.findByProductIds(productIds.getContent());
 
-        // Lấy thông tin tồn kho của sản phẩm
-        List<Long> productIds = products.map(Product::getId).toList();
-        List<SimpleProductInventory> productInventories = projectionRepository.findSimpleProductInventories(productIds);
+        List<ClientListedProductResponse> clientListedProductResponses = productIds.getContent().stream()
+                .map(productCards::get)
+                .filter(Objects::nonNull)
+                .map(clientProductMapper::cardToListedResponse)
+                .collect(Collectors.toList());
 
-        List<ClientListedProductResponse> clientListedProductResponses = products
-                .map(product -> clientProductMapper.entityToListedResponse(product, productInventories)).toList();
+        ListResponse<ClientListedProductResponse> response = ListResponse.of(clientListedProductResponses, productIds);
+        clientProductListingCache.put(cacheKey, response, cacheVersion);
 
-        return ResponseEntity.status(HttpStatus.OK).body(ListResponse.of(clientListedProductResponses, products));
+        return ResponseEntity.status(HttpStatus.OK).cacheControl(CacheControl.noCache()).body(response);
     }
 
     @GetMapping("/{slug}")
-    public ResponseEntity<ClientProductResponse> getProduct(@PathVariable String slug) {
-        Product product = productRepository.findBySlug(slug)
+    public ResponseEntity<ClientProductResponse> getProduct(@PathVariable String slug, WebRequest request) {
+        // Tra slug qua bộ nhớ đệm rồi nạp sản phẩm theo khóa chính
+        Long productId = slugIndex.findProductId(slug)
                 .orElseThrow(() -> new ResourceNotFoundException(ResourceName.PRODUCT, FieldName.SLUG, slug));
 
-        List<SimpleProductInventory> productInventories = projectionRepository
-                .findSimpleProductInventories(List.of(product.getId()));
-
-        int averageRatingScore = reviewRepository.findAverageRatingScoreByProductId(product.getId());
-        int countReviews = reviewRepository.countByProductId(product.getId());
-
-        // Related Products
-        Page<Product> relatedProducts = productRepository.findByParams(
-                String.format("category.id==%s;id!=%s",
-                        Optional.ofNullable(product.getCategory())
-                                .map(BaseEntity::getId)
-                                .map(Object::toString)
-                                .orElse("0"),
-                        product.getId()),
-                "random",
-                null,
-                false,
-                false,
-                PageRequest.of(0, 4));
-
-        List<Long> relatedProductIds = relatedProducts.map(Product::getId).toList();
-        List<SimpleProductInventory> relatedProductInventories = projectionRepository
-                .findSimpleProductInventories(relatedProductIds);
-
-        List<ClientListedProductResponse> relatedProductResponses = relatedProducts
-                .map(p -> clientProductMapper.entityToListedResponse(p, relatedProductInventories)).toList();
+        if (catalogVersions.checkNotModified(request, catalogVersions.ofProduct(productId))) {
+            return null;
+        }
 
-        // Result
-        ClientProductResponse clientProductResponse = clientProductMapper
-                .entityToResponse(product, productInventories, averageRatingScore, countReviews, relatedProductResponses);
+        // Các phần độc lập chạy song song, sản phẩm và phần ánh xạ (cần lazy loading) vẫn chạy trên luồng yêu cầu
+        ProductDetailFanOut.Session fanOut = productDetailFanOut.begin();
+
+        CompletableFuture<List<SimpleProductInventory>> productInventoriesFuture = fanOut.submit("inventory",
+                () -> projectionRepository.findSimpleProductInventories(List.of(productId)));
+
+        // Điểm trung bình và số đánh giá đọc từ bảng tổng hợp product_rating
+        CompletableFuture<ProductRating> productRatingFuture = fanOut.submit("rating",
+                () -> productRatingService.findByProductId(productId));
+
+        // Related Products: lấy mẫu ngẫu nhiên từ danh sách đã tính trước
+        CompletableFuture<List<ClientListedProductResponse>> relatedProductsFuture = fanOut.submit("related", () -> {
+            List<Long> relatedProductIds = relatedProductIndex.sample(productId, 4);
+            Map<Long, ProductCard> relatedProductCards = productCardService.findByProductIds(relatedProductIds);
+
+            return relatedProductIds.stream()
+                    .map(relatedProductCards::get)
+                    .filter(Objects::nonNull)
+                    .map(clientProductMapper::cardToListedResponse)
+                    .collect(Collectors.toList());
+        });
 
-        return ResponseEntity.status(HttpStatus.OK).body(clientProductResponse);
+        Product product = fanOut.measure("product", () -> productRepository.findById(productId, ProductFetchPlan.DETAIL))
+                .orElseThrow(() -> new ResourceNotFoundException(ResourceName.PRODUCT, FieldName.SLUG, slug));
+
+        // Tồn kho quyết định sản phẩm có bán được hay không nên luôn chờ; đánh giá và sản phẩm liên quan quá hạn thì bỏ qua
+        List<SimpleProductInventory> productInventories = fanOut.await(productInventoriesFuture);
+        ProductRating productRating = fanOut.awaitOrElse("rating", productRatingFuture, new ProductRating().setProductId(productId));
+        List<ClientListedProductResponse> relatedProductResponses = fanOut.awaitOrElse("related", relatedProductsFuture, List.of());
+
+        // Result
+        ClientProductResponse clientProductResponse = fanOut.measure("mapping", () -> clientProductMapper
+                .entityToResponse(product, productInventories,
+                        productRating.getAverageRatingScore(), productRating.getReviewCount(), relatedProductResponses));
+
+        // Phản hồi thiếu phần phụ không được lưu lại, lần sau trình duyệt sẽ tải đầy đủ
+        return ResponseEntity.status(HttpStatus.OK)
+                .cacheControl(fanOut.isDegraded() ? CacheControl.noStore() : CacheControl.noCache())
+                .header("Server-Timing", fanOut.toServerTiming())
+                .body(clientProductResponse);
     }
 
 }
@@ -4,13 +4,17 @@ import com.electro.constant.AppConstants;
 import com.electro.constant.FieldName;
 import com.electro.constant.ResourceName;
 import com.electro.dto.ListResponse;
+import com.electro.dto.client.ClientReviewHistogramResponse;
 import com.electro.dto.client.ClientReviewRequest;
 import com.electro.dto.client.ClientReviewResponse;
 import com.electro.dto.client.ClientSimpleReviewResponse;
+import com.electro.entity.review.ProductRating;
 import com.electro.entity.review.Review;
 import com.electro.exception.ResourceNotFoundException;
 import com.electro.mapper.client.ClientReviewMapper;
+import com.electro.repository.product.SlugIndex;
 import com.electro.repository.review.ReviewRepository;
+import com.electro.service.review.ProductRatingService;
 import lombok.AllArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -39,6 +43,8 @@ public class ClientReviewController {
 
     private ReviewRepository reviewRepository;
     private ClientReviewMapper clientReviewMapper;
+    private SlugIndex slugIndex;
+    private ProductRatingService productRatingService;
 
     @GetMapping("/products/{productSlug}")
     public ResponseEntity<ListResponse<ClientSimpleReviewResponse>> getAllReviewsByProduct(
@@ -48,11 +54,25 @@ public class ClientReviewController {
             @RequestParam(name = "sort", defaultValue = AppConstants.DEFAULT_SORT) String sort,
             @RequestParam(name = "filter", required = false) @Nullable String filter
     ) {
-        Page<Review> reviews = reviewRepository.findAllByProductSlug(productSlug, sort, filter, PageRequest.of(page - 1, size));
+        Long productId = findProductIdBySlug(productSlug);
+        Page<Review> reviews = reviewRepository.findAllByProductId(productId, sort, filter, PageRequest.of(page - 1, size));
         List<ClientSimpleReviewResponse> clientReviewResponses = reviews.map(clientReviewMapper::entityToSimpleResponse).toList();
         return ResponseEntity.status(HttpStatus.OK).body(ListResponse.of(clientReviewResponses, reviews));
     }
 
+    @GetMapping("/products/{productSlug}/histogram")
+    public ResponseEntity<ClientReviewHistogramResponse> getReviewHistogramByProduct(@PathVariable String productSlug) {
+        Long productId = findProductIdBySlug(productSlug);
+        ProductRating productRating = productRatingService.findByProductId(productId);
+
+        ClientReviewHistogramResponse clientReviewHistogramResponse = new ClientReviewHistogramResponse()
+                .setCountReviews(productRating.getReviewCount())
+                .setAverageRatingScore(productRating.getAverageRatingScore())
+                .setRatingScoreCounts(productRating.getRatingScoreCounts());
+
+        return ResponseEntity.status(HttpStatus.OK).body(clientReviewHistogramResponse);
+    }
+
     @GetMapping
     public ResponseEntity<ListResponse<ClientReviewResponse>> getAllReviewsByUser(
             Authentication authentication,
@@ -70,24 +90,39 @@ public class ClientReviewController {
     @PostMapping
     public ResponseEntity<ClientReviewResponse> createReview(@RequestBody ClientReviewRequest request) {
         Review entity = reviewRepository.save(clientReviewMapper.requestToEntity(request));
+        productRatingService.add(entity.getProduct().getId(), entity.getRatingScore());
         return ResponseEntity.status(HttpStatus.CREATED).body(clientReviewMapper.entityToResponse(entity));
     }
 
     @PutMapping("/{id}")
     public ResponseEntity<ClientReviewResponse> updateReview(@PathVariable Long id,
                                                              @RequestBody ClientReviewRequest request) {
-        ClientReviewResponse clientReviewResponse = reviewRepository.findById(id)
-                .map(existingEntity -> clientReviewMapper.partialUpdate(existingEntity, request))
-                .map(reviewRepository::save)
-                .map(clientReviewMapper::entityToResponse)
+        Review existingEntity = reviewRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException(ResourceName.REVIEW, FieldName.ID, id));
+
+        // Ghi nhận đánh giá cũ trước khi partialUpdate thay đổi entity
+        Long beforeProductId = existingEntity.getProduct().getId();
+        int beforeRatingScore = existingEntity.getRatingScore();
+
+        Review entity = reviewRepository.save(clientReviewMapper.partialUpdate(existingEntity, request));
+        productRatingService.remove(beforeProductId, beforeRatingScore);
+        productRatingService.add(entity.getProduct().getId(), entity.getRatingScore());
+
+        ClientReviewResponse clientReviewResponse = clientReviewMapper.entityToResponse(entity);
         return ResponseEntity.status(HttpStatus.OK).body(clientReviewResponse);
     }
 
     @DeleteMapping
     public ResponseEntity<Void> deleteReviews(@RequestBody List<Long> ids) {
-        reviewRepository.deleteAllById(ids);
+        List<Review> reviews = reviewRepository.findAllById(ids);
+        reviewRepository.deleteAll(reviews);
+        reviews.forEach(review -> productRatingService.remove(review.getProduct().getId(), review.getRatingScore()));
         return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
     }
 
+    private Long findProductIdBySlug(String productSlug) {
+        return slugIndex.findProductId(productSlug)
+                .orElseThrow(() -> new ResourceNotFoundException(ResourceName.PRODUCT, FieldName.SLUG, productSlug));
+    }
+
 }
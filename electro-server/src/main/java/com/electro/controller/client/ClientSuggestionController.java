@@ -0,0 +1,44 @@
+package com.electro.controller.client;
+
+import com.electro.constant.AppConstants;
+import com.electro.dto.CollectionWrapper;
+import com.electro.dto.client.ClientSuggestionResponse;
+import com.electro.repository.product.SuggestionIndex;
+import lombok.AllArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/client-api/suggest")
+@AllArgsConstructor
+@CrossOrigin(AppConstants.FRONTEND_HOST)
+public class ClientSuggestionController {
+
+    private SuggestionIndex suggestionIndex;
+
+    @GetMapping
+    public ResponseEntity<CollectionWrapper<ClientSuggestionResponse>> getSuggestions(
+            @RequestParam(name = "query") String query,
+            @RequestParam(name = "limit", defaultValue = "5") int limit
+    ) {
+        int boundedLimit = Math.max(1, Math.min(limit, SuggestionIndex.MAX_RESULTS));
+
+        List<ClientSuggestionResponse> clientSuggestionResponses = suggestionIndex.search(query, boundedLimit).stream()
+                .map(entry -> new ClientSuggestionResponse()
+                        .setSuggestionType(entry.getType())
+                        .setSuggestionName(entry.getName())
+                        .setSuggestionSlug(entry.getSlug()))
+                .collect(Collectors.toList());
+
+        return ResponseEntity.status(HttpStatus.OK).body(CollectionWrapper.of(clientSuggestionResponses));
+    }
+
+}
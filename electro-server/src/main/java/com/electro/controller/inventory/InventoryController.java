@@ -4,35 +4,52 @@ import com.electro.constant.AppConstants;
 import com.electro.constant.FieldName;
 import com.electro.constant.ResourceName;
 import com.electro.dto.ListResponse;
+import com.electro.dto.inventory.DocketVariantEliminatedResponse;
+import com.electro.dto.inventory.DocketVariantExtendedResponse;
+import com.electro.dto.inventory.InventoryAsOfResponse;
 import com.electro.dto.inventory.ProductInventoryResponse;
 import com.electro.dto.inventory.VariantInventoryResponse;
+import com.electro.dto.inventory.VariantStockVerificationResponse;
+import com.electro.dto.inventory.WarehouseCandidateResponse;
+import com.electro.dto.inventory.WarehouseStockResponse;
 import com.electro.entity.inventory.DocketVariant;
+import com.electro.entity.inventory.VariantStock;
 import com.electro.entity.product.Product;
 import com.electro.entity.product.Variant;
 import com.electro.exception.ResourceNotFoundException;
+import com.electro.mapper.inventory.DocketVariantMapper;
 import com.electro.mapper.product.ProductInventoryMapper;
 import com.electro.mapper.product.VariantInventoryMapper;
 import com.electro.projection.inventory.ProductInventory;
+import com.electro.projection.inventory.SimpleProductInventory;
 import com.electro.projection.inventory.VariantInventory;
+import com.electro.repository.ProjectionRepository;
 import com.electro.repository.inventory.DocketVariantRepository;
 import com.electro.repository.product.ProductRepository;
 import com.electro.repository.product.VariantRepository;
-import com.electro.utils.InventoryUtils;
+import com.electro.service.inventory.InventoryLedgerService;
+import com.electro.service.inventory.VariantStockService;
+import com.electro.service.inventory.WarehouseStockService;
 import lombok.AllArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api")
@@ -45,6 +62,11 @@ public class InventoryController {
     private ProductInventoryMapper productInventoryMapper;
     private VariantRepository variantRepository;
     private VariantInventoryMapper variantInventoryMapper;
+    private ProjectionRepository projectionRepository;
+    private VariantStockService variantStockService;
+    private DocketVariantMapper docketVariantMapper;
+    private InventoryLedgerService inventoryLedgerService;
+    private WarehouseStockService warehouseStockService;
 
     @GetMapping("/product-inventories")
     public ResponseEntity<ListResponse<ProductInventoryResponse>> getProductInventories(
@@ -54,6 +76,11 @@ public class InventoryController {
         // Lấy danh sách sản phẩm từng được nhập xuất
         Page<Product> products = productRepository.findDocketedProducts(PageRequest.of(page - 1, size));
 
+        List<Long> productIds = products.map(Product::getId).toList();
+        Map<Long, SimpleProductInventory> productStocks = projectionRepository.findSimpleProductInventories(productIds)
+                .stream()
+                .collect(Collectors.toMap(SimpleProductInventory::getProductId, Function.identity()));
+
         List<ProductInventory> productInventories = new ArrayList<>();
 
         for (Product product : products) {
@@ -61,15 +88,13 @@ public class InventoryController {
 
             productInventory.setProduct(product);
 
-            List<DocketVariant> transactions = docketVariantRepository.findByProductId(product.getId());
-            productInventory.setTransactions(transactions);
-
-            Map<String, Integer> inventoryIndices = InventoryUtils.calculateInventoryIndices(transactions);
+            SimpleProductInventory productStock = productStocks.getOrDefault(product.getId(),
+                    new SimpleProductInventory(product.getId(), 0L, 0L, 0L, 0L, 0L));
 
-            productInventory.setInventory(inventoryIndices.get("inventory"));
-            productInventory.setWaitingForDelivery(inventoryIndices.get("waitingForDelivery"));
-            productInventory.setCanBeSold(inventoryIndices.get("canBeSold"));
-            productInventory.setAreComing(inventoryIndices.get("areComing"));
+            productInventory.setInventory(productStock.getInventory());
+            productInventory.setWaitingForDelivery(productStock.getWaitingForDelivery());
+            productInventory.setCanBeSold(productStock.getCanBeSold());
+            productInventory.setAreComing(productStock.getAreComing());
 
             productInventories.add(productInventory);
         }
@@ -87,6 +112,8 @@ public class InventoryController {
         // Lấy danh sách phiên bản sản phẩm từng được nhập xuất
         Page<Variant> variants = variantRepository.findDocketedVariants(PageRequest.of(page - 1, size));
 
+        Map<Long, VariantStock> variantStocks = variantStockService.findByVariantIds(variants.map(Variant::getId).toList());
+
         List<VariantInventory> variantInventories = new ArrayList<>();
 
         for (Variant variant : variants) {
@@ -94,15 +121,13 @@ public class InventoryController {
 
             variantInventory.setVariant(variant);
 
-            List<DocketVariant> transactions = docketVariantRepository.findByVariantId(variant.getId());
-            variantInventory.setTransactions(transactions);
+            VariantStock variantStock = variantStocks.getOrDefault(variant.getId(),
+                    new VariantStock().setVariantId(variant.getId()));
 
-            Map<String, Integer> inventoryIndices = InventoryUtils.calculateInventoryIndices(transactions);
-
-            variantInventory.setInventory(inventoryIndices.get("inventory"));
-            variantInventory.setWaitingForDelivery(inventoryIndices.get("waitingForDelivery"));
-            variantInventory.setCanBeSold(inventoryIndices.get("canBeSold"));
-            variantInventory.setAreComing(inventoryIndices.get("areComing"));
+            variantInventory.setInventory(variantStock.getInventory());
+            variantInventory.setWaitingForDelivery(variantStock.getWaitingForDelivery());
+            variantInventory.setCanBeSold(variantStock.getCanBeSold());
+            variantInventory.setAreComing(variantStock.getAreComing());
 
             variantInventories.add(variantInventory);
         }
@@ -121,19 +146,98 @@ public class InventoryController {
 
         variantInventory.setVariant(variant);
 
-        List<DocketVariant> transactions = docketVariantRepository.findByVariantId(variant.getId());
-        variantInventory.setTransactions(transactions);
-
-        Map<String, Integer> inventoryIndices = InventoryUtils.calculateInventoryIndices(transactions);
+        VariantStock variantStock = variantStockService.findByVariantId(variant.getId());
 
-        variantInventory.setInventory(inventoryIndices.get("inventory"));
-        variantInventory.setWaitingForDelivery(inventoryIndices.get("waitingForDelivery"));
-        variantInventory.setCanBeSold(inventoryIndices.get("canBeSold"));
-        variantInventory.setAreComing(inventoryIndices.get("areComing"));
+        variantInventory.setInventory(variantStock.getInventory());
+        variantInventory.setWaitingForDelivery(variantStock.getWaitingForDelivery());
+        variantInventory.setCanBeSold(variantStock.getCanBeSold());
+        variantInventory.setAreComing(variantStock.getAreComing());
 
         VariantInventoryResponse variantInventoryResponse = variantInventoryMapper.toResponse(variantInventory);
 
         return ResponseEntity.status(HttpStatus.OK).body(variantInventoryResponse);
     }
 
+    @GetMapping("/product-inventories/{productId}/transactions")
+    public ResponseEntity<ListResponse<DocketVariantExtendedResponse>> getProductTransactions(
+            @PathVariable("productId") Long productId,
+            @RequestParam(name = "page", defaultValue = AppConstants.DEFAULT_PAGE_NUMBER) int page,
+            @RequestParam(name = "size", defaultValue = AppConstants.DEFAULT_PAGE_SIZE) int size
+    ) {
+        if (!productRepository.existsById(productId)) {
+            throw new ResourceNotFoundException(ResourceName.PRODUCT, FieldName.ID, productId);
+        }
+
+        // Lịch sử nhập xuất của tất cả phiên bản thuộc sản phẩm, phiếu mới nhất trước
+        Page<DocketVariant> transactions = docketVariantRepository.findByProductId(productId, PageRequest.of(page - 1, size));
+
+        List<DocketVariantExtendedResponse> transactionResponses = transactions
+                .map(docketVariantMapper::docketVariantToDocketVariantExtendedResponse)
+                .toList();
+
+        return ResponseEntity.status(HttpStatus.OK).body(new ListResponse<>(transactionResponses, transactions));
+    }
+
+    @GetMapping("/variant-inventories/{variantId}/transactions")
+    public ResponseEntity<ListResponse<DocketVariantEliminatedResponse>> getVariantTransactions(
+            @PathVariable("variantId") Long variantId,
+            @RequestParam(name = "page", defaultValue = AppConstants.DEFAULT_PAGE_NUMBER) int page,
+            @RequestParam(name = "size", defaultValue = AppConstants.DEFAULT_PAGE_SIZE) int size
+    ) {
+        if (!variantRepository.existsById(variantId)) {
+            throw new ResourceNotFoundException(ResourceName.VARIANT, FieldName.ID, variantId);
+        }
+
+        Page<DocketVariant> transactions = docketVariantRepository.findByVariantId(variantId, PageRequest.of(page - 1, size));
+
+        List<DocketVariantEliminatedResponse> transactionResponses = transactions
+                .map(docketVariantMapper::docketVariantToDocketVariantEliminatedResponse)
+                .toList();
+
+        return ResponseEntity.status(HttpStatus.OK).body(new ListResponse<>(transactionResponses, transactions));
+    }
+
+    @GetMapping("/variant-inventories/{variantId}/as-of")
+    public ResponseEntity<InventoryAsOfResponse> getVariantInventoryAsOf(
+            @PathVariable("variantId") Long variantId,
+            @RequestParam Instant at,
+            @RequestParam(name = "warehouseId", required = false) @Nullable Long warehouseId
+    ) {
+        if (!variantRepository.existsById(variantId)) {
+            throw new ResourceNotFoundException(ResourceName.VARIANT, FieldName.ID, variantId);
+        }
+
+        return ResponseEntity.status(HttpStatus.OK).body(inventoryLedgerService.findAsOf(variantId, warehouseId, at));
+    }
+
+    @GetMapping("/variant-inventories/{variantId}/warehouses")
+    public ResponseEntity<List<WarehouseStockResponse>> getVariantWarehouseStocks(@PathVariable("variantId") Long variantId) {
+        if (!variantRepository.existsById(variantId)) {
+            throw new ResourceNotFoundException(ResourceName.VARIANT, FieldName.ID, variantId);
+        }
+
+        return ResponseEntity.status(HttpStatus.OK).body(warehouseStockService.findByVariantId(variantId));
+    }
+
+    @GetMapping("/orders/{orderId}/warehouse-candidates")
+    public ResponseEntity<List<WarehouseCandidateResponse>> getWarehouseCandidates(@PathVariable("orderId") Long orderId) {
+        return ResponseEntity.status(HttpStatus.OK).body(warehouseStockService.rankWarehousesForOrder(orderId));
+    }
+
+    @PostMapping("/inventory-checkpoints")
+    public ResponseEntity<Integer> createInventoryCheckpoints() {
+        return ResponseEntity.status(HttpStatus.OK).body(inventoryLedgerService.createCheckpoints());
+    }
+
+    @PostMapping("/variant-stocks/rebuild")
+    public ResponseEntity<VariantStockVerificationResponse> rebuildVariantStocks() {
+        variantStockService.rebuild();
+        return ResponseEntity.status(HttpStatus.OK).body(variantStockService.verify());
+    }
+
+    @GetMapping("/variant-stocks/verify")
+    public ResponseEntity<VariantStockVerificationResponse> verifyVariantStocks() {
+        return ResponseEntity.status(HttpStatus.OK).body(variantStockService.verify());
+    }
+
 }
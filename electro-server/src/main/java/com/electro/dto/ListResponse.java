@@ -1,5 +1,6 @@
 package com.electro.dto;
 
+import com.electro.repository.CursorSlice;
 import lombok.Value;
 import org.springframework.data.domain.Page;
 
@@ -13,6 +14,8 @@ public class ListResponse<T> {
     long totalElements;
     int totalPages;
     boolean last;
+    // Chỉ có ở chế độ phân trang theo con trỏ, null nếu là trang cuối
+    String nextCursor;
 
     public <E> ListResponse(List<T> content, Page<E> page) {
         this.content = content;
@@ -21,9 +24,25 @@ public class ListResponse<T> {
         this.totalElements = page.getTotalElements();
         this.totalPages = page.getTotalPages();
         this.last = page.isLast();
+        this.nextCursor = null;
+    }
+
+    // Chế độ con trỏ không đếm tổng số phần tử nên page, totalElements và totalPages luôn bằng -1
+    public <E> ListResponse(List<T> content, CursorSlice<E> slice, int size) {
+        this.content = content;
+        this.page = -1;
+        this.size = size;
+        this.totalElements = -1;
+        this.totalPages = -1;
+        this.last = slice.getNextCursor() == null;
+        this.nextCursor = slice.getNextCursor();
     }
 
     public static <T, E> ListResponse<T> of(List<T> content, Page<E> page) {
         return new ListResponse<>(content, page);
     }
+
+    public static <T, E> ListResponse<T> of(List<T> content, CursorSlice<E> slice, int size) {
+        return new ListResponse<>(content, slice, size);
+    }
 }
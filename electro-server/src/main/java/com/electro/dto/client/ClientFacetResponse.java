@@ -0,0 +1,46 @@
+package com.electro.dto.client;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Accessors(chain = true)
+public class ClientFacetResponse {
+    private long totalProducts;
+    private List<ClientBrandFacetResponse> facetBrands = new ArrayList<>();
+    private List<ClientPriceBucketResponse> facetPriceBuckets = new ArrayList<>();
+    private List<ClientPropertyFacetResponse> facetProperties = new ArrayList<>();
+
+    @Data
+    @Accessors(chain = true)
+    public static class ClientBrandFacetResponse {
+        private Long brandId;
+        private String brandName;
+        private long count;
+    }
+
+    @Data
+    @Accessors(chain = true)
+    public static class ClientPriceBucketResponse {
+        private Double from;
+        private Double to;
+        private long count;
+    }
+
+    @Data
+    @Accessors(chain = true)
+    public static class ClientPropertyFacetResponse {
+        private String code;
+        private List<ClientPropertyValueResponse> values = new ArrayList<>();
+    }
+
+    @Data
+    @Accessors(chain = true)
+    public static class ClientPropertyValueResponse {
+        private String value;
+        private long count;
+    }
+}
@@ -20,6 +20,8 @@ public class ClientListedProductResponse {
     private boolean productSaleable;
     @Nullable
     private ClientPromotionResponse productPromotion;
+    private int productAverageRatingScore;
+    private int productCountReviews;
 
     @Data
     @Accessors(chain = true)
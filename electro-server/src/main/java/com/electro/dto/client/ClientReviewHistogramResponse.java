@@ -0,0 +1,15 @@
+package com.electro.dto.client;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.util.List;
+
+@Data
+@Accessors(chain = true)
+public class ClientReviewHistogramResponse {
+    private int countReviews;
+    private int averageRatingScore;
+    // Số đánh giá theo mức sao, phần tử đầu tiên ứng với 1 sao
+    private List<Integer> ratingScoreCounts;
+}
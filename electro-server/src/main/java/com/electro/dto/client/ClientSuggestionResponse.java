@@ -0,0 +1,18 @@
+package com.electro.dto.client;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+import lombok.experimental.Accessors;
+import org.springframework.lang.Nullable;
+
+@Data
+@Accessors(chain = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ClientSuggestionResponse {
+    // PRODUCT, BRAND hoặc CATEGORY
+    private String suggestionType;
+    private String suggestionName;
+    // Thương hiệu không có slug, client tìm kiếm theo tên
+    @Nullable
+    private String suggestionSlug;
+}
@@ -0,0 +1,32 @@
+package com.electro.dto.inventory;
+
+import lombok.Data;
+import org.springframework.lang.Nullable;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+public class InventoryAsOfResponse {
+    private Long variantId;
+    private Instant at;
+    private List<InventoryAsOfResponse.WarehouseInventoryResponse> warehouses;
+    private Integer inventory;
+    private Integer waitingForDelivery;
+    private Integer canBeSold;
+    private Integer areComing;
+
+    @Data
+    public static class WarehouseInventoryResponse {
+        private Long warehouseId;
+        private String warehouseCode;
+        private String warehouseName;
+        // Mốc chốt sổ được dùng làm điểm xuất phát, null nếu chỉ cộng từ sổ biến động
+        @Nullable
+        private Instant checkpointAt;
+        private Integer inventory;
+        private Integer waitingForDelivery;
+        private Integer canBeSold;
+        private Integer areComing;
+    }
+}
@@ -6,12 +6,10 @@ import lombok.Data;
 import org.springframework.lang.Nullable;
 
 import java.time.Instant;
-import java.util.List;
 
 @Data
 public class ProductInventoryResponse {
     private ProductInventoryResponse.ProductResponse product;
-    private List<DocketVariantExtendedResponse> transactions;
     private Integer inventory;
     private Integer waitingForDelivery;
     private Integer canBeSold;
@@ -5,12 +5,10 @@ import lombok.Data;
 import org.springframework.lang.Nullable;
 
 import java.time.Instant;
-import java.util.List;
 
 @Data
 public class VariantInventoryResponse {
     private VariantInventoryResponse.VariantResponse variant;
-    private List<DocketVariantEliminatedResponse> transactions;
     private Integer inventory;
     private Integer waitingForDelivery;
     private Integer canBeSold;
@@ -0,0 +1,14 @@
+package com.electro.dto.inventory;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class VariantStockVerificationResponse {
+    private Boolean consistent;
+    private Integer checkedVariants;
+    private List<Long> mismatchedVariantIds;
+}
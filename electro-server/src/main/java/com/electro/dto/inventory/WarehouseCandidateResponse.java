@@ -0,0 +1,23 @@
+package com.electro.dto.inventory;
+
+import lombok.Data;
+import org.springframework.lang.Nullable;
+
+@Data
+public class WarehouseCandidateResponse {
+    private Long warehouseId;
+    private String warehouseCode;
+    private String warehouseName;
+    @Nullable
+    private String provinceName;
+    @Nullable
+    private String districtName;
+    // Kho đáp ứng đủ mọi dòng hàng
+    private Boolean fulfillable;
+    // Tổng số lượng còn thiếu nếu xuất toàn bộ từ kho này
+    private Integer missingQuantity;
+    // Mức gần với nơi nhận: 2 cùng quận/huyện, 1 cùng tỉnh/thành, 0 khác tỉnh/thành
+    private Integer proximity;
+    // Tổng số lượng có thể bán của các phiên bản được yêu cầu tại kho
+    private Integer canBeSold;
+}
@@ -0,0 +1,16 @@
+package com.electro.dto.inventory;
+
+import lombok.Data;
+
+@Data
+public class WarehouseStockResponse {
+    private Long variantId;
+    private Long warehouseId;
+    private String warehouseCode;
+    private String warehouseName;
+    private Integer warehouseStatus;
+    private Integer inventory;
+    private Integer waitingForDelivery;
+    private Integer canBeSold;
+    private Integer areComing;
+}
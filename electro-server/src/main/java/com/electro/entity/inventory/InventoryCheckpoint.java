@@ -0,0 +1,57 @@
+package com.electro.entity.inventory;
+
+import com.electro.entity.product.Variant;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+import java.time.Instant;
+
+/**
+ * Tồn kho cộng dồn của variant tại một kho tính tới hết {@code checkpointAt}, chỉ được tạo cho cặp có biến động
+ * trong ngày trước đó
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Accessors(chain = true)
+@Entity
+@Table(name = "inventory_checkpoint")
+public class InventoryCheckpoint {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", nullable = false)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "variant_id", nullable = false)
+    private Variant variant;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "warehouse_id", nullable = false)
+    private Warehouse warehouse;
+
+    @Column(name = "checkpoint_at", nullable = false)
+    private Instant checkpointAt;
+
+    @Column(name = "inventory", nullable = false)
+    private Integer inventory = 0;
+
+    @Column(name = "waiting_for_delivery", nullable = false)
+    private Integer waitingForDelivery = 0;
+
+    @Column(name = "are_coming", nullable = false)
+    private Integer areComing = 0;
+}
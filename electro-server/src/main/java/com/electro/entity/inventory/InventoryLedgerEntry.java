@@ -0,0 +1,56 @@
+package com.electro.entity.inventory;
+
+import com.electro.entity.product.Variant;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+import java.time.Instant;
+
+/**
+ * Một dòng biến động tồn kho của variant tại một kho, chỉ được thêm mới, không sửa hay xóa
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Accessors(chain = true)
+@Entity
+@Table(name = "inventory_ledger")
+public class InventoryLedgerEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", nullable = false)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "variant_id", nullable = false)
+    private Variant variant;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "warehouse_id", nullable = false)
+    private Warehouse warehouse;
+
+    @Column(name = "inventory", nullable = false)
+    private Integer inventory = 0;
+
+    @Column(name = "waiting_for_delivery", nullable = false)
+    private Integer waitingForDelivery = 0;
+
+    @Column(name = "are_coming", nullable = false)
+    private Integer areComing = 0;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt = Instant.now();
+}
@@ -0,0 +1,63 @@
+package com.electro.entity.inventory;
+
+import com.electro.entity.product.Variant;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.MapsId;
+import javax.persistence.OneToOne;
+import javax.persistence.Table;
+import java.time.Instant;
+
+/**
+ * Tồn kho hiện tại của từng variant, được cập nhật mỗi khi docket được tạo hoặc đổi trạng thái
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Accessors(chain = true)
+@Entity
+@Table(name = "variant_stock")
+public class VariantStock {
+    @Id
+    @Column(name = "variant_id", nullable = false)
+    private Long variantId;
+
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "variant_id", referencedColumnName = "id", nullable = false, unique = true)
+    @MapsId
+    private Variant variant;
+
+    @Column(name = "inventory", nullable = false)
+    private Integer inventory = 0;
+
+    @Column(name = "waiting_for_delivery", nullable = false)
+    private Integer waitingForDelivery = 0;
+
+    @Column(name = "can_be_sold", nullable = false)
+    private Integer canBeSold = 0;
+
+    @Column(name = "are_coming", nullable = false)
+    private Integer areComing = 0;
+
+    // Số lượng đang được giữ cho các đơn hàng chưa có phiếu xuất
+    @Column(name = "reserved", nullable = false)
+    private Integer reserved = 0;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt = Instant.now();
+
+    // Số lượng khách hàng còn có thể đặt: có thể bán trừ phần đang được giữ
+    public int getAvailable() {
+        return canBeSold - reserved;
+    }
+}
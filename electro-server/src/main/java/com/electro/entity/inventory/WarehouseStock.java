@@ -0,0 +1,58 @@
+package com.electro.entity.inventory;
+
+import com.electro.entity.product.Variant;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+import javax.persistence.Column;
+import javax.persistence.EmbeddedId;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.MapsId;
+import javax.persistence.Table;
+import java.time.Instant;
+
+/**
+ * Tồn kho hiện tại của từng variant tại từng kho, được cập nhật cùng lúc với variant_stock
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Accessors(chain = true)
+@Entity
+@Table(name = "warehouse_stock")
+public class WarehouseStock {
+    @EmbeddedId
+    private WarehouseStockKey warehouseStockKey = new WarehouseStockKey();
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @MapsId("variantId")
+    @JoinColumn(name = "variant_id", nullable = false)
+    private Variant variant;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @MapsId("warehouseId")
+    @JoinColumn(name = "warehouse_id", nullable = false)
+    private Warehouse warehouse;
+
+    @Column(name = "inventory", nullable = false)
+    private Integer inventory = 0;
+
+    @Column(name = "waiting_for_delivery", nullable = false)
+    private Integer waitingForDelivery = 0;
+
+    @Column(name = "can_be_sold", nullable = false)
+    private Integer canBeSold = 0;
+
+    @Column(name = "are_coming", nullable = false)
+    private Integer areComing = 0;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt = Instant.now();
+}
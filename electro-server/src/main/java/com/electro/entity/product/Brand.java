@@ -1,6 +1,7 @@
 package com.electro.entity.product;
 
 import com.electro.entity.BaseEntity;
+import com.electro.event.CatalogEntityListener;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -11,6 +12,7 @@ import lombok.experimental.Accessors;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.OneToMany;
 import javax.persistence.Table;
 import java.util.ArrayList;
@@ -22,6 +24,7 @@ import java.util.List;
 @Setter
 @Accessors(chain = true)
 @Entity
+@EntityListeners(CatalogEntityListener.class)
 @Table(name = "brand")
 public class Brand extends BaseEntity {
     @Column(name = "name", nullable = false)
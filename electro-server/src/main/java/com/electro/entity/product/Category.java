@@ -1,6 +1,7 @@
 package com.electro.entity.product;
 
 import com.electro.entity.BaseEntity;
+import com.electro.event.CatalogEntityListener;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import lombok.AllArgsConstructor;
@@ -12,6 +13,7 @@ import lombok.experimental.Accessors;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.FetchType;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
@@ -26,6 +28,7 @@ import java.util.List;
 @Setter
 @Accessors(chain = true)
 @Entity
+@EntityListeners(CatalogEntityListener.class)
 @Table(name = "category")
 public class Category extends BaseEntity {
     @Column(name = "name", nullable = false)
@@ -6,6 +6,7 @@ import com.electro.entity.client.Wish;
 import com.electro.entity.general.Image;
 import com.electro.entity.promotion.Promotion;
 import com.electro.entity.review.Review;
+import com.electro.event.CatalogEntityListener;
 import com.electro.utils.JsonNodeConverter;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
@@ -20,11 +21,15 @@ import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Convert;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.FetchType;
 import javax.persistence.JoinColumn;
 import javax.persistence.JoinTable;
 import javax.persistence.ManyToMany;
 import javax.persistence.ManyToOne;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
+import javax.persistence.NamedEntityGraphs;
 import javax.persistence.OneToMany;
 import javax.persistence.Table;
 import java.util.ArrayList;
@@ -38,7 +43,28 @@ import java.util.Set;
 @Setter
 @Accessors(chain = true)
 @Entity
+@EntityListeners(CatalogEntityListener.class)
 @Table(name = "product")
+// Các fetch plan dùng trong ProductFetchPlan, chỉ JOIN FETCH một collection dạng List (bag) mỗi graph,
+// các collection còn lại được nạp theo lô qua hibernate.default_batch_fetch_size
+@NamedEntityGraphs({
+        @NamedEntityGraph(name = "Product.listing", attributeNodes = {
+                @NamedAttributeNode("variants")
+        }),
+        @NamedEntityGraph(name = "Product.detail", attributeNodes = {
+                @NamedAttributeNode("variants"),
+                @NamedAttributeNode("brand"),
+                @NamedAttributeNode("tags"),
+                @NamedAttributeNode("category")
+        }),
+        @NamedEntityGraph(name = "Product.admin", attributeNodes = {
+                @NamedAttributeNode("category"),
+                @NamedAttributeNode("brand"),
+                @NamedAttributeNode("supplier"),
+                @NamedAttributeNode("unit"),
+                @NamedAttributeNode("guarantee")
+        })
+})
 public class Product extends BaseEntity {
     @Column(name = "name", nullable = false)
     private String name;
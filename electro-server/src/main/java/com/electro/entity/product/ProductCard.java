@@ -0,0 +1,83 @@
+package com.electro.entity.product;
+
+import com.electro.utils.JsonNodeConverter;
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+import javax.persistence.Column;
+import javax.persistence.Convert;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.MapsId;
+import javax.persistence.OneToOne;
+import javax.persistence.Table;
+import java.time.Instant;
+
+/**
+ * Dữ liệu thẻ sản phẩm được trải phẳng sẵn cho danh sách phía client (ảnh đại diện, khoảng giá, các phiên bản,
+ * có thể bán, khuyến mãi, lần nhập kho gần nhất, đánh giá), được cập nhật ở nền bởi ProductCardService
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Accessors(chain = true)
+@Entity
+@Table(name = "product_card")
+public class ProductCard {
+    @Id
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "product_id", referencedColumnName = "id", nullable = false, unique = true)
+    @MapsId
+    private Product product;
+
+    @Column(name = "name", nullable = false)
+    private String name;
+
+    @Column(name = "slug", nullable = false)
+    private String slug;
+
+    @Column(name = "thumbnail")
+    private String thumbnail;
+
+    @Column(name = "min_price")
+    private Double minPrice;
+
+    @Column(name = "max_price")
+    private Double maxPrice;
+
+    // Dạng [{"variantId": ..., "variantPrice": ..., "variantProperties": ...}, ...]
+    @Column(name = "variants", nullable = false, columnDefinition = "JSON")
+    @Convert(converter = JsonNodeConverter.class)
+    private JsonNode variants;
+
+    @Column(name = "saleable", nullable = false)
+    private Boolean saleable = false;
+
+    @Column(name = "promotion_id")
+    private Long promotionId;
+
+    @Column(name = "promotion_percent")
+    private Integer promotionPercent;
+
+    @Column(name = "newest_import_at")
+    private Instant newestImportAt;
+
+    @Column(name = "review_count", nullable = false)
+    private Integer reviewCount = 0;
+
+    @Column(name = "average_rating", nullable = false)
+    private Integer averageRating = 0;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt = Instant.now();
+}
@@ -6,6 +6,7 @@ import com.electro.entity.inventory.CountVariant;
 import com.electro.entity.inventory.DocketVariant;
 import com.electro.entity.inventory.PurchaseOrderVariant;
 import com.electro.entity.order.OrderVariant;
+import com.electro.event.CatalogEntityListener;
 import com.electro.utils.JsonNodeConverter;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.fasterxml.jackson.databind.JsonNode;
@@ -19,6 +20,7 @@ import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Convert;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.FetchType;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
@@ -33,6 +35,7 @@ import java.util.Set;
 @Setter
 @Accessors(chain = true)
 @Entity
+@EntityListeners(CatalogEntityListener.class)
 @Table(name = "variant")
 public class Variant extends BaseEntity {
     @ManyToOne(fetch = FetchType.LAZY)
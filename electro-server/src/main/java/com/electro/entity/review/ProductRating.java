@@ -0,0 +1,79 @@
+package com.electro.entity.review;
+
+import com.electro.entity.product.Product;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.MapsId;
+import javax.persistence.OneToOne;
+import javax.persistence.Table;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Tổng hợp đánh giá của từng sản phẩm (số lượng, tổng điểm, số đánh giá theo từng mức sao),
+ * được cộng dồn mỗi khi đánh giá được thêm, sửa hoặc xóa
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Accessors(chain = true)
+@Entity
+@Table(name = "product_rating")
+public class ProductRating {
+    @Id
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "product_id", referencedColumnName = "id", nullable = false, unique = true)
+    @MapsId
+    private Product product;
+
+    @Column(name = "review_count", nullable = false)
+    private Integer reviewCount = 0;
+
+    @Column(name = "rating_sum", nullable = false)
+    private Integer ratingSum = 0;
+
+    @Column(name = "rating_1", nullable = false)
+    private Integer rating1 = 0;
+
+    @Column(name = "rating_2", nullable = false)
+    private Integer rating2 = 0;
+
+    @Column(name = "rating_3", nullable = false)
+    private Integer rating3 = 0;
+
+    @Column(name = "rating_4", nullable = false)
+    private Integer rating4 = 0;
+
+    @Column(name = "rating_5", nullable = false)
+    private Integer rating5 = 0;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt = Instant.now();
+
+    /**
+     * Điểm trung bình làm tròn lên, giống cách tính trước đây (CEILING(AVG(rating_score)))
+     */
+    public int getAverageRatingScore() {
+        return reviewCount == 0 ? 0 : (int) Math.ceil((double) ratingSum / reviewCount);
+    }
+
+    /**
+     * Số đánh giá theo mức sao từ 1 đến 5
+     */
+    public List<Integer> getRatingScoreCounts() {
+        return List.of(rating1, rating2, rating3, rating4, rating5);
+    }
+}
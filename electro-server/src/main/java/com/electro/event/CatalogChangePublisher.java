@@ -0,0 +1,75 @@
+package com.electro.event;
+
+import lombok.AllArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Gộp các {@link CatalogChangedEvent} phát sinh trong cùng một giao dịch thành một sự kiện duy nhất, phát ngay trước khi
+ * commit để các listener sau commit chỉ chạy một lần cho cả giao dịch (ví dụ lưu một sản phẩm kèm N phiên bản và hình ảnh).
+ * Ngoài giao dịch, sự kiện được phát ngay.
+ */
+@Component
+@AllArgsConstructor
+public class CatalogChangePublisher {
+
+    private ApplicationEventPublisher publisher;
+
+    public void publish(CatalogChangedEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publisher.publishEvent(event);
+            return;
+        }
+
+        PendingChanges pending = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+
+        if (pending == null) {
+            pending = new PendingChanges();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+
+        // Thay đổi phát sinh trong lúc commit, sau khi sự kiện gộp đã được phát
+        if (pending.published) {
+            publisher.publishEvent(event);
+            return;
+        }
+
+        pending.events.add(event);
+    }
+
+    private class PendingChanges implements TransactionSynchronization {
+
+        private final List<CatalogChangedEvent> events = new ArrayList<>();
+        private boolean published;
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            // Ghi các thay đổi còn chờ để @PostUpdate/@PostRemove của entity kịp vào sự kiện gộp
+            if (!readOnly) {
+                TransactionSynchronizationManager.getResourceMap().values().stream()
+                        .filter(EntityManagerHolder.class::isInstance)
+                        .forEach(holder -> ((EntityManagerHolder) holder).getEntityManager().flush());
+            }
+
+            published = true;
+
+            if (!events.isEmpty()) {
+                publisher.publishEvent(CatalogChangedEvent.merge(events));
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(CatalogChangePublisher.this);
+        }
+
+    }
+
+}
@@ -0,0 +1,54 @@
+package com.electro.event;
+
+import lombok.Value;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Sự kiện phát ra khi dữ liệu danh mục sản phẩm thay đổi, dùng để làm mới các bộ nhớ đệm phía client
+ */
+@Value
+public class CatalogChangedEvent {
+    Set<Long> productIds;
+    Set<Long> categoryIds;
+    Set<Long> brandIds;
+    // Thay đổi có thể làm sản phẩm xuất hiện hoặc biến mất khỏi một danh sách (đổi danh mục, giá, tồn kho...)
+    boolean membershipChanged;
+
+    public static CatalogChangedEvent ofProducts(Collection<Long> productIds) {
+        return new CatalogChangedEvent(Set.copyOf(productIds), Set.of(), Set.of(), true);
+    }
+
+    public static CatalogChangedEvent ofProductContents(Collection<Long> productIds) {
+        return new CatalogChangedEvent(Set.copyOf(productIds), Set.of(), Set.of(), false);
+    }
+
+    public static CatalogChangedEvent ofCategories(Collection<Long> categoryIds) {
+        return new CatalogChangedEvent(Set.of(), Set.copyOf(categoryIds), Set.of(), false);
+    }
+
+    public static CatalogChangedEvent ofBrands(Collection<Long> brandIds) {
+        return new CatalogChangedEvent(Set.of(), Set.of(), Set.copyOf(brandIds), false);
+    }
+
+    /**
+     * Gộp nhiều sự kiện thành một, coi như đổi danh sách nếu có bất kỳ sự kiện nào đổi danh sách
+     */
+    public static CatalogChangedEvent merge(Collection<CatalogChangedEvent> events) {
+        Set<Long> productIds = new HashSet<>();
+        Set<Long> categoryIds = new HashSet<>();
+        Set<Long> brandIds = new HashSet<>();
+        boolean membershipChanged = false;
+
+        for (CatalogChangedEvent event : events) {
+            productIds.addAll(event.getProductIds());
+            categoryIds.addAll(event.getCategoryIds());
+            brandIds.addAll(event.getBrandIds());
+            membershipChanged |= event.isMembershipChanged();
+        }
+
+        return new CatalogChangedEvent(Set.copyOf(productIds), Set.copyOf(categoryIds), Set.copyOf(brandIds), membershipChanged);
+    }
+}
@@ -0,0 +1,51 @@
+package com.electro.event;
+
+import com.electro.entity.general.Image;
+import com.electro.entity.product.Brand;
+import com.electro.entity.product.Category;
+import com.electro.entity.product.Product;
+import com.electro.entity.product.Variant;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+import java.util.List;
+
+/**
+ * Phát {@link CatalogChangedEvent} khi sản phẩm, phiên bản, hình ảnh, danh mục hoặc thương hiệu được lưu hay xóa qua JPA,
+ * các thay đổi trong cùng giao dịch được gộp thành một sự kiện
+ */
+@Component
+@AllArgsConstructor
+public class CatalogEntityListener {
+
+    private CatalogChangePublisher publisher;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void afterChange(Object entity) {
+        if (entity instanceof Product) {
+            publisher.publish(CatalogChangedEvent.ofProducts(List.of(((Product) entity).getId())));
+        }
+
+        if (entity instanceof Variant && ((Variant) entity).getProduct() != null) {
+            publisher.publish(CatalogChangedEvent.ofProducts(List.of(((Variant) entity).getProduct().getId())));
+        }
+
+        if (entity instanceof Image && ((Image) entity).getProduct() != null) {
+            publisher.publish(CatalogChangedEvent.ofProductContents(List.of(((Image) entity).getProduct().getId())));
+        }
+
+        if (entity instanceof Category) {
+            publisher.publish(CatalogChangedEvent.ofCategories(List.of(((Category) entity).getId())));
+        }
+
+        if (entity instanceof Brand) {
+            publisher.publish(CatalogChangedEvent.ofBrands(List.of(((Brand) entity).getId())));
+        }
+    }
+
+}
@@ -9,14 +9,14 @@ import com.electro.entity.cart.Cart;
 import com.electro.entity.cart.CartVariant;
 import com.electro.entity.cart.CartVariantKey;
 import com.electro.entity.general.Image;
+import com.electro.entity.inventory.VariantStock;
 import com.electro.entity.product.Product;
 import com.electro.entity.product.Variant;
 import com.electro.mapper.promotion.PromotionMapper;
 import com.electro.repository.authentication.UserRepository;
-import com.electro.repository.inventory.DocketVariantRepository;
 import com.electro.repository.product.VariantRepository;
-import com.electro.repository.promotion.PromotionRepository;
-import com.electro.utils.InventoryUtils;
+import com.electro.service.inventory.VariantStockService;
+import com.electro.service.promotion.ActivePromotionIndex;
 import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Component;
 
@@ -24,6 +24,7 @@ import java.util.Comparator;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -34,8 +35,8 @@ public class ClientCartMapper {
 
     private UserRepository userRepository;
     private VariantRepository variantRepository;
-    private DocketVariantRepository docketVariantRepository;
-    private PromotionRepository promotionRepository;
+    private VariantStockService variantStockService;
+    private ActivePromotionIndex activePromotionIndex;
     private PromotionMapper promotionMapper;
 
     public Cart requestToEntity(ClientCartRequest request) {
@@ -98,10 +99,16 @@ public class ClientCartMapper {
     public ClientCartResponse entityToResponse(Cart entity) {
         var response = new ClientCartResponse();
         response.setCartId(entity.getId());
+
+        // Lấy tồn kho của tất cả phiên bản trong giỏ hàng trong một câu truy vấn
+        Map<Long, VariantStock> variantStocks = variantStockService.findByVariantIds(entity.getCartVariants().stream()
+                .map(cartVariant -> cartVariant.getVariant().getId())
+                .collect(Collectors.toSet()));
+
         // Reference: https://stackoverflow.com/a/51331393
         response.setCartItems(entity.getCartVariants().stream()
                 .sorted(Comparator.comparing(CartVariant::getCreatedAt))
-                .map(this::entityToResponse)
+                .map(cartVariant -> entityToResponse(cartVariant, variantStocks))
                 .collect(Collectors.toCollection(LinkedHashSet::new)));
         return response;
     }
@@ -112,30 +119,26 @@ public class ClientCartMapper {
         response.setProductName(entity.getName());
         response.setProductSlug(entity.getSlug());
         response.setProductThumbnail(entity.getImages().stream().filter(Image::getIsThumbnail).findAny().map(Image::getPath).orElse(null));
-        response.setProductPromotion(promotionRepository
-                .findActivePromotionByProductId(entity.getId())
-                .stream()
-                .findFirst()
+        response.setProductPromotion(activePromotionIndex
+                .findActivePromotion(entity.getId())
                 .map(promotionMapper::entityToClientResponse)
                 .orElse(null));
         return response;
     }
 
-    private ClientCartVariantResponse.ClientVariantResponse entityToResponse(Variant entity) {
+    private ClientCartVariantResponse.ClientVariantResponse entityToResponse(Variant entity, Map<Long, VariantStock> variantStocks) {
         var response = new ClientCartVariantResponse.ClientVariantResponse();
         response.setVariantId(entity.getId());
         response.setVariantProduct(entityToResponse(entity.getProduct()));
         response.setVariantPrice(entity.getPrice());
         response.setVariantProperties(entity.getProperties());
-        response.setVariantInventory(InventoryUtils
-                .calculateInventoryIndices(docketVariantRepository.findByVariantId(entity.getId()))
-                .get("canBeSold"));
+        response.setVariantInventory(variantStocks.get(entity.getId()).getAvailable());
         return response;
     }
 
-    private ClientCartVariantResponse entityToResponse(CartVariant entity) {
+    private ClientCartVariantResponse entityToResponse(CartVariant entity, Map<Long, VariantStock> variantStocks) {
         var response = new ClientCartVariantResponse();
-        response.setCartItemVariant(entityToResponse(entity.getVariant()));
+        response.setCartItemVariant(entityToResponse(entity.getVariant(), variantStocks));
         response.setCartItemQuantity(entity.getQuantity());
         return response;
     }
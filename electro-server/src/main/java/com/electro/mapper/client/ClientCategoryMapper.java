@@ -1,57 +1,75 @@
 package com.electro.mapper.client;
 
 import com.electro.dto.client.ClientCategoryResponse;
-import com.electro.entity.product.Category;
+import com.electro.repository.product.CategoryTree;
+import com.electro.repository.product.CategoryTreeIndex;
+import lombok.AllArgsConstructor;
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Component;
 
 import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 @Component
+@AllArgsConstructor
 public class ClientCategoryMapper {
 
+    private CategoryTreeIndex categoryTreeIndex;
+
     /**
      * Thông tin category gồm có name, slug và danh sách con cấp 3
      */
-    public List<ClientCategoryResponse> entityToResponse(List<Category> categories, int maxLevel) {
+    public List<ClientCategoryResponse> nodeToResponse(List<CategoryTree.Node> nodes, int maxLevel) {
         if (maxLevel == 0) {
             return Collections.emptyList();
         }
 
-        return categories.stream()
-                .flatMap(category -> Stream.of(new ClientCategoryResponse()
-                        .setCategoryName(category.getName())
-                        .setCategorySlug(category.getSlug())
-                        .setCategoryChildren(entityToResponse(category.getCategories(), maxLevel - 1))))
+        return nodes.stream()
+                .map(node -> new ClientCategoryResponse()
+                        .setCategoryName(node.getName())
+                        .setCategorySlug(node.getSlug())
+                        .setCategoryChildren(nodeToResponse(node.getChildren(), maxLevel - 1)))
                 .collect(Collectors.toList());
     }
 
     /**
      * Thông tin category gồm có name, slug, danh sách con cấp 1 và cha xa nhất (tạo breadcrumb)
      */
-    public ClientCategoryResponse entityToResponse(@Nullable Category category, boolean isParent) {
-        if (category == null) {
+    public ClientCategoryResponse nodeToResponse(CategoryTree tree, @Nullable CategoryTree.Node node, boolean isParent) {
+        if (node == null) {
             return null;
         }
 
         ClientCategoryResponse categoryResponse = new ClientCategoryResponse();
 
         categoryResponse
-                .setCategoryName(category.getName())
-                .setCategorySlug(category.getSlug());
+                .setCategoryName(node.getName())
+                .setCategorySlug(node.getSlug());
 
         if (!isParent) {
-            categoryResponse.setCategoryChildren(entityToResponse(category.getCategories(), 1));
+            categoryResponse.setCategoryChildren(nodeToResponse(node.getChildren(), 1));
         }
 
-        if (category.getParentCategory() == null) {
+        CategoryTree.Node parent = tree.getParent(node);
+
+        if (parent == null) {
             return categoryResponse;
         }
 
-        return categoryResponse.setCategoryParent(entityToResponse(category.getParentCategory(), true));
+        return categoryResponse.setCategoryParent(nodeToResponse(tree, parent, true));
+    }
+
+    /**
+     * Như {@link #nodeToResponse(CategoryTree, CategoryTree.Node, boolean)}, đọc từ cây danh mục hiện tại theo id
+     */
+    public ClientCategoryResponse idToResponse(@Nullable Long categoryId) {
+        if (categoryId == null) {
+            return null;
+        }
+
+        CategoryTree tree = categoryTreeIndex.getTree();
+        return nodeToResponse(tree, tree.findById(categoryId).orElse(null), false);
     }
 
 }
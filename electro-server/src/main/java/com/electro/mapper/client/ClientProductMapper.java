@@ -1,21 +1,25 @@
 package com.electro.mapper.client;
 
 import com.electro.dto.client.ClientListedProductResponse;
+import com.electro.dto.client.ClientPromotionResponse;
 import com.electro.dto.client.ClientProductResponse;
 import com.electro.entity.general.Image;
+import com.electro.entity.inventory.VariantStock;
 import com.electro.entity.product.Product;
+import com.electro.entity.product.ProductCard;
 import com.electro.entity.product.Variant;
 import com.electro.mapper.general.ImageMapper;
 import com.electro.mapper.promotion.PromotionMapper;
 import com.electro.projection.inventory.SimpleProductInventory;
-import com.electro.repository.inventory.DocketVariantRepository;
-import com.electro.repository.promotion.PromotionRepository;
-import com.electro.utils.InventoryUtils;
+import com.electro.service.inventory.VariantStockService;
+import com.electro.service.promotion.ActivePromotionIndex;
 import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Component
@@ -24,8 +28,8 @@ public class ClientProductMapper {
 
     private ImageMapper imageMapper;
     private ClientCategoryMapper clientCategoryMapper;
-    private DocketVariantRepository docketVariantRepository;
-    private PromotionRepository promotionRepository;
+    private VariantStockService variantStockService;
+    private ActivePromotionIndex activePromotionIndex;
     private PromotionMapper promotionMapper;
 
     public ClientListedProductResponse entityToListedResponse(Product product, List<SimpleProductInventory> productInventories) {
@@ -62,19 +66,60 @@ public class ClientProductMapper {
         clientListedProductResponse.setProductSaleable(productInventories.stream()
                 .filter(productInventory -> productInventory.getProductId().equals(product.getId()))
                 .findAny()
-                .map(productInventory -> productInventory.getCanBeSold() > 0)
+                .map(productInventory -> productInventory.getAvailable() > 0)
                 .orElse(false));
 
-        clientListedProductResponse.setProductPromotion(promotionRepository
-                .findActivePromotionByProductId(product.getId())
-                .stream()
-                .findFirst()
+        clientListedProductResponse.setProductPromotion(activePromotionIndex
+                .findActivePromotion(product.getId())
                 .map(promotionMapper::entityToClientResponse)
                 .orElse(null));
 
         return clientListedProductResponse;
     }
 
+    /**
+     * Dựng thẻ sản phẩm từ bảng product_card đã trải phẳng sẵn, không cần nạp product, variant, image, tồn kho hay đánh giá
+     */
+    public ClientListedProductResponse cardToListedResponse(ProductCard card) {
+        ClientListedProductResponse clientListedProductResponse = new ClientListedProductResponse();
+
+        clientListedProductResponse
+                .setProductId(card.getProductId())
+                .setProductName(card.getName())
+                .setProductSlug(card.getSlug())
+                .setProductThumbnail(card.getThumbnail());
+
+        clientListedProductResponse.setProductPriceRange(
+                card.getMinPrice() == null
+                        ? Collections.emptyList()
+                        : card.getMinPrice().equals(card.getMaxPrice())
+                        ? List.of(card.getMinPrice())
+                        : List.of(card.getMinPrice(), card.getMaxPrice())
+        );
+
+        List<ClientListedProductResponse.ClientListedVariantResponse> variants = new ArrayList<>();
+        card.getVariants().forEach(variant -> variants.add(new ClientListedProductResponse.ClientListedVariantResponse()
+                .setVariantId(variant.path("variantId").asLong())
+                .setVariantPrice(variant.path("variantPrice").isNull() ? null : variant.path("variantPrice").asDouble())
+                .setVariantProperties(variant.path("variantProperties").isMissingNode() || variant.path("variantProperties").isNull()
+                        ? null
+                        : variant.path("variantProperties"))));
+        clientListedProductResponse.setProductVariants(variants);
+
+        clientListedProductResponse.setProductSaleable(card.getSaleable());
+        clientListedProductResponse.setProductAverageRatingScore(card.getAverageRating());
+        clientListedProductResponse.setProductCountReviews(card.getReviewCount());
+
+        if (card.getPromotionId() != null) {
+            ClientPromotionResponse clientPromotionResponse = new ClientPromotionResponse();
+            clientPromotionResponse.setPromotionId(card.getPromotionId());
+            clientPromotionResponse.setPromotionPercent(card.getPromotionPercent());
+            clientListedProductResponse.setProductPromotion(clientPromotionResponse);
+        }
+
+        return clientListedProductResponse;
+    }
+
     public ClientProductResponse entityToResponse(Product product,
                                                   List<SimpleProductInventory> productInventories,
                                                   int averageRatingScore,
@@ -88,32 +133,34 @@ public class ClientProductMapper {
         clientProductResponse.setProductShortDescription(product.getShortDescription());
         clientProductResponse.setProductDescription(product.getDescription());
         clientProductResponse.setProductImages(imageMapper.entityToResponse(product.getImages()));
-        clientProductResponse.setProductCategory(clientCategoryMapper.entityToResponse(product.getCategory(), false));
+        clientProductResponse.setProductCategory(clientCategoryMapper.idToResponse(product.getCategory() == null ? null : product.getCategory().getId()));
         clientProductResponse.setProductBrand(product.getBrand() == null ? null : new ClientProductResponse.ClientBrandResponse()
                 .setBrandId(product.getBrand().getId())
                 .setBrandName(product.getBrand().getName()));
         clientProductResponse.setProductSpecifications(product.getSpecifications());
+
+        // Lấy tồn kho của tất cả phiên bản trong một câu truy vấn
+        Map<Long, VariantStock> variantStocks = variantStockService.findByVariantIds(product.getVariants().stream()
+                .map(Variant::getId)
+                .collect(Collectors.toList()));
+
         clientProductResponse.setProductVariants(product.getVariants().stream()
                 .map(variant -> new ClientProductResponse.ClientVariantResponse()
                         .setVariantId(variant.getId())
                         .setVariantPrice(variant.getPrice())
                         .setVariantProperties(variant.getProperties())
-                        .setVariantInventory(InventoryUtils
-                                .calculateInventoryIndices(docketVariantRepository.findByVariantId(variant.getId()))
-                                .get("canBeSold")))
+                        .setVariantInventory(variantStocks.get(variant.getId()).getAvailable()))
                 .collect(Collectors.toList()));
         clientProductResponse.setProductSaleable(productInventories.stream()
                 .filter(productInventory -> productInventory.getProductId().equals(product.getId()))
                 .findAny()
-                .map(productInventory -> productInventory.getCanBeSold() > 0)
+                .map(productInventory -> productInventory.getAvailable() > 0)
                 .orElse(false));
         clientProductResponse.setProductAverageRatingScore(averageRatingScore);
         clientProductResponse.setProductCountReviews(countReviews);
         clientProductResponse.setProductRelatedProducts(relatedProductResponses);
-        clientProductResponse.setProductPromotion(promotionRepository
-                .findActivePromotionByProductId(product.getId())
-                .stream()
-                .findFirst()
+        clientProductResponse.setProductPromotion(activePromotionIndex
+                .findActivePromotion(product.getId())
                 .map(promotionMapper::entityToClientResponse)
                 .orElse(null));
 
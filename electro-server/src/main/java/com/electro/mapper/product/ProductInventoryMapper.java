@@ -2,14 +2,13 @@ package com.electro.mapper.product;
 
 import com.electro.dto.inventory.ProductInventoryResponse;
 import com.electro.projection.inventory.ProductInventory;
-import com.electro.mapper.inventory.DocketVariantMapper;
 import org.mapstruct.Mapper;
 import org.mapstruct.ReportingPolicy;
 
 import java.util.List;
 
 @Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.IGNORE,
-        uses = {DocketVariantMapper.class, BrandMapper.class, SupplierMapper.class})
+        uses = {BrandMapper.class, SupplierMapper.class})
 public interface ProductInventoryMapper {
 
     ProductInventoryResponse toResponse(ProductInventory productInventory);
@@ -0,0 +1,49 @@
+package com.electro.projection.inventory;
+
+import lombok.Value;
+
+/**
+ * Bốn chỉ số tồn kho của một variant (hoặc phần đóng góp của một nhóm dòng phiếu), bất biến
+ */
+@Value
+public class InventoryIndices {
+
+    public static final InventoryIndices ZERO = new InventoryIndices(0, 0, 0, 0);
+
+    // Tồn thực tế: nhập hoàn thành trừ xuất hoàn thành
+    int inventory;
+    // Chờ xuất: phiếu xuất mới hoặc đang xử lý
+    int waitingForDelivery;
+    // Có thể bán: tồn thực tế trừ chờ xuất
+    int canBeSold;
+    // Sắp về: phiếu nhập mới hoặc đang xử lý
+    int areComing;
+
+    public static InventoryIndices of(int inventory, int waitingForDelivery, int areComing) {
+        if (inventory == 0 && waitingForDelivery == 0 && areComing == 0) {
+            return ZERO;
+        }
+        return new InventoryIndices(inventory, waitingForDelivery, inventory - waitingForDelivery, areComing);
+    }
+
+    public InventoryIndices plus(InventoryIndices other) {
+        return new InventoryIndices(
+                inventory + other.inventory,
+                waitingForDelivery + other.waitingForDelivery,
+                canBeSold + other.canBeSold,
+                areComing + other.areComing);
+    }
+
+    public InventoryIndices minus(InventoryIndices other) {
+        return new InventoryIndices(
+                inventory - other.inventory,
+                waitingForDelivery - other.waitingForDelivery,
+                canBeSold - other.canBeSold,
+                areComing - other.areComing);
+    }
+
+    public boolean isZero() {
+        return inventory == 0 && waitingForDelivery == 0 && canBeSold == 0 && areComing == 0;
+    }
+
+}
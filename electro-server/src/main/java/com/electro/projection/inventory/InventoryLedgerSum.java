@@ -0,0 +1,30 @@
+package com.electro.projection.inventory;
+
+import lombok.Data;
+
+@Data
+public class InventoryLedgerSum {
+    private Long variantId;
+    private Long warehouseId;
+    private Integer inventory;
+    private Integer waitingForDelivery;
+    private Integer areComing;
+
+    public InventoryLedgerSum(
+            Long variantId,
+            Long warehouseId,
+            Long inventory,
+            Long waitingForDelivery,
+            Long areComing
+    ) {
+        this.variantId = variantId;
+        this.warehouseId = warehouseId;
+        this.inventory = Math.toIntExact(inventory);
+        this.waitingForDelivery = Math.toIntExact(waitingForDelivery);
+        this.areComing = Math.toIntExact(areComing);
+    }
+
+    public VariantWarehouseKey getKey() {
+        return new VariantWarehouseKey(variantId, warehouseId);
+    }
+}
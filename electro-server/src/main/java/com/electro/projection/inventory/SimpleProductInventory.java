@@ -9,18 +9,22 @@ public class SimpleProductInventory {
     private Integer waitingForDelivery;
     private Integer canBeSold;
     private Integer areComing;
+    // Còn có thể đặt: có thể bán trừ phần đang được giữ cho đơn hàng
+    private Integer available;
 
     public SimpleProductInventory(
             Long productId,
             Long inventory,
             Long waitingForDelivery,
             Long canBeSold,
-            Long areComing
+            Long areComing,
+            Long available
     ) {
         this.productId = productId;
         this.inventory = Math.toIntExact(inventory);
         this.waitingForDelivery = Math.toIntExact(waitingForDelivery);
         this.canBeSold = Math.toIntExact(canBeSold);
         this.areComing = Math.toIntExact(areComing);
+        this.available = Math.toIntExact(available);
     }
 }
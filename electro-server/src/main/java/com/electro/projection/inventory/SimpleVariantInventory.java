@@ -0,0 +1,26 @@
+package com.electro.projection.inventory;
+
+import lombok.Data;
+
+@Data
+public class SimpleVariantInventory {
+    private Long variantId;
+    private Integer inventory;
+    private Integer waitingForDelivery;
+    private Integer canBeSold;
+    private Integer areComing;
+
+    public SimpleVariantInventory(
+            Long variantId,
+            Long inventory,
+            Long waitingForDelivery,
+            Long canBeSold,
+            Long areComing
+    ) {
+        this.variantId = variantId;
+        this.inventory = Math.toIntExact(inventory);
+        this.waitingForDelivery = Math.toIntExact(waitingForDelivery);
+        this.canBeSold = Math.toIntExact(canBeSold);
+        this.areComing = Math.toIntExact(areComing);
+    }
+}
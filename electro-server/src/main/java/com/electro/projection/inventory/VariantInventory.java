@@ -1,15 +1,11 @@
 package com.electro.projection.inventory;
 
-import com.electro.entity.inventory.DocketVariant;
 import com.electro.entity.product.Variant;
 import lombok.Data;
 
-import java.util.List;
-
 @Data
 public class VariantInventory {
     private Variant variant;
-    private List<DocketVariant> transactions;
     private Integer inventory;
     private Integer waitingForDelivery;
     private Integer canBeSold;
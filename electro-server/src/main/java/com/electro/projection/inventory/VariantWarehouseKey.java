@@ -0,0 +1,12 @@
+package com.electro.projection.inventory;
+
+import lombok.Value;
+
+/**
+ * Cặp phiên bản sản phẩm và kho, dùng làm khóa khi gom tồn kho theo từng kho
+ */
+@Value
+public class VariantWarehouseKey {
+    Long variantId;
+    Long warehouseId;
+}
@@ -0,0 +1,14 @@
+package com.electro.repository;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Một trang kết quả phân trang theo con trỏ, {@code nextCursor} là null nếu không còn trang sau
+ */
+@Value
+public class CursorSlice<T> {
+    List<T> content;
+    String nextCursor;
+}
@@ -0,0 +1,92 @@
+package com.electro.repository;
+
+import com.electro.utils.CursorUtils;
+import lombok.AllArgsConstructor;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Phân trang theo con trỏ (keyset) cho các danh sách sắp xếp theo một thuộc tính, dùng id để phân định khi trùng khóa.
+ * Không chạy câu truy vấn đếm tổng số phần tử.
+ */
+@Repository
+@AllArgsConstructor
+public class KeysetRepository {
+
+    private EntityManager em;
+
+    /**
+     * @param sort   dạng `field,asc` hoặc `field,desc` giống tham số `sort` của các danh sách hiện tại
+     * @param cursor con trỏ trả về từ trang trước, null hoặc rỗng với trang đầu tiên
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public <T> CursorSlice<T> findAll(Class<T> entityClass,
+                                      Specification<T> spec,
+                                      String sort,
+                                      @Nullable String cursor,
+                                      int size) {
+        String[] sortParts = sort.split(",");
+        String sortField = sortParts[0].trim();
+        boolean descending = sortParts.length > 1 && sortParts[1].trim().equalsIgnoreCase("desc");
+
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<T> root = query.from(entityClass);
+
+        Path<Comparable> key = root.get(sortField);
+        Path<Long> id = root.get("id");
+
+        List<Predicate> wheres = new ArrayList<>();
+        Optional.ofNullable(spec.toPredicate(root, query, cb)).ifPresent(wheres::add);
+
+        // Chỉ lấy các phần tử đứng sau phần tử cuối cùng của trang trước
+        CursorUtils.Cursor after = CursorUtils.decode(cursor);
+
+        if (after != null) {
+            Comparable afterKey = CursorUtils.parseKey(key.getJavaType(), after.getKey());
+
+            if (sortField.equals("id")) {
+                wheres.add(descending ? cb.lessThan(id, after.getId()) : cb.greaterThan(id, after.getId()));
+            } else {
+                wheres.add(cb.or(
+                        descending ? cb.lessThan(key, afterKey) : cb.greaterThan(key, afterKey),
+                        cb.and(cb.equal(key, afterKey),
+                                descending ? cb.lessThan(id, after.getId()) : cb.greaterThan(id, after.getId()))
+                ));
+            }
+        }
+
+        query.multiselect(root, key, id);
+        query.where(wheres.toArray(Predicate[]::new));
+        query.orderBy(descending ? cb.desc(key) : cb.asc(key), descending ? cb.desc(id) : cb.asc(id));
+
+        // Lấy dư một phần tử để biết còn trang sau hay không
+        List<Tuple> rows = em.createQuery(query).setMaxResults(size + 1).getResultList();
+        boolean hasNext = rows.size() > size;
+        List<Tuple> pageRows = hasNext ? rows.subList(0, size) : rows;
+
+        List<T> content = pageRows.stream().map(row -> (T) row.get(0)).collect(Collectors.toList());
+
+        String nextCursor = null;
+        if (hasNext) {
+            Tuple last = pageRows.get(pageRows.size() - 1);
+            nextCursor = CursorUtils.encode(last.get(1), last.get(2, Long.class));
+        }
+
+        return new CursorSlice<>(content, nextCursor);
+    }
+
+}
@@ -2,14 +2,17 @@ package com.electro.repository;
 
 import com.electro.entity.inventory.Docket;
 import com.electro.entity.inventory.DocketVariant;
+import com.electro.entity.inventory.VariantStock;
 import com.electro.entity.product.Variant;
 import com.electro.projection.inventory.SimpleProductInventory;
+import com.electro.projection.inventory.SimpleVariantInventory;
 import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Repository;
 
 import javax.persistence.EntityManager;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
 import javax.persistence.criteria.Join;
 import javax.persistence.criteria.Root;
 import java.util.List;
@@ -24,56 +27,18 @@ public class ProjectionRepository {
         CriteriaBuilder cb = em.getCriteriaBuilder();
         CriteriaQuery<SimpleProductInventory> query = cb.createQuery(SimpleProductInventory.class);
 
-        Root<Variant> variant = query.from(Variant.class);
-        Join<Variant, DocketVariant> docketVariant = variant.join("docketVariants");
-        Join<DocketVariant, Docket> docket = docketVariant.join("docket");
+        // Đọc từ bảng tồn kho variant_stock thay vì cộng dồn toàn bộ lịch sử phiếu
+        Root<VariantStock> variantStock = query.from(VariantStock.class);
+        Join<VariantStock, Variant> variant = variantStock.join("variant");
 
         query.select(cb.construct(
                 SimpleProductInventory.class,
                 variant.get("product").get("id"),
-                cb.sum(
-                        cb.<Integer>selectCase()
-                                .when(cb.and(cb.equal(docket.get("type"), 1),
-                                                cb.equal(docket.get("status"), 3)),
-                                        docketVariant.get("quantity"))
-                                .when(cb.and(cb.equal(docket.get("type"), 2),
-                                                cb.equal(docket.get("status"), 3)),
-                                        cb.prod(docketVariant.get("quantity"), -1))
-                                .otherwise(0)
-                ),
-                cb.sum(
-                        cb.<Integer>selectCase()
-                                .when(cb.and(cb.equal(docket.get("type"), 2),
-                                                docket.get("status").in(1, 2)),
-                                        docketVariant.get("quantity"))
-                                .otherwise(0)
-                ),
-                cb.diff(
-                        cb.sum(
-                                cb.<Integer>selectCase()
-                                        .when(cb.and(cb.equal(docket.get("type"), 1),
-                                                        cb.equal(docket.get("status"), 3)),
-                                                docketVariant.get("quantity"))
-                                        .when(cb.and(cb.equal(docket.get("type"), 2),
-                                                        cb.equal(docket.get("status"), 3)),
-                                                cb.prod(docketVariant.get("quantity"), -1))
-                                        .otherwise(0)
-                        ),
-                        cb.sum(
-                                cb.<Integer>selectCase()
-                                        .when(cb.and(cb.equal(docket.get("type"), 2),
-                                                        docket.get("status").in(1, 2)),
-                                                docketVariant.get("quantity"))
-                                        .otherwise(0)
-                        )
-                ),
-                cb.sum(
-                        cb.<Integer>selectCase()
-                                .when(cb.and(cb.equal(docket.get("type"), 1),
-                                                docket.get("status").in(1, 2)),
-                                        docketVariant.get("quantity"))
-                                .otherwise(0)
-                )
+                cb.sum(variantStock.get("inventory")),
+                cb.sum(variantStock.get("waitingForDelivery")),
+                cb.sum(variantStock.get("canBeSold")),
+                cb.sum(variantStock.get("areComing")),
+                cb.sum(cb.diff(variantStock.<Integer>get("canBeSold"), variantStock.<Integer>get("reserved")))
         ));
 
         query.where(variant.get("product").get("id").in(productIds));
@@ -82,4 +47,55 @@ public class ProjectionRepository {
         return em.createQuery(query).getResultList();
     }
 
+    /**
+     * Tính tồn kho từng variant từ lịch sử phiếu nhập xuất, dùng để dựng lại hoặc đối chiếu bảng variant_stock
+     */
+    public List<SimpleVariantInventory> findSimpleVariantInventoriesFromTransactions() {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<SimpleVariantInventory> query = cb.createQuery(SimpleVariantInventory.class);
+
+        Root<DocketVariant> docketVariant = query.from(DocketVariant.class);
+        Join<DocketVariant, Docket> docket = docketVariant.join("docket");
+
+        Expression<Integer> inventory = cb.sum(
+                cb.<Integer>selectCase()
+                        .when(cb.and(cb.equal(docket.get("type"), 1),
+                                        cb.equal(docket.get("status"), 3)),
+                                docketVariant.get("quantity"))
+                        .when(cb.and(cb.equal(docket.get("type"), 2),
+                                        cb.equal(docket.get("status"), 3)),
+                                cb.prod(docketVariant.get("quantity"), -1))
+                        .otherwise(0)
+        );
+
+        Expression<Integer> waitingForDelivery = cb.sum(
+                cb.<Integer>selectCase()
+                        .when(cb.and(cb.equal(docket.get("type"), 2),
+                                        docket.get("status").in(1, 2)),
+                                docketVariant.get("quantity"))
+                        .otherwise(0)
+        );
+
+        Expression<Integer> areComing = cb.sum(
+                cb.<Integer>selectCase()
+                        .when(cb.and(cb.equal(docket.get("type"), 1),
+                                        docket.get("status").in(1, 2)),
+                                docketVariant.get("quantity"))
+                        .otherwise(0)
+        );
+
+        query.select(cb.construct(
+                SimpleVariantInventory.class,
+                docketVariant.get("variant").get("id"),
+                inventory,
+                waitingForDelivery,
+                cb.diff(inventory, waitingForDelivery),
+                areComing
+        ));
+
+        query.groupBy(docketVariant.get("variant").get("id"));
+
+        return em.createQuery(query).getResultList();
+    }
+
 }
@@ -12,9 +12,13 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
 
     default Page<Notification> findAllByUsername(String username, String sort, String filter, Pageable pageable) {
         Specification<Notification> sortable = RSQLJPASupport.toSort(sort);
+        return findAll(sortable.and(filterByUsername(username, filter)), pageable);
+    }
+
+    default Specification<Notification> filterByUsername(String username, String filter) {
         Specification<Notification> filterable = RSQLJPASupport.toSpecification(filter);
         Specification<Notification> usernameSpec = RSQLJPASupport.toSpecification("user.username==" + username);
-        return findAll(sortable.and(filterable).and(usernameSpec), pageable);
+        return filterable.and(usernameSpec);
     }
 
 }
@@ -2,36 +2,34 @@ package com.electro.repository.inventory;
 
 import com.electro.entity.inventory.DocketVariant;
 import com.electro.entity.inventory.DocketVariantKey;
-import com.electro.entity.product.Product;
-import com.electro.entity.product.Variant;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-import javax.persistence.criteria.Join;
 import java.util.List;
 
 public interface DocketVariantRepository extends JpaRepository<DocketVariant, DocketVariantKey>,
         JpaSpecificationExecutor<DocketVariant> {
 
-    default List<DocketVariant> findByProductId(Long productId) {
-        Specification<DocketVariant> spec = (root, query, cb) -> {
-            Join<DocketVariant, Variant> variant = root.join("variant");
-            Join<Variant, Product> product = variant.join("product");
+    // Lịch sử nhập xuất theo trang, nạp sẵn phiếu và các liên kết của phiếu để không phát sinh truy vấn theo từng dòng
+    String TRANSACTION_FETCH = "SELECT dv FROM DocketVariant dv JOIN FETCH dv.variant v JOIN FETCH dv.docket d " +
+            "JOIN FETCH d.reason JOIN FETCH d.warehouse LEFT JOIN FETCH d.purchaseOrder LEFT JOIN FETCH d.order ";
 
-            query.where(cb.equal(product.get("id"), productId));
-            query.orderBy(cb.desc(root.get("docket").get("id")));
+    @Query(value = TRANSACTION_FETCH + "WHERE v.product.id = :productId ORDER BY d.id DESC, v.id",
+            countQuery = "SELECT COUNT(dv) FROM DocketVariant dv WHERE dv.variant.product.id = :productId")
+    Page<DocketVariant> findByProductId(@Param("productId") Long productId, Pageable pageable);
 
-            return query.getRestriction();
-        };
+    @Query(value = TRANSACTION_FETCH + "WHERE v.id = :variantId ORDER BY d.id DESC",
+            countQuery = "SELECT COUNT(dv) FROM DocketVariant dv WHERE dv.variant.id = :variantId")
+    Page<DocketVariant> findByVariantId(@Param("variantId") Long variantId, Pageable pageable);
 
-        return findAll(spec);
-    }
-
-    default List<DocketVariant> findByVariantId(Long variantId) {
+    default List<DocketVariant> findByDocketId(Long docketId) {
         Specification<DocketVariant> spec = (root, query, cb) -> query
-                .where(cb.equal(root.get("variant").get("id"), variantId))
-                .orderBy(cb.desc(root.get("docket").get("id")))
+                .where(cb.equal(root.get("docket").get("id"), docketId))
                 .getRestriction();
 
         return findAll(spec);
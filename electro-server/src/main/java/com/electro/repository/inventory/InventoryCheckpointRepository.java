@@ -0,0 +1,25 @@
+package com.electro.repository.inventory;
+
+import com.electro.entity.inventory.InventoryCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface InventoryCheckpointRepository extends JpaRepository<InventoryCheckpoint, Long> {
+
+    @Query("SELECT MAX(c.checkpointAt) FROM InventoryCheckpoint c WHERE c.checkpointAt <= :at")
+    Optional<Instant> findLastCheckpointAt(@Param("at") Instant at);
+
+    // Mốc gần nhất không sau thời điểm at của từng cặp variant và kho
+    @Query("SELECT c FROM InventoryCheckpoint c WHERE c.variant.id IN :variantIds AND c.checkpointAt = " +
+            "(SELECT MAX(c2.checkpointAt) FROM InventoryCheckpoint c2 " +
+            "WHERE c2.variant = c.variant AND c2.warehouse = c.warehouse AND c2.checkpointAt <= :at)")
+    List<InventoryCheckpoint> findLatestByVariantIds(@Param("variantIds") Collection<Long> variantIds,
+                                                     @Param("at") Instant at);
+
+}
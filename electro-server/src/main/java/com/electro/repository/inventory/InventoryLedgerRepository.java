@@ -0,0 +1,43 @@
+package com.electro.repository.inventory;
+
+import com.electro.entity.inventory.InventoryLedgerEntry;
+import com.electro.projection.inventory.InventoryLedgerSum;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+public interface InventoryLedgerRepository extends JpaRepository<InventoryLedgerEntry, Long> {
+
+    // Lịch sử trước khi có sổ chỉ còn trạng thái hiện tại của phiếu, ghi nhận tại lần cập nhật cuối của phiếu
+    @Modifying
+    @Query(value = "INSERT INTO inventory_ledger (variant_id, warehouse_id, inventory, waiting_for_delivery, are_coming, created_at) " +
+            "SELECT dv.variant_id, d.warehouse_id, " +
+            "CASE WHEN d.status = 3 AND d.type = 1 THEN dv.quantity WHEN d.status = 3 AND d.type = 2 THEN -dv.quantity ELSE 0 END, " +
+            "CASE WHEN d.status IN (1, 2) AND d.type = 2 THEN dv.quantity ELSE 0 END, " +
+            "CASE WHEN d.status IN (1, 2) AND d.type = 1 THEN dv.quantity ELSE 0 END, " +
+            "d.updated_at " +
+            "FROM docket_variant dv JOIN docket d ON d.id = dv.docket_id " +
+            "WHERE d.status IN (1, 2, 3)", nativeQuery = true)
+    int insertFromDockets();
+
+    @Query("SELECT MIN(e.createdAt) FROM InventoryLedgerEntry e WHERE e.createdAt > :after")
+    Optional<Instant> findFirstCreatedAtAfter(@Param("after") Instant after);
+
+    @Query("SELECT new com.electro.projection.inventory.InventoryLedgerSum(e.variant.id, e.warehouse.id, " +
+            "SUM(e.inventory), SUM(e.waitingForDelivery), SUM(e.areComing)) FROM InventoryLedgerEntry e " +
+            "WHERE e.createdAt > :from AND e.createdAt <= :to GROUP BY e.variant.id, e.warehouse.id")
+    List<InventoryLedgerSum> sumBetween(@Param("from") Instant from, @Param("to") Instant to);
+
+    @Query("SELECT new com.electro.projection.inventory.InventoryLedgerSum(e.variant.id, e.warehouse.id, " +
+            "SUM(e.inventory), SUM(e.waitingForDelivery), SUM(e.areComing)) FROM InventoryLedgerEntry e " +
+            "WHERE e.variant.id = :variantId AND e.createdAt > :from AND e.createdAt <= :to GROUP BY e.variant.id, e.warehouse.id")
+    List<InventoryLedgerSum> sumBetweenByVariantId(@Param("variantId") Long variantId,
+                                                   @Param("from") Instant from,
+                                                   @Param("to") Instant to);
+
+}
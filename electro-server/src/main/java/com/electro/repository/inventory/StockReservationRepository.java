@@ -0,0 +1,25 @@
+package com.electro.repository.inventory;
+
+import com.electro.entity.inventory.StockReservation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+
+    @Query("SELECT r FROM StockReservation r WHERE r.order.id = :orderId AND r.status = :status")
+    List<StockReservation> findByOrderIdAndStatus(@Param("orderId") Long orderId, @Param("status") Integer status);
+
+    @Modifying
+    @Query("DELETE FROM StockReservation r WHERE r.order.id = :orderId")
+    void deleteByOrderId(@Param("orderId") Long orderId);
+
+    @Query("SELECT DISTINCT r.order.id FROM StockReservation r " +
+            "WHERE r.status = :status AND r.expiresAt IS NOT NULL AND r.expiresAt <= :at")
+    List<Long> findExpiredOrderIds(@Param("status") Integer status, @Param("at") Instant at);
+
+}
@@ -0,0 +1,60 @@
+package com.electro.repository.inventory;
+
+import com.electro.entity.inventory.VariantStock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface VariantStockRepository extends JpaRepository<VariantStock, Long> {
+
+    // Cộng dồn nguyên tử phần chênh lệch tồn kho, tạo mới dòng nếu variant chưa có
+    @Modifying
+    @Query(value = "INSERT INTO variant_stock (variant_id, inventory, waiting_for_delivery, can_be_sold, are_coming, updated_at) " +
+            "VALUES (:variantId, :inventory, :waitingForDelivery, :canBeSold, :areComing, NOW()) " +
+            "ON DUPLICATE KEY UPDATE " +
+            "inventory = inventory + VALUES(inventory), " +
+            "waiting_for_delivery = waiting_for_delivery + VALUES(waiting_for_delivery), " +
+            "can_be_sold = can_be_sold + VALUES(can_be_sold), " +
+            "are_coming = are_coming + VALUES(are_coming), " +
+            "updated_at = NOW()", nativeQuery = true)
+    void addStock(@Param("variantId") Long variantId,
+                  @Param("inventory") int inventory,
+                  @Param("waitingForDelivery") int waitingForDelivery,
+                  @Param("canBeSold") int canBeSold,
+                  @Param("areComing") int areComing);
+
+    // Giữ hàng theo kiểu compare-and-set: chỉ cộng vào phần đang giữ khi số lượng còn lại đủ,
+    // trả về 0 nếu không đủ hàng hoặc variant chưa có dòng tồn kho
+    @Modifying
+    @Query(value = "UPDATE variant_stock SET reserved = reserved + :quantity, updated_at = NOW() " +
+            "WHERE variant_id = :variantId AND can_be_sold - reserved >= :quantity", nativeQuery = true)
+    int reserve(@Param("variantId") Long variantId, @Param("quantity") int quantity);
+
+    @Modifying
+    @Query(value = "UPDATE variant_stock SET reserved = GREATEST(reserved - :quantity, 0), updated_at = NOW() " +
+            "WHERE variant_id = :variantId", nativeQuery = true)
+    int release(@Param("variantId") Long variantId, @Param("quantity") int quantity);
+
+    // Các variant không còn hàng để đặt (có thể bán trừ phần đang giữ không lớn hơn 0)
+    @Query(value = "SELECT variant_id FROM variant_stock WHERE variant_id IN :variantIds AND can_be_sold - reserved <= 0",
+            nativeQuery = true)
+    List<Long> findSoldOutVariantIds(@Param("variantIds") Collection<Long> variantIds);
+
+    // Khóa mọi dòng và khoảng trống của bảng (next-key lock ở REPEATABLE READ) tới hết giao dịch,
+    // các lượt cộng tồn kho, giữ hàng và thêm dòng mới đồng thời phải chờ
+    @Query(value = "SELECT variant_id FROM variant_stock FOR UPDATE", nativeQuery = true)
+    List<Long> lockAll();
+
+    // Dựng lại phần đang giữ từ các dòng giữ hàng còn hiệu lực (status = 1)
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE variant_stock vs " +
+            "JOIN (SELECT variant_id, SUM(quantity) AS quantity FROM stock_reservation WHERE status = 1 GROUP BY variant_id) sr " +
+            "ON sr.variant_id = vs.variant_id " +
+            "SET vs.reserved = sr.quantity", nativeQuery = true)
+    int restoreReserved();
+
+}
@@ -0,0 +1,53 @@
+package com.electro.repository.inventory;
+
+import com.electro.entity.inventory.WarehouseStock;
+import com.electro.entity.inventory.WarehouseStockKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface WarehouseStockRepository extends JpaRepository<WarehouseStock, WarehouseStockKey> {
+
+    // Cộng dồn nguyên tử phần chênh lệch tồn kho, tạo mới dòng nếu cặp variant và kho chưa có
+    @Modifying
+    @Query(value = "INSERT INTO warehouse_stock (variant_id, warehouse_id, inventory, waiting_for_delivery, can_be_sold, are_coming, updated_at) " +
+            "VALUES (:variantId, :warehouseId, :inventory, :waitingForDelivery, :canBeSold, :areComing, NOW()) " +
+            "ON DUPLICATE KEY UPDATE " +
+            "inventory = inventory + VALUES(inventory), " +
+            "waiting_for_delivery = waiting_for_delivery + VALUES(waiting_for_delivery), " +
+            "can_be_sold = can_be_sold + VALUES(can_be_sold), " +
+            "are_coming = are_coming + VALUES(are_coming), " +
+            "updated_at = NOW()", nativeQuery = true)
+    void addStock(@Param("variantId") Long variantId,
+                  @Param("warehouseId") Long warehouseId,
+                  @Param("inventory") int inventory,
+                  @Param("waitingForDelivery") int waitingForDelivery,
+                  @Param("canBeSold") int canBeSold,
+                  @Param("areComing") int areComing);
+
+    // Tính lại toàn bộ từ lịch sử phiếu, cùng quy tắc với InventoryUtils
+    @Modifying
+    @Query(value = "INSERT INTO warehouse_stock (variant_id, warehouse_id, inventory, waiting_for_delivery, can_be_sold, are_coming, updated_at) " +
+            "SELECT s.variant_id, s.warehouse_id, s.inventory, s.waiting_for_delivery, s.inventory - s.waiting_for_delivery, s.are_coming, NOW() " +
+            "FROM (SELECT dv.variant_id, d.warehouse_id, " +
+            "SUM(CASE WHEN d.status = 3 AND d.type = 1 THEN dv.quantity WHEN d.status = 3 AND d.type = 2 THEN -dv.quantity ELSE 0 END) AS inventory, " +
+            "SUM(CASE WHEN d.status IN (1, 2) AND d.type = 2 THEN dv.quantity ELSE 0 END) AS waiting_for_delivery, " +
+            "SUM(CASE WHEN d.status IN (1, 2) AND d.type = 1 THEN dv.quantity ELSE 0 END) AS are_coming " +
+            "FROM docket_variant dv JOIN docket d ON d.id = dv.docket_id " +
+            "GROUP BY dv.variant_id, d.warehouse_id) s", nativeQuery = true)
+    int insertFromDockets();
+
+    @Query("SELECT ws FROM WarehouseStock ws JOIN FETCH ws.warehouse w LEFT JOIN FETCH w.address a " +
+            "LEFT JOIN FETCH a.province LEFT JOIN FETCH a.district " +
+            "WHERE ws.warehouseStockKey.variantId IN :variantIds")
+    List<WarehouseStock> findByVariantIds(@Param("variantIds") Collection<Long> variantIds);
+
+    // Khóa mọi dòng và khoảng trống của bảng (next-key lock ở REPEATABLE READ) tới hết giao dịch
+    @Query(value = "SELECT variant_id FROM warehouse_stock FOR UPDATE", nativeQuery = true)
+    List<Long> lockAll();
+
+}
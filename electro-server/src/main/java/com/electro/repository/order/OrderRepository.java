@@ -7,7 +7,12 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.LockModeType;
 
 import java.util.Optional;
 
@@ -15,15 +20,29 @@ public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecific
 
     default Page<Order> findAllByUsername(String username, String sort, String filter, Pageable pageable) {
         Specification<Order> sortable = RSQLJPASupport.toSort(sort);
+        return findAll(sortable.and(filterByUsername(username, filter)), pageable);
+    }
+
+    default Specification<Order> filterByUsername(String username, String filter) {
         Specification<Order> filterable = RSQLJPASupport.toSpecification(filter);
         Specification<Order> usernameSpec = RSQLJPASupport.toSpecification("user.username==" + username);
-        return findAll(sortable.and(filterable).and(usernameSpec), pageable);
+        return filterable.and(usernameSpec);
     }
 
     Optional<Order> findByCode(String code);
 
     Optional<Order> findByPaypalOrderId(String paypalOrderId);
 
+    // Khóa dòng đơn hàng trong lúc thanh toán để không chạy xen với việc hủy đơn quá hạn giữ hàng
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o WHERE o.paypalOrderId = :paypalOrderId")
+    Optional<Order> findByPaypalOrderIdForUpdate(@Param("paypalOrderId") String paypalOrderId);
+
+    // Hủy (5) đơn hàng chỉ khi vẫn là đơn mới (1) chưa thanh toán (1), trả về 0 nếu đơn đã đổi trạng thái
+    @Modifying
+    @Query("UPDATE Order o SET o.status = 5 WHERE o.id = :id AND o.status = 1 AND o.paymentStatus = 1")
+    int cancelIfNewAndUnpaid(@Param("id") Long id);
+
     @Query("SELECT COUNT(o.id) FROM Order o")
     int countByOrderId();
 
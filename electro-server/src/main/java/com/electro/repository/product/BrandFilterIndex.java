@@ -0,0 +1,188 @@
+package com.electro.repository.product;
+
+import com.electro.event.CatalogChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * Quan hệ thương hiệu - danh mục của sản phẩm giữ trong bộ nhớ, phục vụ bộ lọc thương hiệu phía client
+ */
+@Repository
+@RequiredArgsConstructor
+@Slf4j
+public class BrandFilterIndex {
+
+    private final EntityManager em;
+    private final CategoryTreeIndex categoryTreeIndex;
+    private final ProductSearchIndex productSearchIndex;
+
+    // productId -> [categoryId, brandId], chỉ chứa sản phẩm có thương hiệu
+    private final Map<Long, Long[]> memberships = new HashMap<>();
+
+    // categoryId -> (brandId -> số sản phẩm)
+    private final Map<Long, Map<Long, Integer>> brandCountsByCategory = new HashMap<>();
+
+    private final Map<Long, String> brandNames = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Thương hiệu có sản phẩm thuộc danh mục hoặc danh mục con cháu, sắp xếp theo tên
+     */
+    public List<BrandName> findByCategorySlug(String slug) {
+        CategoryTree tree = categoryTreeIndex.getTree();
+        Set<Long> categoryIds = tree.findBySlug(slug)
+                .map(category -> tree.findSubtreeIds(category.getId()))
+                .orElse(Set.of());
+
+        lock.readLock().lock();
+        try {
+            Set<Long> brandIds = new HashSet<>();
+            categoryIds.forEach(categoryId -> brandIds.addAll(brandCountsByCategory.getOrDefault(categoryId, Map.of()).keySet()));
+            return toBrandNames(brandIds);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Thương hiệu của các sản phẩm khớp từ khóa tìm kiếm, sắp xếp theo tên
+     */
+    public List<BrandName> findBySearchQuery(String query) {
+        Set<Long> productIds = productSearchIndex.search(query).keySet();
+
+        lock.readLock().lock();
+        try {
+            Set<Long> brandIds = productIds.stream()
+                    .map(memberships::get)
+                    .filter(Objects::nonNull)
+                    .map(membership -> membership[1])
+                    .collect(Collectors.toSet());
+            return toBrandNames(brandIds);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<Object[]> rows = findMemberships(null);
+        List<Object[]> brands = findBrandNames();
+
+        lock.writeLock().lock();
+        try {
+            memberships.clear();
+            brandCountsByCategory.clear();
+            brandNames.clear();
+            rows.forEach(this::add);
+            brands.forEach(row -> brandNames.put((Long) row[0], (String) row[1]));
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        log.info("Brand filter index built with {} products and {} brands", memberships.size(), brandNames.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        // Thương hiệu đổi tên hoặc bị xóa hiếm khi xảy ra nên nạp lại toàn bộ
+        if (!event.getBrandIds().isEmpty()) {
+            rebuild();
+            return;
+        }
+
+        if (event.isMembershipChanged() && !event.getProductIds().isEmpty()) {
+            reindex(event.getProductIds());
+        }
+    }
+
+    public void reindex(Collection<Long> productIds) {
+        List<Object[]> rows = findMemberships(productIds);
+
+        lock.writeLock().lock();
+        try {
+            // Sản phẩm đã bị xóa hoặc bỏ thương hiệu sẽ không còn trong chỉ mục
+            productIds.forEach(this::remove);
+            rows.forEach(this::add);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // [productId, categoryId, brandId]
+    private List<Object[]> findMemberships(Collection<Long> productIds) {
+        String jpql = "SELECT p.id, c.id, b.id FROM Product p JOIN p.brand b LEFT JOIN p.category c";
+
+        if (productIds == null) {
+            return em.createQuery(jpql, Object[].class).getResultList();
+        }
+
+        return em.createQuery(jpql + " WHERE p.id IN :productIds", Object[].class)
+                .setParameter("productIds", new ArrayList<>(productIds))
+                .getResultList();
+    }
+
+    private List<Object[]> findBrandNames() {
+        return em.createQuery("SELECT b.id, b.name FROM Brand b", Object[].class).getResultList();
+    }
+
+    private void add(Object[] row) {
+        Long[] membership = {(Long) row[1], (Long) row[2]};
+        memberships.put((Long) row[0], membership);
+
+        if (membership[0] != null) {
+            brandCountsByCategory.computeIfAbsent(membership[0], categoryId -> new HashMap<>())
+                    .merge(membership[1], 1, Integer::sum);
+        }
+    }
+
+    private void remove(Long productId) {
+        Long[] membership = memberships.remove(productId);
+
+        if (membership == null || membership[0] == null) {
+            return;
+        }
+
+        Map<Long, Integer> brandCounts = brandCountsByCategory.get(membership[0]);
+        if (brandCounts != null) {
+            // Hết sản phẩm thì bỏ thương hiệu khỏi danh mục
+            brandCounts.computeIfPresent(membership[1], (brandId, count) -> count > 1 ? count - 1 : null);
+            if (brandCounts.isEmpty()) {
+                brandCountsByCategory.remove(membership[0]);
+            }
+        }
+    }
+
+    private List<BrandName> toBrandNames(Set<Long> brandIds) {
+        return brandIds.stream()
+                .filter(brandNames::containsKey)
+                .map(brandId -> new BrandName(brandId, brandNames.get(brandId)))
+                .sorted(Comparator.comparing(BrandName::getName).thenComparing(BrandName::getId))
+                .collect(Collectors.toList());
+    }
+
+    @lombok.Value
+    public static class BrandName {
+        Long id;
+        String name;
+    }
+
+}
@@ -0,0 +1,132 @@
+package com.electro.repository.product;
+
+import lombok.Getter;
+import org.springframework.lang.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Ảnh chụp bất biến của cây danh mục, mỗi lần danh mục thay đổi sẽ tạo bản mới với version tăng dần
+ */
+public final class CategoryTree {
+
+    public static final CategoryTree EMPTY = new CategoryTree(0, List.of());
+
+    @Getter
+    private final long version;
+
+    private final Map<Long, Node> nodesById;
+    private final Map<String, Node> nodesBySlug;
+    private final List<Node> roots;
+
+    /**
+     * @param rows danh sách [id, name, slug, parentId], thứ tự các dòng quyết định thứ tự danh mục con
+     */
+    public CategoryTree(long version, List<Object[]> rows) {
+        Map<Long, Node> nodes = new HashMap<>();
+        Map<Long, List<Long>> childIds = new HashMap<>();
+        List<Long> rootIds = new ArrayList<>();
+
+        for (Object[] row : rows) {
+            Long id = (Long) row[0];
+            Long parentId = (Long) row[3];
+            nodes.put(id, new Node(id, (String) row[1], (String) row[2], parentId));
+            (parentId == null ? rootIds : childIds.computeIfAbsent(parentId, key -> new ArrayList<>())).add(id);
+        }
+
+        nodes.values().forEach(node -> node.children = toNodes(nodes, childIds.getOrDefault(node.id, List.of())));
+
+        this.version = version;
+        this.nodesById = Collections.unmodifiableMap(nodes);
+        this.nodesBySlug = nodes.values().stream().collect(Collectors.toUnmodifiableMap(Node::getSlug, node -> node));
+        this.roots = toNodes(nodes, rootIds);
+    }
+
+    public List<Node> getRoots() {
+        return roots;
+    }
+
+    public Optional<Node> findById(Long id) {
+        return Optional.ofNullable(nodesById.get(id));
+    }
+
+    public Optional<Node> findBySlug(String slug) {
+        return Optional.ofNullable(nodesBySlug.get(slug));
+    }
+
+    public Set<Long> getIds() {
+        return nodesById.keySet();
+    }
+
+    /**
+     * Id của danh mục và toàn bộ danh mục con cháu, rỗng nếu danh mục không tồn tại
+     */
+    public Set<Long> findSubtreeIds(Long id) {
+        Set<Long> ids = new LinkedHashSet<>();
+        Deque<Node> stack = new ArrayDeque<>();
+        findById(id).ifPresent(stack::push);
+
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            // Dữ liệu lỗi có vòng lặp cha-con thì dừng tại nút đã duyệt
+            if (ids.add(node.id)) {
+                node.children.forEach(stack::push);
+            }
+        }
+
+        return ids;
+    }
+
+    /**
+     * Id của danh mục và các danh mục cha, từ dưới lên gốc
+     */
+    public List<Long> findAncestorIds(Long id) {
+        List<Long> ids = new ArrayList<>();
+
+        for (Node node = nodesById.get(id); node != null && !ids.contains(node.id); node = getParent(node)) {
+            ids.add(node.id);
+        }
+
+        return ids;
+    }
+
+    @Nullable
+    public Node getParent(Node node) {
+        return node.parentId == null ? null : nodesById.get(node.parentId);
+    }
+
+    private static List<Node> toNodes(Map<Long, Node> nodes, List<Long> ids) {
+        List<Node> result = new ArrayList<>(ids.size());
+        ids.forEach(id -> result.add(nodes.get(id)));
+        return Collections.unmodifiableList(result);
+    }
+
+    @Getter
+    public static final class Node {
+        private final Long id;
+        private final String name;
+        private final String slug;
+        @Nullable
+        private final Long parentId;
+        // Chỉ gán một lần khi dựng cây
+        private List<Node> children = List.of();
+
+        private Node(Long id, String name, String slug, @Nullable Long parentId) {
+            this.id = id;
+            this.name = name;
+            this.slug = slug;
+            this.parentId = parentId;
+        }
+    }
+
+}
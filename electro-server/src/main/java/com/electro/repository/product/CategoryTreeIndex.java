@@ -0,0 +1,56 @@
+package com.electro.repository.product;
+
+import com.electro.event.CatalogChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+/**
+ * Giữ ảnh chụp cây danh mục trong bộ nhớ, nạp bằng một câu truy vấn và thay thế nguyên khối khi danh mục thay đổi
+ */
+@Repository
+@RequiredArgsConstructor
+@Slf4j
+public class CategoryTreeIndex {
+
+    private final EntityManager em;
+
+    private volatile CategoryTree tree = CategoryTree.EMPTY;
+
+    public CategoryTree getTree() {
+        // Chưa nạp (ví dụ trong ngữ cảnh test không có ApplicationReadyEvent) thì nạp ngay
+        if (tree.getVersion() == 0) {
+            rebuild();
+        }
+        return tree;
+    }
+
+    // Chạy trước các chỉ mục khác để chúng đọc được cây mới
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (!event.getCategoryIds().isEmpty()) {
+            rebuild();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        List<Object[]> rows = em.createQuery("SELECT c.id, c.name, c.slug, p.id FROM Category c " +
+                        "LEFT JOIN c.parentCategory p ORDER BY c.id", Object[].class)
+                .getResultList();
+
+        tree = new CategoryTree(tree.getVersion() + 1, rows);
+
+        log.debug("Category tree rebuilt with {} categories, version {}", rows.size(), tree.getVersion());
+    }
+
+}
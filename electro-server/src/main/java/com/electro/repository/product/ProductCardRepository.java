@@ -0,0 +1,18 @@
+package com.electro.repository.product;
+
+import com.electro.entity.product.ProductCard;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface ProductCardRepository extends JpaRepository<ProductCard, Long> {
+
+    // Mỗi dòng gồm [productId, thời điểm phiếu nhập hoàn thành gần nhất]
+    @Query("SELECT v.product.id, MAX(d.createdAt) FROM DocketVariant dv JOIN dv.variant v JOIN dv.docket d " +
+            "WHERE d.type = 1 AND d.status = 3 AND v.product.id IN :productIds GROUP BY v.product.id")
+    List<Object[]> findNewestImportTimes(@Param("productIds") Collection<Long> productIds);
+
+}
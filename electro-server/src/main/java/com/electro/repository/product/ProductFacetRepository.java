@@ -0,0 +1,23 @@
+package com.electro.repository.product;
+
+import com.electro.entity.product.ProductFacet;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface ProductFacetRepository extends JpaRepository<ProductFacet, Long> {
+
+    @Modifying
+    @Query("DELETE FROM ProductFacet f WHERE f.product.id IN :productIds")
+    void deleteByProductIds(@Param("productIds") Collection<Long> productIds);
+
+    // Mỗi dòng gồm [productId, code, value] của thuộc tính phiên bản
+    @Query("SELECT DISTINCT f.product.id, f.code, f.value FROM ProductFacet f " +
+            "WHERE f.variant IS NOT NULL AND f.product.id IN :productIds")
+    List<Object[]> findVariantFacetRowsByProductIds(@Param("productIds") Collection<Long> productIds);
+
+}
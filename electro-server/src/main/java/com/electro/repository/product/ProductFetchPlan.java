@@ -0,0 +1,20 @@
+package com.electro.repository.product;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Các fetch plan cho những màn hình đọc sản phẩm, ánh xạ tới các entity graph khai báo trên Product
+ */
+@AllArgsConstructor
+@Getter
+public enum ProductFetchPlan {
+    // Danh sách sản phẩm phía client: variants, images (nạp theo lô)
+    LISTING("Product.listing"),
+    // Chi tiết sản phẩm phía client: thêm brand, tags và category kèm 2 cấp cha
+    DETAIL("Product.detail"),
+    // Danh sách sản phẩm phía admin: các quan hệ nhiều-một, collection nạp theo lô
+    ADMIN("Product.admin");
+
+    private final String graphName;
+}
@@ -0,0 +1,54 @@
+package com.electro.repository.product;
+
+import com.electro.entity.product.Product;
+import com.electro.repository.CursorSlice;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface ProductRepositoryCustom {
+
+    Page<Product> findByParams(String filter,
+                               String sort,
+                               String search,
+                               boolean saleable,
+                               boolean newable,
+                               Pageable pageable);
+
+    /**
+     * Chỉ lấy id sản phẩm của trang hiện tại (đã lọc, sắp xếp) kèm tổng số, không nạp entity
+     */
+    Page<Long> findProductIdsByParams(String filter,
+                                      String sort,
+                                      String search,
+                                      boolean saleable,
+                                      boolean newable,
+                                      Pageable pageable);
+
+    /**
+     * Phân trang theo con trỏ (keyset), không chạy câu truy vấn đếm; không hỗ trợ sắp xếp ngẫu nhiên
+     */
+    CursorSlice<Long> findProductIdsByParamsAfter(String filter,
+                                                    String sort,
+                                                    String search,
+                                                    boolean saleable,
+                                                    boolean newable,
+                                                    @Nullable String cursor,
+                                                    int size);
+
+    /**
+     * Lấy toàn bộ id sản phẩm khớp điều kiện, không phân trang và không sắp xếp
+     */
+    List<Long> findIdsByParams(String filter, String search, boolean saleable, boolean newable);
+
+    /**
+     * Lấy sản phẩm theo danh sách id với fetch plan cho trước, giữ nguyên thứ tự của danh sách
+     */
+    List<Product> findAllByIdsInOrder(List<Long> productIds, ProductFetchPlan fetchPlan);
+
+    Optional<Product> findById(Long productId, ProductFetchPlan fetchPlan);
+
+}
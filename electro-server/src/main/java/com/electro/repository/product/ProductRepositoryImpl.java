@@ -0,0 +1,623 @@
+package com.electro.repository.product;
+
+import com.electro.entity.inventory.Docket;
+import com.electro.entity.inventory.DocketVariant;
+import com.electro.entity.inventory.VariantStock;
+import com.electro.entity.product.Product;
+import com.electro.entity.product.ProductFacet;
+import com.electro.entity.product.Variant;
+import com.electro.repository.CursorSlice;
+import com.electro.utils.CursorUtils;
+import com.electro.utils.SearchUtils;
+import cz.jirutka.rsql.parser.ast.ComparisonOperator;
+import io.github.perplexhub.rsql.RSQLCustomPredicate;
+import io.github.perplexhub.rsql.RSQLJPASupport;
+import lombok.AllArgsConstructor;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.lang.Nullable;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.Order;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Subquery;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@AllArgsConstructor
+public class ProductRepositoryImpl implements ProductRepositoryCustom {
+
+    // Khi sắp theo độ liên quan, chỉ xếp hạng và phân trang trong các sản phẩm liên quan nhất
+    private static final int MAX_SEARCH_CANDIDATES = 1000;
+
+    private EntityManager em;
+
+    private ProductSearchIndex productSearchIndex;
+
+    private CategoryTreeIndex categoryTreeIndex;
+
+    private ProductSortIndex productSortIndex;
+
+    @Override
+    public Page<Product> findByParams(String filter,
+                                      String sort,
+                                      String search,
+                                      boolean saleable,
+                                      boolean newable,
+                                      Pageable pageable) {
+        Page<Long> productIds = findProductIdsByParams(filter, sort, search, saleable, newable, pageable);
+
+        // Lấy đầy đủ sản phẩm theo danh sách id, giữ nguyên thứ tự
+        List<Product> products = findAllByIdsInOrder(productIds.getContent(), ProductFetchPlan.LISTING);
+        return new PageImpl<>(products, pageable, productIds.getTotalElements());
+    }
+
+    @Override
+    public Page<Long> findProductIdsByParams(String filter,
+                                             String sort,
+                                             String search,
+                                             boolean saleable,
+                                             boolean newable,
+                                             Pageable pageable) {
+        // Sắp xếp theo giá hoặc hàng mới, chỉ lọc theo danh mục: đọc thẳng từ danh sách đã sắp xếp trong bộ nhớ
+        Optional<Page<Long>> sortedPage = findSortedPage(filter, sort, search, saleable, newable, pageable);
+        if (sortedPage.isPresent()) {
+            return sortedPage.get();
+        }
+
+        List<FacetFilter> facetFilters = new ArrayList<>();
+        Specification<Product> filterable = toSpecification(filter, facetFilters);
+
+        // Thu hẹp danh sách sản phẩm bằng chỉ mục tìm kiếm thay vì LIKE, kết quả đã xếp theo độ liên quan
+        List<Long> searchedIds = null;
+
+        if (search != null && !search.isBlank()) {
+            searchedIds = new ArrayList<>(productSearchIndex.search(search).keySet());
+
+            if (searchedIds.isEmpty()) {
+                return new PageImpl<>(Collections.emptyList(), pageable, 0);
+            }
+
+            // Sắp theo độ liên quan: lọc trong cơ sở dữ liệu, giữ thứ tự và phân trang trong bộ nhớ
+            if (isRelevanceOrdered(sort, newable)) {
+                List<Long> matchedIds = findMatchedIdsInOrder(filterable, facetFilters,
+                        topByRelevance(searchedIds), saleable);
+
+                // Tổng số vẫn đếm trên toàn bộ kết quả tìm kiếm, các trang vượt quá giới hạn sẽ rỗng
+                long total = searchedIds.size() > MAX_SEARCH_CANDIDATES
+                        ? countMatched(filterable, facetFilters, searchedIds, saleable, newable)
+                        : matchedIds.size();
+                int from = pageable.isPaged() ? (int) Math.min(pageable.getOffset(), matchedIds.size()) : 0;
+                int to = pageable.isPaged() ? Math.min(from + pageable.getPageSize(), matchedIds.size()) : matchedIds.size();
+
+                return new PageImpl<>(new ArrayList<>(matchedIds.subList(from, to)), pageable, total);
+            }
+        }
+
+        List<Long> candidateIds = searchedIds;
+
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+
+        // (1) Chỉ lấy id sản phẩm của trang hiện tại, phân trang ngay trong câu truy vấn
+        CriteriaQuery<Long> idQuery = cb.createQuery(Long.class);
+        Root<Product> idRoot = idQuery.from(Product.class);
+        idQuery.select(idRoot.get("id"));
+        applyParams(idRoot, idQuery, cb, filterable, facetFilters, candidateIds, sort, saleable, newable, true);
+
+        TypedQuery<Long> typedIdQuery = em.createQuery(idQuery);
+
+        if (pageable.isPaged()) {
+            typedIdQuery.setFirstResult((int) pageable.getOffset());
+            typedIdQuery.setMaxResults(pageable.getPageSize());
+        }
+
+        List<Long> productIds = typedIdQuery.getResultList();
+
+        // (2) Đếm tổng số sản phẩm (bỏ qua nếu đã suy ra được từ trang hiện tại)
+        return PageableExecutionUtils.getPage(productIds, pageable,
+                () -> countMatched(filterable, facetFilters, candidateIds, saleable, newable));
+    }
+
+    @Override
+    public List<Long> findIdsByParams(String filter, String search, boolean saleable, boolean newable) {
+        List<FacetFilter> facetFilters = new ArrayList<>();
+        Specification<Product> filterable = toSpecification(filter, facetFilters);
+
+        List<Long> searchedIds = null;
+
+        if (search != null && !search.isBlank()) {
+            searchedIds = new ArrayList<>(productSearchIndex.search(search).keySet());
+
+            if (searchedIds.isEmpty()) {
+                return Collections.emptyList();
+            }
+        }
+
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Long> idQuery = cb.createQuery(Long.class);
+        Root<Product> idRoot = idQuery.from(Product.class);
+        idQuery.select(idRoot.get("id")).distinct(true);
+        applyParams(idRoot, idQuery, cb, filterable, facetFilters, searchedIds, null, saleable, newable, false);
+
+        return em.createQuery(idQuery).getResultList();
+    }
+
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public CursorSlice<Long> findProductIdsByParamsAfter(String filter,
+                                                         String sort,
+                                                         String search,
+                                                         boolean saleable,
+                                                         boolean newable,
+                                                         @Nullable String cursor,
+                                                         int size) {
+        if ("random".equals(sort)) {
+            throw new IllegalArgumentException("Sort 'random' is not supported in cursor mode");
+        }
+
+        List<FacetFilter> facetFilters = new ArrayList<>();
+        Specification<Product> filterable = toSpecification(filter, facetFilters);
+        CursorUtils.Cursor after = CursorUtils.decode(cursor);
+
+        Map<Long, Double> scores = null;
+        List<Long> searchedIds = null;
+
+        if (search != null && !search.isBlank()) {
+            scores = productSearchIndex.search(search);
+            searchedIds = new ArrayList<>(scores.keySet());
+
+            if (searchedIds.isEmpty()) {
+                return new CursorSlice<>(Collections.emptyList(), null);
+            }
+        }
+
+        // Khi sắp theo độ liên quan, các sản phẩm còn lại chính là phần sau con trỏ trong kết quả tìm kiếm
+        if (searchedIds != null && isRelevanceOrdered(sort, newable)) {
+            searchedIds = topByRelevance(searchedIds);
+
+            if (after != null) {
+                searchedIds = searchedIds.subList(seekByRelevance(searchedIds, scores, after), searchedIds.size());
+
+                if (searchedIds.isEmpty()) {
+                    return new CursorSlice<>(Collections.emptyList(), null);
+                }
+            }
+
+            List<Long> matchedIds = findMatchedIdsInOrder(filterable, facetFilters, searchedIds, saleable);
+
+            if (matchedIds.size() <= size) {
+                return new CursorSlice<>(matchedIds, null);
+            }
+
+            List<Long> productIds = new ArrayList<>(matchedIds.subList(0, size));
+            Long lastId = productIds.get(size - 1);
+            return new CursorSlice<>(productIds, CursorUtils.encode(scores.get(lastId), lastId));
+        }
+
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Tuple> idQuery = cb.createTupleQuery();
+        Root<Product> idRoot = idQuery.from(Product.class);
+        Expression<Long> id = idRoot.get("id");
+
+        SortKey sortKey = applyParams(idRoot, idQuery, cb, filterable, facetFilters, searchedIds, sort, saleable, newable, true);
+
+        if (sortKey != null) {
+            // Sắp theo khóa chính rồi id tăng dần, thứ tự phụ theo thời gian nhập bị bỏ qua ở chế độ này
+            Expression<Comparable> key = (Expression<Comparable>) sortKey.getExpression();
+            idQuery.multiselect(id, key);
+            idQuery.orderBy(sortKey.isDescending() ? cb.desc(key) : cb.asc(key), cb.asc(id));
+
+            if (after != null) {
+                Comparable afterKey = CursorUtils.parseKey(sortKey.getType(), after.getKey());
+                idQuery.having(cb.or(
+                        sortKey.isDescending() ? cb.lessThan(key, afterKey) : cb.greaterThan(key, afterKey),
+                        cb.and(cb.equal(key, afterKey), cb.greaterThan(id, after.getId()))
+                ));
+            }
+        } else {
+            idQuery.multiselect(id);
+            idQuery.orderBy(cb.asc(id));
+
+            if (after != null) {
+                idQuery.having(cb.greaterThan(id, after.getId()));
+            }
+        }
+
+        // Lấy dư một phần tử để biết còn trang sau hay không, không chạy câu truy vấn đếm
+        List<Tuple> rows = em.createQuery(idQuery).setMaxResults(size + 1).getResultList();
+        boolean hasNext = rows.size() > size;
+        List<Tuple> pageRows = hasNext ? rows.subList(0, size) : rows;
+
+        List<Long> productIds = pageRows.stream().map(row -> row.get(0, Long.class)).collect(Collectors.toList());
+
+        String nextCursor = null;
+        if (hasNext) {
+            Tuple last = pageRows.get(pageRows.size() - 1);
+            nextCursor = CursorUtils.encode(sortKey != null ? last.get(1) : null, last.get(0, Long.class));
+        }
+
+        return new CursorSlice<>(productIds, nextCursor);
+    }
+
+    /**
+     * {@link #MAX_SEARCH_CANDIDATES} sản phẩm đầu tiên của kết quả tìm kiếm (đã xếp theo độ liên quan). Sắp theo
+     * giá, hàng mới và câu truy vấn đếm vẫn lọc trên toàn bộ kết quả tìm kiếm
+     */
+    private static List<Long> topByRelevance(List<Long> searchedIds) {
+        return searchedIds.size() > MAX_SEARCH_CANDIDATES ? searchedIds.subList(0, MAX_SEARCH_CANDIDATES) : searchedIds;
+    }
+
+    private long countMatched(Specification<Product> filterable,
+                              List<FacetFilter> facetFilters,
+                              @Nullable List<Long> searchedIds,
+                              boolean saleable,
+                              boolean newable) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Long> countQuery = cb.createQuery(Long.class);
+        Root<Product> countRoot = countQuery.from(Product.class);
+        countQuery.select(cb.countDistinct(countRoot));
+        applyParams(countRoot, countQuery, cb, filterable, facetFilters, searchedIds, null, saleable, newable, false);
+        return em.createQuery(countQuery).getSingleResult();
+    }
+
+    // Không chỉ định giá hoặc hàng mới thì giữ thứ tự liên quan của kết quả tìm kiếm
+    private static boolean isRelevanceOrdered(String sort, boolean newable) {
+        return !"lowest-price".equals(sort) && !"highest-price".equals(sort) && !"random".equals(sort) && !newable;
+    }
+
+    /**
+     * Các id trong {@code searchedIds} thỏa điều kiện lọc, giữ nguyên thứ tự liên quan của {@code searchedIds}
+     */
+    private List<Long> findMatchedIdsInOrder(Specification<Product> filterable,
+                                             List<FacetFilter> facetFilters,
+                                             List<Long> searchedIds,
+                                             boolean saleable) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Long> idQuery = cb.createQuery(Long.class);
+        Root<Product> idRoot = idQuery.from(Product.class);
+        idQuery.select(idRoot.get("id")).distinct(true);
+        applyParams(idRoot, idQuery, cb, filterable, facetFilters, searchedIds, null, saleable, false, false);
+
+        Set<Long> matchedIds = new HashSet<>(em.createQuery(idQuery).getResultList());
+
+        return searchedIds.stream().filter(matchedIds::contains).collect(Collectors.toList());
+    }
+
+    /**
+     * Vị trí đầu tiên sau con trỏ trong kết quả tìm kiếm (điểm giảm dần rồi id tăng dần). Sản phẩm ở con trỏ
+     * có thể đã rời khỏi kết quả hoặc đổi điểm giữa hai lần gọi, nên tìm theo điểm trong con trỏ thay vì theo id
+     */
+    private static int seekByRelevance(List<Long> searchedIds, Map<Long, Double> scores, CursorUtils.Cursor after) {
+        if (after.getKey().isEmpty()) {
+            throw new IllegalArgumentException("Cursor has no relevance score");
+        }
+
+        double afterScore = (Double) CursorUtils.parseKey(Double.class, after.getKey());
+
+        for (int i = 0; i < searchedIds.size(); i++) {
+            Long productId = searchedIds.get(i);
+            int compared = Double.compare(afterScore, scores.get(productId));
+
+            if (compared > 0 || (compared == 0 && productId > after.getId())) {
+                return i;
+            }
+        }
+
+        return searchedIds.size();
+    }
+
+    /**
+     * Tách các điều kiện `=json=` ở cấp ngoài cùng vào {@code facetFilters}, phần còn lại chuyển thành Specification
+     */
+    private Specification<Product> toSpecification(String filter, List<FacetFilter> facetFilters) {
+        // Các điều kiện này được lọc qua bảng product_facet có chỉ mục thay vì hàm JSON trên từng dòng
+        List<String> clauses = new ArrayList<>();
+
+        for (String clause : SearchUtils.splitAndClauses(filter)) {
+            FacetFilter facetFilter = FacetFilter.parse(clause);
+
+            if (facetFilter != null) {
+                facetFilters.add(facetFilter);
+            } else {
+                clauses.add(expandCategoryClause(clause));
+            }
+        }
+
+        String remainingFilter = clauses.isEmpty() ? null : String.join(";", clauses);
+
+        // Xử lý phần `filter` còn lại thành Specification,
+        // `=json=` lồng trong nhóm OR vẫn dùng hàm JSON trên từng dòng
+        RSQLCustomPredicate<String> jsonPredicate = new RSQLCustomPredicate<>(
+                new ComparisonOperator("=json=", true),
+                String.class,
+                input -> {
+                    CriteriaBuilder cb = input.getCriteriaBuilder();
+
+                    // Lấy phần còn lại của danh sách `input.getArguments()` sau khi bỏ qua phần tử đầu tiên
+                    Object[] values = input.getArguments().stream().skip(1).toArray();
+
+                    return cb.function("JSON_EXTRACT", String.class,
+                            input.getPath(),
+                            cb.function("REPLACE", String.class,
+                                    cb.function("JSON_UNQUOTE", String.class,
+                                            cb.function("JSON_SEARCH", String.class,
+                                                    input.getPath(),
+                                                    cb.literal("one"),
+                                                    cb.literal(input.getArguments().get(0)))
+                                    ),
+                                    cb.literal(".code"),
+                                    cb.literal(".value")
+                            )
+                    ).in(values);
+                });
+
+        return RSQLJPASupport.toSpecification(remainingFilter, List.of(jsonPredicate));
+    }
+
+    private Optional<Page<Long>> findSortedPage(String filter,
+                                                String sort,
+                                                String search,
+                                                boolean saleable,
+                                                boolean newable,
+                                                Pageable pageable) {
+        if (search != null && !search.isBlank()) {
+            return Optional.empty();
+        }
+
+        ProductSortIndex.SortOrder sortOrder;
+
+        if (newable && (sort == null || sort.isBlank())) {
+            sortOrder = ProductSortIndex.SortOrder.NEWEST;
+        } else if (!newable && "lowest-price".equals(sort)) {
+            sortOrder = ProductSortIndex.SortOrder.LOWEST_PRICE;
+        } else if (!newable && "highest-price".equals(sort)) {
+            sortOrder = ProductSortIndex.SortOrder.HIGHEST_PRICE;
+        } else {
+            return Optional.empty();
+        }
+
+        List<String> clauses = SearchUtils.splitAndClauses(filter);
+
+        if (clauses.isEmpty()) {
+            return Optional.of(productSortIndex.findPage(null, sortOrder, saleable, pageable));
+        }
+
+        // Chỉ có một điều kiện danh mục, danh mục không tồn tại thì để câu truy vấn xử lý như cũ
+        if (clauses.size() > 1) {
+            return Optional.empty();
+        }
+
+        return findCategory(clauses.get(0))
+                .map(category -> productSortIndex.findPage(category.getId(), sortOrder, saleable, pageable));
+    }
+
+    private Optional<CategoryTree.Node> findCategory(String clause) {
+        CategoryTree tree = categoryTreeIndex.getTree();
+
+        if (clause.startsWith("category.id==")) {
+            try {
+                return tree.findById(Long.valueOf(clause.substring("category.id==".length())));
+            } catch (NumberFormatException e) {
+                return Optional.empty();
+            }
+        }
+
+        if (clause.startsWith("category.slug==")) {
+            return tree.findBySlug(clause.substring("category.slug==".length()));
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Lọc theo `category.id==` hoặc `category.slug==` ở cấp ngoài cùng bao gồm cả sản phẩm thuộc danh mục con cháu
+     */
+    private String expandCategoryClause(String clause) {
+        CategoryTree tree = categoryTreeIndex.getTree();
+
+        // Danh mục không tồn tại thì giữ nguyên điều kiện, kết quả rỗng như cũ
+        return findCategory(clause)
+                .map(node -> tree.findSubtreeIds(node.getId()).stream()
+                        .map(String::valueOf)
+                        .collect(Collectors.joining(",", "category.id=in=(", ")")))
+                .orElse(clause);
+    }
+
+    /**
+     * @return khóa sắp xếp chính (giá hoặc thời gian nhập), null nếu sắp theo id
+     */
+    private SortKey applyParams(Root<Product> root,
+                             CriteriaQuery<?> query,
+                             CriteriaBuilder cb,
+                             Specification<Product> filterable,
+                             List<FacetFilter> facetFilters,
+                             List<Long> searchedIds,
+                             String sort,
+                             boolean saleable,
+                             boolean newable,
+                             boolean sortable) {
+        List<Predicate> wheres = new ArrayList<>();
+        List<Order> orders = new ArrayList<>();
+
+        Join<Product, Variant> variant = root.join("variants");
+        Join<Variant, DocketVariant> docketVariant = variant.join("docketVariants");
+        Join<DocketVariant, Docket> docket = docketVariant.join("docket");
+
+        // Lọc theo `saleable` (có thể bán), đọc từ bảng tồn kho variant_stock
+        if (saleable) {
+            Subquery<Integer> subquery = query.subquery(Integer.class);
+            Root<VariantStock> variantStockSq = subquery.from(VariantStock.class);
+            Join<VariantStock, Variant> variantSq = variantStockSq.join("variant");
+
+            subquery.select(cb.sum(cb.diff(variantStockSq.<Integer>get("canBeSold"), variantStockSq.<Integer>get("reserved"))));
+            subquery.where(cb.equal(variantSq.get("product").get("id"), root.get("id")));
+            subquery.groupBy(variantSq.get("product").get("id"));
+
+            wheres.add(cb.greaterThan(subquery, 0));
+        }
+
+        // Lọc và sắp xếp theo `newable` (thứ tự mới nhất)
+        if (newable) {
+            wheres.add(cb.equal(docket.get("type"), 1));
+            wheres.add(cb.equal(docket.get("status"), 3));
+        }
+
+        Optional.ofNullable(filterable.toPredicate(root, query, cb)).ifPresent(wheres::add);
+
+        // Semi-join với product_facet: thông số kỹ thuật gắn với sản phẩm, thuộc tính gắn với phiên bản
+        for (FacetFilter facetFilter : facetFilters) {
+            Subquery<Long> subquery = query.subquery(Long.class);
+            Root<ProductFacet> facet = subquery.from(ProductFacet.class);
+
+            subquery.where(
+                    facetFilter.isVariantScoped() ? cb.isNotNull(facet.get("variant")) : cb.isNull(facet.get("variant")),
+                    cb.equal(facet.get("code"), facetFilter.getCode()),
+                    facet.get("value").in(facetFilter.getValues())
+            );
+
+            if (facetFilter.isVariantScoped()) {
+                subquery.select(facet.get("variant").get("id"));
+                wheres.add(variant.get("id").in(subquery));
+            } else {
+                subquery.select(facet.get("product").get("id"));
+                wheres.add(root.get("id").in(subquery));
+            }
+        }
+
+        if (searchedIds != null) {
+            wheres.add(root.get("id").in(searchedIds));
+        }
+
+        query.where(wheres.toArray(Predicate[]::new));
+
+        // Câu truy vấn đếm không cần group by và order by
+        if (!sortable) {
+            return null;
+        }
+
+        SortKey sortKey = null;
+
+        if ("lowest-price".equals(sort)) {
+            Expression<Double> lowestPrice = cb.min(variant.get("price"));
+            orders.add(cb.asc(lowestPrice));
+            sortKey = new SortKey(lowestPrice, Double.class, false);
+        }
+
+        if ("highest-price".equals(sort)) {
+            Expression<Double> highestPrice = cb.max(variant.get("price"));
+            orders.add(cb.desc(highestPrice));
+            sortKey = new SortKey(highestPrice, Double.class, true);
+        }
+
+        if ("random".equals(sort)) {
+            orders.add(cb.asc(cb.function("RAND", Void.class)));
+        }
+
+        if (newable) {
+            Expression<Instant> latestImport = cb.greatest(docket.<Instant>get("createdAt"));
+            orders.add(cb.desc(latestImport));
+            orders.add(cb.asc(root.get("id")));
+
+            if (sortKey == null) {
+                sortKey = new SortKey(latestImport, Instant.class, true);
+            }
+        }
+
+        query.groupBy(root.get("id"));
+        query.orderBy(orders);
+
+        return sortKey;
+    }
+
+    @Override
+    public List<Product> findAllByIdsInOrder(List<Long> productIds, ProductFetchPlan fetchPlan) {
+        if (productIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<Product> products = em.createQuery("SELECT DISTINCT p FROM Product p WHERE p.id IN :productIds", Product.class)
+                .setParameter("productIds", productIds)
+                .setHint(QueryHints.HINT_PASS_DISTINCT_THROUGH, false)
+                .setHint(QueryHints.HINT_FETCHGRAPH, em.getEntityGraph(fetchPlan.getGraphName()))
+                .getResultList();
+
+        Map<Long, Product> productMap = products.stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        return productIds.stream()
+                .map(productMap::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Optional<Product> findById(Long productId, ProductFetchPlan fetchPlan) {
+        return em.createQuery("SELECT DISTINCT p FROM Product p WHERE p.id = :productId", Product.class)
+                .setParameter("productId", productId)
+                .setHint(QueryHints.HINT_PASS_DISTINCT_THROUGH, false)
+                .setHint(QueryHints.HINT_FETCHGRAPH, em.getEntityGraph(fetchPlan.getGraphName()))
+                .getResultStream()
+                .findFirst();
+    }
+
+    @lombok.Value
+    private static class SortKey {
+        Expression<?> expression;
+        Class<?> type;
+        boolean descending;
+    }
+
+    @lombok.Value
+    private static class FacetFilter {
+        private static final String OPERATOR = "=json=";
+
+        boolean variantScoped;
+        String code;
+        List<String> values;
+
+        // Nhận dạng `variants.properties=json=(code,v1,v2)` hoặc `specifications=json=(code,v1,v2)`
+        private static FacetFilter parse(String clause) {
+            int operatorIndex = clause.indexOf(OPERATOR);
+
+            if (operatorIndex < 0) {
+                return null;
+            }
+
+            String selector = clause.substring(0, operatorIndex).trim();
+
+            if (!selector.equals("variants.properties") && !selector.equals("specifications")) {
+                return null;
+            }
+
+            List<String> arguments = SearchUtils.parseArguments(clause.substring(operatorIndex + OPERATOR.length()));
+
+            if (arguments.size() < 2) {
+                return null;
+            }
+
+            return new FacetFilter(selector.equals("variants.properties"), arguments.get(0),
+                    arguments.subList(1, arguments.size()));
+        }
+    }
+
+}
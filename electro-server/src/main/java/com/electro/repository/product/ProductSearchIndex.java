@@ -0,0 +1,223 @@
+package com.electro.repository.product;
+
+import com.electro.entity.product.Product;
+import com.electro.entity.product.Tag;
+import com.electro.event.CatalogChangedEvent;
+import com.electro.utils.TextUtils;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Chỉ mục đảo trong bộ nhớ để tìm kiếm sản phẩm theo tên, mã, slug, danh mục, thương hiệu và tag (không phân biệt dấu)
+ */
+@Repository
+@AllArgsConstructor
+@Slf4j
+public class ProductSearchIndex {
+
+    // Trọng số của từng trường khi tính điểm liên quan
+    private static final double NAME_WEIGHT = 3;
+    private static final double CODE_WEIGHT = 3;
+    private static final double CATEGORY_WEIGHT = 2;
+    private static final double BRAND_WEIGHT = 2;
+    private static final double SLUG_WEIGHT = 1;
+    private static final double TAG_WEIGHT = 1;
+
+    // Từ khớp theo tiền tố được tính điểm thấp hơn từ khớp hoàn toàn
+    private static final double PREFIX_FACTOR = 0.5;
+
+    private final EntityManager em;
+
+    // token -> (productId -> trọng số), sắp xếp theo token để tra cứu tiền tố
+    private final NavigableMap<String, Map<Long, Double>> postings = new TreeMap<>();
+
+    // productId -> các token đã đánh chỉ mục, dùng khi cập nhật hoặc xóa sản phẩm
+    private final Map<Long, Set<String>> tokensByProduct = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Trả về id sản phẩm khớp với tất cả từ khóa, sắp xếp theo điểm liên quan giảm dần
+     */
+    public Map<Long, Double> search(String query) {
+        List<String> queryTokens = TextUtils.tokenize(query);
+        Map<Long, Double> scores = null;
+
+        lock.readLock().lock();
+        try {
+            for (String queryToken : queryTokens) {
+                Map<Long, Double> tokenScores = new HashMap<>();
+
+                for (Map.Entry<String, Map<Long, Double>> posting : postings
+                        .subMap(queryToken, true, queryToken + Character.MAX_VALUE, false).entrySet()) {
+                    double factor = posting.getKey().equals(queryToken) ? 1 : PREFIX_FACTOR;
+                    posting.getValue().forEach((productId, weight) ->
+                            tokenScores.merge(productId, weight * factor, Math::max));
+                }
+
+                if (scores == null) {
+                    scores = tokenScores;
+                } else {
+                    // Sản phẩm phải khớp tất cả từ khóa
+                    Map<Long, Double> previousScores = scores;
+                    scores = new HashMap<>();
+                    for (Map.Entry<Long, Double> entry : tokenScores.entrySet()) {
+                        Double previousScore = previousScores.get(entry.getKey());
+                        if (previousScore != null) {
+                            scores.put(entry.getKey(), previousScore + entry.getValue());
+                        }
+                    }
+                }
+
+                if (scores.isEmpty()) {
+                    break;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Map<Long, Double> result = new LinkedHashMap<>();
+
+        if (scores != null) {
+            scores.entrySet().stream()
+                    .sorted(Map.Entry.<Long, Double>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                    .forEach(entry -> result.put(entry.getKey(), entry.getValue()));
+        }
+
+        return result;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<Product> products = findProducts(null);
+
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            tokensByProduct.clear();
+            products.forEach(this::index);
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        log.info("Product search index built with {} products and {} tokens", products.size(), postings.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        Set<Long> productIds = new HashSet<>(event.getProductIds());
+
+        // Đổi tên danh mục hoặc thương hiệu thì phải đánh chỉ mục lại các sản phẩm liên quan
+        if (!event.getCategoryIds().isEmpty() || !event.getBrandIds().isEmpty()) {
+            productIds.addAll(em.createQuery("SELECT p.id FROM Product p " +
+                            "WHERE p.category.id IN :categoryIds OR p.brand.id IN :brandIds", Long.class)
+                    .setParameter("categoryIds", orNone(event.getCategoryIds()))
+                    .setParameter("brandIds", orNone(event.getBrandIds()))
+                    .getResultList());
+        }
+
+        if (!productIds.isEmpty()) {
+            reindex(productIds);
+        }
+    }
+
+    public void reindex(Collection<Long> productIds) {
+        List<Product> products = findProducts(productIds);
+
+        lock.writeLock().lock();
+        try {
+            // Sản phẩm không còn tồn tại sẽ bị xóa khỏi chỉ mục
+            productIds.forEach(this::remove);
+            products.forEach(this::index);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private List<Product> findProducts(Collection<Long> productIds) {
+        String jpql = "SELECT DISTINCT p FROM Product p " +
+                "LEFT JOIN FETCH p.category LEFT JOIN FETCH p.brand LEFT JOIN FETCH p.tags";
+
+        if (productIds == null) {
+            return em.createQuery(jpql, Product.class)
+                    .setHint(QueryHints.HINT_PASS_DISTINCT_THROUGH, false)
+                    .getResultList();
+        }
+
+        return em.createQuery(jpql + " WHERE p.id IN :productIds", Product.class)
+                .setParameter("productIds", orNone(productIds))
+                .setHint(QueryHints.HINT_PASS_DISTINCT_THROUGH, false)
+                .getResultList();
+    }
+
+    private void index(Product product) {
+        Map<String, Double> weights = new HashMap<>();
+
+        addTokens(weights, product.getName(), NAME_WEIGHT);
+        addTokens(weights, product.getCode(), CODE_WEIGHT);
+        addTokens(weights, product.getSlug(), SLUG_WEIGHT);
+
+        if (product.getCategory() != null) {
+            addTokens(weights, product.getCategory().getName(), CATEGORY_WEIGHT);
+        }
+
+        if (product.getBrand() != null) {
+            addTokens(weights, product.getBrand().getName(), BRAND_WEIGHT);
+        }
+
+        for (Tag tag : product.getTags()) {
+            addTokens(weights, tag.getName(), TAG_WEIGHT);
+        }
+
+        weights.forEach((token, weight) -> postings.computeIfAbsent(token, t -> new HashMap<>()).put(product.getId(), weight));
+        tokensByProduct.put(product.getId(), weights.keySet());
+    }
+
+    private void remove(Long productId) {
+        Set<String> tokens = tokensByProduct.remove(productId);
+
+        if (tokens == null) {
+            return;
+        }
+
+        for (String token : tokens) {
+            Map<Long, Double> posting = postings.get(token);
+            if (posting != null) {
+                posting.remove(productId);
+                if (posting.isEmpty()) {
+                    postings.remove(token);
+                }
+            }
+        }
+    }
+
+    private static void addTokens(Map<String, Double> weights, String text, double weight) {
+        TextUtils.tokenize(text).forEach(token -> weights.merge(token, weight, Math::max));
+    }
+
+    // Tránh mệnh đề `IN ()` rỗng
+    private static Collection<Long> orNone(Collection<Long> ids) {
+        return ids.isEmpty() ? List.of(0L) : new ArrayList<>(ids);
+    }
+
+}
@@ -0,0 +1,293 @@
+package com.electro.repository.product;
+
+import com.electro.event.CatalogChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Danh sách id sản phẩm đã sắp xếp sẵn theo giá thấp nhất, giá cao nhất và lần nhập hàng gần nhất,
+ * tách theo danh mục (gồm cả danh mục con cháu). Trang đã sắp xếp chỉ cần đọc một đoạn của danh sách.
+ */
+@Repository
+@RequiredArgsConstructor
+@Slf4j
+public class ProductSortIndex {
+
+    public enum SortOrder {
+        LOWEST_PRICE(Comparator.comparing(Entry::getLowestPrice)),
+        HIGHEST_PRICE(Comparator.comparing(Entry::getHighestPrice).reversed()),
+        NEWEST(Comparator.comparing(Entry::getNewestImport).reversed());
+
+        private final Comparator<Entry> comparator;
+
+        SortOrder(Comparator<Entry> comparator) {
+            // Cùng giá trị thì xếp theo id tăng dần
+            this.comparator = comparator.thenComparing(Entry::getProductId);
+        }
+
+        private boolean accepts(Entry entry) {
+            return this == NEWEST ? entry.getNewestImport() != null : entry.getLowestPrice() != null;
+        }
+    }
+
+    // Khóa danh sách chứa toàn bộ sản phẩm
+    private static final Long ALL = 0L;
+
+    private final EntityManager em;
+    private final CategoryTreeIndex categoryTreeIndex;
+
+    private final Map<Long, Entry> entries = new HashMap<>();
+
+    // categoryId (hoặc ALL) -> thứ tự sắp xếp -> danh sách đã sắp xếp
+    private final Map<Long, Map<SortOrder, List<Entry>>> sortedLists = new HashMap<>();
+
+    // Như trên nhưng chỉ gồm sản phẩm còn hàng để bán, trang lọc còn hàng cũng chỉ cần cắt một đoạn
+    private final Map<Long, Map<SortOrder, List<Entry>>> saleableLists = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private volatile boolean built = false;
+
+    /**
+     * Một trang id sản phẩm theo thứ tự {@code sortOrder}, giới hạn trong danh mục (và con cháu) nếu có
+     */
+    public Page<Long> findPage(@Nullable Long categoryId, SortOrder sortOrder, boolean saleable, Pageable pageable) {
+        // Chưa nạp (ví dụ trong ngữ cảnh test không có ApplicationReadyEvent) thì nạp ngay
+        if (!built) {
+            rebuild();
+        }
+
+        lock.readLock().lock();
+        try {
+            List<Entry> sorted = (saleable ? saleableLists : sortedLists)
+                    .getOrDefault(categoryId == null ? ALL : categoryId, Map.of())
+                    .getOrDefault(sortOrder, List.of());
+
+            int total = sorted.size();
+            int from = pageable.isPaged() ? (int) Math.min(pageable.getOffset(), total) : 0;
+            int to = pageable.isPaged() ? Math.min(from + pageable.getPageSize(), total) : total;
+
+            List<Long> productIds = new ArrayList<>(to - from);
+            sorted.subList(from, to).forEach(entry -> productIds.add(entry.getProductId()));
+
+            return new PageImpl<>(productIds, pageable, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        List<Entry> loaded = findEntries(null);
+        CategoryTree tree = categoryTreeIndex.getTree();
+
+        lock.writeLock().lock();
+        try {
+            entries.clear();
+            sortedLists.clear();
+            saleableLists.clear();
+
+            for (Entry entry : loaded) {
+                entries.put(entry.getProductId(), entry);
+                for (Long key : keysOf(entry, tree)) {
+                    append(sortedLists, key, entry);
+                    if (entry.isSaleable()) {
+                        append(saleableLists, key, entry);
+                    }
+                }
+            }
+
+            sort(sortedLists);
+            sort(saleableLists);
+            built = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        log.info("Product sort index built with {} products", loaded.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        // Cây danh mục thay đổi thì tập tổ tiên của sản phẩm cũng đổi, dựng lại toàn bộ
+        if (!event.getCategoryIds().isEmpty()) {
+            rebuild();
+            return;
+        }
+
+        if (!event.getProductIds().isEmpty()) {
+            reindex(event.getProductIds());
+        }
+    }
+
+    public synchronized void reindex(Collection<Long> productIds) {
+        List<Entry> loaded = findEntries(productIds);
+        CategoryTree tree = categoryTreeIndex.getTree();
+
+        lock.writeLock().lock();
+        try {
+            // Sản phẩm đã bị xóa hoặc không còn dòng phiếu nào sẽ không được thêm lại
+            for (Long productId : productIds) {
+                Entry previous = entries.remove(productId);
+                if (previous != null) {
+                    keysOf(previous, tree).forEach(key -> {
+                        update(sortedLists, key, previous, false);
+                        update(saleableLists, key, previous, false);
+                    });
+                }
+            }
+
+            for (Entry entry : loaded) {
+                entries.put(entry.getProductId(), entry);
+                keysOf(entry, tree).forEach(key -> {
+                    update(sortedLists, key, entry, true);
+                    if (entry.isSaleable()) {
+                        update(saleableLists, key, entry, true);
+                    }
+                });
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void append(Map<Long, Map<SortOrder, List<Entry>>> lists, Long key, Entry entry) {
+        Map<SortOrder, List<Entry>> byOrder = lists.computeIfAbsent(key, k -> new EnumMap<>(SortOrder.class));
+
+        for (SortOrder sortOrder : SortOrder.values()) {
+            if (sortOrder.accepts(entry)) {
+                byOrder.computeIfAbsent(sortOrder, order -> new ArrayList<>()).add(entry);
+            }
+        }
+    }
+
+    private static void sort(Map<Long, Map<SortOrder, List<Entry>>> lists) {
+        lists.values().forEach(byOrder -> byOrder.forEach((sortOrder, list) -> list.sort(sortOrder.comparator)));
+    }
+
+    private static void update(Map<Long, Map<SortOrder, List<Entry>>> lists, Long key, Entry entry, boolean insert) {
+        Map<SortOrder, List<Entry>> byOrder = lists.computeIfAbsent(key, k -> new EnumMap<>(SortOrder.class));
+
+        for (SortOrder sortOrder : SortOrder.values()) {
+            if (!sortOrder.accepts(entry)) {
+                continue;
+            }
+
+            List<Entry> list = byOrder.computeIfAbsent(sortOrder, order -> new ArrayList<>());
+            int index = Collections.binarySearch(list, entry, sortOrder.comparator);
+
+            if (insert && index < 0) {
+                list.add(-index - 1, entry);
+            } else if (!insert && index >= 0) {
+                list.remove(index);
+            }
+        }
+    }
+
+    // Sản phẩm nằm trong danh sách chung, danh sách của danh mục và của mọi danh mục tổ tiên
+    private static Set<Long> keysOf(Entry entry, CategoryTree tree) {
+        Set<Long> keys = new HashSet<>();
+        keys.add(ALL);
+
+        if (entry.getCategoryId() != null) {
+            keys.add(entry.getCategoryId());
+            keys.addAll(tree.findAncestorIds(entry.getCategoryId()));
+        }
+
+        return keys;
+    }
+
+    /**
+     * Cùng điều kiện với câu truy vấn danh sách: chỉ tính phiên bản đã có dòng phiếu,
+     * thời điểm nhập lấy từ phiếu nhập (type 1) đã hoàn thành (status 3)
+     */
+    private List<Entry> findEntries(@Nullable Collection<Long> productIds) {
+        String and = productIds == null ? "" : " AND v.product.id IN :productIds";
+        String where = productIds == null ? "" : " WHERE v.product.id IN :productIds";
+
+        Map<Long, Object[]> prices = new HashMap<>();
+        withProductIds(em.createQuery("SELECT v.product.id, MIN(v.price), MAX(v.price) FROM Variant v " +
+                "WHERE EXISTS (SELECT dv.id FROM DocketVariant dv WHERE dv.variant = v)" + and +
+                " GROUP BY v.product.id", Object[].class), productIds)
+                .getResultList()
+                .forEach(row -> prices.put((Long) row[0], row));
+
+        Map<Long, Instant> newestImports = new HashMap<>();
+        withProductIds(em.createQuery("SELECT v.product.id, MAX(d.createdAt) FROM DocketVariant dv " +
+                "JOIN dv.variant v JOIN dv.docket d WHERE d.type = 1 AND d.status = 3" + and +
+                " GROUP BY v.product.id", Object[].class), productIds)
+                .getResultList()
+                .forEach(row -> newestImports.put((Long) row[0], (Instant) row[1]));
+
+        Set<Long> saleableIds = new HashSet<>(withProductIds(em.createQuery("SELECT v.product.id FROM VariantStock vs " +
+                "JOIN vs.variant v" + where + " GROUP BY v.product.id HAVING SUM(vs.canBeSold - vs.reserved) > 0", Long.class), productIds)
+                .getResultList());
+
+        List<Entry> result = new ArrayList<>();
+
+        withProductIds(em.createQuery("SELECT p.id, c.id FROM Product p LEFT JOIN p.category c" +
+                (productIds == null ? "" : " WHERE p.id IN :productIds"), Object[].class), productIds)
+                .getResultList()
+                .forEach(row -> {
+                    Long productId = (Long) row[0];
+                    Optional<Object[]> price = Optional.ofNullable(prices.get(productId));
+                    Instant newestImport = newestImports.get(productId);
+
+                    // Sản phẩm chưa có dòng phiếu nào không xuất hiện trong danh sách
+                    if (price.isPresent() || newestImport != null) {
+                        result.add(new Entry(productId, (Long) row[1],
+                                price.map(p -> (Double) p[1]).orElse(null),
+                                price.map(p -> (Double) p[2]).orElse(null),
+                                newestImport,
+                                saleableIds.contains(productId)));
+                    }
+                });
+
+        return result;
+    }
+
+    private static <T> TypedQuery<T> withProductIds(TypedQuery<T> query, @Nullable Collection<Long> productIds) {
+        return productIds == null ? query : query.setParameter("productIds", new ArrayList<>(productIds));
+    }
+
+    @Value
+    private static class Entry {
+        Long productId;
+        @Nullable
+        Long categoryId;
+        @Nullable
+        Double lowestPrice;
+        @Nullable
+        Double highestPrice;
+        @Nullable
+        Instant newestImport;
+        boolean saleable;
+    }
+
+}
@@ -0,0 +1,329 @@
+package com.electro.repository.product;
+
+import com.electro.event.CatalogChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Danh sách sản phẩm liên quan được tính trước cho từng sản phẩm (cùng danh mục, có thể bán),
+ * xếp hạng theo độ tương đồng và độ phổ biến, làm mới định kỳ ở nền
+ */
+@Repository
+@RequiredArgsConstructor
+@Slf4j
+public class RelatedProductIndex {
+
+    // Số sản phẩm liên quan lưu cho mỗi sản phẩm, mỗi lần hiển thị sẽ lấy mẫu ngẫu nhiên từ danh sách này
+    private static final int CANDIDATE_SIZE = 12;
+
+    private static final double BRAND_WEIGHT = 3;
+    private static final double TAG_WEIGHT = 1;
+    private static final double PRICE_WEIGHT = 2;
+    private static final double POPULARITY_WEIGHT = 1;
+
+    // Điểm cao trước, bằng điểm thì id nhỏ trước
+    private static final Comparator<ScoredCandidate> RANKING = Comparator
+            .comparingDouble((ScoredCandidate scored) -> -scored.score)
+            .thenComparing(scored -> scored.id);
+
+    private final EntityManager em;
+
+    private volatile Map<Long, List<Long>> relatedProducts = Map.of();
+
+    // Dữ liệu của lần dựng gần nhất, dùng để nhận ra sản phẩm thật sự đổi danh mục, thương hiệu, tag hoặc trạng thái có thể bán
+    private volatile Map<Long, Candidate> candidates = Map.of();
+
+    // Sản phẩm có sự kiện thay đổi đang chờ kiểm tra, danh mục cần tính lại
+    private final Set<Long> pendingProductIds = ConcurrentHashMap.newKeySet();
+    private final Set<Long> dirtyCategoryIds = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Lấy ngẫu nhiên {@code size} sản phẩm liên quan từ danh sách đã tính trước
+     */
+    public List<Long> sample(Long productId, int size) {
+        List<Long> candidates = new ArrayList<>(relatedProducts.getOrDefault(productId, List.of()));
+        Collections.shuffle(candidates, ThreadLocalRandom.current());
+        return candidates.subList(0, Math.min(size, candidates.size()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        // Phần lớn sự kiện là thay đổi tồn kho, chỉ ghi nhận lại và để lượt kiểm tra định kỳ so sánh với lần dựng trước
+        if (event.isMembershipChanged()) {
+            pendingProductIds.addAll(event.getProductIds());
+        }
+
+        dirtyCategoryIds.addAll(event.getCategoryIds());
+
+        if (!event.getBrandIds().isEmpty()) {
+            candidates.values().stream()
+                    .filter(candidate -> candidate.categoryId != null && event.getBrandIds().contains(candidate.brandId))
+                    .forEach(candidate -> dirtyCategoryIds.add(candidate.categoryId));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${electro.app.relatedProducts.checkIntervalMs:60000}",
+            initialDelayString = "${electro.app.relatedProducts.checkIntervalMs:60000}")
+    public synchronized void refreshIfDirty() {
+        Set<Long> categoryIds = drain(dirtyCategoryIds);
+        Set<Long> productIds = drain(pendingProductIds);
+
+        if (!productIds.isEmpty()) {
+            Map<Long, Candidate> current = findCandidates("p.id IN :ids", productIds);
+
+            for (Long productId : productIds) {
+                Candidate previous = candidates.get(productId);
+                Candidate next = current.get(productId);
+
+                if (!sameMembership(previous, next)) {
+                    // Sản phẩm chuyển danh mục làm thay đổi cả danh mục cũ lẫn danh mục mới
+                    addCategoryId(categoryIds, previous);
+                    addCategoryId(categoryIds, next);
+                }
+            }
+        }
+
+        if (!categoryIds.isEmpty()) {
+            rebuildCategories(categoryIds);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${electro.app.relatedProducts.refreshIntervalMs:1800000}",
+            initialDelayString = "${electro.app.relatedProducts.refreshIntervalMs:1800000}")
+    public void refreshPeriodically() {
+        // Độ phổ biến và giá thay đổi theo đơn hàng, biến thể nên vẫn làm mới toàn bộ định kỳ
+        rebuild();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        dirtyCategoryIds.clear();
+        pendingProductIds.clear();
+
+        Map<Long, Candidate> loaded = findCandidates(null, null);
+        Map<Long, List<Long>> result = new HashMap<>();
+
+        groupByCategory(loaded.values()).values().forEach(products -> computeRelated(products, result));
+
+        candidates = loaded;
+        relatedProducts = result;
+
+        log.debug("Related products rebuilt for {} products", result.size());
+    }
+
+    /**
+     * Chỉ tính lại danh sách liên quan của sản phẩm thuộc các danh mục có thay đổi
+     */
+    private void rebuildCategories(Set<Long> categoryIds) {
+        Map<Long, Candidate> loaded = findCandidates("p.category.id IN :ids", categoryIds);
+
+        Map<Long, Candidate> nextCandidates = new HashMap<>(candidates);
+        Map<Long, List<Long>> result = new HashMap<>(relatedProducts);
+
+        // Bỏ sản phẩm cũ của các danh mục này (kể cả sản phẩm đã xóa hoặc đã chuyển sang danh mục khác) rồi nạp lại
+        candidates.values().stream()
+                .filter(candidate -> categoryIds.contains(candidate.categoryId))
+                .forEach(candidate -> {
+                    nextCandidates.remove(candidate.id);
+                    result.remove(candidate.id);
+                });
+
+        nextCandidates.putAll(loaded);
+        groupByCategory(loaded.values()).values().forEach(products -> computeRelated(products, result));
+
+        candidates = nextCandidates;
+        relatedProducts = result;
+
+        log.debug("Related products rebuilt for {} categories", categoryIds.size());
+    }
+
+    private static Map<Long, List<Candidate>> groupByCategory(Collection<Candidate> candidates) {
+        return candidates.stream()
+                .filter(candidate -> candidate.categoryId != null)
+                .collect(Collectors.groupingBy(candidate -> candidate.categoryId));
+    }
+
+    /**
+     * Tính danh sách liên quan cho mọi sản phẩm của một danh mục, ứng viên là các sản phẩm có thể bán trong danh mục
+     */
+    private static void computeRelated(List<Candidate> products, Map<Long, List<Long>> result) {
+        List<Candidate> saleable = products.stream()
+                .filter(candidate -> candidate.saleable)
+                .collect(Collectors.toList());
+        double maxPopularity = saleable.stream().mapToDouble(candidate -> candidate.popularity).max().orElse(0);
+
+        for (Candidate product : products) {
+            List<Long> related = findTop(product, saleable, maxPopularity);
+
+            if (related.isEmpty()) {
+                result.remove(product.id);
+            } else {
+                result.put(product.id, related);
+            }
+        }
+    }
+
+    // Giữ CANDIDATE_SIZE ứng viên tốt nhất trong một heap (đỉnh là ứng viên kém nhất) thay vì sắp xếp cả danh mục
+    private static List<Long> findTop(Candidate product, List<Candidate> saleable, double maxPopularity) {
+        PriorityQueue<ScoredCandidate> top = new PriorityQueue<>(CANDIDATE_SIZE + 1, RANKING.reversed());
+
+        for (Candidate candidate : saleable) {
+            if (candidate.id.equals(product.id)) {
+                continue;
+            }
+
+            top.offer(new ScoredCandidate(candidate.id, score(product, candidate, maxPopularity)));
+
+            if (top.size() > CANDIDATE_SIZE) {
+                top.poll();
+            }
+        }
+
+        List<ScoredCandidate> sorted = new ArrayList<>(top);
+        sorted.sort(RANKING);
+
+        return sorted.stream().map(scored -> scored.id).collect(Collectors.toList());
+    }
+
+    private static double score(Candidate product, Candidate candidate, double maxPopularity) {
+        double score = 0;
+
+        if (product.brandId != null && product.brandId.equals(candidate.brandId)) {
+            score += BRAND_WEIGHT;
+        }
+
+        score += TAG_WEIGHT * candidate.tagIds.stream().filter(product.tagIds::contains).count();
+
+        if (product.price != null && candidate.price != null) {
+            double maxPrice = Math.max(product.price, candidate.price);
+            score += PRICE_WEIGHT * (maxPrice == 0 ? 1 : 1 - Math.abs(product.price - candidate.price) / maxPrice);
+        }
+
+        if (maxPopularity > 0) {
+            score += POPULARITY_WEIGHT * Math.log1p(candidate.popularity) / Math.log1p(maxPopularity);
+        }
+
+        return score;
+    }
+
+    // Giá và độ phổ biến chỉ làm đổi điểm, được cập nhật ở lượt làm mới định kỳ
+    private static boolean sameMembership(@Nullable Candidate previous, @Nullable Candidate next) {
+        if (previous == null || next == null) {
+            return previous == next;
+        }
+
+        return Objects.equals(previous.categoryId, next.categoryId)
+                && Objects.equals(previous.brandId, next.brandId)
+                && previous.saleable == next.saleable
+                && previous.tagIds.equals(next.tagIds);
+    }
+
+    private static void addCategoryId(Set<Long> categoryIds, @Nullable Candidate candidate) {
+        if (candidate != null && candidate.categoryId != null) {
+            categoryIds.add(candidate.categoryId);
+        }
+    }
+
+    private static Set<Long> drain(Set<Long> ids) {
+        Set<Long> drained = new HashSet<>(ids);
+        ids.removeAll(drained);
+        return drained;
+    }
+
+    /**
+     * @param filter điều kiện trên sản phẩm {@code p} với tham số {@code :ids}, null để nạp toàn bộ
+     */
+    private Map<Long, Candidate> findCandidates(@Nullable String filter, @Nullable Collection<Long> ids) {
+        Map<Long, Candidate> candidates = new HashMap<>();
+        String where = filter == null ? "" : " WHERE " + filter;
+        String and = filter == null ? "" : " AND " + filter;
+
+        query("SELECT p.id, c.id, b.id FROM Product p LEFT JOIN p.category c LEFT JOIN p.brand b" + where, ids)
+                .forEach(row -> candidates.put((Long) row[0], new Candidate((Long) row[0], (Long) row[1], (Long) row[2])));
+
+        query("SELECT p.id, MIN(v.price) FROM Variant v JOIN v.product p" + where + " GROUP BY p.id", ids)
+                .forEach(row -> apply(candidates, row[0], candidate -> candidate.price = (Double) row[1]));
+
+        query("SELECT p.id, SUM(vs.canBeSold - vs.reserved) FROM VariantStock vs JOIN vs.variant v JOIN v.product p" +
+                where + " GROUP BY p.id", ids)
+                .forEach(row -> apply(candidates, row[0], candidate -> candidate.saleable = ((Number) row[1]).longValue() > 0));
+
+        query("SELECT p.id, t.id FROM Product p JOIN p.tags t" + where, ids)
+                .forEach(row -> apply(candidates, row[0], candidate -> candidate.tagIds.add((Long) row[1])));
+
+        // Độ phổ biến: tổng số lượng đã đặt, bỏ qua đơn hàng Hủy (5)
+        query("SELECT p.id, SUM(ov.quantity) FROM OrderVariant ov JOIN ov.variant v JOIN v.product p " +
+                "WHERE ov.order.status <> 5" + and + " GROUP BY p.id", ids)
+                .forEach(row -> apply(candidates, row[0], candidate -> candidate.popularity = ((Number) row[1]).doubleValue()));
+
+        return candidates;
+    }
+
+    private List<Object[]> query(String jpql, @Nullable Collection<Long> ids) {
+        TypedQuery<Object[]> query = em.createQuery(jpql, Object[].class);
+
+        if (ids != null) {
+            query.setParameter("ids", ids);
+        }
+
+        return query.getResultList();
+    }
+
+    private static void apply(Map<Long, Candidate> candidates, Object productId, Consumer<Candidate> action) {
+        Candidate candidate = candidates.get((Long) productId);
+        if (Objects.nonNull(candidate)) {
+            action.accept(candidate);
+        }
+    }
+
+    private static class Candidate {
+        private final Long id;
+        private final Long categoryId;
+        private final Long brandId;
+        private final Set<Long> tagIds = new HashSet<>();
+        private Double price;
+        private boolean saleable;
+        private double popularity;
+
+        private Candidate(Long id, Long categoryId, Long brandId) {
+            this.id = id;
+            this.categoryId = categoryId;
+            this.brandId = brandId;
+        }
+    }
+
+    private static class ScoredCandidate {
+        private final Long id;
+        private final double score;
+
+        private ScoredCandidate(Long id, double score) {
+            this.id = id;
+            this.score = score;
+        }
+    }
+
+}
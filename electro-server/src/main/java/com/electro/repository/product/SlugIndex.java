@@ -0,0 +1,172 @@
+package com.electro.repository.product;
+
+import com.electro.event.CatalogChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.persistence.EntityManager;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Ánh xạ slug sang id cho sản phẩm và danh mục, giới hạn số mục, nạp sẵn lúc khởi động.
+ * Slug không tồn tại được ghi nhớ trong thời gian ngắn để không truy vấn lại liên tục.
+ */
+@Repository
+@Slf4j
+public class SlugIndex {
+
+    private final EntityManager em;
+
+    private final SlugMap products;
+    private final SlugMap categories;
+
+    public SlugIndex(EntityManager em,
+                     @Value("${electro.app.cache.slugs.maxEntries:20000}") int maxEntries,
+                     @Value("${electro.app.cache.slugs.negativeTtlMs:60000}") long negativeTtlMs) {
+        this.em = em;
+        this.products = new SlugMap("Product", maxEntries, negativeTtlMs);
+        this.categories = new SlugMap("Category", maxEntries, negativeTtlMs);
+    }
+
+    public Optional<Long> findProductId(String slug) {
+        return products.find(slug);
+    }
+
+    public Optional<Long> findCategoryId(String slug) {
+        return categories.find(slug);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        products.load(null);
+        categories.load(null);
+        log.info("Slug index warmed up with {} products and {} categories", products.size(), categories.size());
+    }
+
+    // Slug có thể đổi hoặc entity bị xóa nên nạp lại ánh xạ của các id liên quan
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (!event.getProductIds().isEmpty()) {
+            products.load(event.getProductIds());
+        }
+
+        if (!event.getCategoryIds().isEmpty()) {
+            categories.load(event.getCategoryIds());
+        }
+    }
+
+    private class SlugMap {
+        private final String entityName;
+        private final int maxEntries;
+        private final long negativeTtlMs;
+
+        private final Map<String, Long> idsBySlug;
+        private final Map<Long, String> slugsById = new HashMap<>();
+        // Slug không tồn tại và thời điểm hết hạn ghi nhớ
+        private final Map<String, Long> missingSlugs;
+
+        private SlugMap(String entityName, int maxEntries, long negativeTtlMs) {
+            this.entityName = entityName;
+            this.maxEntries = maxEntries;
+            this.negativeTtlMs = negativeTtlMs;
+
+            this.idsBySlug = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                    if (size() > SlugMap.this.maxEntries) {
+                        slugsById.remove(eldest.getValue());
+                        return true;
+                    }
+                    return false;
+                }
+            };
+
+            this.missingSlugs = new LinkedHashMap<>(16, 0.75f, false) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                    return size() > SlugMap.this.maxEntries;
+                }
+            };
+        }
+
+        private Optional<Long> find(String slug) {
+            synchronized (this) {
+                Long id = idsBySlug.get(slug);
+                if (id != null) {
+                    return Optional.of(id);
+                }
+
+                Long expiresAt = missingSlugs.get(slug);
+                if (expiresAt != null && expiresAt > System.currentTimeMillis()) {
+                    return Optional.empty();
+                }
+            }
+
+            // Không có trong bộ nhớ (vượt giới hạn hoặc chưa biết) thì tra cứu theo chỉ mục unique của slug
+            List<Long> ids = em.createQuery("SELECT e.id FROM " + entityName + " e WHERE e.slug = :slug", Long.class)
+                    .setParameter("slug", slug)
+                    .getResultList();
+
+            synchronized (this) {
+                if (ids.isEmpty()) {
+                    missingSlugs.put(slug, System.currentTimeMillis() + negativeTtlMs);
+                    return Optional.empty();
+                }
+
+                put(ids.get(0), slug);
+                return Optional.of(ids.get(0));
+            }
+        }
+
+        /**
+         * Nạp lại ánh xạ của các id (null để nạp toàn bộ), id không còn tồn tại sẽ bị xóa khỏi ánh xạ
+         */
+        private void load(Collection<Long> ids) {
+            List<Object[]> rows = ids == null
+                    ? em.createQuery("SELECT e.id, e.slug FROM " + entityName + " e", Object[].class)
+                    .setMaxResults(maxEntries)
+                    .getResultList()
+                    : em.createQuery("SELECT e.id, e.slug FROM " + entityName + " e WHERE e.id IN :ids", Object[].class)
+                    .setParameter("ids", ids)
+                    .getResultList();
+
+            synchronized (this) {
+                if (ids == null) {
+                    idsBySlug.clear();
+                    slugsById.clear();
+                    missingSlugs.clear();
+                } else {
+                    ids.forEach(id -> Optional.ofNullable(slugsById.remove(id)).ifPresent(idsBySlug::remove));
+                }
+
+                rows.forEach(row -> put((Long) row[0], (String) row[1]));
+            }
+        }
+
+        private void put(Long id, String slug) {
+            Optional.ofNullable(slugsById.put(id, slug)).ifPresent(idsBySlug::remove);
+
+            // Slug vừa được chuyển từ entity khác sang
+            Long previousId = idsBySlug.put(slug, id);
+            if (previousId != null && !previousId.equals(id)) {
+                slugsById.remove(previousId);
+            }
+
+            missingSlugs.remove(slug);
+        }
+
+        private synchronized int size() {
+            return idsBySlug.size();
+        }
+    }
+
+}
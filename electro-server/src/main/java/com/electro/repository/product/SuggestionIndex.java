@@ -0,0 +1,166 @@
+package com.electro.repository.product;
+
+import com.electro.event.CatalogChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Gợi ý tìm kiếm theo tiền tố cho tên sản phẩm, thương hiệu và danh mục, xếp hạng theo độ phổ biến
+ */
+@Repository
+@RequiredArgsConstructor
+@Slf4j
+public class SuggestionIndex {
+
+    public static final int MAX_RESULTS = 10;
+
+    public static final String PRODUCT = "PRODUCT";
+    public static final String BRAND = "BRAND";
+    public static final String CATEGORY = "CATEGORY";
+
+    private final EntityManager em;
+
+    private volatile SuggestionTrie trie = new SuggestionTrie(MAX_RESULTS);
+
+    // productId -> số lượng đã đặt, dùng làm điểm khi cập nhật từng sản phẩm
+    private volatile Map<Long, Double> popularity = Map.of();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public List<SuggestionTrie.Entry> search(String query, int limit) {
+        lock.readLock().lock();
+        try {
+            return trie.search(query, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${electro.app.suggestions.refreshIntervalMs:1800000}",
+            initialDelayString = "${electro.app.suggestions.refreshIntervalMs:1800000}")
+    public synchronized void rebuild() {
+        // Độ phổ biến: tổng số lượng đã đặt, bỏ qua đơn hàng Hủy (5)
+        Map<Long, Double> productPopularity = new HashMap<>();
+        em.createQuery("SELECT ov.variant.product.id, SUM(ov.quantity) FROM OrderVariant ov " +
+                        "WHERE ov.order.status <> 5 GROUP BY ov.variant.product.id", Object[].class)
+                .getResultList()
+                .forEach(row -> productPopularity.put((Long) row[0], ((Number) row[1]).doubleValue()));
+
+        // Thương hiệu và danh mục lấy tổng độ phổ biến của các sản phẩm thuộc về nó
+        Map<Long, Double> brandPopularity = new HashMap<>();
+        Map<Long, Double> categoryPopularity = new HashMap<>();
+        em.createQuery("SELECT p.id, b.id, c.id FROM Product p LEFT JOIN p.brand b LEFT JOIN p.category c", Object[].class)
+                .getResultList()
+                .forEach(row -> {
+                    double score = productPopularity.getOrDefault((Long) row[0], 0.0);
+                    if (row[1] != null) {
+                        brandPopularity.merge((Long) row[1], score, Double::sum);
+                    }
+                    if (row[2] != null) {
+                        categoryPopularity.merge((Long) row[2], score, Double::sum);
+                    }
+                });
+
+        SuggestionTrie newTrie = new SuggestionTrie(MAX_RESULTS);
+
+        findProducts(null).forEach(row -> newTrie.put(PRODUCT + ":" + row[0], (String) row[1], (String) row[2], PRODUCT,
+                productPopularity.getOrDefault((Long) row[0], 0.0)));
+        findBrands(null).forEach(row -> newTrie.put(BRAND + ":" + row[0], (String) row[1], null, BRAND,
+                brandPopularity.getOrDefault((Long) row[0], 0.0)));
+        findCategories(null).forEach(row -> newTrie.put(CATEGORY + ":" + row[0], (String) row[1], (String) row[2], CATEGORY,
+                categoryPopularity.getOrDefault((Long) row[0], 0.0)));
+
+        lock.writeLock().lock();
+        try {
+            trie = newTrie;
+            popularity = productPopularity;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        log.info("Suggestion index built with {} entries", newTrie.size());
+    }
+
+    /**
+     * Cập nhật riêng các mục thay đổi; điểm của thương hiệu và danh mục giữ nguyên tới lần làm mới định kỳ
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onCatalogChanged(CatalogChangedEvent event) {
+        if (event.getProductIds().isEmpty() && event.getCategoryIds().isEmpty() && event.getBrandIds().isEmpty()) {
+            return;
+        }
+
+        List<Object[]> products = findProducts(event.getProductIds());
+        List<Object[]> brands = findBrands(event.getBrandIds());
+        List<Object[]> categories = findCategories(event.getCategoryIds());
+
+        lock.writeLock().lock();
+        try {
+            Map<String, Double> scores = new HashMap<>();
+            event.getBrandIds().forEach(brandId -> trie.findScore(BRAND + ":" + brandId)
+                    .ifPresent(score -> scores.put(BRAND + ":" + brandId, score)));
+            event.getCategoryIds().forEach(categoryId -> trie.findScore(CATEGORY + ":" + categoryId)
+                    .ifPresent(score -> scores.put(CATEGORY + ":" + categoryId, score)));
+
+            // Mục đã bị xóa sẽ không được thêm lại
+            event.getProductIds().forEach(productId -> trie.remove(PRODUCT + ":" + productId));
+            event.getBrandIds().forEach(brandId -> trie.remove(BRAND + ":" + brandId));
+            event.getCategoryIds().forEach(categoryId -> trie.remove(CATEGORY + ":" + categoryId));
+
+            products.forEach(row -> trie.put(PRODUCT + ":" + row[0], (String) row[1], (String) row[2], PRODUCT,
+                    popularity.getOrDefault((Long) row[0], 0.0)));
+            brands.forEach(row -> trie.put(BRAND + ":" + row[0], (String) row[1], null, BRAND,
+                    scores.getOrDefault(BRAND + ":" + row[0], 0.0)));
+            categories.forEach(row -> trie.put(CATEGORY + ":" + row[0], (String) row[1], (String) row[2], CATEGORY,
+                    scores.getOrDefault(CATEGORY + ":" + row[0], 0.0)));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // [id, name, slug]
+    private List<Object[]> findProducts(Collection<Long> productIds) {
+        return find("SELECT p.id, p.name, p.slug FROM Product p", productIds);
+    }
+
+    // [id, name]
+    private List<Object[]> findBrands(Collection<Long> brandIds) {
+        return find("SELECT b.id, b.name FROM Brand b", brandIds);
+    }
+
+    // [id, name, slug]
+    private List<Object[]> findCategories(Collection<Long> categoryIds) {
+        return find("SELECT c.id, c.name, c.slug FROM Category c", categoryIds);
+    }
+
+    private List<Object[]> find(String jpql, Collection<Long> ids) {
+        if (ids == null) {
+            return em.createQuery(jpql, Object[].class).getResultList();
+        }
+
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        String alias = jpql.substring(jpql.lastIndexOf(' ') + 1);
+        return em.createQuery(jpql + " WHERE " + alias + ".id IN :ids", Object[].class)
+                .setParameter("ids", new ArrayList<>(ids))
+                .getResultList();
+    }
+
+}
@@ -0,0 +1,294 @@
+package com.electro.repository.product;
+
+import com.electro.utils.TextUtils;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Cây tiền tố gọn (nhánh con lưu bằng mảng ký tự đã sắp xếp), mỗi nút giữ sẵn {@code maxResults} mục có điểm cao nhất
+ * trong cây con nên tra cứu chỉ tốn thời gian theo độ dài từ khóa. Không an toàn luồng, bên gọi tự đồng bộ.
+ */
+public class SuggestionTrie {
+
+    // Chỉ đánh chỉ mục phần đầu của mỗi cụm để giới hạn số nút
+    private static final int MAX_KEY_LENGTH = 24;
+
+    // Cụm bắt đầu từ tối đa chừng này từ đầu tiên của tên, để gõ "galaxy" vẫn ra "Samsung Galaxy ..."
+    private static final int MAX_WORD_STARTS = 5;
+
+    private static final Comparator<Entry> RANKING = Comparator.comparingDouble((Entry entry) -> -entry.score)
+            .thenComparing(entry -> entry.name)
+            .thenComparing(entry -> entry.key);
+
+    private static final char[] NO_LABELS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+
+    private final int maxResults;
+
+    private final Node root = new Node();
+
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    public SuggestionTrie(int maxResults) {
+        this.maxResults = maxResults;
+    }
+
+    /**
+     * Thêm hoặc thay thế mục có cùng {@code key}
+     */
+    public void put(String key, String name, String slug, String type, double score) {
+        Entry existing = entries.get(key);
+
+        // Phần lớn sự kiện (tồn kho, khuyến mãi...) không đổi tên nên không cần dựng lại nhánh
+        if (existing != null && existing.name.equals(name) && Objects.equals(existing.slug, slug) && existing.score == score) {
+            return;
+        }
+
+        remove(key);
+
+        Entry entry = new Entry(key, name, slug, type, score);
+        entries.put(key, entry);
+
+        for (String phrase : phrases(name)) {
+            insert(phrase, entry);
+        }
+    }
+
+    public void remove(String key) {
+        Entry entry = entries.remove(key);
+
+        if (entry == null) {
+            return;
+        }
+
+        for (String phrase : phrases(entry.name)) {
+            delete(phrase, entry);
+        }
+    }
+
+    public Optional<Double> findScore(String key) {
+        return Optional.ofNullable(entries.get(key)).map(Entry::getScore);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Tối đa {@code limit} mục (không vượt quá {@code maxResults}) có một cụm bắt đầu bằng từ khóa, điểm cao trước
+     */
+    public List<Entry> search(String query, int limit) {
+        String prefix = normalize(query);
+
+        if (prefix.isEmpty()) {
+            return List.of();
+        }
+
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.child(prefix.charAt(i));
+        }
+
+        if (node == null) {
+            return List.of();
+        }
+
+        return List.of(Arrays.copyOf(node.top, Math.min(limit, node.top.length)));
+    }
+
+    private void insert(String phrase, Entry entry) {
+        Node node = root;
+
+        for (int i = 0; i < phrase.length(); i++) {
+            node = node.childOrCreate(phrase.charAt(i));
+            node.top = offer(node.top, entry);
+        }
+
+        node.terminals = append(node.terminals, entry);
+    }
+
+    private void delete(String phrase, Entry entry) {
+        Node[] path = new Node[phrase.length() + 1];
+        path[0] = root;
+
+        for (int i = 0; i < phrase.length(); i++) {
+            path[i + 1] = path[i].child(phrase.charAt(i));
+            if (path[i + 1] == null) {
+                return;
+            }
+        }
+
+        Node last = path[phrase.length()];
+        last.terminals = without(last.terminals, entry);
+
+        // Tính lại danh sách điểm cao từ dưới lên, bỏ các nút không còn mục nào
+        for (int i = phrase.length(); i > 0; i--) {
+            Node node = path[i];
+
+            if (node.terminals.length == 0 && node.children.length == 0) {
+                path[i - 1].removeChild(phrase.charAt(i - 1));
+            } else if (contains(node.top, entry)) {
+                node.top = merge(node);
+            }
+        }
+    }
+
+    // Điểm cao nhất của cây con = mục kết thúc tại nút này gộp với điểm cao nhất của các nút con
+    private Entry[] merge(Node node) {
+        List<Entry> candidates = new ArrayList<>(Arrays.asList(node.terminals));
+
+        for (Node child : node.children) {
+            for (Entry entry : child.top) {
+                if (!candidates.contains(entry)) {
+                    candidates.add(entry);
+                }
+            }
+        }
+
+        candidates.sort(RANKING);
+        return candidates.subList(0, Math.min(maxResults, candidates.size())).toArray(NO_ENTRIES);
+    }
+
+    private Entry[] offer(Entry[] top, Entry entry) {
+        if (contains(top, entry)) {
+            return top;
+        }
+
+        if (top.length == maxResults && RANKING.compare(entry, top[top.length - 1]) >= 0) {
+            return top;
+        }
+
+        Entry[] result = Arrays.copyOf(top, Math.min(maxResults, top.length + 1));
+        int position = top.length;
+        while (position > 0 && RANKING.compare(entry, top[position - 1]) < 0) {
+            position--;
+        }
+
+        System.arraycopy(top, position, result, position + 1, result.length - position - 1);
+        result[position] = entry;
+        return result;
+    }
+
+    /**
+     * Các cụm được đánh chỉ mục của một tên: bắt đầu từ mỗi từ, bỏ dấu, cắt tới {@link #MAX_KEY_LENGTH} ký tự
+     */
+    private static List<String> phrases(String name) {
+        List<String> words = TextUtils.tokenize(name);
+        List<String> phrases = new ArrayList<>();
+
+        for (int start = 0; start < Math.min(words.size(), MAX_WORD_STARTS); start++) {
+            String phrase = String.join(" ", words.subList(start, words.size()));
+            String key = phrase.substring(0, Math.min(MAX_KEY_LENGTH, phrase.length()));
+            if (!phrases.contains(key)) {
+                phrases.add(key);
+            }
+        }
+
+        return phrases;
+    }
+
+    private static String normalize(String query) {
+        String prefix = String.join(" ", TextUtils.tokenize(query));
+
+        // Giữ khoảng trắng cuối để "iphone " không khớp "iphonex"
+        if (!prefix.isEmpty() && query.endsWith(" ")) {
+            prefix += " ";
+        }
+
+        return prefix.substring(0, Math.min(MAX_KEY_LENGTH, prefix.length()));
+    }
+
+    private static boolean contains(Entry[] entries, Entry entry) {
+        for (Entry candidate : entries) {
+            if (candidate == entry) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Entry[] append(Entry[] entries, Entry entry) {
+        Entry[] result = Arrays.copyOf(entries, entries.length + 1);
+        result[entries.length] = entry;
+        return result;
+    }
+
+    private static Entry[] without(Entry[] entries, Entry entry) {
+        return Arrays.stream(entries).filter(candidate -> candidate != entry).toArray(Entry[]::new);
+    }
+
+    private static class Node {
+        private char[] labels = NO_LABELS;
+        private Node[] children = NO_CHILDREN;
+        private Entry[] top = NO_ENTRIES;
+        private Entry[] terminals = NO_ENTRIES;
+
+        private Node child(char label) {
+            int index = Arrays.binarySearch(labels, label);
+            return index >= 0 ? children[index] : null;
+        }
+
+        private Node childOrCreate(char label) {
+            int index = Arrays.binarySearch(labels, label);
+
+            if (index >= 0) {
+                return children[index];
+            }
+
+            int position = -index - 1;
+            Node node = new Node();
+
+            char[] newLabels = new char[labels.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(labels, 0, newLabels, 0, position);
+            System.arraycopy(children, 0, newChildren, 0, position);
+            newLabels[position] = label;
+            newChildren[position] = node;
+            System.arraycopy(labels, position, newLabels, position + 1, labels.length - position);
+            System.arraycopy(children, position, newChildren, position + 1, children.length - position);
+
+            labels = newLabels;
+            children = newChildren;
+            return node;
+        }
+
+        private void removeChild(char label) {
+            int index = Arrays.binarySearch(labels, label);
+
+            if (index < 0) {
+                return;
+            }
+
+            char[] newLabels = new char[labels.length - 1];
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(labels, 0, newLabels, 0, index);
+            System.arraycopy(children, 0, newChildren, 0, index);
+            System.arraycopy(labels, index + 1, newLabels, index, labels.length - index - 1);
+            System.arraycopy(children, index + 1, newChildren, index, children.length - index - 1);
+
+            labels = newLabels;
+            children = newChildren;
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Entry {
+        private final String key;
+        private final String name;
+        private final String slug;
+        private final String type;
+        private final double score;
+    }
+
+}
@@ -7,8 +7,12 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import javax.persistence.criteria.Join;
+import java.util.Collection;
+import java.util.List;
 
 public interface VariantRepository extends JpaRepository<Variant, Long>, JpaSpecificationExecutor<Variant> {
 
@@ -25,4 +29,12 @@ public interface VariantRepository extends JpaRepository<Variant, Long>, JpaSpec
         return findAll(spec, pageable);
     }
 
+    @Query("SELECT DISTINCT v.product.id FROM Variant v WHERE v.id IN :variantIds")
+    List<Long> findProductIdsByVariantIds(@Param("variantIds") Collection<Long> variantIds);
+
+    // Mỗi dòng gồm [productId, price, brandId, brandName] dùng để đếm bộ lọc
+    @Query("SELECT p.id, v.price, b.id, b.name FROM Variant v JOIN v.product p LEFT JOIN p.brand b " +
+            "WHERE p.id IN :productIds")
+    List<Object[]> findFacetRowsByProductIds(@Param("productIds") Collection<Long> productIds);
+
 }
@@ -38,6 +38,10 @@ public interface PromotionRepository extends JpaRepository<Promotion, Long>, Jpa
             "CURRENT_DATE BETWEEN pr.startDate AND pr.endDate")
     List<Promotion> findActivePromotionByProductId(@Param("productId") Long productId);
 
+    // Trả về từng cặp [Promotion, productId] của các khuyến mãi đang bật và chưa kết thúc
+    @Query("SELECT pr, p.id FROM Promotion pr JOIN pr.products p WHERE pr.status = 1 AND pr.endDate > :now ORDER BY pr.id")
+    List<Object[]> findUnfinishedPromotionProducts(@Param("now") Instant now);
+
     @Query("SELECT COUNT(pr.id) FROM Promotion pr WHERE pr.status = 1 AND CURRENT_DATE BETWEEN pr.startDate AND pr.endDate")
     int countByPromotionId();
 
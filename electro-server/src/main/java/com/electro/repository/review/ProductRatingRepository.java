@@ -0,0 +1,42 @@
+package com.electro.repository.review;
+
+import com.electro.entity.review.ProductRating;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+
+public interface ProductRatingRepository extends JpaRepository<ProductRating, Long> {
+
+    // Cộng dồn nguyên tử một đánh giá (sign = 1) hoặc bỏ một đánh giá (sign = -1), tạo mới dòng nếu sản phẩm chưa có
+    @Modifying
+    @Query(value = "INSERT INTO product_rating (product_id, review_count, rating_sum, " +
+            "rating_1, rating_2, rating_3, rating_4, rating_5, updated_at) " +
+            "VALUES (:productId, :sign, :sign * :ratingScore, " +
+            ":sign * (:ratingScore = 1), :sign * (:ratingScore = 2), :sign * (:ratingScore = 3), " +
+            ":sign * (:ratingScore = 4), :sign * (:ratingScore = 5), NOW()) " +
+            "ON DUPLICATE KEY UPDATE " +
+            "review_count = review_count + VALUES(review_count), " +
+            "rating_sum = rating_sum + VALUES(rating_sum), " +
+            "rating_1 = rating_1 + VALUES(rating_1), " +
+            "rating_2 = rating_2 + VALUES(rating_2), " +
+            "rating_3 = rating_3 + VALUES(rating_3), " +
+            "rating_4 = rating_4 + VALUES(rating_4), " +
+            "rating_5 = rating_5 + VALUES(rating_5), " +
+            "updated_at = NOW()", nativeQuery = true)
+    void addRating(@Param("productId") Long productId,
+                   @Param("ratingScore") int ratingScore,
+                   @Param("sign") int sign);
+
+    // Tổng hợp lại toàn bộ từ bảng review
+    @Modifying
+    @Query(value = "INSERT INTO product_rating (product_id, review_count, rating_sum, " +
+            "rating_1, rating_2, rating_3, rating_4, rating_5, updated_at) " +
+            "SELECT product_id, COUNT(*), SUM(rating_score), " +
+            "SUM(rating_score = 1), SUM(rating_score = 2), SUM(rating_score = 3), " +
+            "SUM(rating_score = 4), SUM(rating_score = 5), NOW() " +
+            "FROM review GROUP BY product_id", nativeQuery = true)
+    int insertFromReviews();
+
+}
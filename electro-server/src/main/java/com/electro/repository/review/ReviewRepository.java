@@ -12,10 +12,10 @@ import org.springframework.data.repository.query.Param;
 
 public interface ReviewRepository extends JpaRepository<Review, Long>, JpaSpecificationExecutor<Review> {
 
-    default Page<Review> findAllByProductSlug(String productSlug, String sort, String filter, Pageable pageable) {
+    default Page<Review> findAllByProductId(Long productId, String sort, String filter, Pageable pageable) {
         Specification<Review> sortable = RSQLJPASupport.toSort(sort);
         Specification<Review> filterable = RSQLJPASupport.toSpecification(filter);
-        Specification<Review> productIdSpec = RSQLJPASupport.toSpecification("product.slug==" + productSlug);
+        Specification<Review> productIdSpec = RSQLJPASupport.toSpecification("product.id==" + productId);
         return findAll(sortable.and(filterable).and(productIdSpec), pageable);
     }
 
@@ -13,16 +13,21 @@ import com.electro.entity.inventory.Docket;
 import com.electro.exception.ResourceNotFoundException;
 import com.electro.mapper.general.NotificationMapper;
 import com.electro.mapper.inventory.DocketMapper;
+import com.electro.projection.inventory.InventoryIndices;
+import com.electro.projection.inventory.VariantWarehouseKey;
 import com.electro.repository.client.PreorderRepository;
 import com.electro.repository.general.NotificationRepository;
 import com.electro.repository.inventory.DocketRepository;
+import com.electro.repository.inventory.DocketVariantRepository;
 import com.electro.service.general.NotificationService;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import javax.transaction.Transactional;
 import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -42,6 +47,12 @@ public class DocketServiceImpl implements DocketService {
 
     private NotificationMapper notificationMapper;
 
+    private DocketVariantRepository docketVariantRepository;
+
+    private VariantStockService variantStockService;
+
+    private StockReservationService stockReservationService;
+
     @Override
     public ListResponse<DocketResponse> findAll(int page, int size, String sort, String filter, String search, boolean all) {
         return defaultFindAll(page, size, sort, filter, search, all, SearchFields.DOCKET, docketRepository, docketMapper);
@@ -53,22 +64,42 @@ public class DocketServiceImpl implements DocketService {
     }
 
     @Override
+    @Transactional
     public DocketResponse save(DocketRequest request) {
         Docket docket = docketRepository.save(docketMapper.requestToEntity(request));
+        variantStockService.applyChange(Map.of(), calculateStockContribution(docket.getId()));
+        convertStockReservation(docket);
         afterCreateOrUpdateCallback(docket);
         return docketMapper.entityToResponse(docket);
     }
 
     @Override
+    @Transactional
     public DocketResponse save(Long id, DocketRequest request) {
+        // Chụp lại phần tồn kho của phiếu trước khi mapper thay đổi entity
+        Map<VariantWarehouseKey, InventoryIndices> before = calculateStockContribution(id);
         Docket docket = docketRepository.findById(id)
                 .map(existingEntity -> docketMapper.partialUpdate(existingEntity, request))
                 .map(docketRepository::save)
                 .orElseThrow(() -> new ResourceNotFoundException(ResourceName.DOCKET, FieldName.ID, id));
+        variantStockService.applyChange(before, calculateStockContribution(id));
+        convertStockReservation(docket);
         afterCreateOrUpdateCallback(docket);
         return docketMapper.entityToResponse(docket);
     }
 
+    // Đọc lại các dòng phiếu từ CSDL vì docketVariants cũ không bị xóa khi cập nhật phiếu
+    private Map<VariantWarehouseKey, InventoryIndices> calculateStockContribution(Long docketId) {
+        return variantStockService.calculateContribution(docketVariantRepository.findByDocketId(docketId));
+    }
+
+    // Phiếu xuất (2) của đơn hàng đã tính hàng vào chờ xuất nên bỏ phần giữ hàng của đơn để không trừ hai lần
+    private void convertStockReservation(Docket docket) {
+        if (docket.getType().equals(2) && docket.getOrder() != null) {
+            stockReservationService.convert(docket.getOrder().getId());
+        }
+    }
+
     private void afterCreateOrUpdateCallback(Docket docket) {
         // Docket nhập (1) có trạng thái Hoàn thành (3)
         if (docket.getType().equals(1) && docket.getStatus().equals(3)) {
@@ -109,12 +140,16 @@ public class DocketServiceImpl implements DocketService {
     }
 
     @Override
+    @Transactional
     public void delete(Long id) {
+        variantStockService.applyChange(calculateStockContribution(id), Map.of());
         docketRepository.deleteById(id);
     }
 
     @Override
+    @Transactional
     public void delete(List<Long> ids) {
+        ids.forEach(id -> variantStockService.applyChange(calculateStockContribution(id), Map.of()));
         docketRepository.deleteAllById(ids);
     }
 
@@ -5,13 +5,18 @@ import com.electro.constant.SearchFields;
 import com.electro.dto.ListResponse;
 import com.electro.dto.inventory.DocketVariantRequest;
 import com.electro.dto.inventory.DocketVariantResponse;
+import com.electro.entity.inventory.DocketVariant;
 import com.electro.entity.inventory.DocketVariantKey;
 import com.electro.mapper.inventory.DocketVariantMapper;
+import com.electro.projection.inventory.InventoryIndices;
+import com.electro.projection.inventory.VariantWarehouseKey;
 import com.electro.repository.inventory.DocketVariantRepository;
 import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Service;
 
+import javax.transaction.Transactional;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @AllArgsConstructor
@@ -21,6 +26,8 @@ public class DocketVariantServiceImpl implements DocketVariantService {
 
     private DocketVariantMapper docketVariantMapper;
 
+    private VariantStockService variantStockService;
+
     @Override
     public ListResponse<DocketVariantResponse> findAll(int page, int size, String sort, String filter, String search, boolean all) {
         return defaultFindAll(page, size, sort, filter, search, all, SearchFields.DOCKET_VARIANT, docketVariantRepository, docketVariantMapper);
@@ -32,23 +39,39 @@ public class DocketVariantServiceImpl implements DocketVariantService {
     }
 
     @Override
+    @Transactional
     public DocketVariantResponse save(DocketVariantRequest request) {
-        return defaultSave(request, docketVariantRepository, docketVariantMapper);
+        DocketVariant docketVariant = docketVariantRepository.save(docketVariantMapper.requestToEntity(request));
+        variantStockService.applyChange(Map.of(), calculateStockContribution(List.of(docketVariant.getDocketVariantKey())));
+        return docketVariantMapper.entityToResponse(docketVariant);
     }
 
     @Override
+    @Transactional
     public DocketVariantResponse save(DocketVariantKey id, DocketVariantRequest request) {
-        return defaultSave(id, request, docketVariantRepository, docketVariantMapper, ResourceName.DOCKET_VARIANT);
+        Map<VariantWarehouseKey, InventoryIndices> before = calculateStockContribution(List.of(id));
+        DocketVariantResponse response = defaultSave(id, request, docketVariantRepository, docketVariantMapper, ResourceName.DOCKET_VARIANT);
+        variantStockService.applyChange(before, calculateStockContribution(List.of(id)));
+        return response;
     }
 
     @Override
+    @Transactional
     public void delete(DocketVariantKey id) {
+        variantStockService.applyChange(calculateStockContribution(List.of(id)), Map.of());
         docketVariantRepository.deleteById(id);
     }
 
     @Override
+    @Transactional
     public void delete(List<DocketVariantKey> ids) {
+        variantStockService.applyChange(calculateStockContribution(ids), Map.of());
         docketVariantRepository.deleteAllById(ids);
     }
 
+    private Map<VariantWarehouseKey, InventoryIndices> calculateStockContribution(List<DocketVariantKey> ids) {
+        List<DocketVariant> transactions = docketVariantRepository.findAllById(ids);
+        return variantStockService.calculateContribution(transactions);
+    }
+
 }
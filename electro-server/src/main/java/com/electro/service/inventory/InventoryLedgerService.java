@@ -0,0 +1,30 @@
+package com.electro.service.inventory;
+
+import com.electro.dto.inventory.InventoryAsOfResponse;
+import com.electro.projection.inventory.InventoryIndices;
+import com.electro.projection.inventory.VariantWarehouseKey;
+import org.springframework.lang.Nullable;
+
+import java.time.Instant;
+import java.util.Map;
+
+public interface InventoryLedgerService {
+
+    /**
+     * Ghi các phần chênh lệch tồn kho vừa phát sinh vào sổ, mỗi cặp variant và kho một dòng
+     */
+    void record(Map<VariantWarehouseKey, InventoryIndices> deltas);
+
+    /**
+     * Chốt sổ tại đầu mỗi ngày có biến động chưa được chốt, tới đầu ngày hôm nay
+     *
+     * @return số mốc đã tạo
+     */
+    int createCheckpoints();
+
+    /**
+     * Tồn kho của variant tại thời điểm {@code at}, theo từng kho (hoặc chỉ một kho nếu có {@code warehouseId})
+     */
+    InventoryAsOfResponse findAsOf(Long variantId, @Nullable Long warehouseId, Instant at);
+
+}
@@ -0,0 +1,237 @@
+package com.electro.service.inventory;
+
+import com.electro.dto.inventory.InventoryAsOfResponse;
+import com.electro.entity.inventory.InventoryCheckpoint;
+import com.electro.entity.inventory.InventoryLedgerEntry;
+import com.electro.entity.inventory.Warehouse;
+import com.electro.entity.product.Variant;
+import com.electro.projection.inventory.InventoryIndices;
+import com.electro.projection.inventory.InventoryLedgerSum;
+import com.electro.projection.inventory.VariantWarehouseKey;
+import com.electro.repository.inventory.InventoryCheckpointRepository;
+import com.electro.repository.inventory.InventoryLedgerRepository;
+import com.electro.repository.inventory.WarehouseRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.persistence.EntityManager;
+import javax.transaction.Transactional;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Sổ biến động tồn kho theo variant và kho, chốt sổ mỗi ngày để truy vấn tồn kho tại một thời điểm
+ * chỉ cần đọc mốc gần nhất và phần biến động sau mốc đó (nhiều nhất khoảng một ngày).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class InventoryLedgerServiceImpl implements InventoryLedgerService {
+
+    // Mốc chốt sổ là đầu ngày theo múi giờ của máy chủ
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    // Dòng sổ được đóng dấu thời gian trước khi giao dịch ghi nó commit, chỉ chốt các mốc đã lùi xa hơn khoảng này
+    @Value("${electro.app.inventoryLedger.checkpointSafetyLagMs:600000}")
+    private long checkpointSafetyLagMs;
+
+    private final InventoryLedgerRepository inventoryLedgerRepository;
+
+    private final InventoryCheckpointRepository inventoryCheckpointRepository;
+
+    private final WarehouseRepository warehouseRepository;
+
+    private final EntityManager em;
+
+    @Override
+    public void record(Map<VariantWarehouseKey, InventoryIndices> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        Instant now = Instant.now();
+
+        List<InventoryLedgerEntry> entries = deltas.entrySet().stream()
+                .map(entry -> new InventoryLedgerEntry()
+                        .setVariant(em.getReference(Variant.class, entry.getKey().getVariantId()))
+                        .setWarehouse(em.getReference(Warehouse.class, entry.getKey().getWarehouseId()))
+                        .setInventory(entry.getValue().getInventory())
+                        .setWaitingForDelivery(entry.getValue().getWaitingForDelivery())
+                        .setAreComing(entry.getValue().getAreComing())
+                        .setCreatedAt(now))
+                .collect(Collectors.toList());
+
+        inventoryLedgerRepository.saveAll(entries);
+    }
+
+    @Override
+    @Scheduled(cron = "${electro.app.inventoryLedger.checkpointCron:0 15 0 * * *}")
+    public int createCheckpoints() {
+        // Giao dịch còn mở có thể commit dòng sổ đóng dấu trước mốc sau khi mốc đã chốt, nên chỉ chốt đến now - safetyLag
+        Instant limit = Instant.now().minusMillis(checkpointSafetyLagMs);
+
+        // Mọi biến động không sau mốc lớn nhất đều đã được chốt, chỉ xét phần sau mốc đó
+        Instant from = inventoryCheckpointRepository.findLastCheckpointAt(limit).orElse(Instant.EPOCH);
+        int created = 0;
+
+        // Mỗi ngày có biến động một mốc, ngày không có biến động được bỏ qua
+        Optional<Instant> next;
+        while ((next = inventoryLedgerRepository.findFirstCreatedAtAfter(from)).isPresent()) {
+            Instant cutoff = nextCutoff(next.get());
+
+            if (cutoff.isAfter(limit)) {
+                break;
+            }
+
+            created += createCheckpoints(from, cutoff);
+            from = cutoff;
+        }
+
+        if (created > 0) {
+            log.info("Created {} inventory checkpoints up to {}", created, from);
+        }
+
+        return created;
+    }
+
+    @Override
+    public InventoryAsOfResponse findAsOf(Long variantId, @Nullable Long warehouseId, Instant at) {
+        // Biến động không sau mốc chốt sổ gần nhất đã nằm trong các mốc của từng cặp variant và kho
+        Instant floor = inventoryCheckpointRepository.findLastCheckpointAt(at).orElse(Instant.EPOCH);
+
+        Map<Long, InventoryCheckpoint> checkpoints = inventoryCheckpointRepository
+                .findLatestByVariantIds(List.of(variantId), at).stream()
+                .collect(Collectors.toMap(checkpoint -> checkpoint.getWarehouse().getId(), Function.identity()));
+
+        Map<Long, InventoryLedgerSum> deltas = inventoryLedgerRepository
+                .sumBetweenByVariantId(variantId, floor, at).stream()
+                .collect(Collectors.toMap(InventoryLedgerSum::getWarehouseId, Function.identity()));
+
+        Set<Long> warehouseIds = new TreeSet<>(checkpoints.keySet());
+        warehouseIds.addAll(deltas.keySet());
+
+        if (warehouseId != null) {
+            warehouseIds.retainAll(Set.of(warehouseId));
+        }
+
+        Map<Long, Warehouse> warehouses = warehouseRepository.findAllById(warehouseIds).stream()
+                .collect(Collectors.toMap(Warehouse::getId, Function.identity()));
+
+        List<InventoryAsOfResponse.WarehouseInventoryResponse> warehouseResponses = new ArrayList<>();
+        InventoryIndices total = InventoryIndices.ZERO;
+
+        for (Long id : warehouseIds) {
+            InventoryCheckpoint checkpoint = checkpoints.get(id);
+            InventoryIndices indices = toIndices(checkpoint).plus(toIndices(deltas.get(id)));
+            total = total.plus(indices);
+
+            InventoryAsOfResponse.WarehouseInventoryResponse warehouseResponse = new InventoryAsOfResponse.WarehouseInventoryResponse();
+            warehouseResponse.setWarehouseId(id);
+            Optional.ofNullable(warehouses.get(id)).ifPresent(warehouse -> {
+                warehouseResponse.setWarehouseCode(warehouse.getCode());
+                warehouseResponse.setWarehouseName(warehouse.getName());
+            });
+            warehouseResponse.setCheckpointAt(checkpoint == null ? null : checkpoint.getCheckpointAt());
+            warehouseResponse.setInventory(indices.getInventory());
+            warehouseResponse.setWaitingForDelivery(indices.getWaitingForDelivery());
+            warehouseResponse.setCanBeSold(indices.getCanBeSold());
+            warehouseResponse.setAreComing(indices.getAreComing());
+
+            warehouseResponses.add(warehouseResponse);
+        }
+
+        InventoryAsOfResponse response = new InventoryAsOfResponse();
+        response.setVariantId(variantId);
+        response.setAt(at);
+        response.setWarehouses(warehouseResponses);
+        response.setInventory(total.getInventory());
+        response.setWaitingForDelivery(total.getWaitingForDelivery());
+        response.setCanBeSold(total.getCanBeSold());
+        response.setAreComing(total.getAreComing());
+
+        return response;
+    }
+
+    // Dữ liệu mẫu được nạp lại mỗi lần khởi động nên sổ được dựng lại từ lịch sử phiếu khi còn trống,
+    // chạy ngay sau khi bảng variant_stock được dựng
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    public void rebuildIfEmpty() {
+        if (inventoryLedgerRepository.count() == 0) {
+            int inserted = inventoryLedgerRepository.insertFromDockets();
+            log.info("Rebuilt inventory_ledger with {} rows", inserted);
+            createCheckpoints();
+        }
+    }
+
+    private int createCheckpoints(Instant from, Instant cutoff) {
+        List<InventoryLedgerSum> sums = inventoryLedgerRepository.sumBetween(from, cutoff);
+
+        Set<Long> variantIds = sums.stream().map(InventoryLedgerSum::getVariantId).collect(Collectors.toSet());
+
+        Map<VariantWarehouseKey, InventoryCheckpoint> previous = inventoryCheckpointRepository
+                .findLatestByVariantIds(variantIds, from).stream()
+                .collect(Collectors.toMap(
+                        checkpoint -> new VariantWarehouseKey(checkpoint.getVariant().getId(), checkpoint.getWarehouse().getId()),
+                        Function.identity()));
+
+        List<InventoryCheckpoint> checkpoints = sums.stream()
+                .map(sum -> {
+                    InventoryIndices indices = toIndices(previous.get(sum.getKey())).plus(toIndices(sum));
+                    return new InventoryCheckpoint()
+                            .setVariant(em.getReference(Variant.class, sum.getVariantId()))
+                            .setWarehouse(em.getReference(Warehouse.class, sum.getWarehouseId()))
+                            .setCheckpointAt(cutoff)
+                            .setInventory(indices.getInventory())
+                            .setWaitingForDelivery(indices.getWaitingForDelivery())
+                            .setAreComing(indices.getAreComing());
+                })
+                .collect(Collectors.toList());
+
+        inventoryCheckpointRepository.saveAll(checkpoints);
+
+        return checkpoints.size();
+    }
+
+    private static InventoryIndices toIndices(@Nullable InventoryCheckpoint checkpoint) {
+        return checkpoint == null
+                ? InventoryIndices.ZERO
+                : InventoryIndices.of(checkpoint.getInventory(), checkpoint.getWaitingForDelivery(), checkpoint.getAreComing());
+    }
+
+    private static InventoryIndices toIndices(@Nullable InventoryLedgerSum sum) {
+        return sum == null
+                ? InventoryIndices.ZERO
+                : InventoryIndices.of(sum.getInventory(), sum.getWaitingForDelivery(), sum.getAreComing());
+    }
+
+    private static Instant startOfDay(Instant instant) {
+        return instant.atZone(ZONE).toLocalDate().atStartOfDay(ZONE).toInstant();
+    }
+
+    // Mốc chốt sổ đầu tiên không trước thời điểm biến động
+    private static Instant nextCutoff(Instant instant) {
+        Instant startOfDay = startOfDay(instant);
+        return startOfDay.equals(instant)
+                ? instant
+                : instant.atZone(ZONE).toLocalDate().plusDays(1).atStartOfDay(ZONE).toInstant();
+    }
+
+}
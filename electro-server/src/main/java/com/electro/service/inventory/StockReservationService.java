@@ -0,0 +1,40 @@
+package com.electro.service.inventory;
+
+import com.electro.entity.order.Order;
+
+import java.util.List;
+
+public interface StockReservationService {
+
+    /**
+     * Giữ hàng cho các dòng của đơn hàng vừa tạo, đơn PayPal chưa thanh toán chỉ được giữ trong một thời hạn.
+     * Ném lỗi nếu có variant không đủ hàng, khi đó giao dịch tạo đơn bị rollback.
+     */
+    void reserve(Order order);
+
+    /**
+     * Trả lại phần hàng đang giữ của đơn hàng, dùng khi đơn bị hủy
+     */
+    void release(Long orderId);
+
+    /**
+     * Trả lại phần hàng đang giữ và xóa mọi bản ghi giữ hàng của đơn hàng, dùng trước khi xóa đơn hàng
+     */
+    void remove(Long orderId);
+
+    /**
+     * Bỏ phần giữ hàng khi đơn hàng đã có phiếu xuất, lúc này hàng đã được tính vào chờ xuất
+     */
+    void convert(Long orderId);
+
+    /**
+     * Giữ hàng không thời hạn cho đơn hàng đã thanh toán hoặc đã được xử lý
+     */
+    void clearExpiry(Long orderId);
+
+    /**
+     * Id các đơn hàng có phần giữ hàng đã quá hạn
+     */
+    List<Long> findExpiredOrderIds();
+
+}
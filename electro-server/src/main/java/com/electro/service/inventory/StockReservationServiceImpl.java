@@ -0,0 +1,159 @@
+package com.electro.service.inventory;
+
+import com.electro.entity.cashbook.PaymentMethodType;
+import com.electro.entity.inventory.StockReservation;
+import com.electro.entity.order.Order;
+import com.electro.entity.product.Variant;
+import com.electro.event.CatalogChangePublisher;
+import com.electro.event.CatalogChangedEvent;
+import com.electro.repository.inventory.StockReservationRepository;
+import com.electro.repository.inventory.VariantStockRepository;
+import com.electro.repository.product.VariantRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.persistence.EntityManager;
+import javax.transaction.Transactional;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Giữ hàng cho đơn hàng ngay lúc đặt bằng cột reserved của variant_stock. Mỗi variant chỉ cần một câu UPDATE có điều kiện
+ * nên các lượt đặt hàng đồng thời không thể cùng vượt qua kiểm tra tồn kho và bán quá số lượng có thể bán.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class StockReservationServiceImpl implements StockReservationService {
+
+    // Trạng thái giữ hàng: Đang giữ (1), Đã giải phóng (2), Đã chuyển thành phiếu xuất (3)
+    private static final int HOLDING = 1;
+    private static final int RELEASED = 2;
+    private static final int CONVERTED = 3;
+
+    @Value("${electro.app.stockReservation.paypalTtlMs:1800000}")
+    private long paypalTtlMs;
+
+    private final VariantStockRepository variantStockRepository;
+    private final StockReservationRepository stockReservationRepository;
+    private final VariantRepository variantRepository;
+    private final CatalogChangePublisher publisher;
+    private final EntityManager em;
+
+    @Override
+    public void reserve(Order order) {
+        // Duyệt variant theo id tăng dần để các giao dịch đồng thời khóa các dòng variant_stock cùng một thứ tự, tránh deadlock
+        Map<Long, Integer> quantities = new TreeMap<>();
+        order.getOrderVariants().forEach(orderVariant ->
+                quantities.merge(orderVariant.getVariant().getId(), orderVariant.getQuantity(), Integer::sum));
+
+        Instant now = Instant.now();
+        Instant expiresAt = order.getPaymentMethodType() == PaymentMethodType.PAYPAL ? now.plusMillis(paypalTtlMs) : null;
+
+        List<StockReservation> reservations = new ArrayList<>();
+
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            Long variantId = entry.getKey();
+            int quantity = entry.getValue();
+
+            if (quantity <= 0) {
+                continue;
+            }
+
+            // Các variant đã giữ trước đó được trả lại nhờ rollback của giao dịch tạo đơn
+            if (variantStockRepository.reserve(variantId, quantity) == 0) {
+                throw new RuntimeException(String
+                        .format("Variant with id %s does not have enough stock for quantity %s", variantId, quantity));
+            }
+
+            reservations.add(new StockReservation()
+                    .setOrder(order)
+                    .setVariant(em.getReference(Variant.class, variantId))
+                    .setQuantity(quantity)
+                    .setStatus(HOLDING)
+                    .setExpiresAt(expiresAt)
+                    .setCreatedAt(now)
+                    .setUpdatedAt(now));
+        }
+
+        stockReservationRepository.saveAll(reservations);
+
+        // Variant vừa được giữ hết hàng (trước đó còn ít nhất bằng số lượng vừa giữ)
+        if (!quantities.isEmpty()) {
+            publishAvailabilityChange(variantStockRepository.findSoldOutVariantIds(quantities.keySet()));
+        }
+    }
+
+    @Override
+    public void release(Long orderId) {
+        finish(stockReservationRepository.findByOrderIdAndStatus(orderId, HOLDING), RELEASED);
+    }
+
+    @Override
+    public void remove(Long orderId) {
+        release(orderId);
+        stockReservationRepository.deleteByOrderId(orderId);
+    }
+
+    @Override
+    public void convert(Long orderId) {
+        finish(stockReservationRepository.findByOrderIdAndStatus(orderId, HOLDING), CONVERTED);
+    }
+
+    @Override
+    public void clearExpiry(Long orderId) {
+        Instant now = Instant.now();
+        stockReservationRepository.findByOrderIdAndStatus(orderId, HOLDING)
+                .forEach(reservation -> reservation.setExpiresAt(null).setUpdatedAt(now));
+    }
+
+    @Override
+    public List<Long> findExpiredOrderIds() {
+        return stockReservationRepository.findExpiredOrderIds(HOLDING, Instant.now());
+    }
+
+    private void finish(List<StockReservation> reservations, int status) {
+        if (reservations.isEmpty()) {
+            return;
+        }
+
+        Set<Long> variantIds = reservations.stream()
+                .map(reservation -> reservation.getVariant().getId())
+                .collect(Collectors.toSet());
+
+        // Khi chuyển thành phiếu xuất, hàng chờ xuất tăng đúng bằng phần giữ được trả nên số lượng còn có thể đặt không đổi
+        List<Long> soldOutVariantIds = status == RELEASED
+                ? variantStockRepository.findSoldOutVariantIds(variantIds)
+                : List.of();
+
+        Instant now = Instant.now();
+
+        for (StockReservation reservation : reservations) {
+            variantStockRepository.release(reservation.getVariant().getId(), reservation.getQuantity());
+            reservation.setStatus(status).setUpdatedAt(now);
+        }
+
+        if (!soldOutVariantIds.isEmpty()) {
+            // Variant hết hàng trước khi trả lại có thể đã có hàng trở lại
+            Set<Long> restockedVariantIds = new HashSet<>(soldOutVariantIds);
+            variantStockRepository.findSoldOutVariantIds(soldOutVariantIds).forEach(restockedVariantIds::remove);
+            publishAvailabilityChange(restockedVariantIds);
+        }
+    }
+
+    // Sản phẩm vào hoặc ra khỏi danh sách có thể bán khi variant hết hàng hoặc có hàng trở lại
+    private void publishAvailabilityChange(Collection<Long> variantIds) {
+        if (!variantIds.isEmpty()) {
+            publisher.publish(CatalogChangedEvent.ofProducts(variantRepository.findProductIdsByVariantIds(variantIds)));
+        }
+    }
+
+}
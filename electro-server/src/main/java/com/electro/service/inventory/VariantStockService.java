@@ -0,0 +1,36 @@
+package com.electro.service.inventory;
+
+import com.electro.dto.inventory.VariantStockVerificationResponse;
+import com.electro.entity.inventory.DocketVariant;
+import com.electro.entity.inventory.VariantStock;
+import com.electro.projection.inventory.InventoryIndices;
+import com.electro.projection.inventory.VariantWarehouseKey;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface VariantStockService {
+
+    /**
+     * Tính phần đóng góp vào tồn kho của các dòng phiếu, gom theo variant và kho
+     */
+    Map<VariantWarehouseKey, InventoryIndices> calculateContribution(List<DocketVariant> transactions);
+
+    /**
+     * Cộng phần chênh lệch (after - before) vào bảng variant_stock và ghi vào sổ biến động tồn kho
+     */
+    void applyChange(Map<VariantWarehouseKey, InventoryIndices> before, Map<VariantWarehouseKey, InventoryIndices> after);
+
+    /**
+     * Lấy tồn kho của nhiều phiên bản trong một câu truy vấn, phiên bản chưa có dòng tồn kho được trả về với giá trị 0
+     */
+    Map<Long, VariantStock> findByVariantIds(Collection<Long> variantIds);
+
+    VariantStock findByVariantId(Long variantId);
+
+    int rebuild();
+
+    VariantStockVerificationResponse verify();
+
+}
@@ -0,0 +1,208 @@
+package com.electro.service.inventory;
+
+import com.electro.dto.inventory.VariantStockVerificationResponse;
+import com.electro.entity.inventory.DocketVariant;
+import com.electro.entity.inventory.VariantStock;
+import com.electro.entity.product.Variant;
+import com.electro.event.CatalogChangePublisher;
+import com.electro.event.CatalogChangedEvent;
+import com.electro.projection.inventory.InventoryIndices;
+import com.electro.projection.inventory.VariantWarehouseKey;
+import com.electro.projection.inventory.SimpleVariantInventory;
+import com.electro.repository.ProjectionRepository;
+import com.electro.repository.inventory.VariantStockRepository;
+import com.electro.repository.inventory.WarehouseStockRepository;
+import com.electro.repository.product.VariantRepository;
+import com.electro.utils.InventoryUtils;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import javax.persistence.EntityManager;
+import javax.transaction.Transactional;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@AllArgsConstructor
+@Slf4j
+@Transactional
+public class VariantStockServiceImpl implements VariantStockService {
+
+    private VariantStockRepository variantStockRepository;
+
+    private WarehouseStockRepository warehouseStockRepository;
+
+    private ProjectionRepository projectionRepository;
+
+    private VariantRepository variantRepository;
+
+    private InventoryLedgerService inventoryLedgerService;
+
+    private WarehouseStockService warehouseStockService;
+
+    private CatalogChangePublisher publisher;
+
+    private EntityManager em;
+
+    @Override
+    public Map<VariantWarehouseKey, InventoryIndices> calculateContribution(List<DocketVariant> transactions) {
+        return InventoryUtils.calculateInventoryIndicesByVariantAndWarehouse(transactions);
+    }
+
+    @Override
+    public void applyChange(Map<VariantWarehouseKey, InventoryIndices> before, Map<VariantWarehouseKey, InventoryIndices> after) {
+        Set<VariantWarehouseKey> keys = new HashSet<>(before.keySet());
+        keys.addAll(after.keySet());
+
+        Map<VariantWarehouseKey, InventoryIndices> deltas = new HashMap<>();
+        Map<Long, InventoryIndices> variantDeltas = new HashMap<>();
+
+        for (VariantWarehouseKey key : keys) {
+            InventoryIndices delta = after.getOrDefault(key, InventoryIndices.ZERO)
+                    .minus(before.getOrDefault(key, InventoryIndices.ZERO));
+
+            if (!delta.isZero()) {
+                deltas.put(key, delta);
+                variantDeltas.merge(key.getVariantId(), delta, InventoryIndices::plus);
+            }
+        }
+
+        inventoryLedgerService.record(deltas);
+        warehouseStockService.applyChange(deltas);
+
+        List<Long> changedVariantIds = new ArrayList<>();
+
+        for (Map.Entry<Long, InventoryIndices> entry : variantDeltas.entrySet()) {
+            Long variantId = entry.getKey();
+            InventoryIndices delta = entry.getValue();
+
+            // Bỏ qua variant không thay đổi tồn kho (ví dụ chuyển phiếu giữa hai kho)
+            if (delta.isZero()) {
+                continue;
+            }
+
+            variantStockRepository.addStock(variantId,
+                    delta.getInventory(),
+                    delta.getWaitingForDelivery(),
+                    delta.getCanBeSold(),
+                    delta.getAreComing());
+
+            changedVariantIds.add(variantId);
+        }
+
+        // Tồn kho thay đổi có thể làm sản phẩm vào hoặc ra khỏi danh sách có thể bán
+        if (!changedVariantIds.isEmpty()) {
+            publisher.publish(CatalogChangedEvent.ofProducts(variantRepository.findProductIdsByVariantIds(changedVariantIds)));
+        }
+    }
+
+    @Override
+    public Map<Long, VariantStock> findByVariantIds(Collection<Long> variantIds) {
+        if (variantIds.isEmpty()) {
+            return new HashMap<>();
+        }
+
+        Map<Long, VariantStock> variantStocks = variantStockRepository.findAllById(variantIds).stream()
+                .collect(Collectors.toMap(VariantStock::getVariantId, Function.identity()));
+
+        // Variant chưa từng được nhập xuất được coi như tồn kho bằng 0
+        variantIds.forEach(variantId -> variantStocks.computeIfAbsent(variantId, id -> new VariantStock().setVariantId(id)));
+
+        return variantStocks;
+    }
+
+    @Override
+    public VariantStock findByVariantId(Long variantId) {
+        // Variant chưa từng được nhập xuất được coi như tồn kho bằng 0
+        return variantStockRepository.findById(variantId)
+                .orElseGet(() -> new VariantStock().setVariantId(variantId));
+    }
+
+    @Override
+    public int rebuild() {
+        // Khóa hai bảng theo đúng thứ tự applyChange ghi (warehouse_stock rồi variant_stock) để không deadlock.
+        // Lượt ghi phiếu hoặc giữ hàng đang dở phải chờ dựng xong rồi mới cộng phần chênh lệch của nó lên số liệu mới,
+        // lượt đã commit trước khi khóa xong thì nằm trong dữ liệu được đọc bên dưới (đọc sau khi đã giữ khóa)
+        warehouseStockRepository.lockAll();
+        variantStockRepository.lockAll();
+
+        variantStockRepository.deleteAllInBatch();
+
+        List<VariantStock> variantStocks = projectionRepository.findSimpleVariantInventoriesFromTransactions().stream()
+                .map(inventory -> new VariantStock()
+                        .setVariant(em.getReference(Variant.class, inventory.getVariantId()))
+                        .setInventory(inventory.getInventory())
+                        .setWaitingForDelivery(inventory.getWaitingForDelivery())
+                        .setCanBeSold(inventory.getCanBeSold())
+                        .setAreComing(inventory.getAreComing())
+                        .setUpdatedAt(Instant.now()))
+                .collect(Collectors.toList());
+
+        variantStockRepository.saveAll(variantStocks);
+        variantStockRepository.restoreReserved();
+        warehouseStockService.rebuild();
+
+        log.info("Rebuilt variant_stock with {} rows", variantStocks.size());
+
+        return variantStocks.size();
+    }
+
+    @Override
+    public VariantStockVerificationResponse verify() {
+        Map<Long, SimpleVariantInventory> expectedStocks = projectionRepository.findSimpleVariantInventoriesFromTransactions()
+                .stream()
+                .collect(Collectors.toMap(SimpleVariantInventory::getVariantId, Function.identity()));
+
+        Map<Long, VariantStock> actualStocks = variantStockRepository.findAll().stream()
+                .collect(Collectors.toMap(VariantStock::getVariantId, Function.identity()));
+
+        Set<Long> variantIds = new HashSet<>(expectedStocks.keySet());
+        variantIds.addAll(actualStocks.keySet());
+
+        List<Long> mismatchedVariantIds = new ArrayList<>();
+
+        for (Long variantId : variantIds) {
+            SimpleVariantInventory expected = expectedStocks.getOrDefault(variantId,
+                    new SimpleVariantInventory(variantId, 0L, 0L, 0L, 0L));
+            VariantStock actual = actualStocks.getOrDefault(variantId, new VariantStock().setVariantId(variantId));
+
+            boolean matched = Objects.equals(expected.getInventory(), actual.getInventory())
+                    && Objects.equals(expected.getWaitingForDelivery(), actual.getWaitingForDelivery())
+                    && Objects.equals(expected.getCanBeSold(), actual.getCanBeSold())
+                    && Objects.equals(expected.getAreComing(), actual.getAreComing());
+
+            if (!matched) {
+                mismatchedVariantIds.add(variantId);
+            }
+        }
+
+        mismatchedVariantIds.sort(Long::compareTo);
+
+        return new VariantStockVerificationResponse(mismatchedVariantIds.isEmpty(), variantIds.size(), mismatchedVariantIds);
+    }
+
+    // Dữ liệu mẫu được nạp lại mỗi lần khởi động nên cần dựng bảng tồn kho khi bảng còn trống,
+    // chạy trước các chỉ mục khác cũng được dựng lúc khởi động
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void rebuildIfEmpty() {
+        if (variantStockRepository.count() == 0) {
+            rebuild();
+        }
+    }
+
+}
@@ -0,0 +1,41 @@
+package com.electro.service.inventory;
+
+import com.electro.dto.inventory.WarehouseCandidateResponse;
+import com.electro.dto.inventory.WarehouseStockResponse;
+import com.electro.projection.inventory.InventoryIndices;
+import com.electro.projection.inventory.VariantWarehouseKey;
+import org.springframework.lang.Nullable;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface WarehouseStockService {
+
+    /**
+     * Cộng phần chênh lệch theo từng cặp variant và kho vào bảng warehouse_stock
+     */
+    void applyChange(Map<VariantWarehouseKey, InventoryIndices> deltas);
+
+    /**
+     * Tồn kho theo từng kho của nhiều phiên bản trong một câu truy vấn, gom theo variantId
+     */
+    Map<Long, List<WarehouseStockResponse>> findByVariantIds(Collection<Long> variantIds);
+
+    List<WarehouseStockResponse> findByVariantId(Long variantId);
+
+    /**
+     * Xếp hạng các kho đang hoạt động để xuất hàng: kho đáp ứng đủ trước, thiếu ít trước,
+     * gần nơi nhận trước, nhiều hàng có thể bán trước
+     *
+     * @param quantities variantId -> số lượng cần xuất
+     */
+    List<WarehouseCandidateResponse> rankWarehouses(Map<Long, Integer> quantities,
+                                                    @Nullable String toProvinceName,
+                                                    @Nullable String toDistrictName);
+
+    List<WarehouseCandidateResponse> rankWarehousesForOrder(Long orderId);
+
+    int rebuild();
+
+}
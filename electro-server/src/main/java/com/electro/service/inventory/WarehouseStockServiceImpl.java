@@ -0,0 +1,203 @@
+package com.electro.service.inventory;
+
+import com.electro.constant.FieldName;
+import com.electro.constant.ResourceName;
+import com.electro.dto.inventory.WarehouseCandidateResponse;
+import com.electro.dto.inventory.WarehouseStockResponse;
+import com.electro.entity.address.Address;
+import com.electro.entity.address.District;
+import com.electro.entity.address.Province;
+import com.electro.entity.inventory.Warehouse;
+import com.electro.entity.inventory.WarehouseStock;
+import com.electro.entity.order.Order;
+import com.electro.exception.ResourceNotFoundException;
+import com.electro.projection.inventory.InventoryIndices;
+import com.electro.projection.inventory.VariantWarehouseKey;
+import com.electro.repository.inventory.WarehouseStockRepository;
+import com.electro.repository.order.OrderRepository;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+
+import javax.transaction.Transactional;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+@Service
+@AllArgsConstructor
+@Slf4j
+@Transactional
+public class WarehouseStockServiceImpl implements WarehouseStockService {
+
+    // Trạng thái kho: Hoạt động (1)
+    private static final int ACTIVE = 1;
+
+    private static final Comparator<WarehouseCandidateResponse> RANKING = Comparator
+            .comparing(WarehouseCandidateResponse::getFulfillable).reversed()
+            .thenComparing(WarehouseCandidateResponse::getMissingQuantity)
+            .thenComparing(WarehouseCandidateResponse::getProximity, Comparator.reverseOrder())
+            .thenComparing(WarehouseCandidateResponse::getCanBeSold, Comparator.reverseOrder())
+            .thenComparing(WarehouseCandidateResponse::getWarehouseId);
+
+    private WarehouseStockRepository warehouseStockRepository;
+
+    private OrderRepository orderRepository;
+
+    @Override
+    public void applyChange(Map<VariantWarehouseKey, InventoryIndices> deltas) {
+        deltas.forEach((key, delta) -> warehouseStockRepository.addStock(key.getVariantId(), key.getWarehouseId(),
+                delta.getInventory(),
+                delta.getWaitingForDelivery(),
+                delta.getCanBeSold(),
+                delta.getAreComing()));
+    }
+
+    @Override
+    public Map<Long, List<WarehouseStockResponse>> findByVariantIds(Collection<Long> variantIds) {
+        if (variantIds.isEmpty()) {
+            return new HashMap<>();
+        }
+
+        return warehouseStockRepository.findByVariantIds(variantIds).stream()
+                .sorted(Comparator.comparing(stock -> stock.getWarehouseStockKey().getWarehouseId()))
+                .map(WarehouseStockServiceImpl::toResponse)
+                .collect(Collectors.groupingBy(WarehouseStockResponse::getVariantId));
+    }
+
+    @Override
+    public List<WarehouseStockResponse> findByVariantId(Long variantId) {
+        return findByVariantIds(List.of(variantId)).getOrDefault(variantId, List.of());
+    }
+
+    @Override
+    public List<WarehouseCandidateResponse> rankWarehouses(Map<Long, Integer> quantities,
+                                                           @Nullable String toProvinceName,
+                                                           @Nullable String toDistrictName) {
+        if (quantities.isEmpty()) {
+            return List.of();
+        }
+
+        // warehouseId -> (variantId -> số lượng có thể bán), chỉ xét kho đang hoạt động
+        Map<Long, Warehouse> warehouses = new LinkedHashMap<>();
+        Map<Long, Map<Long, Integer>> canBeSoldByWarehouse = new HashMap<>();
+
+        for (WarehouseStock stock : warehouseStockRepository.findByVariantIds(quantities.keySet())) {
+            Warehouse warehouse = stock.getWarehouse();
+
+            if (!Integer.valueOf(ACTIVE).equals(warehouse.getStatus())) {
+                continue;
+            }
+
+            warehouses.putIfAbsent(warehouse.getId(), warehouse);
+            canBeSoldByWarehouse.computeIfAbsent(warehouse.getId(), id -> new HashMap<>())
+                    .put(stock.getWarehouseStockKey().getVariantId(), stock.getCanBeSold());
+        }
+
+        List<WarehouseCandidateResponse> candidates = new ArrayList<>();
+
+        for (Warehouse warehouse : warehouses.values()) {
+            Map<Long, Integer> canBeSold = canBeSoldByWarehouse.get(warehouse.getId());
+
+            int missingQuantity = 0;
+            int totalCanBeSold = 0;
+
+            for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+                int available = Math.max(0, canBeSold.getOrDefault(line.getKey(), 0));
+                missingQuantity += Math.max(0, line.getValue() - available);
+                totalCanBeSold += available;
+            }
+
+            Optional<Address> address = Optional.ofNullable(warehouse.getAddress());
+            String provinceName = address.map(Address::getProvince).map(Province::getName).orElse(null);
+            String districtName = address.map(Address::getDistrict).map(District::getName).orElse(null);
+
+            WarehouseCandidateResponse candidate = new WarehouseCandidateResponse();
+            candidate.setWarehouseId(warehouse.getId());
+            candidate.setWarehouseCode(warehouse.getCode());
+            candidate.setWarehouseName(warehouse.getName());
+            candidate.setProvinceName(provinceName);
+            candidate.setDistrictName(districtName);
+            candidate.setFulfillable(missingQuantity == 0);
+            candidate.setMissingQuantity(missingQuantity);
+            candidate.setProximity(proximity(provinceName, districtName, toProvinceName, toDistrictName));
+            candidate.setCanBeSold(totalCanBeSold);
+
+            candidates.add(candidate);
+        }
+
+        candidates.sort(RANKING);
+
+        return candidates;
+    }
+
+    @Override
+    public List<WarehouseCandidateResponse> rankWarehousesForOrder(Long orderId) {
+        Order order = orderRepository.findById(orderId)
+                .orElseThrow(() -> new ResourceNotFoundException(ResourceName.ORDER, FieldName.ID, orderId));
+
+        Map<Long, Integer> quantities = new HashMap<>();
+        order.getOrderVariants().forEach(orderVariant ->
+                quantities.merge(orderVariant.getVariant().getId(), orderVariant.getQuantity(), Integer::sum));
+
+        return rankWarehouses(quantities, order.getToProvinceName(), order.getToDistrictName());
+    }
+
+    @Override
+    public int rebuild() {
+        warehouseStockRepository.deleteAllInBatch();
+        int inserted = warehouseStockRepository.insertFromDockets();
+
+        log.info("Rebuilt warehouse_stock with {} rows", inserted);
+
+        return inserted;
+    }
+
+    // Bảng variant_stock được dựng lại cùng bảng này, chỉ cần dựng riêng khi bảng này còn trống
+    @EventListener(ApplicationReadyEvent.class)
+    @org.springframework.core.annotation.Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    public void rebuildIfEmpty() {
+        if (warehouseStockRepository.count() == 0) {
+            rebuild();
+        }
+    }
+
+    private static int proximity(@Nullable String provinceName, @Nullable String districtName,
+                                 @Nullable String toProvinceName, @Nullable String toDistrictName) {
+        if (!sameName(provinceName, toProvinceName)) {
+            return 0;
+        }
+        return sameName(districtName, toDistrictName) ? 2 : 1;
+    }
+
+    private static boolean sameName(@Nullable String name, @Nullable String other) {
+        return name != null && other != null && name.trim().equalsIgnoreCase(other.trim());
+    }
+
+    private static WarehouseStockResponse toResponse(WarehouseStock stock) {
+        Warehouse warehouse = stock.getWarehouse();
+
+        WarehouseStockResponse response = new WarehouseStockResponse();
+        response.setVariantId(stock.getWarehouseStockKey().getVariantId());
+        response.setWarehouseId(warehouse.getId());
+        response.setWarehouseCode(warehouse.getCode());
+        response.setWarehouseName(warehouse.getName());
+        response.setWarehouseStatus(warehouse.getStatus());
+        response.setInventory(stock.getInventory());
+        response.setWaitingForDelivery(stock.getWaitingForDelivery());
+        response.setCanBeSold(stock.getCanBeSold());
+        response.setAreComing(stock.getAreComing());
+        return response;
+    }
+
+}
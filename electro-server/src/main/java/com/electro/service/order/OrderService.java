@@ -2,8 +2,11 @@ package com.electro.service.order;
 
 import com.electro.dto.client.ClientConfirmedOrderResponse;
 import com.electro.dto.client.ClientSimpleOrderRequest;
+import com.electro.dto.order.OrderRequest;
+import com.electro.dto.order.OrderResponse;
+import com.electro.service.CrudService;
 
-public interface OrderService {
+public interface OrderService extends CrudService<Long, OrderRequest, OrderResponse> {
 
     void cancelOrder(String code);
 
@@ -11,4 +14,11 @@ public interface OrderService {
 
     void captureTransactionPaypal(String paypalOrderId, String payerId);
 
+    /**
+     * Hủy các đơn hàng mới chưa thanh toán đã quá hạn giữ hàng và trả lại hàng
+     *
+     * @return số đơn hàng đã hủy
+     */
+    int cancelExpiredOrders();
+
 }
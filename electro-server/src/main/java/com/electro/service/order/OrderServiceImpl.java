@@ -4,8 +4,12 @@ import com.electro.config.payment.paypal.PayPalHttpClient;
 import com.electro.constant.AppConstants;
 import com.electro.constant.FieldName;
 import com.electro.constant.ResourceName;
+import com.electro.constant.SearchFields;
+import com.electro.dto.ListResponse;
 import com.electro.dto.client.ClientConfirmedOrderResponse;
 import com.electro.dto.client.ClientSimpleOrderRequest;
+import com.electro.dto.order.OrderRequest;
+import com.electro.dto.order.OrderResponse;
 import com.electro.dto.payment.OrderIntent;
 import com.electro.dto.payment.OrderStatus;
 import com.electro.dto.payment.PaymentLandingPage;
@@ -18,6 +22,7 @@ import com.electro.entity.cart.Cart;
 import com.electro.entity.cashbook.PaymentMethodType;
 import com.electro.entity.general.Notification;
 import com.electro.entity.general.NotificationType;
+import com.electro.entity.inventory.Docket;
 import com.electro.entity.order.Order;
 import com.electro.entity.order.OrderResource;
 import com.electro.entity.order.OrderVariant;
@@ -27,14 +32,17 @@ import com.electro.entity.waybill.WaybillLog;
 import com.electro.exception.ResourceNotFoundException;
 import com.electro.mapper.client.ClientOrderMapper;
 import com.electro.mapper.general.NotificationMapper;
+import com.electro.mapper.order.OrderMapper;
 import com.electro.repository.authentication.UserRepository;
 import com.electro.repository.cart.CartRepository;
 import com.electro.repository.general.NotificationRepository;
 import com.electro.repository.order.OrderRepository;
-import com.electro.repository.promotion.PromotionRepository;
 import com.electro.repository.waybill.WaybillLogRepository;
 import com.electro.repository.waybill.WaybillRepository;
 import com.electro.service.general.NotificationService;
+import com.electro.service.inventory.DocketService;
+import com.electro.service.inventory.StockReservationService;
+import com.electro.service.promotion.ActivePromotionIndex;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import net.bytebuddy.utility.RandomString;
@@ -43,16 +51,19 @@ import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.client.RestTemplate;
 
 import javax.transaction.Transactional;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -69,11 +80,15 @@ public class OrderServiceImpl implements OrderService {
     private String ghnApiPath;
 
     private final OrderRepository orderRepository;
+    private final OrderMapper orderMapper;
     private final WaybillRepository waybillRepository;
     private final WaybillLogRepository waybillLogRepository;
     private final UserRepository userRepository;
     private final CartRepository cartRepository;
-    private final PromotionRepository promotionRepository;
+    private final ActivePromotionIndex activePromotionIndex;
+    private final StockReservationService stockReservationService;
+    private final DocketService docketService;
+    private final TransactionTemplate transactionTemplate;
 
     private final PayPalHttpClient payPalHttpClient;
     private final ClientOrderMapper clientOrderMapper;
@@ -84,6 +99,60 @@ public class OrderServiceImpl implements OrderService {
 
     private static final int USD_VND_RATE = 23_000;
 
+    @Override
+    public ListResponse<OrderResponse> findAll(int page, int size, String sort, String filter, String search, boolean all) {
+        return defaultFindAll(page, size, sort, filter, search, all, SearchFields.ORDER, orderRepository, orderMapper);
+    }
+
+    @Override
+    public OrderResponse findById(Long id) {
+        return defaultFindById(id, orderRepository, orderMapper, ResourceName.ORDER);
+    }
+
+    @Override
+    public OrderResponse save(OrderRequest request) {
+        return defaultSave(request, orderRepository, orderMapper);
+    }
+
+    @Override
+    public OrderResponse save(Long id, OrderRequest request) {
+        Order order = orderRepository.findById(id)
+                .map(existingEntity -> orderMapper.partialUpdate(existingEntity, request))
+                .map(orderRepository::save)
+                .orElseThrow(() -> new ResourceNotFoundException(ResourceName.ORDER, FieldName.ID, id));
+
+        // Đơn bị hủy (5) từ trang quản trị cũng trả lại phần hàng đang giữ, đơn COD không có hạn giữ hàng
+        // nên không được trả tự động
+        if (Integer.valueOf(5).equals(order.getStatus())) {
+            stockReservationService.release(id);
+        }
+
+        return orderMapper.entityToResponse(order);
+    }
+
+    @Override
+    public void delete(Long id) {
+        delete(List.of(id));
+    }
+
+    @Override
+    public void delete(List<Long> ids) {
+        // Phiếu của đơn hàng được xóa qua DocketService để phần tồn kho của phiếu được trừ khỏi variant_stock,
+        // sổ biến động và warehouse_stock, cascade của Order chỉ xóa thẳng các dòng phiếu
+        List<Long> docketIds = orderRepository.findAllById(ids).stream()
+                .flatMap(order -> order.getDockets().stream())
+                .map(Docket::getId)
+                .collect(Collectors.toList());
+
+        if (!docketIds.isEmpty()) {
+            docketService.delete(docketIds);
+        }
+
+        // stock_reservation không được ánh xạ từ Order nên phải trả hàng và xóa trước khi xóa đơn hàng
+        ids.forEach(stockReservationService::remove);
+        orderRepository.deleteAllById(ids);
+    }
+
     @Override
     public void cancelOrder(String code) {
         Order order = orderRepository.findByCode(code)
@@ -94,6 +163,9 @@ public class OrderServiceImpl implements OrderService {
             order.setStatus(5); // Status 5 là trạng thái Hủy
             orderRepository.save(order);
 
+            // Trả lại phần hàng đang giữ cho đơn hàng
+            stockReservationService.release(order.getId());
+
             Waybill waybill = waybillRepository.findByOrderId(order.getId()).orElse(null);
 
             // Status 1 là Vận đơn đang chờ lấy hàng
@@ -137,7 +209,46 @@ public class OrderServiceImpl implements OrderService {
     }
 
     @Override
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
     public ClientConfirmedOrderResponse createClientOrder(ClientSimpleOrderRequest request) {
+        // (1) Tạo đơn hàng và giữ hàng trong một giao dịch ngắn, khóa trên các dòng variant_stock được nhả ngay khi commit
+        // thay vì phải chờ lời gọi PayPal bên dưới
+        Order order = transactionTemplate.execute(status -> placeClientOrder(request));
+
+        // (2) Tạo response
+        ClientConfirmedOrderResponse response = new ClientConfirmedOrderResponse();
+
+        response.setOrderCode(order.getCode());
+        response.setOrderPaymentMethodType(order.getPaymentMethodType());
+
+        if (order.getPaymentMethodType() == PaymentMethodType.PAYPAL) {
+            // (3) Tạo giao dịch PayPal ngoài mọi giao dịch CSDL
+            PaypalResponse paypalResponse;
+
+            try {
+                paypalResponse = payPalHttpClient.createPaypalTransaction(buildPaypalRequest(order));
+            } catch (Exception e) {
+                // Trả lại hàng đã giữ và hủy đơn, giỏ hàng vẫn còn hiệu lực để đặt lại. Nếu bước này lỗi,
+                // phần giữ hàng của đơn PayPal vẫn hết hạn và được cancelExpiredOrders hủy
+                transactionTemplate.execute(status -> cancelUnpaidOrder(order.getId()));
+                throw new RuntimeException("Cannot create PayPal transaction request!" + e);
+            }
+
+            // (4) Gắn giao dịch PayPal vào đơn hàng và vô hiệu cart
+            transactionTemplate.executeWithoutResult(status -> attachPaypalTransaction(order.getId(), paypalResponse));
+
+            // (5) Trả về đường dẫn checkout cho user
+            for (PaypalResponse.Link link : paypalResponse.getLinks()) {
+                if ("approve".equals(link.getRel())) {
+                    response.setOrderPaypalCheckoutLink(link.getHref());
+                }
+            }
+        }
+
+        return response;
+    }
+
+    private Order placeClientOrder(ClientSimpleOrderRequest request) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String username = authentication.getName();
 
@@ -146,7 +257,12 @@ public class OrderServiceImpl implements OrderService {
         Cart cart = cartRepository.findByUsername(username)
                 .orElseThrow(() -> new ResourceNotFoundException(ResourceName.CART, FieldName.USERNAME, username));
 
-        // (1) Tạo đơn hàng
+        // Lấy khuyến mãi đang diễn ra của các sản phẩm trong giỏ hàng
+        Map<Long, Promotion> promotions = activePromotionIndex.findActivePromotions(cart.getCartVariants().stream()
+                .map(cartVariant -> cartVariant.getVariant().getProduct().getId())
+                .collect(Collectors.toSet()));
+
+        // (1.1) Tạo đơn hàng
         Order order = new Order();
 
         order.setCode(RandomString.make(12).toUpperCase());
@@ -162,11 +278,7 @@ public class OrderServiceImpl implements OrderService {
 
         order.setOrderVariants(cart.getCartVariants().stream()
                 .map(cartVariant -> {
-                    Promotion promotion = promotionRepository
-                            .findActivePromotionByProductId(cartVariant.getVariant().getProduct().getId())
-                            .stream()
-                            .findFirst()
-                            .orElse(null);
+                    Promotion promotion = promotions.get(cartVariant.getVariant().getProduct().getId());
 
                     double currentPrice = calculateDiscountedPrice(cartVariant.getVariant().getPrice(),
                             promotion == null ? 0 : promotion.getPercent());
@@ -201,70 +313,77 @@ public class OrderServiceImpl implements OrderService {
         order.setPaymentMethodType(request.getPaymentMethodType());
         order.setPaymentStatus(1); // Status 1: Chưa thanh toán
 
-        // (2) Tạo response
-        ClientConfirmedOrderResponse response = new ClientConfirmedOrderResponse();
+        // (1.2) Kiểm tra hình thức thanh toán
+        if (request.getPaymentMethodType() != PaymentMethodType.CASH
+                && request.getPaymentMethodType() != PaymentMethodType.PAYPAL) {
+            throw new RuntimeException("Cannot identify payment method");
+        }
 
-        response.setOrderCode(order.getCode());
-        response.setOrderPaymentMethodType(order.getPaymentMethodType());
+        // (1.3) Lưu đơn hàng và giữ hàng trước mọi lời gọi ra bên ngoài,
+        // không đủ hàng thì giao dịch bị rollback và không có giao dịch PayPal nào được tạo
+        orderRepository.save(order);
+        stockReservationService.reserve(order);
 
-        // (3) Kiểm tra hình thức thanh toán
-        if (request.getPaymentMethodType() == PaymentMethodType.CASH) {
-            orderRepository.save(order);
-        } else if (request.getPaymentMethodType() == PaymentMethodType.PAYPAL) {
-            try {
-                // (3.2.1) Tính tổng tiền theo USD
-                BigDecimal totalPayUSD = order.getTotalPay()
-                        .divide(BigDecimal.valueOf(USD_VND_RATE), 0, RoundingMode.HALF_UP);
-
-                // (3.2.2) Tạo một yêu cầu giao dịch PayPal
-                PaypalRequest paypalRequest = new PaypalRequest();
-
-                paypalRequest.setIntent(OrderIntent.CAPTURE);
-                paypalRequest.setPurchaseUnits(List.of(
-                        new PaypalRequest.PurchaseUnit(
-                                new PaypalRequest.PurchaseUnit.Money("USD", totalPayUSD.toString())
-                        )
-                ));
-
-                paypalRequest.setApplicationContext(new PaypalRequest.PayPalAppContext()
-                        .setBrandName("Electro")
-                        .setLandingPage(PaymentLandingPage.BILLING)
-                        .setReturnUrl(AppConstants.BACKEND_HOST + "/client-api/orders/success")
-                        .setCancelUrl(AppConstants.BACKEND_HOST + "/client-api/orders/cancel"));
-
-                PaypalResponse paypalResponse = payPalHttpClient.createPaypalTransaction(paypalRequest);
-
-                // (3.2.3) Lưu order
-                order.setPaypalOrderId(paypalResponse.getId());
-                order.setPaypalOrderStatus(paypalResponse.getStatus().toString());
-
-                orderRepository.save(order);
-
-                // (3.2.4) Trả về đường dẫn checkout cho user
-                for (PaypalResponse.Link link : paypalResponse.getLinks()) {
-                    if ("approve".equals(link.getRel())) {
-                        response.setOrderPaypalCheckoutLink(link.getHref());
-                    }
-                }
-            } catch (Exception e) {
-                throw new RuntimeException("Cannot create PayPal transaction request!" + e);
-            }
-        } else {
-            throw new RuntimeException("Cannot identify payment method");
+        // (1.4) Vô hiệu cart, đơn PayPal chỉ vô hiệu sau khi đã tạo được giao dịch PayPal
+        if (order.getPaymentMethodType() == PaymentMethodType.CASH) {
+            cart.setStatus(2); // Status 2: Vô hiệu lực
+            cartRepository.save(cart);
         }
 
-        // (4) Vô hiệu cart
+        return order;
+    }
+
+    private PaypalRequest buildPaypalRequest(Order order) {
+        // Tính tổng tiền theo USD
+        BigDecimal totalPayUSD = order.getTotalPay()
+                .divide(BigDecimal.valueOf(USD_VND_RATE), 0, RoundingMode.HALF_UP);
+
+        PaypalRequest paypalRequest = new PaypalRequest();
+
+        paypalRequest.setIntent(OrderIntent.CAPTURE);
+        paypalRequest.setPurchaseUnits(List.of(
+                new PaypalRequest.PurchaseUnit(
+                        new PaypalRequest.PurchaseUnit.Money("USD", totalPayUSD.toString())
+                )
+        ));
+
+        paypalRequest.setApplicationContext(new PaypalRequest.PayPalAppContext()
+                .setBrandName("Electro")
+                .setLandingPage(PaymentLandingPage.BILLING)
+                .setReturnUrl(AppConstants.BACKEND_HOST + "/client-api/orders/success")
+                .setCancelUrl(AppConstants.BACKEND_HOST + "/client-api/orders/cancel"));
+
+        return paypalRequest;
+    }
+
+    private void attachPaypalTransaction(Long orderId, PaypalResponse paypalResponse) {
+        Order order = orderRepository.findById(orderId)
+                .orElseThrow(() -> new ResourceNotFoundException(ResourceName.ORDER, FieldName.ID, orderId));
+
+        order.setPaypalOrderId(paypalResponse.getId());
+        order.setPaypalOrderStatus(paypalResponse.getStatus().toString());
+        orderRepository.save(order);
+
+        String username = order.getUser().getUsername();
+        Cart cart = cartRepository.findByUsername(username)
+                .orElseThrow(() -> new ResourceNotFoundException(ResourceName.CART, FieldName.USERNAME, username));
+
         cart.setStatus(2); // Status 2: Vô hiệu lực
         cartRepository.save(cart);
-
-        return response;
     }
 
     @Override
     public void captureTransactionPaypal(String paypalOrderId, String payerId) {
-        Order order = orderRepository.findByPaypalOrderId(paypalOrderId)
+        // Khóa đơn hàng đến khi giao dịch kết thúc để việc hủy đơn quá hạn giữ hàng không chạy xen
+        Order order = orderRepository.findByPaypalOrderIdForUpdate(paypalOrderId)
                 .orElseThrow(() -> new ResourceNotFoundException(ResourceName.ORDER, FieldName.PAYPAL_ORDER_ID, paypalOrderId));
 
+        // Đơn đã bị hủy (5) thì hàng đã được trả lại, không thu tiền
+        if (order.getStatus() == 5) {
+            throw new RuntimeException(String
+                    .format("Order with code %s has been cancelled. Please check again!", order.getCode()));
+        }
+
         order.setPaypalOrderStatus(OrderStatus.APPROVED.toString());
 
         try {
@@ -274,6 +393,7 @@ public class OrderServiceImpl implements OrderService {
             // (2) Cập nhật order
             order.setPaypalOrderStatus(OrderStatus.COMPLETED.toString());
             order.setPaymentStatus(2); // Status 2: Đã thanh toán
+            stockReservationService.clearExpiry(order.getId());
 
             // (3) Gửi notification
             Notification notification = new Notification()
@@ -294,6 +414,39 @@ public class OrderServiceImpl implements OrderService {
         orderRepository.save(order);
     }
 
+    @Override
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    @Scheduled(fixedDelayString = "${electro.app.stockReservation.expiryCheckIntervalMs:60000}")
+    public int cancelExpiredOrders() {
+        int cancelled = 0;
+
+        // Mỗi đơn hàng một giao dịch riêng, lỗi ở một đơn không làm rollback các đơn khác
+        for (Long orderId : stockReservationService.findExpiredOrderIds()) {
+            if (Boolean.TRUE.equals(transactionTemplate.execute(status -> cancelUnpaidOrder(orderId)))) {
+                cancelled++;
+            }
+        }
+
+        if (cancelled > 0) {
+            log.info("Cancelled {} unpaid orders with expired stock reservations", cancelled);
+        }
+
+        return cancelled;
+    }
+
+    private boolean cancelUnpaidOrder(Long orderId) {
+        // Câu UPDATE có điều kiện khóa dòng đơn hàng: đơn đã được thanh toán hoặc xử lý thì không bị hủy,
+        // chỉ tiếp tục giữ hàng không thời hạn
+        if (orderRepository.cancelIfNewAndUnpaid(orderId) == 0) {
+            stockReservationService.clearExpiry(orderId);
+            return false;
+        }
+
+        // Đơn mới chưa có vận đơn nên hủy đơn chỉ cần trả lại phần hàng đang giữ như cancelOrder
+        stockReservationService.release(orderId);
+        return true;
+    }
+
     private Double calculateDiscountedPrice(Double price, Integer discount) {
         return price * (100 - discount) / 100;
     }
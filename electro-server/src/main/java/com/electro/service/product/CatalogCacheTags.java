@@ -0,0 +1,98 @@
+package com.electro.service.product;
+
+import com.electro.entity.BaseEntity;
+import com.electro.event.CatalogChangedEvent;
+import com.electro.repository.product.CategoryTree;
+import com.electro.repository.product.CategoryTreeIndex;
+import com.electro.repository.product.ProductRepository;
+import com.electro.repository.product.SlugIndex;
+import com.electro.utils.SearchUtils;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Quy ước tag dùng chung cho các bộ nhớ đệm danh mục sản phẩm phía client
+ */
+@Component
+@AllArgsConstructor
+public class CatalogCacheTags {
+
+    // Gắn cho mục không giới hạn theo danh mục, có thể bị ảnh hưởng bởi bất kỳ sản phẩm nào
+    public static final String GLOBAL_TAG = "global";
+
+    private SlugIndex slugIndex;
+    private CategoryTreeIndex categoryTreeIndex;
+    private ProductRepository productRepository;
+
+    public static String productTag(Long productId) {
+        return "product:" + productId;
+    }
+
+    public static String categoryTag(Long categoryId) {
+        return "category:" + categoryId;
+    }
+
+    public static String brandTag(Long brandId) {
+        return "brand:" + brandId;
+    }
+
+    /**
+     * Danh sách lọc theo `category.id==` hoặc `category.slug==` chỉ bị ảnh hưởng bởi sản phẩm thuộc danh mục đó
+     * hoặc danh mục con cháu của nó
+     */
+    public String scopeTag(String filter) {
+        return resolveCategoryScope(filter).map(CatalogCacheTags::categoryTag).orElse(GLOBAL_TAG);
+    }
+
+    public Set<String> tagsOf(CatalogChangedEvent event) {
+        Set<String> tags = new HashSet<>();
+
+        event.getProductIds().forEach(productId -> tags.add(productTag(productId)));
+        // Danh mục đổi cha thì danh sách của cả nhánh cũ lẫn nhánh mới đều thay đổi, danh mục ít nên làm mới tất cả
+        if (!event.getCategoryIds().isEmpty()) {
+            event.getCategoryIds().forEach(categoryId -> tags.add(categoryTag(categoryId)));
+            categoryTreeIndex.getTree().getIds().forEach(categoryId -> tags.add(categoryTag(categoryId)));
+        }
+        event.getBrandIds().forEach(brandId -> tags.add(brandTag(brandId)));
+
+        // Sản phẩm có thể lọt vào danh sách chưa chứa nó: thêm các mục không giới hạn danh mục
+        // và mục của danh mục sản phẩm cùng các danh mục cha
+        if (event.isMembershipChanged() && !event.getProductIds().isEmpty()) {
+            tags.add(GLOBAL_TAG);
+            CategoryTree tree = categoryTreeIndex.getTree();
+            productRepository.findAllById(event.getProductIds()).stream()
+                    .map(product -> Optional.ofNullable(product.getCategory()).map(BaseEntity::getId).orElse(null))
+                    .filter(Objects::nonNull)
+                    .forEach(categoryId -> {
+                        tags.add(categoryTag(categoryId));
+                        tree.findAncestorIds(categoryId).forEach(ancestorId -> tags.add(categoryTag(ancestorId)));
+                    });
+        }
+
+        return tags;
+    }
+
+    private Optional<Long> resolveCategoryScope(String filter) {
+        for (String clause : SearchUtils.splitAndClauses(filter)) {
+            if (clause.startsWith("category.id==")) {
+                try {
+                    return Optional.of(Long.valueOf(clause.substring("category.id==".length())));
+                } catch (NumberFormatException e) {
+                    return Optional.empty();
+                }
+            }
+
+            if (clause.startsWith("category.slug==")) {
+                return slugIndex.findCategoryId(clause.substring("category.slug==".length()));
+            }
+        }
+
+        return Optional.empty();
+    }
+
+}
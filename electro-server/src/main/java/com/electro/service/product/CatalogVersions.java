@@ -0,0 +1,186 @@
+package com.electro.service.product;
+
+import com.electro.event.CatalogChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.WebRequest;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Phiên bản theo từng nhóm dữ liệu danh mục sản phẩm, dùng làm ETag và Last-Modified cho các API phía client.
+ * Phiên bản lấy từ cột updated_at đã lưu (product_card, category, brand); bộ nhớ chỉ giữ bản sao, được đọc lại
+ * ngay sau mỗi lần ghi trên máy chủ này và định kỳ vài giây một lần (xem refresh), nên các máy chủ dùng chung
+ * cơ sở dữ liệu trả về cùng ETag sau tối đa một chu kỳ làm mới.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CatalogVersions {
+
+    private static final Version INITIAL = new Version("0", Instant.EPOCH);
+
+    private static final Duration LATE_COMMIT_WINDOW = Duration.ofMinutes(1);
+
+    private final EntityManager em;
+
+    // Thẻ sản phẩm được dựng lại sau mọi thay đổi của sản phẩm, tồn kho, khuyến mãi, đánh giá
+    private volatile Version cards = INITIAL;
+    private volatile Version categories = INITIAL;
+    private volatile Version brands = INITIAL;
+    private final Map<Long, Version> products = new ConcurrentHashMap<>();
+
+    /**
+     * Danh sách sản phẩm, bộ lọc: thay đổi khi có bất kỳ thẻ sản phẩm, danh mục, thương hiệu nào thay đổi
+     */
+    public Version ofCatalog() {
+        return Version.combine(cards, categories, brands);
+    }
+
+    public Version ofCategories() {
+        return categories;
+    }
+
+    /**
+     * Chi tiết sản phẩm: gồm thẻ của sản phẩm đó, cây danh mục (breadcrumb) và thương hiệu
+     */
+    public Version ofProduct(Long productId) {
+        return Version.combine(products.getOrDefault(productId, INITIAL), categories, brands);
+    }
+
+    public String toETag(Version version) {
+        return "\"" + version.getTag() + "\"";
+    }
+
+    /**
+     * Gắn ETag, Last-Modified vào phản hồi và kiểm tra If-None-Match / If-Modified-Since của yêu cầu
+     *
+     * @return true nếu phản hồi đã được đặt 304, controller chỉ cần trả về null
+     */
+    public boolean checkNotModified(WebRequest request, Version version) {
+        return request.checkNotModified(toETag(version), version.getLastModified().toEpochMilli());
+    }
+
+    /**
+     * Nạp lại toàn bộ phiên bản, gọi sau khi các thẻ sản phẩm được dựng lúc khởi động
+     */
+    public synchronized void reload() {
+        products.clear();
+        em.createQuery("SELECT pc.productId, pc.updatedAt FROM ProductCard pc", Object[].class).getResultList()
+                .forEach(row -> products.put((Long) row[0], Version.of((Instant) row[1])));
+
+        cards = findAggregate("ProductCard");
+        categories = findAggregate("Category");
+        brands = findAggregate("Brand");
+
+        log.info("Catalog versions loaded for {} products", products.size());
+    }
+
+    /**
+     * Nhận thay đổi do máy chủ khác ghi vào cơ sở dữ liệu: chỉ đọc lại các thẻ sản phẩm mới cập nhật,
+     * nạp lại toàn bộ nếu số thẻ không khớp (có thẻ bị xóa)
+     */
+    @Scheduled(fixedDelayString = "${electro.app.catalogVersions.refreshIntervalMs:5000}",
+            initialDelayString = "${electro.app.catalogVersions.refreshIntervalMs:5000}")
+    public synchronized void refresh() {
+        Object[] cardRow = findAggregateRow("ProductCard");
+
+        // Lùi lại một khoảng vì thẻ được commit muộn có thể mang updated_at cũ hơn thẻ mới nhất đã thấy
+        em.createQuery("SELECT pc.productId, pc.updatedAt FROM ProductCard pc WHERE pc.updatedAt >= :since", Object[].class)
+                .setParameter("since", cards.getLastModified().minus(LATE_COMMIT_WINDOW))
+                .getResultList()
+                .forEach(row -> products.put((Long) row[0], Version.of((Instant) row[1])));
+
+        if (products.size() != (Long) cardRow[1]) {
+            reload();
+            return;
+        }
+
+        cards = toAggregate(cardRow);
+        categories = findAggregate("Category");
+        brands = findAggregate("Brand");
+    }
+
+    // Sản phẩm đổi phiên bản khi thẻ của nó được dựng lại, xem touchProducts
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onCatalogChanged(CatalogChangedEvent event) {
+        if (!event.getCategoryIds().isEmpty()) {
+            categories = findAggregate("Category");
+        }
+
+        if (!event.getBrandIds().isEmpty()) {
+            brands = findAggregate("Brand");
+        }
+    }
+
+    /**
+     * Đọc lại phiên bản của các sản phẩm vừa được dựng lại thẻ (đã commit)
+     */
+    public synchronized void touchProducts(Collection<Long> productIds) {
+        Set<Long> removedProductIds = new HashSet<>(productIds);
+
+        em.createQuery("SELECT pc.productId, pc.updatedAt FROM ProductCard pc WHERE pc.productId IN :productIds", Object[].class)
+                .setParameter("productIds", productIds)
+                .getResultList()
+                .forEach(row -> {
+                    products.put((Long) row[0], Version.of((Instant) row[1]));
+                    removedProductIds.remove((Long) row[0]);
+                });
+
+        // Sản phẩm đã bị xóa thì thẻ cũng bị xóa theo
+        removedProductIds.forEach(products::remove);
+
+        cards = findAggregate("ProductCard");
+    }
+
+    // Số dòng nằm trong phiên bản để việc xóa (không để lại updated_at mới) vẫn đổi ETag
+    private Version findAggregate(String entityName) {
+        return toAggregate(findAggregateRow(entityName));
+    }
+
+    private Object[] findAggregateRow(String entityName) {
+        return em.createQuery("SELECT MAX(e.updatedAt), COUNT(e) FROM " + entityName + " e", Object[].class)
+                .getSingleResult();
+    }
+
+    private static Version toAggregate(Object[] row) {
+        Version version = row[0] == null ? INITIAL : Version.of((Instant) row[0]);
+        return new Version(version.getTag() + "x" + Long.toString((Long) row[1], 36), version.getLastModified());
+    }
+
+    private static Instant latest(Instant instant, Instant other) {
+        return instant.isBefore(other) ? other : instant;
+    }
+
+    @Value
+    public static class Version {
+        String tag;
+        Instant lastModified;
+
+        // Tới micro giây, giữ đủ độ chính xác của cột product_card.updated_at (datetime(6))
+        private static Version of(Instant updatedAt) {
+            long micros = updatedAt.getEpochSecond() * 1_000_000 + updatedAt.getNano() / 1_000;
+            return new Version(Long.toString(micros, 36), updatedAt);
+        }
+
+        private static Version combine(Version... versions) {
+            return new Version(
+                    Stream.of(versions).map(Version::getTag).collect(Collectors.joining("-")),
+                    Stream.of(versions).map(Version::getLastModified).reduce(CatalogVersions::latest).orElseThrow());
+        }
+    }
+
+}
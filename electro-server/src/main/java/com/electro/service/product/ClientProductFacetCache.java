@@ -0,0 +1,73 @@
+package com.electro.service.product;
+
+import com.electro.dto.client.ClientFacetResponse;
+import com.electro.event.CatalogChangedEvent;
+import com.electro.utils.SearchUtils;
+import com.electro.utils.TaggedLruCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Bộ nhớ đệm LRU cho kết quả đếm bộ lọc phía client, gắn tag theo danh mục, thương hiệu và sản phẩm được đếm
+ */
+@Component
+public class ClientProductFacetCache {
+
+    private final CatalogCacheTags catalogCacheTags;
+    private final TaggedLruCache<Key, ClientFacetResponse> cache;
+
+    @Autowired
+    public ClientProductFacetCache(CatalogCacheTags catalogCacheTags,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${electro.app.cache.productFacets.maxEntries:200}") int maxEntries) {
+        this.catalogCacheTags = catalogCacheTags;
+        this.cache = new TaggedLruCache<>("electro.cache.client.product.facets", maxEntries, meterRegistry);
+    }
+
+    public Optional<ClientFacetResponse> get(Key key) {
+        return cache.get(key);
+    }
+
+    public long version() {
+        return cache.version();
+    }
+
+    public void put(Key key, Collection<Long> productIds, ClientFacetResponse response, long readVersion) {
+        Set<String> tags = productIds.stream()
+                .map(CatalogCacheTags::productTag)
+                .collect(Collectors.toCollection(HashSet::new));
+        response.getFacetBrands().forEach(brand -> tags.add(CatalogCacheTags.brandTag(brand.getBrandId())));
+        tags.add(catalogCacheTags.scopeTag(key.getFilter()));
+
+        cache.put(key, response, tags, readVersion);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        cache.invalidate(catalogCacheTags.tagsOf(event));
+    }
+
+    @lombok.Value
+    public static class Key {
+        String filter;
+        String search;
+        boolean saleable;
+        boolean newable;
+
+        public static Key of(String filter, String search, boolean saleable, boolean newable) {
+            String normalizedFilter = SearchUtils.splitAndClauses(filter).stream().sorted().collect(Collectors.joining(";"));
+            String normalizedSearch = search == null ? "" : search.trim().replaceAll("\\s+", " ").toLowerCase();
+            return new Key(normalizedFilter, normalizedSearch, saleable, newable);
+        }
+    }
+
+}
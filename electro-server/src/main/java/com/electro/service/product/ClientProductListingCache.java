@@ -0,0 +1,93 @@
+package com.electro.service.product;
+
+import com.electro.dto.ListResponse;
+import com.electro.dto.client.ClientListedProductResponse;
+import com.electro.event.CatalogChangedEvent;
+import com.electro.utils.SearchUtils;
+import com.electro.utils.TaggedLruCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Bộ nhớ đệm LRU cho kết quả danh sách sản phẩm phía client, mỗi mục được gắn tag theo sản phẩm và danh mục để xóa chọn lọc
+ */
+@Component
+public class ClientProductListingCache {
+
+    private final CatalogCacheTags catalogCacheTags;
+    private final TaggedLruCache<Key, ListResponse<ClientListedProductResponse>> cache;
+
+    @Autowired
+    public ClientProductListingCache(CatalogCacheTags catalogCacheTags,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${electro.app.cache.productListing.maxEntries:500}") int maxEntries) {
+        this.catalogCacheTags = catalogCacheTags;
+        this.cache = new TaggedLruCache<>("electro.cache.client.product.listing", maxEntries, meterRegistry);
+    }
+
+    public Optional<ListResponse<ClientListedProductResponse>> get(Key key) {
+        return cache.get(key);
+    }
+
+    public long version() {
+        return cache.version();
+    }
+
+    /**
+     * Lưu kết quả nếu dữ liệu chưa thay đổi kể từ {@code readVersion} (lấy từ {@link #version()} trước khi truy vấn)
+     */
+    public void put(Key key, ListResponse<ClientListedProductResponse> response, long readVersion) {
+        // Sắp xếp ngẫu nhiên thì không có ý nghĩa khi lưu đệm
+        if ("random".equals(key.getSort())) {
+            return;
+        }
+
+        Set<String> tags = response.getContent().stream()
+                .map(product -> CatalogCacheTags.productTag(product.getProductId()))
+                .collect(Collectors.toCollection(HashSet::new));
+        tags.add(catalogCacheTags.scopeTag(key.getFilter()));
+
+        cache.put(key, response, tags, readVersion);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        cache.invalidate(catalogCacheTags.tagsOf(event));
+    }
+
+    /**
+     * Xóa các mục chứa những sản phẩm này, dùng khi thẻ sản phẩm được dựng lại sau sự kiện thay đổi
+     */
+    public void invalidateProducts(Collection<Long> productIds) {
+        cache.invalidate(productIds.stream().map(CatalogCacheTags::productTag).collect(Collectors.toList()));
+    }
+
+    @lombok.Value
+    public static class Key {
+        String filter;
+        String sort;
+        String search;
+        boolean saleable;
+        boolean newable;
+        int page;
+        int size;
+
+        // Chuẩn hóa tham số để các yêu cầu tương đương dùng chung một mục
+        public static Key of(String filter, String sort, String search, boolean saleable, boolean newable, int page, int size) {
+            String normalizedFilter = SearchUtils.splitAndClauses(filter).stream().sorted().collect(Collectors.joining(";"));
+            String normalizedSort = sort == null ? "" : sort.trim();
+            String normalizedSearch = search == null ? "" : search.trim().replaceAll("\\s+", " ").toLowerCase();
+            return new Key(normalizedFilter, normalizedSort, normalizedSearch, saleable, newable, page, size);
+        }
+    }
+
+}
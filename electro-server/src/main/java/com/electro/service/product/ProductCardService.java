@@ -0,0 +1,23 @@
+package com.electro.service.product;
+
+import com.electro.entity.product.ProductCard;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface ProductCardService {
+
+    /**
+     * Lấy thẻ sản phẩm theo danh sách id, sản phẩm chưa có thẻ (vừa tạo, projector chưa chạy) sẽ được dựng ngay
+     */
+    Map<Long, ProductCard> findByProductIds(List<Long> productIds);
+
+    /**
+     * Dựng lại thẻ của các sản phẩm từ product, variant, image, variant_stock, docket, khuyến mãi đang diễn ra và product_rating
+     */
+    void rebuild(Collection<Long> productIds);
+
+    void rebuildAll();
+
+}
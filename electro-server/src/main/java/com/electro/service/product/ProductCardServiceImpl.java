@@ -0,0 +1,195 @@
+package com.electro.service.product;
+
+import com.electro.entity.general.Image;
+import com.electro.entity.product.Product;
+import com.electro.entity.product.ProductCard;
+import com.electro.entity.product.Variant;
+import com.electro.entity.promotion.Promotion;
+import com.electro.entity.review.ProductRating;
+import com.electro.event.CatalogChangedEvent;
+import com.electro.projection.inventory.SimpleProductInventory;
+import com.electro.repository.ProjectionRepository;
+import com.electro.repository.product.ProductCardRepository;
+import com.electro.repository.product.ProductFetchPlan;
+import com.electro.repository.product.ProductRepository;
+import com.electro.service.promotion.ActivePromotionIndex;
+import com.electro.service.review.ProductRatingService;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.transaction.Transactional;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class ProductCardServiceImpl implements ProductCardService {
+
+    // Số sản phẩm được dựng trong mỗi lượt khi dựng lại toàn bộ
+    private static final int BATCH_SIZE = 500;
+
+    private final ProductRepository productRepository;
+    private final ProductCardRepository productCardRepository;
+    private final ProjectionRepository projectionRepository;
+    private final ActivePromotionIndex activePromotionIndex;
+    private final ProductRatingService productRatingService;
+    private final ClientProductListingCache clientProductListingCache;
+    private final CatalogVersions catalogVersions;
+    private final TransactionTemplate transactionTemplate;
+
+    // Sản phẩm có thay đổi đang chờ projector dựng lại thẻ
+    private final Set<Long> dirtyProductIds = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public Map<Long, ProductCard> findByProductIds(List<Long> productIds) {
+        Map<Long, ProductCard> cards = productCardRepository.findAllById(productIds).stream()
+                .collect(Collectors.toMap(ProductCard::getProductId, Function.identity()));
+
+        List<Long> missingProductIds = productIds.stream()
+                .filter(productId -> !cards.containsKey(productId))
+                .collect(Collectors.toList());
+
+        if (!missingProductIds.isEmpty()) {
+            buildCards(missingProductIds).forEach(card -> cards.put(card.getProductId(), card));
+        }
+
+        return cards;
+    }
+
+    @Override
+    public void rebuild(Collection<Long> productIds) {
+        if (!productIds.isEmpty()) {
+            buildCards(new ArrayList<>(productIds));
+        }
+    }
+
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildAll() {
+        List<Long> productIds = productRepository.findAllIds();
+
+        for (int from = 0; from < productIds.size(); from += BATCH_SIZE) {
+            buildCards(productIds.subList(from, Math.min(from + BATCH_SIZE, productIds.size())));
+        }
+
+        log.info("Product cards rebuilt for {} products", productIds.size());
+
+        // Phiên bản của danh mục sản phẩm lấy từ updated_at của các thẻ vừa dựng
+        catalogVersions.reload();
+    }
+
+    // Chỉ ghi nhận sản phẩm thay đổi, việc dựng lại thẻ diễn ra ở nền để không làm chậm giao dịch ghi
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        dirtyProductIds.addAll(event.getProductIds());
+    }
+
+    @Scheduled(fixedDelayString = "${electro.app.productCards.flushIntervalMs:1000}")
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public void flushDirty() {
+        if (dirtyProductIds.isEmpty()) {
+            return;
+        }
+
+        List<Long> productIds = new ArrayList<>(dirtyProductIds);
+        dirtyProductIds.removeAll(productIds);
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> buildCards(productIds));
+        } catch (RuntimeException e) {
+            // Dựng lại ở lượt sau
+            dirtyProductIds.addAll(productIds);
+            throw e;
+        }
+
+        // Chỉ xóa đệm và đổi phiên bản sau khi thẻ mới đã commit, nếu không một request chen vào giữa
+        // sẽ lưu đệm lại thẻ cũ hoặc nhận ETag mới cho nội dung cũ
+        clientProductListingCache.invalidateProducts(productIds);
+        catalogVersions.touchProducts(productIds);
+
+        log.debug("Product cards refreshed for {} products", productIds.size());
+    }
+
+    private List<ProductCard> buildCards(List<Long> productIds) {
+        List<Product> products = productRepository.findAllByIdsInOrder(productIds, ProductFetchPlan.LISTING);
+
+        Map<Long, Integer> available = projectionRepository.findSimpleProductInventories(productIds).stream()
+                .collect(Collectors.toMap(SimpleProductInventory::getProductId, SimpleProductInventory::getAvailable));
+
+        Map<Long, Promotion> promotions = activePromotionIndex.findActivePromotions(productIds);
+
+        Map<Long, ProductRating> productRatings = productRatingService.findByProductIds(productIds);
+
+        Map<Long, Instant> newestImportTimes = new HashMap<>();
+        productCardRepository.findNewestImportTimes(productIds)
+                .forEach(row -> newestImportTimes.put((Long) row[0], (Instant) row[1]));
+
+        List<ProductCard> cards = products.stream()
+                .map(product -> toCard(product,
+                        available.getOrDefault(product.getId(), 0) > 0,
+                        promotions.get(product.getId()),
+                        newestImportTimes.get(product.getId()),
+                        productRatings.get(product.getId())))
+                .collect(Collectors.toList());
+
+        return productCardRepository.saveAll(cards);
+    }
+
+    private static ProductCard toCard(Product product,
+                                      boolean saleable,
+                                      Promotion promotion,
+                                      Instant newestImportAt,
+                                      ProductRating productRating) {
+        ArrayNode variants = JsonNodeFactory.instance.arrayNode();
+
+        for (Variant variant : product.getVariants()) {
+            variants.addObject()
+                    .put("variantId", variant.getId())
+                    .put("variantPrice", variant.getPrice())
+                    .set("variantProperties", variant.getProperties());
+        }
+
+        return new ProductCard()
+                .setProductId(product.getId())
+                .setProduct(product)
+                .setName(product.getName())
+                .setSlug(product.getSlug())
+                .setThumbnail(product.getImages().stream()
+                        .filter(Image::getIsThumbnail)
+                        .findAny()
+                        .map(Image::getPath)
+                        .orElse(null))
+                .setMinPrice(product.getVariants().stream()
+                        .map(Variant::getPrice).filter(Objects::nonNull).min(Double::compare).orElse(null))
+                .setMaxPrice(product.getVariants().stream()
+                        .map(Variant::getPrice).filter(Objects::nonNull).max(Double::compare).orElse(null))
+                .setVariants(variants)
+                .setSaleable(saleable)
+                .setPromotionId(promotion == null ? null : promotion.getId())
+                .setPromotionPercent(promotion == null ? null : promotion.getPercent())
+                .setNewestImportAt(newestImportAt)
+                .setReviewCount(productRating.getReviewCount())
+                .setAverageRating(productRating.getAverageRatingScore())
+                .setUpdatedAt(Instant.now());
+    }
+
+}
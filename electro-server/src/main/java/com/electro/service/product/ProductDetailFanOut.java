@@ -0,0 +1,170 @@
+package com.electro.service.product;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Chạy song song các phần độc lập của trang chi tiết sản phẩm trên một pool giới hạn, mỗi yêu cầu có hạn chót riêng.
+ * Thời gian từng phần được ghi vào Micrometer và trả về qua header Server-Timing.
+ */
+@Component
+@Slf4j
+public class ProductDetailFanOut {
+
+    private final ThreadPoolExecutor executor;
+    private final long deadlineMs;
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public ProductDetailFanOut(MeterRegistry meterRegistry,
+                               @Value("${electro.app.productDetail.threads:8}") int threads,
+                               @Value("${electro.app.productDetail.queueCapacity:100}") int queueCapacity,
+                               @Value("${electro.app.productDetail.deadlineMs:300}") long deadlineMs) {
+        this.meterRegistry = meterRegistry;
+        this.deadlineMs = deadlineMs;
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("product-detail-"));
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    public Session begin() {
+        return new Session(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMs));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Các phần việc và thời gian đo được của một yêu cầu
+     */
+    public class Session {
+
+        private final long deadline;
+
+        // Tên phần -> mục Server-Timing, sắp theo tên để header ổn định
+        private final Map<String, String> timings = new ConcurrentSkipListMap<>();
+
+        private volatile boolean degraded = false;
+
+        private Session(long deadline) {
+            this.deadline = deadline;
+        }
+
+        /**
+         * Chạy {@code supplier} trên pool, pool đầy thì chạy luôn trên luồng hiện tại
+         */
+        public <T> CompletableFuture<T> submit(String name, Supplier<T> supplier) {
+            Supplier<T> timed = () -> measure(name, supplier);
+
+            try {
+                return CompletableFuture.supplyAsync(timed, executor);
+            } catch (RejectedExecutionException e) {
+                log.debug("Product detail pool is full, running {} inline", name);
+                return CompletableFuture.completedFuture(timed.get());
+            }
+        }
+
+        /**
+         * Chạy {@code supplier} trên luồng hiện tại và ghi lại thời gian
+         */
+        public <T> T measure(String name, Supplier<T> supplier) {
+            long start = System.nanoTime();
+            String outcome = "error";
+
+            try {
+                T result = supplier.get();
+                outcome = "ok";
+                return result;
+            } finally {
+                record(name, outcome, System.nanoTime() - start);
+            }
+        }
+
+        /**
+         * Chờ phần bắt buộc hoàn tất, không áp dụng hạn chót
+         */
+        public <T> T await(CompletableFuture<T> future) {
+            try {
+                return future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof RuntimeException
+                        ? (RuntimeException) e.getCause()
+                        : new IllegalStateException(e.getCause());
+            }
+        }
+
+        /**
+         * Chờ phần phụ tới hạn chót của yêu cầu, quá hạn hoặc lỗi thì trả về {@code fallback}
+         */
+        public <T> T awaitOrElse(String name, CompletableFuture<T> future, T fallback) {
+            try {
+                return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                // Phần việc vẫn chạy tiếp ở nền, thời gian thật được ghi khi nó kết thúc
+                future.cancel(false);
+                degraded = true;
+                timings.put(name, name + ";desc=\"timeout\"");
+                meterRegistry.counter("electro.product.detail.fallbacks", "part", name, "cause", "timeout").increment();
+                return fallback;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                degraded = true;
+                return fallback;
+            } catch (ExecutionException e) {
+                degraded = true;
+                log.warn("Product detail part {} failed", name, e.getCause());
+                meterRegistry.counter("electro.product.detail.fallbacks", "part", name, "cause", "error").increment();
+                return fallback;
+            }
+        }
+
+        /**
+         * Có phần phụ bị thay bằng giá trị mặc định, khi đó phản hồi không nên được lưu đệm theo ETag
+         */
+        public boolean isDegraded() {
+            return degraded;
+        }
+
+        /**
+         * Giá trị cho header Server-Timing, ví dụ {@code product;dur=3.1, related;desc="timeout"}
+         */
+        public String toServerTiming() {
+            return timings.values().stream().collect(Collectors.joining(", "));
+        }
+
+        private void record(String name, String outcome, long nanos) {
+            Timer.builder("electro.product.detail.part")
+                    .tag("part", name)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(nanos, TimeUnit.NANOSECONDS);
+
+            timings.putIfAbsent(name, String.format(Locale.ROOT, "%s;dur=%.1f", name, nanos / 1_000_000.0));
+        }
+    }
+
+}
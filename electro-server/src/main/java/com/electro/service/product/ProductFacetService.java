@@ -0,0 +1,22 @@
+package com.electro.service.product;
+
+import com.electro.dto.client.ClientFacetResponse;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface ProductFacetService {
+
+    /**
+     * Trải phẳng lại `specifications` và `properties` của các sản phẩm vào bảng product_facet
+     */
+    void rebuild(Collection<Long> productIds);
+
+    void rebuildAll();
+
+    /**
+     * Đếm số sản phẩm theo thương hiệu, khoảng giá (giá thấp nhất của sản phẩm) và từng giá trị thuộc tính phiên bản
+     */
+    ClientFacetResponse countFacets(List<Long> productIds);
+
+}
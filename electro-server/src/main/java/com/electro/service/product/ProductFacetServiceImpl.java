@@ -0,0 +1,197 @@
+package com.electro.service.product;
+
+import com.electro.dto.client.ClientFacetResponse;
+import com.electro.dto.client.ClientFacetResponse.ClientBrandFacetResponse;
+import com.electro.dto.client.ClientFacetResponse.ClientPriceBucketResponse;
+import com.electro.dto.client.ClientFacetResponse.ClientPropertyFacetResponse;
+import com.electro.dto.client.ClientFacetResponse.ClientPropertyValueResponse;
+import com.electro.entity.product.Product;
+import com.electro.entity.product.ProductFacet;
+import com.electro.entity.product.Variant;
+import com.electro.event.CatalogChangedEvent;
+import com.electro.repository.product.ProductFacetRepository;
+import com.electro.repository.product.ProductFetchPlan;
+import com.electro.repository.product.ProductRepository;
+import com.electro.repository.product.VariantRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.transaction.Transactional;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+@Service
+@AllArgsConstructor
+@Slf4j
+public class ProductFacetServiceImpl implements ProductFacetService {
+
+    private static final int MAX_LENGTH = 255;
+
+    // Giới hạn số tham số của mệnh đề IN trong mỗi câu truy vấn
+    private static final int BATCH_SIZE = 1000;
+
+    // Các mốc khoảng giá, khoảng cuối cùng không có giới hạn trên
+    private static final double[] PRICE_BOUNDARIES = {0, 2_000_000, 5_000_000, 10_000_000, 20_000_000};
+
+    private ProductRepository productRepository;
+
+    private ProductFacetRepository productFacetRepository;
+
+    private VariantRepository variantRepository;
+
+    @Override
+    @Transactional
+    public void rebuild(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+
+        productFacetRepository.deleteByProductIds(productIds);
+
+        List<ProductFacet> facets = productRepository.findAllByIdsInOrder(new ArrayList<>(productIds), ProductFetchPlan.LISTING).stream()
+                .flatMap(product -> flatten(product).stream())
+                .collect(Collectors.toList());
+
+        productFacetRepository.saveAll(facets);
+    }
+
+    @Override
+    @Transactional
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildAll() {
+        productFacetRepository.deleteAllInBatch();
+
+        List<ProductFacet> facets = productRepository.findAllByIdsInOrder(productRepository.findAllIds(), ProductFetchPlan.LISTING).stream()
+                .flatMap(product -> flatten(product).stream())
+                .collect(Collectors.toList());
+
+        productFacetRepository.saveAll(facets);
+
+        log.info("Product facets rebuilt with {} rows", facets.size());
+    }
+
+    // Thêm, sửa sản phẩm hoặc phiên bản thì trải phẳng lại thuộc tính sau khi giao dịch hoàn tất
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (event.isMembershipChanged()) {
+            rebuild(event.getProductIds());
+        }
+    }
+
+    @Override
+    public ClientFacetResponse countFacets(List<Long> productIds) {
+        Map<Long, Double> lowestPrices = new HashMap<>();
+        Map<Long, Long> brandIds = new HashMap<>();
+        Map<Long, String> brandNames = new LinkedHashMap<>();
+        Map<String, Map<String, Long>> propertyCounts = new TreeMap<>();
+
+        for (int from = 0; from < productIds.size(); from += BATCH_SIZE) {
+            List<Long> batch = productIds.subList(from, Math.min(from + BATCH_SIZE, productIds.size()));
+
+            // [productId, price, brandId, brandName]
+            for (Object[] row : variantRepository.findFacetRowsByProductIds(batch)) {
+                Long productId = (Long) row[0];
+                lowestPrices.merge(productId, (Double) row[1], Math::min);
+
+                if (row[2] != null) {
+                    brandIds.put(productId, (Long) row[2]);
+                    brandNames.putIfAbsent((Long) row[2], (String) row[3]);
+                }
+            }
+
+            // [productId, code, value], đã DISTINCT nên mỗi dòng là một sản phẩm
+            for (Object[] row : productFacetRepository.findVariantFacetRowsByProductIds(batch)) {
+                propertyCounts.computeIfAbsent((String) row[1], code -> new TreeMap<>())
+                        .merge((String) row[2], 1L, Long::sum);
+            }
+        }
+
+        Map<Long, Long> brandCounts = new HashMap<>();
+        brandIds.values().forEach(brandId -> brandCounts.merge(brandId, 1L, Long::sum));
+
+        long[] bucketCounts = new long[PRICE_BOUNDARIES.length];
+        for (double price : lowestPrices.values()) {
+            int bucket = PRICE_BOUNDARIES.length - 1;
+            while (bucket > 0 && price < PRICE_BOUNDARIES[bucket]) {
+                bucket--;
+            }
+            bucketCounts[bucket]++;
+        }
+
+        ClientFacetResponse response = new ClientFacetResponse().setTotalProducts(lowestPrices.size());
+
+        brandNames.forEach((brandId, brandName) -> response.getFacetBrands().add(new ClientBrandFacetResponse()
+                .setBrandId(brandId)
+                .setBrandName(brandName)
+                .setCount(brandCounts.get(brandId))));
+        response.getFacetBrands().sort(Comparator.comparing(ClientBrandFacetResponse::getCount).reversed());
+
+        for (int i = 0; i < PRICE_BOUNDARIES.length; i++) {
+            response.getFacetPriceBuckets().add(new ClientPriceBucketResponse()
+                    .setFrom(PRICE_BOUNDARIES[i])
+                    .setTo(i + 1 < PRICE_BOUNDARIES.length ? PRICE_BOUNDARIES[i + 1] : null)
+                    .setCount(bucketCounts[i]));
+        }
+
+        propertyCounts.forEach((code, valueCounts) -> {
+            ClientPropertyFacetResponse property = new ClientPropertyFacetResponse().setCode(code);
+            valueCounts.forEach((value, count) -> property.getValues()
+                    .add(new ClientPropertyValueResponse().setValue(value).setCount(count)));
+            response.getFacetProperties().add(property);
+        });
+
+        return response;
+    }
+
+    private static List<ProductFacet> flatten(Product product) {
+        List<ProductFacet> facets = new ArrayList<>();
+
+        addFacets(facets, product, null, product.getSpecifications());
+
+        for (Variant variant : product.getVariants()) {
+            addFacets(facets, product, variant, variant.getProperties());
+        }
+
+        return facets;
+    }
+
+    // Dữ liệu JSON có dạng {"content": [{"code": ..., "value": ...}, ...]}
+    private static void addFacets(List<ProductFacet> facets, Product product, Variant variant, JsonNode node) {
+        if (node == null || !node.path("content").isArray()) {
+            return;
+        }
+
+        for (JsonNode item : node.path("content")) {
+            String code = item.path("code").asText(null);
+            String value = item.path("value").asText(null);
+
+            if (code == null || value == null || code.isBlank() || value.isBlank()) {
+                continue;
+            }
+
+            facets.add(new ProductFacet()
+                    .setProduct(product)
+                    .setVariant(variant)
+                    .setCode(truncate(code))
+                    .setValue(truncate(value)));
+        }
+    }
+
+    private static String truncate(String text) {
+        return text.length() > MAX_LENGTH ? text.substring(0, MAX_LENGTH) : text;
+    }
+
+}
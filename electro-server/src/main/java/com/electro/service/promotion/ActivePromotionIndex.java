@@ -0,0 +1,20 @@
+package com.electro.service.promotion;
+
+import com.electro.entity.promotion.Promotion;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+public interface ActivePromotionIndex {
+
+    Optional<Promotion> findActivePromotion(Long productId);
+
+    /**
+     * Trả về khuyến mãi đang diễn ra theo productId, sản phẩm không có khuyến mãi sẽ không có trong map
+     */
+    Map<Long, Promotion> findActivePromotions(Collection<Long> productIds);
+
+    void rebuild();
+
+}
@@ -0,0 +1,127 @@
+package com.electro.service.promotion;
+
+import com.electro.entity.promotion.Promotion;
+import com.electro.event.CatalogChangedEvent;
+import com.electro.repository.promotion.PromotionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class InMemoryActivePromotionIndex implements ActivePromotionIndex {
+
+    private final PromotionRepository promotionRepository;
+    private final TaskScheduler taskScheduler;
+    private final ApplicationEventPublisher publisher;
+
+    // Các khuyến mãi đang bật và chưa kết thúc, kèm danh sách productId áp dụng
+    private Map<Promotion, List<Long>> unfinishedPromotions = Map.of();
+
+    // Khuyến mãi đang diễn ra theo productId, chỉ đọc nên được thay thế nguyên khối mỗi lần làm mới
+    private volatile Map<Long, Promotion> activePromotions = Map.of();
+
+    private ScheduledFuture<?> nextRefresh;
+
+    @Override
+    public Optional<Promotion> findActivePromotion(Long productId) {
+        return Optional.ofNullable(activePromotions.get(productId));
+    }
+
+    @Override
+    public Map<Long, Promotion> findActivePromotions(Collection<Long> productIds) {
+        Map<Long, Promotion> snapshot = activePromotions;
+        Map<Long, Promotion> promotions = new HashMap<>();
+
+        for (Long productId : productIds) {
+            Promotion promotion = snapshot.get(productId);
+            if (promotion != null) {
+                promotions.put(productId, promotion);
+            }
+        }
+
+        return promotions;
+    }
+
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        Map<Promotion, List<Long>> promotions = new LinkedHashMap<>();
+
+        for (Object[] row : promotionRepository.findUnfinishedPromotionProducts(Instant.now())) {
+            promotions.computeIfAbsent((Promotion) row[0], promotion -> new ArrayList<>()).add((Long) row[1]);
+        }
+
+        unfinishedPromotions = promotions;
+        refresh();
+    }
+
+    // Tính lại khuyến mãi đang diễn ra từ dữ liệu đã nạp và hẹn lần làm mới tiếp theo
+    private synchronized void refresh() {
+        Instant now = Instant.now();
+        Instant nextBoundary = null;
+        Map<Long, Promotion> promotions = new HashMap<>();
+
+        for (Map.Entry<Promotion, List<Long>> entry : unfinishedPromotions.entrySet()) {
+            Promotion promotion = entry.getKey();
+
+            if (!promotion.getStartDate().isAfter(now) && promotion.getEndDate().isAfter(now)) {
+                // Khuyến mãi có id nhỏ hơn được ưu tiên khi trùng sản phẩm
+                entry.getValue().forEach(productId -> promotions.putIfAbsent(productId, promotion));
+            }
+
+            for (Instant boundary : List.of(promotion.getStartDate(), promotion.getEndDate())) {
+                if (boundary.isAfter(now) && (nextBoundary == null || boundary.isBefore(nextBoundary))) {
+                    nextBoundary = boundary;
+                }
+            }
+        }
+
+        // Báo cho các bộ nhớ đệm những sản phẩm có khuyến mãi thay đổi
+        Set<Long> changedProductIds = new HashSet<>(activePromotions.keySet());
+        changedProductIds.addAll(promotions.keySet());
+        changedProductIds.removeIf(productId -> samePromotion(activePromotions.get(productId), promotions.get(productId)));
+
+        activePromotions = promotions;
+
+        if (!changedProductIds.isEmpty()) {
+            publisher.publishEvent(CatalogChangedEvent.ofProductContents(changedProductIds));
+        }
+
+        if (nextRefresh != null) {
+            nextRefresh.cancel(false);
+        }
+
+        nextRefresh = nextBoundary == null ? null : taskScheduler.schedule(this::refresh, nextBoundary);
+
+        log.debug("Active promotions refreshed for {} products, next refresh at {}", promotions.size(), nextBoundary);
+    }
+
+    // Mỗi lần rebuild nạp lại các thực thể mới nên so sánh theo id và phần trăm giảm giá thay vì theo tham chiếu
+    private static boolean samePromotion(Promotion promotion, Promotion other) {
+        if (promotion == null || other == null) {
+            return promotion == other;
+        }
+
+        return Objects.equals(promotion.getId(), other.getId()) && Objects.equals(promotion.getPercent(), other.getPercent());
+    }
+
+}
@@ -23,6 +23,7 @@ public class PromotionServiceImpl implements PromotionService {
 
     private PromotionRepository promotionRepository;
     private PromotionMapper promotionMapper;
+    private ActivePromotionIndex activePromotionIndex;
 
     @Override
     public ListResponse<PromotionResponse> findAll(int page, int size, String sort, String filter, String search, boolean all) {
@@ -50,7 +51,9 @@ public class PromotionServiceImpl implements PromotionService {
             }
         }
 
-        return promotionMapper.entityToResponse(promotionRepository.save(promotion));
+        PromotionResponse response = promotionMapper.entityToResponse(promotionRepository.save(promotion));
+        activePromotionIndex.rebuild();
+        return response;
     }
 
     @Override
@@ -63,17 +66,21 @@ public class PromotionServiceImpl implements PromotionService {
             throw new RuntimeException("Product list of promotion is empty");
         }
 
-        return promotionMapper.entityToResponse(promotionRepository.save(promotion));
+        PromotionResponse response = promotionMapper.entityToResponse(promotionRepository.save(promotion));
+        activePromotionIndex.rebuild();
+        return response;
     }
 
     @Override
     public void delete(Long id) {
         promotionRepository.deleteById(id);
+        activePromotionIndex.rebuild();
     }
 
     @Override
     public void delete(List<Long> ids) {
         promotionRepository.deleteAllById(ids);
+        activePromotionIndex.rebuild();
     }
 
     @Override
@@ -0,0 +1,29 @@
+package com.electro.service.review;
+
+import com.electro.entity.review.ProductRating;
+
+import java.util.Collection;
+import java.util.Map;
+
+public interface ProductRatingService {
+
+    /**
+     * Cộng một đánh giá vào tổng hợp của sản phẩm
+     */
+    void add(Long productId, int ratingScore);
+
+    /**
+     * Bỏ một đánh giá khỏi tổng hợp của sản phẩm
+     */
+    void remove(Long productId, int ratingScore);
+
+    /**
+     * Sản phẩm chưa có đánh giá được trả về với giá trị 0
+     */
+    ProductRating findByProductId(Long productId);
+
+    Map<Long, ProductRating> findByProductIds(Collection<Long> productIds);
+
+    int rebuild();
+
+}
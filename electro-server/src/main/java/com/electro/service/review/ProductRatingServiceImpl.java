@@ -0,0 +1,74 @@
+package com.electro.service.review;
+
+import com.electro.entity.review.ProductRating;
+import com.electro.event.CatalogChangePublisher;
+import com.electro.event.CatalogChangedEvent;
+import com.electro.repository.review.ProductRatingRepository;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import javax.transaction.Transactional;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@AllArgsConstructor
+@Slf4j
+@Transactional
+public class ProductRatingServiceImpl implements ProductRatingService {
+
+    private ProductRatingRepository productRatingRepository;
+    private CatalogChangePublisher publisher;
+
+    @Override
+    public void add(Long productId, int ratingScore) {
+        productRatingRepository.addRating(productId, ratingScore, 1);
+        publisher.publish(CatalogChangedEvent.ofProductContents(Set.of(productId)));
+    }
+
+    @Override
+    public void remove(Long productId, int ratingScore) {
+        productRatingRepository.addRating(productId, ratingScore, -1);
+        publisher.publish(CatalogChangedEvent.ofProductContents(Set.of(productId)));
+    }
+
+    @Override
+    public ProductRating findByProductId(Long productId) {
+        return productRatingRepository.findById(productId)
+                .orElseGet(() -> new ProductRating().setProductId(productId));
+    }
+
+    @Override
+    public Map<Long, ProductRating> findByProductIds(Collection<Long> productIds) {
+        Map<Long, ProductRating> productRatings = productRatingRepository.findAllById(productIds).stream()
+                .collect(Collectors.toMap(ProductRating::getProductId, Function.identity()));
+
+        productIds.forEach(productId -> productRatings.computeIfAbsent(productId, id -> new ProductRating().setProductId(id)));
+
+        return productRatings;
+    }
+
+    @Override
+    public int rebuild() {
+        productRatingRepository.deleteAllInBatch();
+        return productRatingRepository.insertFromReviews();
+    }
+
+    // Dữ liệu mẫu được nạp lại mỗi lần khởi động, dựng tổng hợp trước khi dựng thẻ sản phẩm
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    public void rebuildIfEmpty() {
+        if (productRatingRepository.count() == 0) {
+            log.info("Product ratings rebuilt for {} products", rebuild());
+        }
+    }
+
+}
@@ -14,6 +14,8 @@ import com.electro.utils.RewardUtils;
 import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Service;
 
+import javax.transaction.Transactional;
+
 import java.util.List;
 
 @Service
@@ -23,6 +25,7 @@ public class ReviewServiceImpl implements ReviewService {
     private ReviewRepository reviewRepository;
     private ReviewMapper reviewMapper;
     private RewardUtils rewardUtils;
+    private ProductRatingService productRatingService;
 
     @Override
     public ListResponse<ReviewResponse> findAll(int page, int size, String sort, String filter, String search, boolean all) {
@@ -35,30 +38,50 @@ public class ReviewServiceImpl implements ReviewService {
     }
 
     @Override
+    @Transactional
     public ReviewResponse save(ReviewRequest request) {
-        return defaultSave(request, reviewRepository, reviewMapper);
+        Review review = reviewRepository.save(reviewMapper.requestToEntity(request));
+
+        productRatingService.add(review.getProduct().getId(), review.getRatingScore());
+
+        return reviewMapper.entityToResponse(review);
     }
 
     @Override
+    @Transactional
     public ReviewResponse save(Long id, ReviewRequest request) {
-        Review review = reviewRepository.findById(id)
-                .map(existingEntity -> reviewMapper.partialUpdate(existingEntity, request))
-                .map(reviewRepository::save)
+        Review existingReview = reviewRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException(ResourceName.DOCKET, FieldName.ID, id));
 
+        // Ghi nhận đánh giá cũ trước khi partialUpdate thay đổi entity
+        Long beforeProductId = existingReview.getProduct().getId();
+        int beforeRatingScore = existingReview.getRatingScore();
+
+        Review review = reviewRepository.save(reviewMapper.partialUpdate(existingReview, request));
+
+        productRatingService.remove(beforeProductId, beforeRatingScore);
+        productRatingService.add(review.getProduct().getId(), review.getRatingScore());
+
         rewardUtils.approveReviewHook(review);
 
         return reviewMapper.entityToResponse(review);
     }
 
     @Override
+    @Transactional
     public void delete(Long id) {
-        reviewRepository.deleteById(id);
+        reviewRepository.findById(id).ifPresent(review -> {
+            reviewRepository.delete(review);
+            productRatingService.remove(review.getProduct().getId(), review.getRatingScore());
+        });
     }
 
     @Override
+    @Transactional
     public void delete(List<Long> ids) {
-        reviewRepository.deleteAllById(ids);
+        List<Review> reviews = reviewRepository.findAllById(ids);
+        reviewRepository.deleteAll(reviews);
+        reviews.forEach(review -> productRatingService.remove(review.getProduct().getId(), review.getRatingScore()));
     }
 
 }
@@ -27,6 +27,7 @@ import com.electro.repository.order.OrderRepository;
 import com.electro.repository.waybill.WaybillLogRepository;
 import com.electro.repository.waybill.WaybillRepository;
 import com.electro.service.general.NotificationService;
+import com.electro.service.inventory.StockReservationService;
 import com.electro.utils.RewardUtils;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
@@ -72,6 +73,7 @@ public class WaybillServiceImpl implements WaybillService {
     private final NotificationMapper notificationMapper;
     private final WaybillLogRepository waybillLogRepository;
     private final RewardUtils rewardUtils;
+    private final StockReservationService stockReservationService;
 
     @Override
     public ListResponse<WaybillResponse> findAll(int page, int size, String sort, String filter, String search, boolean all) {
@@ -368,6 +370,8 @@ public class WaybillServiceImpl implements WaybillService {
                         waybillLog.setCurrentStatus(4);
                         waybill.setStatus(4);
                         order.setStatus(5);
+                        // Trả lại phần hàng còn đang giữ nếu đơn hàng chưa có phiếu xuất
+                        stockReservationService.release(order.getId());
                         break;
                     default:
                         throw new RuntimeException("There is no waybill status corresponding to GHN status code");
@@ -0,0 +1,70 @@
+package com.electro.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+public class CursorUtils {
+
+    private static final char SEPARATOR = '|';
+
+    /**
+     * Mã hóa khóa sắp xếp và id của phần tử cuối cùng thành chuỗi con trỏ (base64url), client không cần hiểu nội dung
+     */
+    public static String encode(Object key, Long id) {
+        String raw = (key == null ? "" : key.toString()) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Giải mã con trỏ, trả về null nếu con trỏ rỗng (trang đầu tiên)
+     */
+    public static Cursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separatorIndex = raw.lastIndexOf(SEPARATOR);
+            return new Cursor(raw.substring(0, separatorIndex), Long.valueOf(raw.substring(separatorIndex + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    /**
+     * Chuyển khóa sắp xếp dạng chuỗi về kiểu của thuộc tính để so sánh trong câu truy vấn
+     */
+    @SuppressWarnings("rawtypes")
+    public static Comparable parseKey(Class<?> type, String key) {
+        if (type == Long.class) {
+            return Long.valueOf(key);
+        }
+
+        if (type == Integer.class) {
+            return Integer.valueOf(key);
+        }
+
+        if (type == Double.class) {
+            return Double.valueOf(key);
+        }
+
+        if (type == Instant.class) {
+            return Instant.parse(key);
+        }
+
+        if (type == String.class) {
+            return key;
+        }
+
+        throw new IllegalArgumentException("Unsupported cursor key type: " + type.getSimpleName());
+    }
+
+    @lombok.Value
+    public static class Cursor {
+        String key;
+        Long id;
+    }
+
+}
@@ -1,6 +1,9 @@
 package com.electro.utils;
 
+import com.electro.entity.inventory.Docket;
 import com.electro.entity.inventory.DocketVariant;
+import com.electro.projection.inventory.InventoryIndices;
+import com.electro.projection.inventory.VariantWarehouseKey;
 
 import java.util.HashMap;
 import java.util.List;
@@ -8,44 +11,71 @@ import java.util.Map;
 
 public class InventoryUtils {
 
-    public static Map<String, Integer> calculateInventoryIndices(List<DocketVariant> transactions) {
-        int inventory = 0;
-        int waitingForDelivery = 0;
-        int canBeSold;
-        int areComing = 0;
+    // Loại phiếu: Nhập (1), Xuất (2)
+    private static final int IMPORT = 1;
+    private static final int EXPORT = 2;
 
-        for (DocketVariant transaction : transactions) {
-            // Phiếu Nhập và trạng thái phiếu là Hoàn thành (3)
-            if (transaction.getDocket().getType().equals(1) && transaction.getDocket().getStatus().equals(3)) {
-                inventory += transaction.getQuantity();
-            }
+    // Trạng thái phiếu: Mới (1), Đang xử lý (2), Hoàn thành (3), Hủy bỏ (4)
+    private static final int NEW = 1;
+    private static final int PROCESSING = 2;
+    private static final int COMPLETED = 3;
 
-            // Phiếu Xuất và trạng thái phiếu là Hoàn thành (3)
-            if (transaction.getDocket().getType().equals(2) && transaction.getDocket().getStatus().equals(3)) {
-                inventory -= transaction.getQuantity();
-            }
+    // Vị trí trong mảng cộng dồn
+    private static final int INVENTORY = 0;
+    private static final int WAITING_FOR_DELIVERY = 1;
+    private static final int ARE_COMING = 2;
 
-            // Phiếu Xuất và trạng thái phiếu là Mới (1) hoặc Đang xử lý (2)
-            if (transaction.getDocket().getType().equals(2) && List.of(1, 2).contains(transaction.getDocket().getStatus())) {
-                waitingForDelivery += transaction.getQuantity();
-            }
+    public static InventoryIndices calculateInventoryIndices(List<DocketVariant> transactions) {
+        int[] sums = new int[3];
 
-            // Phiếu Nhập và trạng thái phiếu là Mới (1) hoặc Đang xử lý (2)
-            if (transaction.getDocket().getType().equals(1) && List.of(1, 2).contains(transaction.getDocket().getStatus())) {
-                areComing += transaction.getQuantity();
-            }
+        for (DocketVariant transaction : transactions) {
+            Docket docket = transaction.getDocket();
+            accumulate(sums, docket.getType(), docket.getStatus(), transaction.getQuantity());
         }
 
-        canBeSold = inventory - waitingForDelivery;
+        return toIndices(sums);
+    }
 
-        Map<String, Integer> indices = new HashMap<>();
+    /**
+     * Tính chỉ số tồn kho trong một lượt duyệt, gom theo variant và kho của phiếu
+     */
+    public static Map<VariantWarehouseKey, InventoryIndices> calculateInventoryIndicesByVariantAndWarehouse(
+            List<DocketVariant> transactions) {
+        Map<VariantWarehouseKey, int[]> sumsByKey = new HashMap<>();
 
-        indices.put("inventory", inventory);
-        indices.put("waitingForDelivery", waitingForDelivery);
-        indices.put("canBeSold", canBeSold);
-        indices.put("areComing", areComing);
+        for (DocketVariant transaction : transactions) {
+            Docket docket = transaction.getDocket();
+            VariantWarehouseKey key = new VariantWarehouseKey(transaction.getVariant().getId(), docket.getWarehouse().getId());
+            int[] sums = sumsByKey.computeIfAbsent(key, k -> new int[3]);
+            accumulate(sums, docket.getType(), docket.getStatus(), transaction.getQuantity());
+        }
+
+        Map<VariantWarehouseKey, InventoryIndices> indices = new HashMap<>();
+        sumsByKey.forEach((key, sums) -> indices.put(key, toIndices(sums)));
 
         return indices;
     }
 
+    private static void accumulate(int[] sums, int type, int status, int quantity) {
+        if (status == COMPLETED) {
+            // Phiếu Nhập hoàn thành cộng vào tồn, phiếu Xuất hoàn thành trừ khỏi tồn
+            if (type == IMPORT) {
+                sums[INVENTORY] += quantity;
+            } else if (type == EXPORT) {
+                sums[INVENTORY] -= quantity;
+            }
+        } else if (status == NEW || status == PROCESSING) {
+            // Phiếu Xuất chưa hoàn thành là hàng chờ xuất, phiếu Nhập chưa hoàn thành là hàng sắp về
+            if (type == EXPORT) {
+                sums[WAITING_FOR_DELIVERY] += quantity;
+            } else if (type == IMPORT) {
+                sums[ARE_COMING] += quantity;
+            }
+        }
+    }
+
+    private static InventoryIndices toIndices(int[] sums) {
+        return InventoryIndices.of(sums[INVENTORY], sums[WAITING_FOR_DELIVERY], sums[ARE_COMING]);
+    }
+
 }
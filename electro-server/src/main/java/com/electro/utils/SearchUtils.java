@@ -3,6 +3,7 @@ package com.electro.utils;
 import io.github.perplexhub.rsql.RSQLJPASupport;
 import org.springframework.data.jpa.domain.Specification;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -18,4 +19,70 @@ public class SearchUtils {
                 .collect(Collectors.collectingAndThen(Collectors.joining(","), RSQLJPASupport::toSpecification));
     }
 
+    /**
+     * Tách chuỗi RSQL thành các điều kiện AND (`;`) ở cấp ngoài cùng, bỏ qua `;` nằm trong ngoặc hoặc dấu nháy
+     */
+    public static List<String> splitAndClauses(String filter) {
+        return splitTopLevel(filter, ';');
+    }
+
+    /**
+     * Tách danh sách tham số `(a,'b c',d)` của một toán tử RSQL, bỏ dấu nháy bao quanh
+     */
+    public static List<String> parseArguments(String arguments) {
+        String trimmed = arguments.trim();
+
+        if (trimmed.startsWith("(") && trimmed.endsWith(")")) {
+            trimmed = trimmed.substring(1, trimmed.length() - 1);
+        }
+
+        List<String> values = new ArrayList<>();
+
+        for (String value : splitTopLevel(trimmed, ',')) {
+            if (value.length() >= 2 && (value.startsWith("'") && value.endsWith("'")
+                    || value.startsWith("\"") && value.endsWith("\""))) {
+                value = value.substring(1, value.length() - 1);
+            }
+            values.add(value);
+        }
+
+        return values;
+    }
+
+    private static List<String> splitTopLevel(String text, char separator) {
+        List<String> parts = new ArrayList<>();
+
+        if (text == null || text.isBlank()) {
+            return parts;
+        }
+
+        int depth = 0;
+        char quote = 0;
+        StringBuilder current = new StringBuilder();
+
+        for (char c : text.toCharArray()) {
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == separator && depth == 0) {
+                parts.add(current.toString().trim());
+                current.setLength(0);
+                continue;
+            }
+            current.append(c);
+        }
+
+        parts.add(current.toString().trim());
+        parts.removeIf(String::isEmpty);
+
+        return parts;
+    }
+
 }
@@ -0,0 +1,137 @@
+package com.electro.utils;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Bộ nhớ đệm LRU giới hạn số mục, mỗi mục gắn một tập tag để có thể xóa chọn lọc theo tag.
+ * Số lần hit/miss/eviction được ghi nhận qua Micrometer với tiền tố {@code metricName}.
+ */
+public class TaggedLruCache<K, V> {
+
+    private final int maxEntries;
+
+    private final Map<K, Entry<V>> entries;
+    private final Map<String, Set<K>> keysByTag = new HashMap<>();
+
+    // Tăng mỗi lần xóa, dùng để bỏ qua kết quả được tính trước khi dữ liệu thay đổi
+    private long version = 0;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter sizeEvictions;
+    private final Counter invalidationEvictions;
+
+    public TaggedLruCache(String metricName, int maxEntries, MeterRegistry meterRegistry) {
+        this.maxEntries = maxEntries;
+
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > TaggedLruCache.this.maxEntries) {
+                    untag(eldest.getKey(), eldest.getValue());
+                    sizeEvictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        this.hits = meterRegistry.counter(metricName + ".requests", "result", "hit");
+        this.misses = meterRegistry.counter(metricName + ".requests", "result", "miss");
+        this.sizeEvictions = meterRegistry.counter(metricName + ".evictions", "cause", "size");
+        this.invalidationEvictions = meterRegistry.counter(metricName + ".evictions", "cause", "invalidation");
+        Gauge.builder(metricName + ".size", this, TaggedLruCache::size).register(meterRegistry);
+    }
+
+    public synchronized Optional<V> get(K key) {
+        Entry<V> entry = entries.get(key);
+
+        if (entry == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+
+        hits.increment();
+        return Optional.of(entry.value);
+    }
+
+    public synchronized long version() {
+        return version;
+    }
+
+    /**
+     * Lưu giá trị nếu chưa có lần xóa nào kể từ {@code readVersion} (lấy từ {@link #version()} trước khi truy vấn)
+     */
+    public synchronized void put(K key, V value, Set<String> tags, long readVersion) {
+        if (readVersion != version) {
+            return;
+        }
+
+        Entry<V> previous = entries.put(key, new Entry<>(value, Set.copyOf(tags)));
+        if (previous != null) {
+            untag(key, previous);
+        }
+        tags.forEach(tag -> keysByTag.computeIfAbsent(tag, t -> new HashSet<>()).add(key));
+    }
+
+    public synchronized void invalidate(Collection<String> tags) {
+        version++;
+
+        List<K> keys = new ArrayList<>();
+        tags.forEach(tag -> keys.addAll(keysByTag.getOrDefault(tag, Set.of())));
+
+        for (K key : keys) {
+            Entry<V> entry = entries.remove(key);
+            if (entry != null) {
+                untag(key, entry);
+                invalidationEvictions.increment();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        version++;
+        invalidationEvictions.increment(entries.size());
+        entries.clear();
+        keysByTag.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void untag(K key, Entry<V> entry) {
+        for (String tag : entry.tags) {
+            Set<K> keys = keysByTag.get(tag);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) {
+                    keysByTag.remove(tag);
+                }
+            }
+        }
+    }
+
+    private static class Entry<V> {
+        private final V value;
+        private final Set<String> tags;
+
+        private Entry(V value, Set<String> tags) {
+            this.value = value;
+            this.tags = tags;
+        }
+    }
+
+}
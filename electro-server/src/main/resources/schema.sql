@@ -28,6 +28,8 @@ DROP TABLE IF EXISTS
     product,
     product_tag,
     variant,
+    product_facet,
+    product_card,
     image,
     product_inventory_limit,
     variant_inventory_limit,
@@ -41,15 +43,21 @@ DROP TABLE IF EXISTS
     purchase_order_variant,
     docket,
     docket_variant,
+    variant_stock,
+    warehouse_stock,
+    inventory_ledger,
+    inventory_checkpoint,
     transfer,
     order_resource,
     order_cancellation_reason,
     `order`,
     order_variant,
+    stock_reservation,
     waybill,
     wish,
     preorder,
     review,
+    product_rating,
     notification,
     cart,
     cart_variant,
@@ -563,6 +571,48 @@ ALTER TABLE variant
 ALTER TABLE variant
     ADD CONSTRAINT FK_VARIANT_ON_PRODUCT FOREIGN KEY (product_id) REFERENCES product (id);
 
+CREATE TABLE product_facet
+(
+    id         BIGINT AUTO_INCREMENT NOT NULL,
+    product_id BIGINT                NOT NULL,
+    variant_id BIGINT                NULL,
+    code       VARCHAR(255)          NOT NULL,
+    value      VARCHAR(255)          NOT NULL,
+    CONSTRAINT pk_product_facet PRIMARY KEY (id)
+);
+
+ALTER TABLE product_facet
+    ADD CONSTRAINT FK_PRODUCT_FACET_ON_PRODUCT FOREIGN KEY (product_id) REFERENCES product (id) ON DELETE CASCADE;
+
+ALTER TABLE product_facet
+    ADD CONSTRAINT FK_PRODUCT_FACET_ON_VARIANT FOREIGN KEY (variant_id) REFERENCES variant (id) ON DELETE CASCADE;
+
+CREATE INDEX IDX_PRODUCT_FACET_ON_CODE_VALUE ON product_facet (code, value, product_id, variant_id);
+
+CREATE TABLE product_card
+(
+    product_id        BIGINT       NOT NULL,
+    name              VARCHAR(255) NOT NULL,
+    slug              VARCHAR(255) NOT NULL,
+    thumbnail         VARCHAR(255) NULL,
+    min_price         DOUBLE       NULL,
+    max_price         DOUBLE       NULL,
+    variants          JSON         NOT NULL,
+    saleable          BIT(1)       NOT NULL,
+    promotion_id      BIGINT       NULL,
+    promotion_percent INT          NULL,
+    newest_import_at  datetime     NULL,
+    review_count      INT          NOT NULL DEFAULT 0,
+    average_rating    INT          NOT NULL DEFAULT 0,
+    updated_at        datetime(6)  NOT NULL,
+    CONSTRAINT pk_product_card PRIMARY KEY (product_id)
+);
+
+ALTER TABLE product_card
+    ADD CONSTRAINT FK_PRODUCT_CARD_ON_PRODUCT FOREIGN KEY (product_id) REFERENCES product (id) ON DELETE CASCADE;
+
+CREATE INDEX IDX_PRODUCT_CARD_ON_UPDATED_AT ON product_card (updated_at);
+
 CREATE TABLE image
 (
     id            BIGINT AUTO_INCREMENT NOT NULL,
@@ -814,6 +864,84 @@ ALTER TABLE docket_variant
 ALTER TABLE docket_variant
     ADD CONSTRAINT FK_DOCKET_VARIANT_ON_VARIANT FOREIGN KEY (variant_id) REFERENCES variant (id);
 
+CREATE TABLE variant_stock
+(
+    variant_id           BIGINT   NOT NULL,
+    inventory            INT      NOT NULL DEFAULT 0,
+    waiting_for_delivery INT      NOT NULL DEFAULT 0,
+    can_be_sold          INT      NOT NULL DEFAULT 0,
+    are_coming           INT      NOT NULL DEFAULT 0,
+    reserved             INT      NOT NULL DEFAULT 0,
+    updated_at           datetime NOT NULL,
+    CONSTRAINT pk_variant_stock PRIMARY KEY (variant_id)
+);
+
+ALTER TABLE variant_stock
+    ADD CONSTRAINT FK_VARIANT_STOCK_ON_VARIANT FOREIGN KEY (variant_id) REFERENCES variant (id) ON DELETE CASCADE;
+
+CREATE TABLE warehouse_stock
+(
+    variant_id           BIGINT   NOT NULL,
+    warehouse_id         BIGINT   NOT NULL,
+    inventory            INT      NOT NULL DEFAULT 0,
+    waiting_for_delivery INT      NOT NULL DEFAULT 0,
+    can_be_sold          INT      NOT NULL DEFAULT 0,
+    are_coming           INT      NOT NULL DEFAULT 0,
+    updated_at           datetime NOT NULL,
+    CONSTRAINT pk_warehouse_stock PRIMARY KEY (variant_id, warehouse_id)
+);
+
+ALTER TABLE warehouse_stock
+    ADD CONSTRAINT FK_WAREHOUSE_STOCK_ON_VARIANT FOREIGN KEY (variant_id) REFERENCES variant (id) ON DELETE CASCADE;
+
+ALTER TABLE warehouse_stock
+    ADD CONSTRAINT FK_WAREHOUSE_STOCK_ON_WAREHOUSE FOREIGN KEY (warehouse_id) REFERENCES warehouse (id) ON DELETE CASCADE;
+
+CREATE TABLE inventory_ledger
+(
+    id                   BIGINT AUTO_INCREMENT NOT NULL,
+    variant_id           BIGINT                NOT NULL,
+    warehouse_id         BIGINT                NOT NULL,
+    inventory            INT                   NOT NULL DEFAULT 0,
+    waiting_for_delivery INT                   NOT NULL DEFAULT 0,
+    are_coming           INT                   NOT NULL DEFAULT 0,
+    created_at           datetime              NOT NULL,
+    CONSTRAINT pk_inventory_ledger PRIMARY KEY (id)
+);
+
+ALTER TABLE inventory_ledger
+    ADD CONSTRAINT FK_INVENTORY_LEDGER_ON_VARIANT FOREIGN KEY (variant_id) REFERENCES variant (id) ON DELETE RESTRICT;
+
+ALTER TABLE inventory_ledger
+    ADD CONSTRAINT FK_INVENTORY_LEDGER_ON_WAREHOUSE FOREIGN KEY (warehouse_id) REFERENCES warehouse (id) ON DELETE RESTRICT;
+
+CREATE INDEX IDX_INVENTORY_LEDGER_ON_VARIANT_CREATED_AT ON inventory_ledger (variant_id, created_at);
+
+CREATE INDEX IDX_INVENTORY_LEDGER_ON_CREATED_AT ON inventory_ledger (created_at);
+
+CREATE TABLE inventory_checkpoint
+(
+    id                   BIGINT AUTO_INCREMENT NOT NULL,
+    variant_id           BIGINT                NOT NULL,
+    warehouse_id         BIGINT                NOT NULL,
+    checkpoint_at        datetime              NOT NULL,
+    inventory            INT                   NOT NULL DEFAULT 0,
+    waiting_for_delivery INT                   NOT NULL DEFAULT 0,
+    are_coming           INT                   NOT NULL DEFAULT 0,
+    CONSTRAINT pk_inventory_checkpoint PRIMARY KEY (id)
+);
+
+ALTER TABLE inventory_checkpoint
+    ADD CONSTRAINT uc_inventory_checkpoint_variant_warehouse_checkpoint_at UNIQUE (variant_id, warehouse_id, checkpoint_at);
+
+ALTER TABLE inventory_checkpoint
+    ADD CONSTRAINT FK_INVENTORY_CHECKPOINT_ON_VARIANT FOREIGN KEY (variant_id) REFERENCES variant (id) ON DELETE RESTRICT;
+
+ALTER TABLE inventory_checkpoint
+    ADD CONSTRAINT FK_INVENTORY_CHECKPOINT_ON_WAREHOUSE FOREIGN KEY (warehouse_id) REFERENCES warehouse (id) ON DELETE RESTRICT;
+
+CREATE INDEX IDX_INVENTORY_CHECKPOINT_ON_CHECKPOINT_AT ON inventory_checkpoint (checkpoint_at);
+
 CREATE TABLE transfer
 (
     id               BIGINT AUTO_INCREMENT NOT NULL,
@@ -938,6 +1066,27 @@ ALTER TABLE order_variant
 ALTER TABLE order_variant
     ADD CONSTRAINT FK_ORDER_VARIANT_ON_VARIANT FOREIGN KEY (variant_id) REFERENCES variant (id);
 
+CREATE TABLE stock_reservation
+(
+    id         BIGINT AUTO_INCREMENT NOT NULL,
+    order_id   BIGINT                NOT NULL,
+    variant_id BIGINT                NOT NULL,
+    quantity   INT                   NOT NULL,
+    status     TINYINT               NOT NULL,
+    expires_at datetime              NULL,
+    created_at datetime              NOT NULL,
+    updated_at datetime              NOT NULL,
+    CONSTRAINT pk_stock_reservation PRIMARY KEY (id)
+);
+
+ALTER TABLE stock_reservation
+    ADD CONSTRAINT FK_STOCK_RESERVATION_ON_ORDER FOREIGN KEY (order_id) REFERENCES `order` (id);
+
+ALTER TABLE stock_reservation
+    ADD CONSTRAINT FK_STOCK_RESERVATION_ON_VARIANT FOREIGN KEY (variant_id) REFERENCES variant (id);
+
+CREATE INDEX IDX_STOCK_RESERVATION_ON_STATUS_EXPIRES_AT ON stock_reservation (status, expires_at);
+
 CREATE TABLE waybill
 (
     id                     BIGINT AUTO_INCREMENT NOT NULL,
@@ -1039,6 +1188,23 @@ ALTER TABLE review
 ALTER TABLE review
     ADD CONSTRAINT FK_REVIEW_ON_USER FOREIGN KEY (user_id) REFERENCES user (id);
 
+CREATE TABLE product_rating
+(
+    product_id   BIGINT   NOT NULL,
+    review_count INT      NOT NULL DEFAULT 0,
+    rating_sum   INT      NOT NULL DEFAULT 0,
+    rating_1     INT      NOT NULL DEFAULT 0,
+    rating_2     INT      NOT NULL DEFAULT 0,
+    rating_3     INT      NOT NULL DEFAULT 0,
+    rating_4     INT      NOT NULL DEFAULT 0,
+    rating_5     INT      NOT NULL DEFAULT 0,
+    updated_at   datetime NOT NULL,
+    CONSTRAINT pk_product_rating PRIMARY KEY (product_id)
+);
+
+ALTER TABLE product_rating
+    ADD CONSTRAINT FK_PRODUCT_RATING_ON_PRODUCT FOREIGN KEY (product_id) REFERENCES product (id) ON DELETE CASCADE;
+
 CREATE TABLE notification
 (
     id         BIGINT AUTO_INCREMENT NOT NULL,
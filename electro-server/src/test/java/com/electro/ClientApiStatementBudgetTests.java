@@ -0,0 +1,125 @@
+package com.electro;
+
+import com.electro.constant.SecurityConstants;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Số câu lệnh SQL của từng endpoint phía client, đếm qua Hibernate Statistics trên toàn bộ yêu cầu
+ * (gồm cả các luồng song song của trang chi tiết sản phẩm và phần lazy loading khi ánh xạ).
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+public class ClientApiStatementBudgetTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setup() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    @Test
+    void productListingStaysWithinStatementBudget() throws Exception {
+        // Kích thước trang riêng để không trúng bộ nhớ đệm của các test khác
+        statistics.clear();
+        mockMvc.perform(get("/client-api/products").param("size", "11")).andExpect(status().isOk());
+
+        // id trang hiện tại + đếm + thẻ sản phẩm theo khóa chính
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(3);
+
+        statistics.clear();
+        mockMvc.perform(get("/client-api/products").param("size", "11")).andExpect(status().isOk());
+
+        // Lần thứ hai đọc từ bộ nhớ đệm danh sách
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(0);
+    }
+
+    @Test
+    void sortedProductListingStaysWithinStatementBudget() throws Exception {
+        statistics.clear();
+        mockMvc.perform(get("/client-api/products").param("size", "11").param("sort", "lowest-price").param("cursor", ""))
+                .andExpect(status().isOk());
+
+        // id trang theo con trỏ + thẻ sản phẩm
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void productDetailStaysWithinStatementBudget() throws Exception {
+        String slug = jdbcTemplate.queryForObject("SELECT p.slug FROM product p " +
+                "WHERE EXISTS (SELECT 1 FROM variant v WHERE v.product_id = p.id) ORDER BY p.id LIMIT 1", String.class);
+
+        statistics.clear();
+        mockMvc.perform(get("/client-api/products/{slug}", slug)).andExpect(status().isOk());
+
+        // slug + tồn kho sản phẩm + đánh giá + thẻ sản phẩm liên quan
+        // + sản phẩm kèm variants/brand/tags/category + images (theo lô) + tồn kho các phiên bản
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(7);
+    }
+
+    @Test
+    void cartStaysWithinStatementBudget() throws Exception {
+        Map<String, Object> cart = jdbcTemplate.queryForMap("SELECT c.id, u.username FROM cart c " +
+                "JOIN user u ON u.id = c.user_id WHERE c.status = 1 ORDER BY c.id LIMIT 1");
+        RequestPostProcessor customer = user((String) cart.get("username"))
+                .authorities(new SimpleGrantedAuthority(SecurityConstants.Role.CUSTOMER));
+
+        statistics.clear();
+        mockMvc.perform(get("/client-api/carts").with(customer)).andExpect(status().isOk());
+
+        // giỏ hàng + các dòng giỏ hàng kèm phiên bản + sản phẩm (theo lô) + images (theo lô) + tồn kho các phiên bản,
+        // không phụ thuộc số dòng trong giỏ
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(5);
+
+        // Ghi lại đúng số lượng đang có để giỏ hàng không thay đổi
+        List<Map<String, Object>> items = jdbcTemplate.queryForList("SELECT variant_id AS variantId, quantity " +
+                "FROM cart_variant WHERE cart_id = ?", cart.get("id")).stream()
+                .map(item -> Map.of("variantId", item.get("variantId"), "quantity", item.get("quantity")))
+                .collect(Collectors.toList());
+        String request = new ObjectMapper().writeValueAsString(Map.of(
+                "cartId", cart.get("id"),
+                "cartItems", items,
+                "status", 1,
+                "updateQuantityType", "OVERRIDE"));
+
+        statistics.clear();
+        mockMvc.perform(post("/client-api/carts").with(customer).contentType(MediaType.APPLICATION_JSON).content(request))
+                .andExpect(status().isOk());
+
+        // giỏ hàng + các dòng giỏ hàng + tồn kho để kiểm tra số lượng
+        // + tồn kho, sản phẩm và images (theo lô) khi ánh xạ phản hồi
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(6);
+    }
+
+}
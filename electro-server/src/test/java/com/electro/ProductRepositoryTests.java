@@ -1,25 +1,40 @@
 package com.electro;
 
+import com.electro.entity.general.Image;
 import com.electro.entity.product.Product;
+import com.electro.entity.product.Variant;
+import com.electro.repository.CursorSlice;
+import com.electro.repository.product.CategoryTreeIndex;
+import com.electro.repository.product.ProductFetchPlan;
 import com.electro.repository.product.ProductRepository;
+import com.electro.repository.product.ProductSearchIndex;
+import com.electro.repository.product.ProductSortIndex;
+import com.electro.utils.CursorUtils;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
 @ExtendWith(SpringExtension.class)
 @DataJpaTest
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ProductSearchIndex.class, CategoryTreeIndex.class, ProductSortIndex.class})
 public class ProductRepositoryTests {
 
     @Autowired
@@ -30,6 +45,8 @@ public class ProductRepositoryTests {
     private TestEntityManager entityManager;
     @Autowired
     private ProductRepository productRepository;
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
 
     @Test
     void injectedComponentsAreNotNull() {
@@ -47,4 +64,123 @@ public class ProductRepositoryTests {
         products.map(Product::getName).forEach(System.out::println);
     }
 
+    @Test
+    void findByParamsPagesInDatabase() {
+        int size = 5;
+        Page<Product> firstPage = productRepository.findByParams(null, null, null, false, true, PageRequest.of(0, size));
+        Page<Product> secondPage = productRepository.findByParams(null, null, null, false, true, PageRequest.of(1, size));
+
+        assertThat(firstPage.getContent().size()).isLessThanOrEqualTo(size);
+        assertThat(secondPage.getTotalElements()).isEqualTo(firstPage.getTotalElements());
+        assertThat(firstPage.getContent()).doesNotContainAnyElementsOf(secondPage.getContent());
+    }
+
+    @Test
+    void findProductIdsByParamsAfterMatchesOffsetPages() {
+        // Dữ liệu mẫu có hơn 100 sản phẩm đã nhập kho nên luôn có trang thứ hai
+        int size = 5;
+        Page<Product> offsetPage = productRepository.findByParams(null, "lowest-price", null, false, false, PageRequest.of(0, size * 2));
+
+        CursorSlice<Long> firstSlice = productRepository.findProductIdsByParamsAfter(null, "lowest-price", null, false, false, "", size);
+        assertThat(firstSlice.getContent()).hasSize(size);
+        assertThat(firstSlice.getNextCursor()).isNotNull();
+
+        CursorSlice<Long> secondSlice = productRepository
+                .findProductIdsByParamsAfter(null, "lowest-price", null, false, false, firstSlice.getNextCursor(), size);
+        assertThat(firstSlice.getContent()).doesNotContainAnyElementsOf(secondSlice.getContent());
+        assertThat(secondSlice.getContent().size() + firstSlice.getContent().size())
+                .isEqualTo(offsetPage.getContent().size());
+    }
+
+    @Test
+    void relevancePageKeepsSearchOrder() {
+        List<Long> searchedIds = new ArrayList<>(productSearchIndex.search("laptop").keySet());
+
+        Page<Long> page = productRepository.findProductIdsByParams(null, null, "laptop", false, false, PageRequest.of(0, 5));
+        CursorSlice<Long> slice = productRepository.findProductIdsByParamsAfter(null, null, "laptop", false, false, "", 5);
+
+        assertThat(searchedIds).containsSubsequence(page.getContent());
+        assertThat(slice.getContent()).isEqualTo(page.getContent());
+        assertThat(page.getTotalElements()).isLessThanOrEqualTo(searchedIds.size());
+    }
+
+    @Test
+    void relevanceCursorSeeksByScoreWhenProductIsGone() {
+        // Dữ liệu mẫu có nhiều hơn 2 laptop nên luôn có trang thứ hai
+        int size = 2;
+        CursorSlice<Long> firstSlice = productRepository.findProductIdsByParamsAfter(null, null, "laptop", false, false, "", size);
+        assertThat(firstSlice.getNextCursor()).isNotNull();
+
+        // Cùng điểm với phần tử cuối nhưng id không còn trong kết quả: tiếp tục sau vị trí đó thay vì quay về trang đầu
+        String score = CursorUtils.decode(firstSlice.getNextCursor()).getKey();
+        CursorSlice<Long> missingSlice = productRepository.findProductIdsByParamsAfter(null, null, "laptop", false, false,
+                CursorUtils.encode(score, Long.MAX_VALUE), size);
+
+        assertThat(missingSlice.getContent()).doesNotContainAnyElementsOf(firstSlice.getContent());
+    }
+
+    @Test
+    void sortedPageFromIndexMatchesKeysetOrder() {
+        int size = 5;
+
+        for (String sort : List.of("lowest-price", "highest-price")) {
+            Page<Long> indexPage = productRepository.findProductIdsByParams(null, sort, null, false, false, PageRequest.of(0, size));
+            CursorSlice<Long> keysetSlice = productRepository.findProductIdsByParamsAfter(null, sort, null, false, false, "", size);
+
+            assertThat(indexPage.getContent()).isEqualTo(keysetSlice.getContent());
+        }
+    }
+
+    @Test
+    void listingPageStaysWithinStatementBudget() {
+        Statistics statistics = startCountingStatements();
+
+        // id trang hiện tại + đếm + products/variants + images (theo lô)
+        Page<Product> products = productRepository.findByParams(null, null, null, false, true, PageRequest.of(0, 12));
+        products.forEach(product -> {
+            product.getImages().stream().map(Image::getPath).forEach(path -> {});
+            product.getVariants().stream().map(Variant::getPrice).forEach(price -> {});
+        });
+
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(4);
+    }
+
+    @Test
+    void detailStaysWithinStatementBudget() {
+        Optional<Long> productId = productRepository.findAll(PageRequest.of(0, 1)).stream().findFirst().map(Product::getId);
+        entityManager.clear();
+
+        Statistics statistics = startCountingStatements();
+
+        // product kèm variants/brand/tags/category + images, breadcrumb và danh mục con đọc từ cây danh mục trong bộ nhớ
+        productId.flatMap(id -> productRepository.findById(id, ProductFetchPlan.DETAIL)).ifPresent(product -> {
+            product.getImages().stream().map(Image::getPath).forEach(path -> {});
+            product.getVariants().stream().map(Variant::getPrice).forEach(price -> {});
+            product.getTags().forEach(tag -> tag.getName());
+            Optional.ofNullable(product.getBrand()).ifPresent(brand -> brand.getName());
+            Optional.ofNullable(product.getCategory()).ifPresent(category -> category.getId());
+        });
+
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(3);
+    }
+
+    @Test
+    void adminPageStaysWithinStatementBudget() {
+        Statistics statistics = startCountingStatements();
+
+        // trang sản phẩm kèm quan hệ nhiều-một + đếm
+        Page<Product> products = productRepository.findAll((root, query, cb) -> null, PageRequest.of(0, 10));
+        products.forEach(product -> Optional.ofNullable(product.getCategory()).ifPresent(category -> category.getName()));
+
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+    }
+
+    private Statistics startCountingStatements() {
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        return statistics;
+    }
+
 }
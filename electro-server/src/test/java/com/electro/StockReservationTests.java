@@ -0,0 +1,173 @@
+package com.electro;
+
+import com.electro.entity.cashbook.PaymentMethodType;
+import com.electro.entity.order.Order;
+import com.electro.entity.order.OrderVariant;
+import com.electro.entity.product.Variant;
+import com.electro.service.inventory.StockReservationService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Đặt hàng đồng thời trên CSDL thật: câu UPDATE có điều kiện của variant_stock và rollback của từng giao dịch
+ * phải giữ cho phần đang giữ không vượt quá số lượng có thể bán.
+ */
+@SpringBootTest
+public class StockReservationTests {
+
+    private static final int STOCK = 200;
+    private static final int CHECKOUT_COUNT = 2000;
+    private static final int THREAD_COUNT = 32;
+
+    @Autowired
+    private StockReservationService stockReservationService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private List<Long> variantIds;
+    private List<Map<String, Object>> originalStocks;
+    private long orderId;
+    private long lastReservationId;
+
+    @BeforeEach
+    void setup() {
+        variantIds = jdbcTemplate.queryForList("SELECT variant_id FROM variant_stock ORDER BY variant_id LIMIT 3", Long.class);
+        assertThat(variantIds).hasSize(3);
+
+        originalStocks = jdbcTemplate.queryForList("SELECT variant_id, can_be_sold, reserved FROM variant_stock " +
+                "WHERE variant_id IN (?, ?, ?)", variantIds.toArray());
+        jdbcTemplate.update("UPDATE variant_stock SET can_be_sold = ?, reserved = 0 WHERE variant_id IN (?, ?, ?)",
+                STOCK, variantIds.get(0), variantIds.get(1), variantIds.get(2));
+
+        // Các lượt giữ hàng cùng gắn vào một đơn hàng có sẵn, chỉ cần khóa ngoại hợp lệ
+        orderId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM `order`", Long.class);
+        lastReservationId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM stock_reservation", Long.class);
+    }
+
+    @AfterEach
+    void cleanup() {
+        jdbcTemplate.update("DELETE FROM stock_reservation WHERE id > ?", lastReservationId);
+        originalStocks.forEach(stock -> jdbcTemplate.update("UPDATE variant_stock SET can_be_sold = ?, reserved = ? WHERE variant_id = ?",
+                stock.get("can_be_sold"), stock.get("reserved"), stock.get("variant_id")));
+    }
+
+    @Test
+    void concurrentSingleUnitCheckoutsReserveExactlyTheStock() throws Exception {
+        Long variantId = variantIds.get(0);
+        List<Order> orders = new ArrayList<>();
+
+        for (int i = 0; i < CHECKOUT_COUNT; i++) {
+            orders.add(order(Map.of(variantId, 1)));
+        }
+
+        AtomicInteger succeeded = checkoutConcurrently(orders);
+
+        assertThat(succeeded.get()).isEqualTo(STOCK);
+        assertThat(reserved(variantId)).isEqualTo(STOCK);
+        assertThat(reservedRows(variantId)).isEqualTo(STOCK);
+    }
+
+    @Test
+    void concurrentMultiVariantCheckoutsNeverOversell() throws Exception {
+        Random random = new Random(42);
+        List<Order> orders = new ArrayList<>();
+
+        // Mỗi đơn mua 1-3 sản phẩm của 1-3 variant, đơn thiếu hàng ở variant sau phải trả lại variant đã giữ trước đó
+        for (int i = 0; i < CHECKOUT_COUNT; i++) {
+            Map<Long, Integer> lines = new HashMap<>();
+            int lineCount = 1 + random.nextInt(3);
+            for (int j = 0; j < lineCount; j++) {
+                lines.put(variantIds.get(random.nextInt(variantIds.size())), 1 + random.nextInt(3));
+            }
+            orders.add(order(lines));
+        }
+
+        AtomicInteger succeeded = checkoutConcurrently(orders);
+
+        assertThat(succeeded.get()).isPositive().isLessThan(CHECKOUT_COUNT);
+
+        for (Long variantId : variantIds) {
+            int reserved = reserved(variantId);
+            int canBeSold = jdbcTemplate.queryForObject("SELECT can_be_sold FROM variant_stock WHERE variant_id = ?",
+                    Integer.class, variantId);
+
+            assertThat(reserved).isLessThanOrEqualTo(canBeSold);
+            // Phần giữ trên bảng tồn kho khớp với các dòng giữ hàng đã commit, không sót phần của giao dịch bị rollback
+            assertThat(reserved).isEqualTo(reservedRows(variantId));
+        }
+    }
+
+    private AtomicInteger checkoutConcurrently(List<Order> orders) throws Exception {
+        AtomicInteger succeeded = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (Order order : orders) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    stockReservationService.reserve(order);
+                    succeeded.incrementAndGet();
+                } catch (RuntimeException e) {
+                    // Không đủ hàng: giao dịch đã bị rollback
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+
+        executor.shutdown();
+
+        return succeeded;
+    }
+
+    private Order order(Map<Long, Integer> lines) {
+        Order order = new Order().setPaymentMethodType(PaymentMethodType.CASH);
+        order.setId(orderId);
+
+        Set<OrderVariant> orderVariants = new HashSet<>();
+        lines.forEach((variantId, quantity) -> {
+            Variant variant = new Variant();
+            variant.setId(variantId);
+            orderVariants.add(new OrderVariant().setOrder(order).setVariant(variant).setQuantity(quantity));
+        });
+
+        return order.setOrderVariants(orderVariants);
+    }
+
+    private int reserved(Long variantId) {
+        return jdbcTemplate.queryForObject("SELECT reserved FROM variant_stock WHERE variant_id = ?", Integer.class, variantId);
+    }
+
+    private int reservedRows(Long variantId) {
+        return jdbcTemplate.queryForObject("SELECT COALESCE(SUM(quantity), 0) FROM stock_reservation " +
+                "WHERE id > ? AND variant_id = ? AND status = 1", Integer.class, lastReservationId, variantId);
+    }
+
+}
@@ -0,0 +1,155 @@
+package com.electro.benchmark;
+
+import com.electro.entity.inventory.Docket;
+import com.electro.entity.inventory.DocketVariant;
+import com.electro.entity.product.Variant;
+import com.electro.projection.inventory.InventoryIndices;
+import com.electro.utils.InventoryUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * So sánh cách tính chỉ số tồn kho cũ (HashMap theo khóa chuỗi, List.of(1, 2).contains) với cách tính mới
+ * trên lịch sử 10 nghìn dòng phiếu. Chạy bằng hàm main sau khi biên dịch test
+ * ({@code mvn test-compile exec:java -Dexec.mainClass=... -Dexec.classpathScope=test}), kết quả gồm cả
+ * số byte cấp phát mỗi lần gọi (gc.alloc.rate.norm).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InventoryIndicesBenchmark {
+
+    @Param({"10000"})
+    private int transactionCount;
+
+    private List<DocketVariant> transactions;
+
+    private int[] types;
+    private int[] statuses;
+    private int[] quantities;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        Variant variant = new Variant();
+        variant.setId(1L);
+
+        transactions = new ArrayList<>(transactionCount);
+        types = new int[transactionCount];
+        statuses = new int[transactionCount];
+        quantities = new int[transactionCount];
+
+        for (int i = 0; i < transactionCount; i++) {
+            types[i] = 1 + random.nextInt(2);
+            statuses[i] = 1 + random.nextInt(4);
+            quantities[i] = 1 + random.nextInt(20);
+
+            Docket docket = new Docket().setType(types[i]).setStatus(statuses[i]);
+            transactions.add(new DocketVariant().setDocket(docket).setVariant(variant).setQuantity(quantities[i]));
+        }
+
+        // Ba cách tính phải cho cùng kết quả thì số đo mới có ý nghĩa
+        Map<String, Integer> legacy = legacyMap();
+        InventoryIndices expected = new InventoryIndices(legacy.get("inventory"), legacy.get("waitingForDelivery"),
+                legacy.get("canBeSold"), legacy.get("areComing"));
+
+        if (!expected.equals(typedFromEntities()) || !expected.equals(primitiveArrays())) {
+            throw new IllegalStateException("Inventory indices mismatch between implementations");
+        }
+    }
+
+    @Benchmark
+    public Map<String, Integer> legacyMap() {
+        int inventory = 0;
+        int waitingForDelivery = 0;
+        int areComing = 0;
+
+        for (DocketVariant transaction : transactions) {
+            if (transaction.getDocket().getType().equals(1) && transaction.getDocket().getStatus().equals(3)) {
+                inventory += transaction.getQuantity();
+            }
+            if (transaction.getDocket().getType().equals(2) && transaction.getDocket().getStatus().equals(3)) {
+                inventory -= transaction.getQuantity();
+            }
+            if (transaction.getDocket().getType().equals(2) && List.of(1, 2).contains(transaction.getDocket().getStatus())) {
+                waitingForDelivery += transaction.getQuantity();
+            }
+            if (transaction.getDocket().getType().equals(1) && List.of(1, 2).contains(transaction.getDocket().getStatus())) {
+                areComing += transaction.getQuantity();
+            }
+        }
+
+        Map<String, Integer> indices = new HashMap<>();
+        indices.put("inventory", inventory);
+        indices.put("waitingForDelivery", waitingForDelivery);
+        indices.put("canBeSold", inventory - waitingForDelivery);
+        indices.put("areComing", areComing);
+        return indices;
+    }
+
+    @Benchmark
+    public InventoryIndices typedFromEntities() {
+        return InventoryUtils.calculateInventoryIndices(transactions);
+    }
+
+    // Cùng phép tính trên các cột (loại phiếu, trạng thái, số lượng) lưu ở mảng nguyên thủy, chỉ để đo chi phí
+    // của việc đi qua entity; mã chính không đọc dòng phiếu theo dạng này
+    @Benchmark
+    public InventoryIndices primitiveArrays() {
+        int inventory = 0;
+        int waitingForDelivery = 0;
+        int areComing = 0;
+
+        for (int i = 0; i < transactionCount; i++) {
+            if (statuses[i] == 3) {
+                if (types[i] == 1) {
+                    inventory += quantities[i];
+                } else if (types[i] == 2) {
+                    inventory -= quantities[i];
+                }
+            } else if (statuses[i] == 1 || statuses[i] == 2) {
+                if (types[i] == 2) {
+                    waitingForDelivery += quantities[i];
+                } else if (types[i] == 1) {
+                    areComing += quantities[i];
+                }
+            }
+        }
+
+        return InventoryIndices.of(inventory, waitingForDelivery, areComing);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(InventoryIndicesBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+
+        new Runner(options).run();
+    }
+
+}
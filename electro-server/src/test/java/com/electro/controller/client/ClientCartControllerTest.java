@@ -4,12 +4,12 @@ import com.electro.dto.client.*;
 import com.electro.entity.cart.Cart;
 import com.electro.entity.cart.CartVariant;
 import com.electro.entity.cart.CartVariantKey;
+import com.electro.entity.inventory.VariantStock;
 import com.electro.exception.ResourceNotFoundException;
 import com.electro.mapper.client.ClientCartMapper;
 import com.electro.repository.cart.CartRepository;
 import com.electro.repository.cart.CartVariantRepository;
-import com.electro.repository.inventory.DocketVariantRepository;
-import com.electro.utils.InventoryUtils;
+import com.electro.service.inventory.VariantStockService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.junit.jupiter.api.BeforeEach;
@@ -32,7 +32,7 @@ public class ClientCartControllerTest {
     private CartRepository cartRepository;
 
     @Mock
-    private DocketVariantRepository docketVariantRepository;
+    private VariantStockService variantStockService;
 
     @Mock
     private ClientCartMapper clientCartMapper;
@@ -105,7 +105,6 @@ public class ClientCartControllerTest {
         ClientCartResponse response = new ClientCartResponse();
 
         when(clientCartMapper.requestToEntity(request)).thenReturn(cartBeforeSave);
-        when(docketVariantRepository.findByVariantId(anyLong())).thenReturn(Collections.emptyList());
         when(cartRepository.save(cartBeforeSave)).thenReturn(savedCart);
         when(clientCartMapper.entityToResponse(savedCart)).thenReturn(response);
 
@@ -133,7 +132,6 @@ public class ClientCartControllerTest {
 
         when(cartRepository.findById(100L)).thenReturn(Optional.of(existingCart));
         when(clientCartMapper.partialUpdate(existingCart, request)).thenReturn(updatedCart);
-        when(docketVariantRepository.findByVariantId(anyLong())).thenReturn(Collections.emptyList());
         when(cartRepository.save(updatedCart)).thenReturn(updatedCart);
         when(clientCartMapper.entityToResponse(updatedCart)).thenReturn(response);
 
@@ -185,12 +183,8 @@ public class ClientCartControllerTest {
         request.setCartItems(Set.of(new ClientCartVariantRequest()));
 
         when(clientCartMapper.requestToEntity(request)).thenReturn(cart);
-        when(docketVariantRepository.findByVariantId(10L)).thenReturn(Collections.emptyList());
         // Giả sử tồn kho trả về là 50
-        Map<String, Integer> fakeInventory = new HashMap<>();
-        fakeInventory.put("canBeSold", 50);
-        mockStatic(InventoryUtils.class).when(() -> InventoryUtils.calculateInventoryIndices(any()))
-                .thenReturn(fakeInventory);
+        when(variantStockService.findByVariantIds(Set.of(10L))).thenReturn(Map.of(10L, new VariantStock().setVariantId(10L).setCanBeSold(50)));
 
         // Act & Assert
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
@@ -235,12 +229,8 @@ public class ClientCartControllerTest {
 
         when(cartRepository.findById(1L)).thenReturn(Optional.of(existingCart));
         when(clientCartMapper.partialUpdate(existingCart, request)).thenReturn(updatedCart);
-        when(docketVariantRepository.findByVariantId(100L)).thenReturn(Collections.emptyList());
         // Giả sử tồn kho trả về là 50
-        Map<String, Integer> fakeInventory = new HashMap<>();
-        fakeInventory.put("canBeSold", 50);
-        mockStatic(InventoryUtils.class).when(() -> InventoryUtils.calculateInventoryIndices(any()))
-                .thenReturn(fakeInventory);
+        when(variantStockService.findByVariantIds(Set.of(100L))).thenReturn(Map.of(100L, new VariantStock().setVariantId(100L).setCanBeSold(50)));
         when(cartRepository.save(updatedCart)).thenReturn(updatedCart);
         when(clientCartMapper.entityToResponse(updatedCart)).thenReturn(response);
 
@@ -287,12 +277,8 @@ public class ClientCartControllerTest {
 
         when(cartRepository.findById(1L)).thenReturn(Optional.of(existingCart));
         when(clientCartMapper.partialUpdate(existingCart, request)).thenReturn(updatedCart);
-        when(docketVariantRepository.findByVariantId(100L)).thenReturn(Collections.emptyList());
 
-        Map<String, Integer> fakeInventory = new HashMap<>();
-        fakeInventory.put("canBeSold", 5);
-        mockStatic(InventoryUtils.class).when(() -> InventoryUtils.calculateInventoryIndices(any()))
-                .thenReturn(fakeInventory);
+        when(variantStockService.findByVariantIds(Set.of(100L))).thenReturn(Map.of(100L, new VariantStock().setVariantId(100L).setCanBeSold(5)));
 //        assertThrows(RuntimeException.class, () -> clientCartController.saveCart(request));
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
             clientCartController.saveCart(request);
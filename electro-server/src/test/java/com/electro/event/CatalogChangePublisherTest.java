@@ -0,0 +1,87 @@
+package com.electro.event;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatalogChangePublisherTest {
+
+    private final List<Object> published = new ArrayList<>();
+    private final CatalogChangePublisher publisher = new CatalogChangePublisher(published::add);
+
+    @AfterEach
+    void cleanup() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.unbindResourceIfPossible(publisher);
+    }
+
+    @Test
+    void publish_outsideTransaction_shouldPublishImmediately() {
+        publisher.publish(CatalogChangedEvent.ofProducts(List.of(1L)));
+
+        assertEquals(1, published.size());
+    }
+
+    @Test
+    void publish_insideTransaction_shouldMergeIntoOneEventBeforeCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        // Lưu một sản phẩm kèm hai phiên bản và một hình ảnh
+        publisher.publish(CatalogChangedEvent.ofProducts(List.of(1L)));
+        publisher.publish(CatalogChangedEvent.ofProducts(List.of(1L)));
+        publisher.publish(CatalogChangedEvent.ofProducts(List.of(1L)));
+        publisher.publish(CatalogChangedEvent.ofProductContents(List.of(2L)));
+        publisher.publish(CatalogChangedEvent.ofCategories(List.of(3L)));
+
+        assertTrue(published.isEmpty());
+
+        commit();
+
+        assertEquals(1, published.size());
+        CatalogChangedEvent event = (CatalogChangedEvent) published.get(0);
+        assertEquals(Set.of(1L, 2L), event.getProductIds());
+        assertEquals(Set.of(3L), event.getCategoryIds());
+        assertTrue(event.isMembershipChanged());
+        assertNull(TransactionSynchronizationManager.getResource(publisher));
+    }
+
+    @Test
+    void publish_rolledBackTransaction_shouldPublishNothing() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        publisher.publish(CatalogChangedEvent.ofProducts(List.of(1L)));
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertTrue(published.isEmpty());
+        assertNull(TransactionSynchronizationManager.getResource(publisher));
+    }
+
+    @Test
+    void merge_contentsOnly_shouldKeepMembershipUnchanged() {
+        CatalogChangedEvent event = CatalogChangedEvent.merge(List.of(
+                CatalogChangedEvent.ofProductContents(List.of(1L)),
+                CatalogChangedEvent.ofBrands(List.of(4L))));
+
+        assertEquals(Set.of(1L), event.getProductIds());
+        assertEquals(Set.of(4L), event.getBrandIds());
+        assertFalse(event.isMembershipChanged());
+    }
+
+    private void commit() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        synchronizations.forEach(synchronization -> synchronization.beforeCommit(false));
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+    }
+
+}
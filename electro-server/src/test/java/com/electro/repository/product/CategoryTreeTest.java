@@ -0,0 +1,79 @@
+package com.electro.repository.product;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CategoryTreeTest {
+
+    private final CategoryTree tree = new CategoryTree(3, List.of(
+            new Object[] {1L, "Điện thoại", "dien-thoai", null},
+            new Object[] {2L, "Laptop", "laptop", null},
+            new Object[] {3L, "Samsung", "dien-thoai-samsung", 1L},
+            new Object[] {4L, "Apple", "dien-thoai-apple", 1L},
+            new Object[] {5L, "Galaxy S", "galaxy-s", 3L}
+    ));
+
+    @Test
+    void constructor_shouldKeepRowOrderForRootsAndChildren() {
+        assertEquals(3, tree.getVersion());
+        assertEquals(List.of(1L, 2L), ids(tree.getRoots()));
+        assertEquals(List.of(3L, 4L), ids(tree.findById(1L).orElseThrow().getChildren()));
+        assertEquals(Set.of(1L, 2L, 3L, 4L, 5L), tree.getIds());
+    }
+
+    @Test
+    void findBySlug_shouldReturnNode() {
+        assertEquals(Optional.of(3L), tree.findBySlug("dien-thoai-samsung").map(CategoryTree.Node::getId));
+        assertEquals(Optional.empty(), tree.findBySlug("may-tinh-bang"));
+    }
+
+    @Test
+    void findSubtreeIds_shouldIncludeDescendants() {
+        assertEquals(Set.of(1L, 3L, 4L, 5L), tree.findSubtreeIds(1L));
+        assertEquals(Set.of(2L), tree.findSubtreeIds(2L));
+        assertTrue(tree.findSubtreeIds(99L).isEmpty());
+    }
+
+    @Test
+    void findAncestorIds_shouldGoBottomUp() {
+        assertEquals(List.of(5L, 3L, 1L), tree.findAncestorIds(5L));
+        assertEquals(List.of(2L), tree.findAncestorIds(2L));
+        assertTrue(tree.findAncestorIds(99L).isEmpty());
+    }
+
+    @Test
+    void getParent_shouldReturnNullForRoot() {
+        assertNull(tree.getParent(tree.findById(1L).orElseThrow()));
+        assertEquals(1L, tree.getParent(tree.findById(3L).orElseThrow()).getId());
+    }
+
+    @Test
+    void cycle_shouldNotLoopForever() {
+        CategoryTree cyclicTree = new CategoryTree(1, List.of(
+                new Object[] {1L, "A", "a", 2L},
+                new Object[] {2L, "B", "b", 1L}
+        ));
+
+        assertEquals(Set.of(1L, 2L), cyclicTree.findSubtreeIds(1L));
+        assertEquals(List.of(1L, 2L), cyclicTree.findAncestorIds(1L));
+        assertTrue(cyclicTree.getRoots().isEmpty());
+    }
+
+    @Test
+    void empty_shouldHaveNoNodes() {
+        assertTrue(CategoryTree.EMPTY.getRoots().isEmpty());
+        assertTrue(CategoryTree.EMPTY.getIds().isEmpty());
+        assertEquals(Optional.empty(), CategoryTree.EMPTY.findById(1L));
+    }
+
+    private static List<Long> ids(List<CategoryTree.Node> nodes) {
+        return nodes.stream().map(CategoryTree.Node::getId).collect(Collectors.toList());
+    }
+
+}
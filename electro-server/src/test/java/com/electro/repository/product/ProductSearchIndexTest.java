@@ -0,0 +1,121 @@
+package com.electro.repository.product;
+
+import com.electro.entity.product.Brand;
+import com.electro.entity.product.Category;
+import com.electro.entity.product.Product;
+import com.electro.entity.product.Tag;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+public class ProductSearchIndexTest {
+
+    @Mock
+    private EntityManager em;
+
+    @Mock
+    private TypedQuery<Product> query;
+
+    private ProductSearchIndex productSearchIndex;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+
+        when(em.createQuery(anyString(), eq(Product.class))).thenReturn(query);
+        when(query.setHint(anyString(), any())).thenReturn(query);
+        when(query.setParameter(anyString(), any())).thenReturn(query);
+        when(query.getResultList()).thenReturn(List.of(
+                product(1L, "Điện thoại Samsung Galaxy S22", "SS-S22", "Điện thoại", "Samsung"),
+                product(2L, "Laptop Dellmax Pro", "DM-PRO", "Laptop", "Dellmax"),
+                product(3L, "Sạc Samsung 25W", "SS-25W", "Phụ kiện", "Samsung", "Sạc nhanh"),
+                product(4L, "Laptop Dell XPS 13", "DL-XPS13", "Laptop", "Dell")));
+
+        productSearchIndex = new ProductSearchIndex(em);
+        productSearchIndex.rebuild();
+    }
+
+    @Test
+    void search_shouldIgnoreMarksAndCase() {
+        assertEquals(List.of(1L), new ArrayList<>(productSearchIndex.search("dien thoai").keySet()));
+        assertEquals(List.of(1L), new ArrayList<>(productSearchIndex.search("ĐIỆN Thoại").keySet()));
+    }
+
+    @Test
+    void search_prefix_shouldMatchWithHalfWeight() {
+        Map<Long, Double> result = productSearchIndex.search("sams");
+
+        // Cùng điểm thì id nhỏ hơn đứng trước
+        assertEquals(List.of(1L, 3L), new ArrayList<>(result.keySet()));
+        assertEquals(1.5, result.get(1L));
+        assertEquals(1.5, result.get(3L));
+    }
+
+    @Test
+    void search_exactToken_shouldRankAbovePrefix() {
+        Map<Long, Double> result = productSearchIndex.search("dell");
+
+        assertEquals(List.of(4L, 2L), new ArrayList<>(result.keySet()));
+        assertEquals(3.0, result.get(4L));
+        assertEquals(1.5, result.get(2L));
+    }
+
+    @Test
+    void search_shouldRequireEveryToken() {
+        assertEquals(List.of(3L), new ArrayList<>(productSearchIndex.search("samsung sac").keySet()));
+        assertTrue(productSearchIndex.search("samsung iphone").isEmpty());
+    }
+
+    @Test
+    void search_shouldSumScoresAcrossTokens() {
+        // "laptop" (tên 3, danh mục 2 → 3) + "xps" (tên 3)
+        assertEquals(Map.of(4L, 6.0), productSearchIndex.search("laptop xps"));
+    }
+
+    @Test
+    void reindex_missingProduct_shouldRemoveItFromIndex() {
+        when(query.getResultList()).thenReturn(List.of());
+
+        productSearchIndex.reindex(List.of(3L));
+
+        assertTrue(productSearchIndex.search("sac").isEmpty());
+        assertEquals(List.of(1L), new ArrayList<>(productSearchIndex.search("samsung").keySet()));
+    }
+
+    private static Product product(Long id, String name, String code, String categoryName, String brandName, String... tagNames) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name).setCode(code).setSlug(code.toLowerCase());
+
+        Category category = new Category();
+        category.setName(categoryName);
+        product.setCategory(category);
+
+        Brand brand = new Brand();
+        brand.setName(brandName);
+        product.setBrand(brand);
+
+        Set<Tag> tags = new java.util.HashSet<>();
+        for (String tagName : tagNames) {
+            tags.add(new Tag().setName(tagName));
+        }
+        product.setTags(tags);
+
+        return product;
+    }
+
+}
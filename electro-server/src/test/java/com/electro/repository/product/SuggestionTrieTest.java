@@ -0,0 +1,92 @@
+package com.electro.repository.product;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SuggestionTrieTest {
+
+    private SuggestionTrie trie;
+
+    @BeforeEach
+    void setUp() {
+        trie = new SuggestionTrie(3);
+        trie.put("product:1", "Samsung Galaxy S22", "samsung-galaxy-s22", "product", 5);
+        trie.put("product:2", "Điện thoại iPhone 13", "iphone-13", "product", 8);
+        trie.put("product:3", "iPhoneX Cũ", "iphonex-cu", "product", 2);
+        trie.put("brand:1", "Samsung", "samsung", "brand", 5);
+    }
+
+    @Test
+    void search_shouldMatchFoldedPrefix() {
+        assertEquals(List.of("product:2"), keys(trie.search("ĐIỆN tho", 10)));
+        assertEquals(List.of("product:2"), keys(trie.search("dien thoai", 10)));
+    }
+
+    @Test
+    void search_shouldMatchWordStartsInsideName() {
+        assertEquals(List.of("product:1"), keys(trie.search("galaxy", 10)));
+        assertEquals(List.of("product:1"), keys(trie.search("s22", 10)));
+    }
+
+    @Test
+    void search_shouldRankByScoreThenName() {
+        // Cùng điểm thì xếp theo tên: "Samsung" trước "Samsung Galaxy S22"
+        assertEquals(List.of("brand:1", "product:1"), keys(trie.search("sam", 10)));
+        assertEquals(List.of("product:2", "product:3"), keys(trie.search("iphone", 10)));
+    }
+
+    @Test
+    void search_shouldKeepTrailingSpace() {
+        assertEquals(List.of("product:2"), keys(trie.search("iphone ", 10)));
+    }
+
+    @Test
+    void search_shouldRespectLimitAndMaxResults() {
+        trie.put("product:4", "Samsung Galaxy A53", "samsung-galaxy-a53", "product", 1);
+        trie.put("product:5", "Samsung Galaxy Z Fold", "samsung-galaxy-z-fold", "product", 9);
+
+        assertEquals(List.of("product:5"), keys(trie.search("samsung", 1)));
+        assertEquals(List.of("product:5", "brand:1", "product:1"), keys(trie.search("samsung", 10)));
+    }
+
+    @Test
+    void search_withBlankOrUnknownQuery_shouldReturnNothing() {
+        assertTrue(trie.search("   ", 10).isEmpty());
+        assertTrue(trie.search("nokia", 10).isEmpty());
+    }
+
+    @Test
+    void put_withSameKey_shouldReplaceEntry() {
+        trie.put("product:1", "Samsung Galaxy S23", "samsung-galaxy-s23", "product", 7);
+
+        assertEquals(4, trie.size());
+        assertEquals(Optional.of(7.0), trie.findScore("product:1"));
+        assertTrue(trie.search("galaxy s22", 10).isEmpty());
+        assertEquals(List.of("product:1", "brand:1"), keys(trie.search("samsung", 10)));
+    }
+
+    @Test
+    void remove_shouldDropEntryAndRefillTopResults() {
+        trie.put("product:4", "Samsung Galaxy A53", "samsung-galaxy-a53", "product", 1);
+        trie.put("product:5", "Samsung Galaxy Z Fold", "samsung-galaxy-z-fold", "product", 9);
+
+        trie.remove("product:5");
+
+        assertEquals(5, trie.size());
+        assertEquals(Optional.empty(), trie.findScore("product:5"));
+        assertTrue(trie.search("galaxy z", 10).isEmpty());
+        // Mục bị đẩy ra khỏi danh sách điểm cao được đưa trở lại
+        assertEquals(List.of("brand:1", "product:1", "product:4"), keys(trie.search("samsung", 10)));
+    }
+
+    private static List<String> keys(List<SuggestionTrie.Entry> entries) {
+        return entries.stream().map(SuggestionTrie.Entry::getKey).collect(Collectors.toList());
+    }
+
+}
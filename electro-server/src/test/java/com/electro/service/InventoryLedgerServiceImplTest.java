@@ -0,0 +1,207 @@
+package com.electro.service;
+
+import com.electro.dto.inventory.InventoryAsOfResponse;
+import com.electro.entity.inventory.InventoryCheckpoint;
+import com.electro.entity.inventory.Warehouse;
+import com.electro.entity.product.Variant;
+import com.electro.projection.inventory.InventoryLedgerSum;
+import com.electro.repository.inventory.InventoryCheckpointRepository;
+import com.electro.repository.inventory.InventoryLedgerRepository;
+import com.electro.repository.inventory.WarehouseRepository;
+import com.electro.service.inventory.InventoryLedgerServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.persistence.EntityManager;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class InventoryLedgerServiceImplTest {
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    // Mốc chốt sổ đầu ngày 11/03 và 13/03, có biến động trong ngày 10/03 và 12/03
+    private static final Instant FIRST_CUTOFF = atStartOfDay(LocalDate.of(2024, 3, 11));
+    private static final Instant SECOND_CUTOFF = atStartOfDay(LocalDate.of(2024, 3, 13));
+
+    @InjectMocks
+    private InventoryLedgerServiceImpl inventoryLedgerService;
+
+    @Mock
+    private InventoryLedgerRepository inventoryLedgerRepository;
+    @Mock
+    private InventoryCheckpointRepository inventoryCheckpointRepository;
+    @Mock
+    private WarehouseRepository warehouseRepository;
+    @Mock
+    private EntityManager em;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(inventoryLedgerService, "checkpointSafetyLagMs", 600_000L);
+    }
+
+    @Test
+    void createCheckpoints_shouldAddDailySumsToPreviousCheckpoint() {
+        Variant variant = (Variant) new Variant().setId(1L);
+        Warehouse warehouse = (Warehouse) new Warehouse().setId(1L);
+
+        when(inventoryCheckpointRepository.findLastCheckpointAt(any())).thenReturn(Optional.empty());
+        when(inventoryLedgerRepository.findFirstCreatedAtAfter(Instant.EPOCH))
+                .thenReturn(Optional.of(at(LocalDate.of(2024, 3, 10), 10)));
+        when(inventoryLedgerRepository.findFirstCreatedAtAfter(FIRST_CUTOFF))
+                .thenReturn(Optional.of(at(LocalDate.of(2024, 3, 12), 9)));
+        when(inventoryLedgerRepository.findFirstCreatedAtAfter(SECOND_CUTOFF)).thenReturn(Optional.empty());
+
+        when(inventoryLedgerRepository.sumBetween(Instant.EPOCH, FIRST_CUTOFF))
+                .thenReturn(List.of(new InventoryLedgerSum(1L, 1L, 10L, 2L, 0L)));
+        when(inventoryLedgerRepository.sumBetween(FIRST_CUTOFF, SECOND_CUTOFF))
+                .thenReturn(List.of(new InventoryLedgerSum(1L, 1L, -3L, 1L, 5L)));
+
+        when(inventoryCheckpointRepository.findLatestByVariantIds(Set.of(1L), Instant.EPOCH)).thenReturn(List.of());
+        when(inventoryCheckpointRepository.findLatestByVariantIds(Set.of(1L), FIRST_CUTOFF))
+                .thenReturn(List.of(checkpoint(variant, warehouse, FIRST_CUTOFF, 10, 2, 0)));
+
+        when(em.getReference(Variant.class, 1L)).thenReturn(variant);
+        when(em.getReference(Warehouse.class, 1L)).thenReturn(warehouse);
+
+        assertEquals(2, inventoryLedgerService.createCheckpoints());
+
+        ArgumentCaptor<List<InventoryCheckpoint>> captor = ArgumentCaptor.forClass(List.class);
+        verify(inventoryCheckpointRepository, times(2)).saveAll(captor.capture());
+
+        InventoryCheckpoint first = captor.getAllValues().get(0).get(0);
+        assertEquals(FIRST_CUTOFF, first.getCheckpointAt());
+        assertEquals(10, first.getInventory());
+        assertEquals(2, first.getWaitingForDelivery());
+
+        // Ngày 11/03 không có biến động nên không có mốc, mốc 13/03 cộng dồn từ mốc 11/03
+        InventoryCheckpoint second = captor.getAllValues().get(1).get(0);
+        assertEquals(SECOND_CUTOFF, second.getCheckpointAt());
+        assertEquals(7, second.getInventory());
+        assertEquals(3, second.getWaitingForDelivery());
+        assertEquals(5, second.getAreComing());
+    }
+
+    @Test
+    void createCheckpoints_shouldResumeAfterLastCheckpoint() {
+        when(inventoryCheckpointRepository.findLastCheckpointAt(any())).thenReturn(Optional.of(SECOND_CUTOFF));
+        when(inventoryLedgerRepository.findFirstCreatedAtAfter(SECOND_CUTOFF)).thenReturn(Optional.empty());
+
+        assertEquals(0, inventoryLedgerService.createCheckpoints());
+
+        verify(inventoryLedgerRepository, never()).findFirstCreatedAtAfter(Instant.EPOCH);
+        verify(inventoryCheckpointRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void createCheckpoints_shouldSkipDayStillWithinSafetyLag() {
+        // Dòng sổ vừa ghi cách đây một phút: mốc của nó luôn sau now - 10 phút nên chưa được chốt
+        when(inventoryCheckpointRepository.findLastCheckpointAt(any())).thenReturn(Optional.empty());
+        when(inventoryLedgerRepository.findFirstCreatedAtAfter(Instant.EPOCH))
+                .thenReturn(Optional.of(Instant.now().minusSeconds(60)));
+
+        assertEquals(0, inventoryLedgerService.createCheckpoints());
+
+        verify(inventoryLedgerRepository, never()).sumBetween(any(), any());
+        verify(inventoryCheckpointRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void findAsOf_shouldAddLedgerAfterCheckpointPerWarehouse() {
+        Instant at = at(LocalDate.of(2024, 3, 12), 12);
+        Variant variant = (Variant) new Variant().setId(1L);
+        Warehouse firstWarehouse = (Warehouse) new Warehouse().setCode("HN").setName("Kho Hà Nội").setId(1L);
+        Warehouse secondWarehouse = (Warehouse) new Warehouse().setCode("HCM").setName("Kho Hồ Chí Minh").setId(2L);
+        Warehouse thirdWarehouse = (Warehouse) new Warehouse().setCode("DN").setName("Kho Đà Nẵng").setId(3L);
+
+        when(inventoryCheckpointRepository.findLastCheckpointAt(at)).thenReturn(Optional.of(FIRST_CUTOFF));
+        when(inventoryCheckpointRepository.findLatestByVariantIds(List.of(1L), at)).thenReturn(List.of(
+                checkpoint(variant, firstWarehouse, FIRST_CUTOFF, 10, 2, 0),
+                checkpoint(variant, secondWarehouse, atStartOfDay(LocalDate.of(2024, 3, 1)), 4, 0, 0)));
+        when(inventoryLedgerRepository.sumBetweenByVariantId(1L, FIRST_CUTOFF, at)).thenReturn(List.of(
+                new InventoryLedgerSum(1L, 1L, -3L, 1L, 5L),
+                new InventoryLedgerSum(1L, 3L, 2L, 0L, 0L)));
+        when(warehouseRepository.findAllById(any()))
+                .thenReturn(List.of(firstWarehouse, secondWarehouse, thirdWarehouse));
+
+        InventoryAsOfResponse response = inventoryLedgerService.findAsOf(1L, null, at);
+
+        assertEquals(3, response.getWarehouses().size());
+
+        InventoryAsOfResponse.WarehouseInventoryResponse first = response.getWarehouses().get(0);
+        assertEquals("HN", first.getWarehouseCode());
+        assertEquals(FIRST_CUTOFF, first.getCheckpointAt());
+        assertEquals(7, first.getInventory());
+        assertEquals(3, first.getWaitingForDelivery());
+        assertEquals(4, first.getCanBeSold());
+        assertEquals(5, first.getAreComing());
+
+        // Kho chỉ có biến động, chưa từng được chốt sổ
+        InventoryAsOfResponse.WarehouseInventoryResponse third = response.getWarehouses().get(2);
+        assertNull(third.getCheckpointAt());
+        assertEquals(2, third.getInventory());
+
+        assertEquals(13, response.getInventory());
+        assertEquals(3, response.getWaitingForDelivery());
+        assertEquals(10, response.getCanBeSold());
+        assertEquals(5, response.getAreComing());
+    }
+
+    @Test
+    void findAsOf_withWarehouseId_shouldOnlyReturnThatWarehouse() {
+        Instant at = at(LocalDate.of(2024, 3, 12), 12);
+        Variant variant = (Variant) new Variant().setId(1L);
+        Warehouse firstWarehouse = (Warehouse) new Warehouse().setId(1L);
+        Warehouse thirdWarehouse = (Warehouse) new Warehouse().setCode("DN").setId(3L);
+
+        when(inventoryCheckpointRepository.findLastCheckpointAt(at)).thenReturn(Optional.of(FIRST_CUTOFF));
+        when(inventoryCheckpointRepository.findLatestByVariantIds(List.of(1L), at))
+                .thenReturn(List.of(checkpoint(variant, firstWarehouse, FIRST_CUTOFF, 10, 2, 0)));
+        when(inventoryLedgerRepository.sumBetweenByVariantId(1L, FIRST_CUTOFF, at))
+                .thenReturn(List.of(new InventoryLedgerSum(1L, 3L, 2L, 0L, 0L)));
+        when(warehouseRepository.findAllById(Set.of(3L))).thenReturn(List.of(thirdWarehouse));
+
+        InventoryAsOfResponse response = inventoryLedgerService.findAsOf(1L, 3L, at);
+
+        assertEquals(1, response.getWarehouses().size());
+        assertEquals("DN", response.getWarehouses().get(0).getWarehouseCode());
+        assertEquals(2, response.getInventory());
+        assertEquals(2, response.getCanBeSold());
+    }
+
+    private static InventoryCheckpoint checkpoint(Variant variant, Warehouse warehouse, Instant checkpointAt,
+                                                  int inventory, int waitingForDelivery, int areComing) {
+        return new InventoryCheckpoint()
+                .setVariant(variant)
+                .setWarehouse(warehouse)
+                .setCheckpointAt(checkpointAt)
+                .setInventory(inventory)
+                .setWaitingForDelivery(waitingForDelivery)
+                .setAreComing(areComing);
+    }
+
+    private static Instant atStartOfDay(LocalDate date) {
+        return date.atStartOfDay(ZONE).toInstant();
+    }
+
+    private static Instant at(LocalDate date, int hour) {
+        return date.atTime(LocalTime.of(hour, 0)).atZone(ZONE).toInstant();
+    }
+
+}
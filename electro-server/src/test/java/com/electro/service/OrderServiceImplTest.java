@@ -13,6 +13,8 @@ import com.electro.entity.authentication.User;
 import com.electro.entity.cart.Cart;
 import com.electro.entity.cart.CartVariant;
 import com.electro.entity.cashbook.PaymentMethodType;
+import com.electro.entity.inventory.Docket;
+import com.electro.entity.order.Order;
 import com.electro.entity.product.Product;
 import com.electro.entity.product.Variant;
 import com.electro.entity.promotion.Promotion;
@@ -20,23 +22,31 @@ import com.electro.exception.ResourceNotFoundException;
 import com.electro.repository.authentication.UserRepository;
 import com.electro.repository.cart.CartRepository;
 import com.electro.repository.order.OrderRepository;
-import com.electro.repository.promotion.PromotionRepository;
+import com.electro.service.inventory.DocketService;
 import com.electro.service.order.OrderServiceImpl;
+import com.electro.service.inventory.StockReservationService;
+import com.electro.service.promotion.ActivePromotionIndex;
 import lombok.SneakyThrows;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -52,11 +62,17 @@ public class OrderServiceImplTest {
     @Mock
     private CartRepository cartRepository;
     @Mock
-    private PromotionRepository promotionRepository;
+    private ActivePromotionIndex activePromotionIndex;
     @Mock
     private OrderRepository orderRepository;
     @Mock
     private PayPalHttpClient payPalHttpClient;
+    @Mock
+    private StockReservationService stockReservationService;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    @Mock
+    private DocketService docketService;
 
     @BeforeEach
     void setup() {
@@ -64,6 +80,14 @@ public class OrderServiceImplTest {
         Authentication auth = mock(Authentication.class);
         when(auth.getName()).thenReturn("testuser");
         SecurityContextHolder.getContext().setAuthentication(auth);
+
+        // Chạy các giao dịch của TransactionTemplate ngay trong lời gọi
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        lenient().doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
     }
 
     private User mockUser() {
@@ -108,7 +132,7 @@ public class OrderServiceImplTest {
 
         when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
         when(cartRepository.findByUsername("testuser")).thenReturn(Optional.of(cart));
-        when(promotionRepository.findActivePromotionByProductId(1L)).thenReturn(List.of());
+        when(activePromotionIndex.findActivePromotions(Set.of(1L))).thenReturn(Map.of());
 
         ClientSimpleOrderRequest request = new ClientSimpleOrderRequest();
         request.setPaymentMethodType(PaymentMethodType.CASH);
@@ -122,6 +146,7 @@ public class OrderServiceImplTest {
         assertNull(response.getOrderPaypalCheckoutLink());
 
         verify(orderRepository).save(any());
+        verify(stockReservationService).reserve(any());
         verify(cartRepository).save(cart);
     }
 
@@ -135,7 +160,7 @@ public class OrderServiceImplTest {
 
         when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
         when(cartRepository.findByUsername("testuser")).thenReturn(Optional.of(cart));
-        when(promotionRepository.findActivePromotionByProductId(1L)).thenReturn(List.of(promotion));
+        when(activePromotionIndex.findActivePromotions(Set.of(1L))).thenReturn(Map.of(1L, promotion));
 
         ClientSimpleOrderRequest request = new ClientSimpleOrderRequest();
         request.setPaymentMethodType(PaymentMethodType.CASH);
@@ -158,7 +183,7 @@ public class OrderServiceImplTest {
 
         when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
         when(cartRepository.findByUsername("testuser")).thenReturn(Optional.of(cart));
-        when(promotionRepository.findActivePromotionByProductId(1L)).thenReturn(List.of());
+        when(activePromotionIndex.findActivePromotions(Set.of(1L))).thenReturn(Map.of());
 
         PaypalResponse paypalResponse = new PaypalResponse();
         paypalResponse.setId("paypal-id");
@@ -172,6 +197,7 @@ public class OrderServiceImplTest {
         paypalResponse.setLinks(List.of(link));
 
         when(payPalHttpClient.createPaypalTransaction(any())).thenReturn(paypalResponse);
+        when(orderRepository.findById(any())).thenReturn(Optional.of(new Order().setUser(user)));
 
         ClientSimpleOrderRequest request = new ClientSimpleOrderRequest();
         request.setPaymentMethodType(PaymentMethodType.PAYPAL);
@@ -179,9 +205,11 @@ public class OrderServiceImplTest {
         // Act
         ClientConfirmedOrderResponse response = orderService.createClientOrder(request);
 
-        // Assert
+        // Assert: giao dịch PayPal được gắn vào đơn và cart chỉ bị vô hiệu sau khi tạo được giao dịch
         assertEquals("https://paypal.com/checkout", response.getOrderPaypalCheckoutLink());
-        verify(orderRepository).save(any());
+        verify(orderRepository).save(argThat(order -> "paypal-id".equals(order.getPaypalOrderId())));
+        verify(cartRepository).save(cart);
+        assertEquals(2, cart.getStatus());
     }
 
     @SneakyThrows
@@ -194,16 +222,92 @@ public class OrderServiceImplTest {
 
         when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
         when(cartRepository.findByUsername("testuser")).thenReturn(Optional.of(cart));
-        when(promotionRepository.findActivePromotionByProductId(1L)).thenReturn(List.of());
+        when(activePromotionIndex.findActivePromotions(Set.of(1L))).thenReturn(Map.of());
 
         when(payPalHttpClient.createPaypalTransaction(any())).thenThrow(new RuntimeException("PayPal error"));
+        when(orderRepository.cancelIfNewAndUnpaid(any())).thenReturn(1);
 
         ClientSimpleOrderRequest request = new ClientSimpleOrderRequest();
         request.setPaymentMethodType(PaymentMethodType.PAYPAL);
 
-        // Act & Assert
+        // Act & Assert: hàng đã giữ được trả lại, đơn bị hủy và cart vẫn còn hiệu lực
         RuntimeException ex = assertThrows(RuntimeException.class, () -> orderService.createClientOrder(request));
         assertTrue(ex.getMessage().contains("Cannot create PayPal transaction request"));
+        verify(stockReservationService).reserve(any());
+        verify(stockReservationService).release(any());
+        verify(cartRepository, never()).save(any());
+        assertEquals(1, cart.getStatus());
+    }
+
+    @Test
+    void createClientOrder_paypalNotEnoughStock_shouldNotCreatePaypalTransaction() throws Exception {
+        // Arrange
+        User user = mockUser();
+        Variant variant = mockVariant(BigDecimal.valueOf(100000));
+        Cart cart = mockCart(variant, 3);
+
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+        when(cartRepository.findByUsername("testuser")).thenReturn(Optional.of(cart));
+        when(activePromotionIndex.findActivePromotions(Set.of(1L))).thenReturn(Map.of());
+        doThrow(new RuntimeException("Variant with id 2 does not have enough stock for quantity 3"))
+                .when(stockReservationService).reserve(any());
+
+        ClientSimpleOrderRequest request = new ClientSimpleOrderRequest();
+        request.setPaymentMethodType(PaymentMethodType.PAYPAL);
+
+        // Act & Assert: giữ hàng thất bại trước khi gọi PayPal nên không có giao dịch PayPal nào bị bỏ lại
+        RuntimeException ex = assertThrows(RuntimeException.class, () -> orderService.createClientOrder(request));
+        assertTrue(ex.getMessage().contains("does not have enough stock"));
+        verify(payPalHttpClient, never()).createPaypalTransaction(any());
+        verify(cartRepository, never()).save(any());
+    }
+
+    @Test
+    void cancelExpiredOrders_shouldCancelOnlyNewUnpaidOrders() {
+        // Arrange: đơn 1 vẫn chưa thanh toán, đơn 2 vừa được thanh toán trước khi bị hủy
+        when(stockReservationService.findExpiredOrderIds()).thenReturn(List.of(1L, 2L));
+        when(orderRepository.cancelIfNewAndUnpaid(1L)).thenReturn(1);
+        when(orderRepository.cancelIfNewAndUnpaid(2L)).thenReturn(0);
+
+        // Act
+        int cancelled = orderService.cancelExpiredOrders();
+
+        // Assert
+        assertEquals(1, cancelled);
+        verify(stockReservationService).release(1L);
+        verify(stockReservationService, never()).release(2L);
+        verify(stockReservationService).clearExpiry(2L);
+    }
+
+    @Test
+    void delete_shouldRemoveDocketsAndStockReservationsBeforeOrders() {
+        // Arrange: đơn 1 đã có phiếu xuất, đơn 2 chưa có phiếu
+        Order orderWithDocket = new Order().setDockets(List.of((Docket) new Docket().setId(10L)));
+        when(orderRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(orderWithDocket, new Order()));
+
+        // Act
+        orderService.delete(List.of(1L, 2L));
+
+        // Assert: phiếu được xóa qua DocketService để cập nhật tồn kho, stock_reservation tham chiếu tới đơn hàng
+        // nên phải được trả hàng và xóa trước khi xóa đơn
+        InOrder inOrder = inOrder(docketService, stockReservationService, orderRepository);
+        inOrder.verify(docketService).delete(List.of(10L));
+        inOrder.verify(stockReservationService).remove(1L);
+        inOrder.verify(stockReservationService).remove(2L);
+        inOrder.verify(orderRepository).deleteAllById(List.of(1L, 2L));
+    }
+
+    @Test
+    void captureTransactionPaypal_cancelledOrder_shouldNotCapture() throws Exception {
+        Order order = new Order();
+        order.setCode("CANCELLED");
+        order.setStatus(5);
+
+        when(orderRepository.findByPaypalOrderIdForUpdate("paypal-id")).thenReturn(Optional.of(order));
+
+        assertThrows(RuntimeException.class, () -> orderService.captureTransactionPaypal("paypal-id", "payer-id"));
+        verify(payPalHttpClient, never()).capturePaypalTransaction(any(), any());
+        verify(stockReservationService, never()).clearExpiry(any());
     }
 
     @Test
@@ -0,0 +1,128 @@
+package com.electro.service;
+
+import com.electro.entity.review.ProductRating;
+import com.electro.event.CatalogChangePublisher;
+import com.electro.event.CatalogChangedEvent;
+import com.electro.repository.review.ProductRatingRepository;
+import com.electro.service.review.ProductRatingServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ProductRatingServiceImplTest {
+
+    @InjectMocks
+    private ProductRatingServiceImpl productRatingService;
+
+    @Mock
+    private ProductRatingRepository productRatingRepository;
+    @Mock
+    private CatalogChangePublisher publisher;
+
+    @Test
+    void add_shouldIncrementRatingAndRefreshProductCard() {
+        productRatingService.add(7L, 4);
+
+        verify(productRatingRepository).addRating(7L, 4, 1);
+        // Điểm đánh giá không làm sản phẩm ra vào danh sách, chỉ đổi nội dung thẻ
+        verify(publisher).publish(CatalogChangedEvent.ofProductContents(Set.of(7L)));
+    }
+
+    @Test
+    void remove_shouldDecrementRating() {
+        productRatingService.remove(7L, 2);
+
+        verify(productRatingRepository).addRating(7L, 2, -1);
+        verify(publisher).publish(CatalogChangedEvent.ofProductContents(Set.of(7L)));
+    }
+
+    @Test
+    void findByProductId_withoutReviews_shouldReturnZeroRating() {
+        when(productRatingRepository.findById(7L)).thenReturn(Optional.empty());
+
+        ProductRating productRating = productRatingService.findByProductId(7L);
+
+        assertEquals(7L, productRating.getProductId());
+        assertEquals(0, productRating.getReviewCount());
+        assertEquals(0, productRating.getAverageRatingScore());
+        assertEquals(List.of(0, 0, 0, 0, 0), productRating.getRatingScoreCounts());
+    }
+
+    @Test
+    void findByProductIds_shouldFillMissingProducts() {
+        ProductRating existing = rating(1L, 0, 1, 0, 1, 1);
+        when(productRatingRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(existing));
+
+        Map<Long, ProductRating> productRatings = productRatingService.findByProductIds(List.of(1L, 2L));
+
+        assertEquals(Set.of(1L, 2L), productRatings.keySet());
+        assertSame(existing, productRatings.get(1L));
+        assertEquals(0, productRatings.get(2L).getReviewCount());
+    }
+
+    @Test
+    void getAverageRatingScore_shouldRoundUp() {
+        // (2 + 4 + 5) / 3 = 3,67 -> 4
+        ProductRating productRating = rating(1L, 0, 1, 0, 1, 1);
+
+        assertEquals(3, productRating.getReviewCount());
+        assertEquals(4, productRating.getAverageRatingScore());
+        assertEquals(List.of(0, 1, 0, 1, 1), productRating.getRatingScoreCounts());
+
+        // Điểm trung bình tròn thì giữ nguyên
+        assertEquals(5, rating(2L, 0, 0, 0, 0, 2).getAverageRatingScore());
+    }
+
+    @Test
+    void rebuild_shouldReplaceAggregatesFromReviews() {
+        when(productRatingRepository.insertFromReviews()).thenReturn(3);
+
+        assertEquals(3, productRatingService.rebuild());
+
+        InOrder inOrder = inOrder(productRatingRepository);
+        inOrder.verify(productRatingRepository).deleteAllInBatch();
+        inOrder.verify(productRatingRepository).insertFromReviews();
+    }
+
+    @Test
+    void rebuildIfEmpty_withExistingAggregates_shouldDoNothing() {
+        when(productRatingRepository.count()).thenReturn(3L);
+
+        productRatingService.rebuildIfEmpty();
+
+        verify(productRatingRepository, never()).insertFromReviews();
+    }
+
+    private static ProductRating rating(Long productId, int... counts) {
+        int reviewCount = 0;
+        int ratingSum = 0;
+
+        for (int score = 1; score <= counts.length; score++) {
+            reviewCount += counts[score - 1];
+            ratingSum += score * counts[score - 1];
+        }
+
+        return new ProductRating()
+                .setProductId(productId)
+                .setReviewCount(reviewCount)
+                .setRatingSum(ratingSum)
+                .setRating1(counts[0])
+                .setRating2(counts[1])
+                .setRating3(counts[2])
+                .setRating4(counts[3])
+                .setRating5(counts[4]);
+    }
+
+}
@@ -0,0 +1,131 @@
+package com.electro.service;
+
+import com.electro.dto.inventory.WarehouseCandidateResponse;
+import com.electro.entity.address.Address;
+import com.electro.entity.address.District;
+import com.electro.entity.address.Province;
+import com.electro.entity.inventory.Warehouse;
+import com.electro.entity.inventory.WarehouseStock;
+import com.electro.entity.inventory.WarehouseStockKey;
+import com.electro.exception.ResourceNotFoundException;
+import com.electro.repository.inventory.WarehouseStockRepository;
+import com.electro.repository.order.OrderRepository;
+import com.electro.service.inventory.WarehouseStockServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class WarehouseStockServiceImplTest {
+
+    @InjectMocks
+    private WarehouseStockServiceImpl warehouseStockService;
+
+    @Mock
+    private WarehouseStockRepository warehouseStockRepository;
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Test
+    void rankWarehouses_shouldPreferFulfillableThenNearest() {
+        Warehouse dongDa = warehouse(1L, 1, "Hà Nội", "Đống Đa");
+        Warehouse cauGiay = warehouse(2L, 1, "Hà Nội", "Cầu Giấy");
+        Warehouse hoChiMinh = warehouse(3L, 1, "Hồ Chí Minh", "Quận 1");
+        Warehouse cauGiaySmall = warehouse(4L, 1, "Hà Nội", "Cầu Giấy");
+        Warehouse inactive = warehouse(5L, 2, "Hà Nội", "Cầu Giấy");
+
+        when(warehouseStockRepository.findByVariantIds(any())).thenReturn(List.of(
+                stock(1L, dongDa, 5), stock(2L, dongDa, 1),
+                stock(1L, cauGiay, 2), stock(2L, cauGiay, 1),
+                stock(1L, hoChiMinh, 10),
+                // Số lượng âm (đã giữ chỗ quá tồn) được tính như 0
+                stock(1L, cauGiaySmall, 1), stock(2L, cauGiaySmall, -2),
+                stock(1L, inactive, 100), stock(2L, inactive, 100)));
+
+        List<WarehouseCandidateResponse> candidates = warehouseStockService
+                .rankWarehouses(Map.of(1L, 2, 2L, 1), " hà nội ", "CẦU GIẤY");
+
+        assertEquals(List.of(2L, 1L, 3L, 4L), warehouseIds(candidates));
+
+        WarehouseCandidateResponse nearest = candidates.get(0);
+        assertTrue(nearest.getFulfillable());
+        assertEquals(0, nearest.getMissingQuantity());
+        assertEquals(2, nearest.getProximity());
+        assertEquals(3, nearest.getCanBeSold());
+
+        assertEquals(1, candidates.get(1).getProximity());
+
+        WarehouseCandidateResponse farthest = candidates.get(2);
+        assertFalse(farthest.getFulfillable());
+        assertEquals(1, farthest.getMissingQuantity());
+        assertEquals(0, farthest.getProximity());
+
+        WarehouseCandidateResponse shortest = candidates.get(3);
+        assertEquals(2, shortest.getMissingQuantity());
+        assertEquals(1, shortest.getCanBeSold());
+    }
+
+    @Test
+    void rankWarehouses_withSameProximity_shouldPreferMoreStockThenLowerId() {
+        Warehouse first = warehouse(1L, 1, "Đà Nẵng", "Hải Châu");
+        Warehouse second = warehouse(2L, 1, "Đà Nẵng", "Hải Châu");
+        Warehouse third = warehouse(3L, 1, "Đà Nẵng", "Hải Châu");
+
+        when(warehouseStockRepository.findByVariantIds(any())).thenReturn(List.of(
+                stock(1L, third, 3), stock(1L, first, 3), stock(1L, second, 8)));
+
+        List<WarehouseCandidateResponse> candidates = warehouseStockService.rankWarehouses(Map.of(1L, 1), null, null);
+
+        assertEquals(List.of(2L, 1L, 3L), warehouseIds(candidates));
+        assertTrue(candidates.stream().allMatch(candidate -> candidate.getProximity() == 0));
+    }
+
+    @Test
+    void rankWarehouses_withNoQuantities_shouldReturnEmptyList() {
+        assertTrue(warehouseStockService.rankWarehouses(Map.of(), "Hà Nội", null).isEmpty());
+
+        verify(warehouseStockRepository, never()).findByVariantIds(any());
+    }
+
+    @Test
+    void rankWarehousesForOrder_withUnknownOrder_shouldThrow() {
+        when(orderRepository.findById(99L)).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> warehouseStockService.rankWarehousesForOrder(99L));
+    }
+
+    private static Warehouse warehouse(Long id, int status, String provinceName, String districtName) {
+        Address address = new Address()
+                .setProvince(new Province().setName(provinceName))
+                .setDistrict(new District().setName(districtName));
+
+        return (Warehouse) new Warehouse()
+                .setCode("W" + id)
+                .setName("Kho " + id)
+                .setAddress(address)
+                .setStatus(status)
+                .setId(id);
+    }
+
+    private static WarehouseStock stock(Long variantId, Warehouse warehouse, int canBeSold) {
+        return new WarehouseStock()
+                .setWarehouseStockKey(new WarehouseStockKey(variantId, warehouse.getId()))
+                .setWarehouse(warehouse)
+                .setCanBeSold(canBeSold);
+    }
+
+    private static List<Long> warehouseIds(List<WarehouseCandidateResponse> candidates) {
+        return candidates.stream().map(WarehouseCandidateResponse::getWarehouseId).collect(Collectors.toList());
+    }
+
+}
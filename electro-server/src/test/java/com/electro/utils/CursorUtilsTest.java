@@ -0,0 +1,70 @@
+package com.electro.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CursorUtilsTest {
+
+    @Test
+    void encodeDecode_shouldRoundTripKeyAndId() {
+        CursorUtils.Cursor cursor = CursorUtils.decode(CursorUtils.encode(1_250_000.5, 42L));
+
+        assertEquals("1250000.5", cursor.getKey());
+        assertEquals(42L, cursor.getId());
+    }
+
+    @Test
+    void encodeDecode_keyContainingSeparator_shouldSplitOnLastSeparator() {
+        CursorUtils.Cursor cursor = CursorUtils.decode(CursorUtils.encode("a|b", 7L));
+
+        assertEquals("a|b", cursor.getKey());
+        assertEquals(7L, cursor.getId());
+    }
+
+    @Test
+    void encode_nullKey_shouldDecodeToEmptyKey() {
+        CursorUtils.Cursor cursor = CursorUtils.decode(CursorUtils.encode(null, 3L));
+
+        assertEquals("", cursor.getKey());
+        assertEquals(3L, cursor.getId());
+    }
+
+    @Test
+    void encode_shouldBeUrlSafe() {
+        String cursor = CursorUtils.encode("???>>>", Long.MAX_VALUE);
+
+        assertTrue(cursor.matches("[A-Za-z0-9_-]+"));
+    }
+
+    @Test
+    void decode_blank_shouldReturnNull() {
+        assertNull(CursorUtils.decode(null));
+        assertNull(CursorUtils.decode(""));
+        assertNull(CursorUtils.decode("  "));
+    }
+
+    @Test
+    void decode_invalid_shouldThrow() {
+        assertThrows(IllegalArgumentException.class, () -> CursorUtils.decode("not a cursor!"));
+        // Giải mã được nhưng thiếu dấu phân cách
+        assertThrows(IllegalArgumentException.class, () -> CursorUtils.decode("MTIz"));
+        // Phần id không phải số
+        assertThrows(IllegalArgumentException.class, () -> CursorUtils.decode(CursorUtils.encode("1", null)));
+    }
+
+    @Test
+    void parseKey_shouldConvertToPropertyType() {
+        Instant now = Instant.parse("2022-06-10T11:43:15.123Z");
+
+        assertEquals(12L, CursorUtils.parseKey(Long.class, "12"));
+        assertEquals(12, CursorUtils.parseKey(Integer.class, "12"));
+        assertEquals(12.5, CursorUtils.parseKey(Double.class, "12.5"));
+        assertEquals(now, CursorUtils.parseKey(Instant.class, now.toString()));
+        assertEquals("abc", CursorUtils.parseKey(String.class, "abc"));
+        assertThrows(IllegalArgumentException.class, () -> CursorUtils.parseKey(Boolean.class, "true"));
+    }
+
+}
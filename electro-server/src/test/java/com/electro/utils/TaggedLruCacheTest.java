@@ -0,0 +1,110 @@
+package com.electro.utils;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TaggedLruCacheTest {
+
+    private MeterRegistry meterRegistry;
+
+    private TaggedLruCache<String, Integer> cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new TaggedLruCache<>("test.cache", 2, meterRegistry);
+    }
+
+    @Test
+    void get_shouldCountHitsAndMisses() {
+        cache.put("a", 1, Set.of("product:1"), cache.version());
+
+        assertEquals(Optional.of(1), cache.get("a"));
+        assertEquals(Optional.empty(), cache.get("b"));
+
+        assertEquals(1.0, meterRegistry.counter("test.cache.requests", "result", "hit").count());
+        assertEquals(1.0, meterRegistry.counter("test.cache.requests", "result", "miss").count());
+    }
+
+    @Test
+    void put_overCapacity_shouldEvictLeastRecentlyUsed() {
+        cache.put("a", 1, Set.of("product:1"), cache.version());
+        cache.put("b", 2, Set.of("product:2"), cache.version());
+
+        // Đọc "a" để "b" trở thành mục ít dùng nhất
+        cache.get("a");
+        cache.put("c", 3, Set.of("product:3"), cache.version());
+
+        assertEquals(2, cache.size());
+        assertTrue(cache.get("a").isPresent());
+        assertFalse(cache.get("b").isPresent());
+        assertTrue(cache.get("c").isPresent());
+        assertEquals(1.0, meterRegistry.counter("test.cache.evictions", "cause", "size").count());
+    }
+
+    @Test
+    void invalidate_shouldRemoveOnlyTaggedEntries() {
+        cache.put("a", 1, Set.of("product:1", "category:1"), cache.version());
+        cache.put("b", 2, Set.of("product:2"), cache.version());
+
+        cache.invalidate(List.of("category:1"));
+
+        assertFalse(cache.get("a").isPresent());
+        assertTrue(cache.get("b").isPresent());
+        assertEquals(1.0, meterRegistry.counter("test.cache.evictions", "cause", "invalidation").count());
+    }
+
+    @Test
+    void put_afterInvalidation_shouldDropStaleValue() {
+        long readVersion = cache.version();
+
+        // Dữ liệu thay đổi trong lúc đang tính giá trị
+        cache.invalidate(List.of("product:1"));
+        cache.put("a", 1, Set.of("product:1"), readVersion);
+
+        assertFalse(cache.get("a").isPresent());
+    }
+
+    @Test
+    void put_replacingEntry_shouldDropOldTags() {
+        cache.put("a", 1, Set.of("product:1"), cache.version());
+        cache.put("a", 2, Set.of("product:2"), cache.version());
+
+        cache.invalidate(List.of("product:1"));
+
+        assertEquals(Optional.of(2), cache.get("a"));
+    }
+
+    @Test
+    void evictedEntry_shouldNotBeInvalidatedLater() {
+        cache.put("a", 1, Set.of("product:1"), cache.version());
+        cache.put("b", 2, Set.of("product:2"), cache.version());
+        cache.put("c", 3, Set.of("product:3"), cache.version());
+
+        cache.invalidate(List.of("product:1"));
+
+        // "a" đã bị đẩy ra vì đầy, không tính thêm lần xóa theo tag
+        assertEquals(0.0, meterRegistry.counter("test.cache.evictions", "cause", "invalidation").count());
+    }
+
+    @Test
+    void clear_shouldRemoveEverythingAndBumpVersion() {
+        cache.put("a", 1, Set.of("product:1"), cache.version());
+        long version = cache.version();
+
+        cache.clear();
+
+        assertEquals(0, cache.size());
+        assertTrue(cache.version() > version);
+        assertEquals(0.0, meterRegistry.get("test.cache.size").gauge().value());
+    }
+
+}
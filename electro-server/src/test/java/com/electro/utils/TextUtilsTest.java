@@ -0,0 +1,34 @@
+package com.electro.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TextUtilsTest {
+
+    @Test
+    void fold_shouldRemoveVietnameseMarksAndLowercase() {
+        assertEquals("dien thoai samsung", TextUtils.fold("Điện thoại Samsung"));
+        assertEquals("op lung do", TextUtils.fold("Ốp LƯNG ĐỎ"));
+    }
+
+    @Test
+    void fold_null_shouldReturnEmpty() {
+        assertEquals("", TextUtils.fold(null));
+    }
+
+    @Test
+    void tokenize_shouldSplitOnNonAlphanumeric() {
+        assertEquals(List.of("laptop", "dell", "xps", "13", "9315"), TextUtils.tokenize("  Laptop Dell-XPS 13/9315 "));
+        assertEquals(List.of("sac", "nhanh", "25w"), TextUtils.tokenize("Sạc nhanh (25W)"));
+    }
+
+    @Test
+    void tokenize_blank_shouldReturnEmpty() {
+        assertTrue(TextUtils.tokenize("  - ").isEmpty());
+        assertTrue(TextUtils.tokenize(null).isEmpty());
+    }
+
+}